@@ -0,0 +1,232 @@
+package com.d4k.ecommerce.common.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded LRU Cache
+ * Cache in-process đọc xuyên (read-through) có TTL, giới hạn cả số entry lẫn tổng "trọng lượng" ước tính (byte).
+ * LinkedHashMap access-order giữ thứ tự LRU; mọi truy cập map nằm trong lock của cache,
+ * còn loader (query DB) chạy ngoài lock để một lần miss chậm không chặn các lần hit.
+ *
+ * Invalidate tăng một bộ đếm thế hệ: giá trị load xong sau khi có invalidate xảy ra giữa chừng
+ * bị bỏ (không put) vì có thể đã đọc dữ liệu cũ.
+ */
+public class BoundedLruCache<K, V> {
+    
+    private final String name;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    
+    private long weightBytes;
+    private long generation;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    
+    public BoundedLruCache(String name, int maxEntries, long maxWeightBytes, Duration ttl, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+    }
+    
+    /**
+     * Lấy từ cache, nếu miss / hết hạn thì gọi loader và cache kết quả (null không được cache)
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                    hits++;
+                    return entry.value();
+                }
+                removeEntry(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        
+        long weight = weigher.applyAsLong(value);
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                putEntry(key, value, weight);
+                evictIfNeeded();
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Lấy nhiều key cùng lúc: các key miss / hết hạn được load chung bằng một lần gọi loader
+     * (loader nhận danh sách key miss, trả về map; key không có trong map thì không được cache)
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        long loadGeneration;
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null) {
+                    if (now - entry.loadedAt() < ttlNanos) {
+                        hits++;
+                        result.put(key, entry.value());
+                        continue;
+                    }
+                    removeEntry(key);
+                    expirations++;
+                }
+                missing.add(key);
+            }
+            misses += missing.size();
+            loadGeneration = generation;
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        
+        Map<K, V> loaded = loader.apply(new ArrayList<>(missing));
+        synchronized (this) {
+            boolean current = loadGeneration == generation;
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                result.put(entry.getKey(), entry.getValue());
+                if (current) {
+                    putEntry(entry.getKey(), entry.getValue(), weigher.applyAsLong(entry.getValue()));
+                }
+            }
+            evictIfNeeded();
+        }
+        return result;
+    }
+    
+    /**
+     * Bỏ một key
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (removeEntry(key) != null) {
+            invalidations++;
+        }
+    }
+    
+    /**
+     * Bỏ nhiều key
+     */
+    public synchronized void invalidateAll(Collection<K> keys) {
+        generation++;
+        for (K key : keys) {
+            if (removeEntry(key) != null) {
+                invalidations++;
+            }
+        }
+    }
+    
+    /**
+     * Bỏ các key thỏa điều kiện
+     */
+    public synchronized void invalidateIf(Predicate<K> condition) {
+        generation++;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (condition.test(entry.getKey())) {
+                weightBytes -= entry.getValue().weight();
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+    
+    /**
+     * Bỏ toàn bộ cache
+     */
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        weightBytes = 0;
+    }
+    
+    public synchronized CacheStats stats() {
+        long requests = hits + misses;
+        return CacheStats.builder()
+                .name(name)
+                .hits(hits)
+                .misses(misses)
+                .hitRate(requests == 0 ? 0.0 : (double) hits / requests)
+                .evictions(evictions)
+                .expirations(expirations)
+                .invalidations(invalidations)
+                .size(entries.size())
+                .maxEntries(maxEntries)
+                .weightBytes(weightBytes)
+                .maxWeightBytes(maxWeightBytes)
+                .build();
+    }
+    
+    private void putEntry(K key, V value, long weight) {
+        if (weight > maxWeightBytes) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime()));
+        if (previous != null) {
+            weightBytes -= previous.weight();
+        }
+        weightBytes += weight;
+    }
+    
+    private Entry<V> removeEntry(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weightBytes -= removed.weight();
+        }
+        return removed;
+    }
+    
+    /**
+     * Bỏ entry ít dùng gần đây nhất cho tới khi thỏa cả hai giới hạn
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+            weightBytes -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+    
+    private record Entry<V>(V value, long weight, long loadedAt) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.d4k.ecommerce.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot số liệu của một BoundedLruCache
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    
+    private String name;
+    
+    // Truy cập
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    
+    // Loại bỏ
+    private Long evictions;
+    private Long expirations;
+    private Long invalidations;
+    
+    // Dung lượng
+    private Integer size;
+    private Integer maxEntries;
+    private Long weightBytes;
+    private Long maxWeightBytes;
+}
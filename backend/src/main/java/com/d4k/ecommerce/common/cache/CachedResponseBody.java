@@ -0,0 +1,54 @@
+package com.d4k.ecommerce.common.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cached Response Body
+ * Body JSON đã serialize sẵn (và bản gzip nếu đủ lớn) cùng strong ETag của từng bản.
+ * Bản gzip là representation khác (khác byte) nên có ETag riêng: ETag gốc thêm hậu tố "-gz".
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CachedResponseBody {
+    
+    private final byte[] body;
+    
+    /**
+     * Bản nén gzip (null nếu body nhỏ hơn ngưỡng nén)
+     */
+    private final byte[] gzipBody;
+    
+    private final String etag;
+    
+    /**
+     * ETag của bản gzip (null nếu không có bản gzip)
+     */
+    private final String gzipEtag;
+    
+    public static CachedResponseBody of(byte[] body, String etag, int gzipMinBytes) {
+        byte[] gzipBody = body.length >= gzipMinBytes ? gzip(body) : null;
+        String gzipEtag = gzipBody != null ? etag.substring(0, etag.length() - 1) + "-gz\"" : null;
+        return new CachedResponseBody(body, gzipBody, etag, gzipEtag);
+    }
+    
+    public long weight() {
+        return body.length + (gzipBody != null ? gzipBody.length + gzipEtag.length() : 0) + etag.length();
+    }
+    
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
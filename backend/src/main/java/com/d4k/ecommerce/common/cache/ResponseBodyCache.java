@@ -0,0 +1,132 @@
+package com.d4k.ecommerce.common.cache;
+
+import com.d4k.ecommerce.common.response.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Response Body Cache
+ * Cache body JSON đã serialize của các endpoint đọc nhiều. Khi hit, handler trả thẳng byte[]
+ * (ByteArrayHttpMessageConverter ghi nguyên vào output stream) nên không dựng lại ApiResponse
+ * và không chạy ObjectMapper; nếu client gửi If-None-Match trùng ETag thì trả 304 không body.
+ *
+ * ETag là hash của phần data (không gồm timestamp của ApiResponse) nên load lại dữ liệu
+ * không đổi vẫn cho cùng ETag. Bản gzip và bản gốc có strong ETag khác nhau (hậu tố "-gz"),
+ * để cache trung gian không trả nhầm bản nén cho client không nhận gzip sau khi revalidate.
+ */
+public class ResponseBodyCache {
+    
+    private static final String GZIP = "gzip";
+    
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+    private final BoundedLruCache<String, CachedResponseBody> cache;
+    
+    public ResponseBodyCache(String name, ObjectMapper objectMapper, int maxEntries, long maxWeightBytes,
+                             Duration ttl, int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        this.cache = new BoundedLruCache<>(name, maxEntries, maxWeightBytes, ttl, CachedResponseBody::weight);
+    }
+    
+    /**
+     * Trả response cho key: 304 nếu ETag khớp, ngược lại body đã cache (gzip nếu client nhận)
+     * @param loader dựng ApiResponse khi miss
+     */
+    public ResponseEntity<byte[]> respond(String key, HttpServletRequest request, Supplier<ApiResponse<?>> loader) {
+        CachedResponseBody cached = cache.get(key, k -> serialize(loader.get()));
+        
+        // Chọn representation trước: 304 phải so với ETag của đúng bản sẽ gửi
+        boolean gzip = cached.getGzipBody() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? cached.getGzipEtag() : cached.getEtag();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        headers.setCacheControl(CacheControl.noCache());
+        
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = cached.getBody();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            body = cached.getGzipBody();
+        }
+        headers.setContentLength(body.length);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+    
+    public void invalidateIf(Predicate<String> condition) {
+        cache.invalidateIf(condition);
+    }
+    
+    public void clear() {
+        cache.clear();
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    private CachedResponseBody serialize(ApiResponse<?> response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            byte[] data = objectMapper.writeValueAsBytes(response.getData());
+            return CachedResponseBody.of(body, etagOf(data), gzipMinBytes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cached response", e);
+        }
+    }
+    
+    private static String etagOf(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * If-None-Match có thể là "*" hoặc danh sách ETag (kể cả dạng weak W/"...")
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+}
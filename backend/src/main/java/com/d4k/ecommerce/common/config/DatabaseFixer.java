@@ -1,8 +1,11 @@
 package com.d4k.ecommerce.common.config;
 
+import com.d4k.ecommerce.modules.product.entity.ProductVariant;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
@@ -35,6 +38,145 @@ public class DatabaseFixer {
         }
     }
 
+    /**
+     * Ghi sổ cái cho các orders đang mở đã trừ stock trước khi có stock_movements
+     * (chạy sau khi Hibernate tạo bảng, chỉ khi sổ cái còn trống)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillStockMovements() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM stock_movements LIMIT 1) t", Integer.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            int rows = jdbcTemplate.update(
+                    "INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at) " +
+                    "SELECT oi.order_id, oi.product_id, v.id, 'DEDUCT', -oi.quantity, 'Backfill', o.created_at " +
+                    "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                    "JOIN LATERAL (SELECT pv.id FROM product_variants pv WHERE pv.product_id = oi.product_id " +
+                    "  AND (oi.size IS NULL OR LOWER(pv.size) = LOWER(oi.size)) " +
+                    "  AND (oi.color IS NULL OR LOWER(pv.color) = LOWER(oi.color)) " +
+                    "  ORDER BY pv.id LIMIT 1) v ON TRUE " +
+                    "WHERE o.status IN ('PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPING')");
+            log.info("Backfilled {} stock movements for open orders", rows);
+        } catch (Exception e) {
+            log.warn("Could not backfill stock movements: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Dựng closure table từ parent_id cho các categories có trước khi có category_closure
+     * (chỉ khi bảng closure còn trống)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCategoryClosure() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM category_closure LIMIT 1) t", Integer.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            int rows = jdbcTemplate.update(
+                    "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                    "WITH RECURSIVE paths(ancestor_id, descendant_id, depth) AS ( " +
+                    "  SELECT id, id, 0 FROM categories " +
+                    "  UNION ALL " +
+                    "  SELECT p.ancestor_id, c.id, p.depth + 1 FROM paths p JOIN categories c ON c.parent_id = p.descendant_id) " +
+                    "SELECT ancestor_id, descendant_id, depth FROM paths");
+            log.info("Backfilled {} category closure rows", rows);
+        } catch (Exception e) {
+            log.warn("Could not backfill category closure: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đồng bộ products.stock với tổng stock variants (dữ liệu cũ trước khi stock được duy trì
+     * incremental, hoặc bị sửa tay trong DB) - chỉ update những dòng lệch
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileProductStock() {
+        try {
+            int rows = jdbcTemplate.update(
+                    "UPDATE products p SET stock = s.total " +
+                    "FROM (SELECT p2.id, COALESCE(SUM(v.stock), 0) AS total FROM products p2 " +
+                    "  LEFT JOIN product_variants v ON v.product_id = p2.id GROUP BY p2.id) s " +
+                    "WHERE p.id = s.id AND p.stock <> s.total");
+            if (rows > 0) {
+                log.info("Reconciled stock total of {} products", rows);
+            }
+        } catch (Exception e) {
+            log.warn("Could not reconcile product stock: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tính variant_key cho các variants có trước khi có khóa chuẩn. Khi dữ liệu cũ có variants trùng khóa
+     * (chỉ khác hoa / thường) thì variant id nhỏ nhất nhận khóa, các variant còn lại giữ null để unique index
+     * không bị vi phạm và được log ra để admin gộp tay
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVariantKeys() {
+        try {
+            int rows = jdbcTemplate.update(
+                    "UPDATE product_variants v SET variant_key = k.variant_key " +
+                    "FROM (SELECT DISTINCT ON (product_id, variant_key) id, variant_key FROM ( " +
+                    "  SELECT id, product_id, LOWER(TRIM(size)) || '" + ProductVariant.KEY_SEPARATOR + "' || " +
+                    "    LOWER(TRIM(COALESCE(color, ''))) AS variant_key " +
+                    "  FROM product_variants) c " +
+                    "  WHERE NOT EXISTS (SELECT 1 FROM product_variants e WHERE e.product_id = c.product_id " +
+                    "    AND e.variant_key = c.variant_key) " +
+                    "  ORDER BY product_id, variant_key, id) k " +
+                    "WHERE v.id = k.id AND v.variant_key IS NULL");
+            if (rows > 0) {
+                log.info("Backfilled variant key of {} product variants", rows);
+            }
+            Integer duplicates = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM product_variants WHERE variant_key IS NULL", Integer.class);
+            if (duplicates != null && duplicates > 0) {
+                log.warn("{} product variants duplicate another variant of the same product (case-insensitive size / color) " +
+                        "and are ignored by cart / checkout lookups", duplicates);
+            }
+        } catch (Exception e) {
+            log.warn("Could not backfill variant keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cart item unique theo variant kể cả khi size / color null: thay unique (cart_id, product_id) cũ và constraint
+     * uk_cart_item_variant do Hibernate tạo trước đây (coi NULL là khác nhau) bằng unique index trên COALESCE.
+     * Các dòng trùng có sẵn được gộp vào dòng id nhỏ nhất (cộng quantity) trước khi tạo index
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCartItemVariantUnique() {
+        try {
+            jdbcTemplate.execute("ALTER TABLE cart_items DROP CONSTRAINT IF EXISTS uk_cart_product");
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                    "WHERE c.relname = 'uk_cart_item_variant' AND i.indexprs IS NOT NULL)", Boolean.class);
+            if (Boolean.TRUE.equals(exists)) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE cart_items DROP CONSTRAINT IF EXISTS uk_cart_item_variant");
+            int merged = jdbcTemplate.update(
+                    "WITH ranked AS ( " +
+                    "  SELECT id, SUM(quantity) OVER w AS total, ROW_NUMBER() OVER (w ORDER BY id) AS rn " +
+                    "  FROM cart_items " +
+                    "  WINDOW w AS (PARTITION BY cart_id, product_id, COALESCE(size, ''), COALESCE(color, ''))), " +
+                    "kept AS ( " +
+                    "  UPDATE cart_items ci SET quantity = r.total FROM ranked r " +
+                    "  WHERE ci.id = r.id AND r.rn = 1 AND ci.quantity <> r.total) " +
+                    "DELETE FROM cart_items ci USING ranked r WHERE ci.id = r.id AND r.rn > 1");
+            if (merged > 0) {
+                log.info("Merged {} duplicate cart items", merged);
+            }
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_cart_item_variant " +
+                    "ON cart_items (cart_id, product_id, COALESCE(size, ''), COALESCE(color, ''))");
+        } catch (Exception e) {
+            log.warn("Could not create cart item variant unique index: {}", e.getMessage());
+        }
+    }
+    
     private void resetSequence(String tableName, String sequenceName) {
         try {
             String sql = String.format("SELECT setval('%s', COALESCE((SELECT MAX(id) FROM %s), 1))", sequenceName, tableName);
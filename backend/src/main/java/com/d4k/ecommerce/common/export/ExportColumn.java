@@ -0,0 +1,26 @@
+package com.d4k.ecommerce.common.export;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Một cột của file export
+ * @param name tên cột (header CSV / field JSON)
+ * @param reader đọc giá trị từ dòng hiện tại của ResultSet
+ * @param rawJson giá trị là JSON do database dựng sẵn (json_agg...): NDJSON ghi nguyên văn, CSV ghi dạng chuỗi
+ */
+public record ExportColumn(String name, Reader reader, boolean rawJson) {
+    
+    public static ExportColumn of(String name, Reader reader) {
+        return new ExportColumn(name, reader, false);
+    }
+    
+    public static ExportColumn json(String name, Reader reader) {
+        return new ExportColumn(name, reader, true);
+    }
+    
+    @FunctionalInterface
+    public interface Reader {
+        Object read(ResultSet rs) throws SQLException;
+    }
+}
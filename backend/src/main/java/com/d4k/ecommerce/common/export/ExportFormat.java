@@ -0,0 +1,9 @@
+package com.d4k.ecommerce.common.export;
+
+/**
+ * Định dạng file export
+ */
+public enum ExportFormat {
+    CSV,    // Header + mỗi dòng một record
+    NDJSON  // Mỗi dòng một object JSON
+}
@@ -0,0 +1,235 @@
+package com.d4k.ecommerce.common.export;
+
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming Exporter
+ * Export kết quả một query ra CSV / NDJSON, ghi thẳng vào response theo từng dòng.
+ *
+ * Query chạy trong một transaction read-only với fetch size: PostgreSQL JDBC driver chỉ dùng cursor
+ * (lấy từng đợt fetch-size dòng) khi autocommit tắt, nếu không driver đọc toàn bộ kết quả vào heap.
+ * Nhờ vậy bộ nhớ dùng không phụ thuộc số dòng. Gzip (khi client nhận) được nén trên đường ghi.
+ */
+@Slf4j
+@Component
+public class StreamingExporter {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final NamedParameterJdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public StreamingExporter(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.cursorJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Parse tham số format (csv / ndjson, không phân biệt hoa thường)
+     */
+    public ExportFormat parseFormat(String format) {
+        for (ExportFormat value : ExportFormat.values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new BusinessException("Unsupported export format, use csv or ndjson", "INVALID_EXPORT_FORMAT");
+    }
+    
+    /**
+     * Dựng response tải file: Content-Type, Content-Disposition và gzip nếu client nhận
+     * @param baseName tên file (không gồm ngày và phần mở rộng)
+     */
+    public ResponseEntity<StreamingResponseBody> response(String baseName, ExportFormat format,
+                                                          HttpServletRequest request, StreamingResponseBody body) {
+        String fileName = baseName + "-" + LocalDate.now() + (format == ExportFormat.CSV ? ".csv" : ".ndjson");
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format == ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+        
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        StreamingResponseBody gzipBody = out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+            body.writeTo(gzip);
+            gzip.finish();
+        };
+        return ResponseEntity.ok().headers(headers).body(gzipBody);
+    }
+    
+    /**
+     * Chạy query và ghi từng dòng ra out (không đóng out)
+     * @return số dòng đã ghi
+     */
+    public long stream(OutputStream out, ExportFormat format, String sql, SqlParameterSource params,
+                       List<ExportColumn> columns) throws IOException {
+        long start = System.currentTimeMillis();
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(out, columns);
+        
+        long[] rows = {0};
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status ->
+                    cursorJdbcTemplate.query(sql, params, rs -> {
+                        try {
+                            writer.write(rs);
+                        } catch (IOException e) {
+                            // Thường là client ngắt kết nối: dừng đọc cursor
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        
+        log.info("Exported {} rows as {} in {} ms", rows[0], format, System.currentTimeMillis() - start);
+        return rows[0];
+    }
+    
+    private interface RowWriter {
+        
+        void write(ResultSet rs) throws IOException, SQLException;
+        
+        void finish() throws IOException;
+    }
+    
+    private static class CsvRowWriter implements RowWriter {
+        
+        private final Writer writer;
+        private final List<ExportColumn> columns;
+        
+        CsvRowWriter(OutputStream out, List<ExportColumn> columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.columns = columns;
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns.get(i).reader().read(rs);
+                if (value != null) {
+                    writeField(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+        
+        /**
+         * RFC 4180: bọc field trong dấu nháy khi chứa dấu phẩy, nháy kép hoặc xuống dòng
+         */
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+    
+    private class NdjsonRowWriter implements RowWriter {
+        
+        private final JsonGenerator generator;
+        private final List<ExportColumn> columns;
+        
+        NdjsonRowWriter(OutputStream out, List<ExportColumn> columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (ExportColumn column : columns) {
+                Object value = column.reader().read(rs);
+                generator.writeFieldName(column.name());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (column.rawJson()) {
+                    generator.writeRawValue(value.toString());
+                } else {
+                    generator.writeObject(value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
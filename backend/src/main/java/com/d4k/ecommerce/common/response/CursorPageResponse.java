@@ -0,0 +1,52 @@
+package com.d4k.ecommerce.common.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cursor Paginated Response Structure
+ * Dạng slice của PageResponse: không có totalElements / totalPages nên không cần COUNT query
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    
+    private List<T> content;
+    
+    private int size;
+    
+    /**
+     * Token để lấy trang sau (null nếu là trang cuối)
+     */
+    private String nextCursor;
+    
+    private boolean hasNext;
+    
+    /**
+     * Create CursorPageResponse từ các dòng đọc bằng KeysetCursor.window(size)
+     * @param rows tối đa size + 1 dòng theo thứ tự (created_at, id) giảm dần
+     * @param mapper entity -> DTO
+     * @param cursorOf vị trí keyset của một dòng
+     */
+    public static <E, T> CursorPageResponse<T> from(List<E> rows, int size,
+                                                   Function<E, T> mapper,
+                                                   Function<E, KeysetCursor> cursorOf) {
+        int pageSize = KeysetCursor.clamp(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+        
+        return CursorPageResponse.<T>builder()
+                .content(page.stream().map(mapper).toList())
+                .size(pageSize)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+}
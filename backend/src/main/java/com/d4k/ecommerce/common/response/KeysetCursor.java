@@ -0,0 +1,68 @@
+package com.d4k.ecommerce.common.response;
+
+import com.d4k.ecommerce.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset Cursor
+ * Vị trí (created_at, id) của dòng cuối trang trước, encode thành token opaque cho client.
+ * Trang sau seek bằng "(created_at, id) < (cursor)" trên index (…, created_at, id) nên chi phí mỗi trang không đổi.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    
+    public static final int MAX_PAGE_SIZE = 100;
+    
+    private static final String SEPARATOR = "|";
+    
+    private final LocalDateTime createdAt;
+    
+    private final Long id;
+    
+    /**
+     * Encode thành token base64url
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode token từ client
+     * @return null nếu token rỗng (trang đầu)
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessException("Invalid cursor", "INVALID_CURSOR");
+        }
+    }
+    
+    /**
+     * Cửa sổ cần đọc cho một trang: size + 1 dòng để biết còn trang sau hay không (không COUNT)
+     */
+    public static Pageable window(int size) {
+        return PageRequest.of(0, clamp(size) + 1);
+    }
+    
+    public static int clamp(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
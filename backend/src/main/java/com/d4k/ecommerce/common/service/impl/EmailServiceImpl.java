@@ -1,54 +1,35 @@
 package com.d4k.ecommerce.common.service.impl;
 
 import com.d4k.ecommerce.common.service.EmailService;
+import com.d4k.ecommerce.modules.notification.service.EmailOutboxService;
 import com.d4k.ecommerce.modules.order.entity.Order;
 import com.d4k.ecommerce.modules.order.entity.OrderItem;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Locale;
 
+/**
+ * Email Service Implementation
+ * Email được render ngay và ghi vào outbox trong transaction của caller;
+ * EmailOutboxDispatcher gửi sau khi commit nên request không chờ SMTP.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender javaMailSender;
+    private final EmailOutboxService emailOutboxService;
 
-    @Value("${spring.mail.username}")
-    private String senderEmail;
-
-    @Async
     @Override
     public void sendEmail(String to, String subject, String body) {
-        log.info("Sending email to: {}", to);
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(senderEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true); // true = isHtml
-            
-            javaMailSender.send(message);
-            log.info("Email sent successfully to: {}", to);
-        } catch (MessagingException e) {
-            log.error("Failed to send email to: {}", to, e);
-            throw new RuntimeException("Failed to send email");
-        }
+        log.info("Queueing email to: {}", to);
+        emailOutboxService.enqueue(to, subject, body);
     }
 
-    @Async
     @Override
     public void sendOrderConfirmation(Order order) {
         String subject = "Order Confirmation #" + order.getOrderNumber();
@@ -56,7 +37,6 @@ public class EmailServiceImpl implements EmailService {
         sendEmail(order.getUser().getEmail(), subject, body);
     }
 
-    @Async
     @Override
     public void sendOrderStatusUpdate(Order order) {
         String subject = "Order Status Update #" + order.getOrderNumber();
@@ -0,0 +1,93 @@
+package com.d4k.ecommerce.common.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV Reader (RFC 4180)
+ * Đọc tuần tự từng record từ Reader, chỉ giữ record hiện tại trong bộ nhớ.
+ * Hỗ trợ field trong dấu nháy kép (chứa dấu phẩy, xuống dòng, "" là một dấu nháy) và cả LF lẫn CRLF.
+ */
+public class CsvReader implements Closeable {
+    
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * Đọc record tiếp theo
+     * @return danh sách field, null khi hết dữ liệu
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int next = read();
+                if (next != '\n' && next != -1) {
+                    position--;
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
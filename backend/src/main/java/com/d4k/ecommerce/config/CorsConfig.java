@@ -36,7 +36,9 @@ public class CorsConfig {
                 "Content-Type",
                 "Accept",
                 "Authorization",
-                "X-Requested-With"
+                "X-Requested-With",
+                "If-None-Match",
+                "If-Modified-Since"
         ));
         
         // Cho phép các HTTP methods
@@ -50,7 +52,7 @@ public class CorsConfig {
         ));
         
         // Expose headers
-        config.setExposedHeaders(List.of("Authorization"));
+        config.setExposedHeaders(List.of("Authorization", "ETag", "Last-Modified"));
         
         // Max age
         config.setMaxAge(3600L);
@@ -0,0 +1,59 @@
+package com.d4k.ecommerce.modules.cart.cache;
+
+import com.d4k.ecommerce.modules.cart.dto.response.CartSummaryResponse;
+import com.d4k.ecommerce.modules.cart.event.CartCheckedOutEvent;
+import com.d4k.ecommerce.modules.cart.store.CartSnapshot;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cart Summary Cache
+ * Tóm tắt giỏ hàng theo user, gắn với đúng snapshot của CartStore đã dùng để tính: snapshot là bất biến và
+ * được thay mới mỗi lần sửa giỏ, nên entry chỉ hợp lệ khi snapshot hiện tại là cùng object (không cần invalidate
+ * theo từng mutation). Các thao tác giỏ hàng đã có sẵn giá products nên ghi luôn tóm tắt vào đây.
+ * Giá product có thể đổi: bỏ toàn bộ khi có ProductChangedEvent.
+ */
+@Component
+public class CartSummaryCache {
+    
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    
+    public CartSummaryCache(@Value("${app.cart-summary.max-entries:50000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * Tóm tắt đã tính cho đúng snapshot này, không có thì null
+     */
+    public CartSummaryResponse get(CartSnapshot cart) {
+        Entry entry = entries.get(cart.userId());
+        return entry != null && entry.cart() == cart ? entry.summary() : null;
+    }
+    
+    public void put(CartSnapshot cart, CartSummaryResponse summary) {
+        if (entries.size() >= maxEntries && !entries.containsKey(cart.userId())) {
+            // Giỏ không còn hoạt động chiếm chỗ: bỏ hết, các giỏ đang dùng tự tính lại
+            entries.clear();
+        }
+        entries.put(cart.userId(), new Entry(cart, summary));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        entries.clear();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartCheckedOut(CartCheckedOutEvent event) {
+        entries.remove(event.getUserId());
+    }
+    
+    private record Entry(CartSnapshot cart, CartSummaryResponse summary) {
+    }
+}
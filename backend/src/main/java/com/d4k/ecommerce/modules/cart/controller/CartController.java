@@ -2,8 +2,10 @@ package com.d4k.ecommerce.modules.cart.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
 import com.d4k.ecommerce.modules.cart.dto.request.AddToCartRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartBatchRequest;
 import com.d4k.ecommerce.modules.cart.dto.request.UpdateCartItemRequest;
 import com.d4k.ecommerce.modules.cart.dto.response.CartResponse;
+import com.d4k.ecommerce.modules.cart.dto.response.CartSummaryResponse;
 import com.d4k.ecommerce.modules.cart.service.CartService;
 import com.d4k.ecommerce.security.SecurityUtils;
 import jakarta.validation.Valid;
@@ -45,6 +47,24 @@ public class CartController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Tóm tắt giỏ hàng cho badge (số item, tổng tiền)
+     * GET /api/v1/cart/summary
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<CartSummaryResponse>> getCartSummary() {
+        Long userId = getCurrentUserId();
+        
+        CartSummaryResponse summary = cartService.getCartSummary(userId);
+        
+        ApiResponse<CartSummaryResponse> response = ApiResponse.success(
+                summary,
+                "Cart summary retrieved successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Thêm sản phẩm vào giỏ hàng
      * POST /api/v1/cart/add
@@ -66,6 +86,27 @@ public class CartController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
     
+    /**
+     * Áp dụng nhiều thao tác add / update / remove trong một request (nguyên tử)
+     * POST /api/v1/cart/batch
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @Valid @RequestBody CartBatchRequest request) {
+        
+        Long userId = getCurrentUserId();
+        log.info("User {} applying {} cart operations", userId, request.getOperations().size());
+        
+        CartResponse cart = cartService.applyBatch(userId, request);
+        
+        ApiResponse<CartResponse> response = ApiResponse.success(
+                cart,
+                "Cart updated successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Cập nhật số lượng cart item
      * PUT /api/v1/cart/update/{itemId}
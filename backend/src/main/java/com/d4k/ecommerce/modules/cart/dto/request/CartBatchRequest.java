@@ -0,0 +1,26 @@
+package com.d4k.ecommerce.modules.cart.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO request cho cập nhật giỏ hàng theo lô (khôi phục giỏ đã lưu, mua cả bộ sản phẩm)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+    
+    @NotEmpty(message = "Operations are required")
+    @Size(max = 50, message = "At most 50 operations per batch")
+    private List<@NotNull @Valid CartOperationRequest> operations;
+}
@@ -0,0 +1,35 @@
+package com.d4k.ecommerce.modules.cart.dto.request;
+
+import com.d4k.ecommerce.modules.cart.enums.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO request cho một thao tác trong batch giỏ hàng
+ * - ADD: productId, quantity, size, color (giống thêm vào giỏ)
+ * - UPDATE: itemId, quantity
+ * - REMOVE: itemId
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationRequest {
+    
+    @NotNull(message = "Operation type is required")
+    private CartOperationType type;
+    
+    private Long itemId;
+    
+    private Long productId;
+    
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+    
+    private String size;
+    private String color;
+}
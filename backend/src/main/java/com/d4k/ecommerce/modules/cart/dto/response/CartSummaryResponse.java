@@ -0,0 +1,24 @@
+package com.d4k.ecommerce.modules.cart.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO response cho tóm tắt giỏ hàng (badge trên header)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryResponse {
+    
+    private Integer totalItems; // Số dòng trong giỏ (giống CartResponse.totalItems)
+    
+    private Integer totalQuantity; // Tổng số lượng sản phẩm
+    
+    private BigDecimal totalAmount; // Tổng tiền
+}
@@ -17,9 +17,10 @@ import java.time.LocalDateTime;
  * Item trong giỏ hàng (product + quantity)
  */
 @Entity
-@Table(name = "cart_items", uniqueConstraints = {
-    @UniqueConstraint(name = "uk_cart_product", columnNames = {"cart_id", "product_id"})
-})
+// Một dòng cho mỗi variant: unique index uk_cart_item_variant trên (cart_id, product_id, COALESCE(size, ''),
+// COALESCE(color, '')) do DatabaseFixer tạo (V27). Không khai báo @UniqueConstraint: constraint thường coi các
+// NULL là khác nhau nên không chặn được hai dòng cùng product không size / không color
+@Table(name = "cart_items")
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Builder
@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.cart.enums;
+
+/**
+ * Cart Operation Type Enum
+ * Loại thao tác trong batch cập nhật giỏ hàng
+ */
+public enum CartOperationType {
+    /**
+     * Thêm sản phẩm (cộng dồn số lượng nếu variant đã có trong giỏ)
+     */
+    ADD,
+    
+    /**
+     * Đặt số lượng của một cart item
+     */
+    UPDATE,
+    
+    /**
+     * Xóa một cart item
+     */
+    REMOVE
+}
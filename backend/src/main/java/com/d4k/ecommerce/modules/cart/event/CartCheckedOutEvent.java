@@ -0,0 +1,16 @@
+package com.d4k.ecommerce.modules.cart.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cart Checked Out Event
+ * Publish khi checkout đã xóa cart_items của user trong transaction tạo order;
+ * CartStore bỏ giỏ trong bộ nhớ sau commit để lần đọc sau thấy giỏ trống.
+ */
+@Getter
+@AllArgsConstructor
+public class CartCheckedOutEvent {
+    
+    private final Long userId;
+}
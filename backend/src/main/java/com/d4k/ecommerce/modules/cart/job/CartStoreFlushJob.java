@@ -0,0 +1,40 @@
+package com.d4k.ecommerce.modules.cart.job;
+
+import com.d4k.ecommerce.modules.cart.store.CartStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cart Store Flush Job
+ * Định kỳ ghi các giỏ hàng có thay đổi xuống carts / cart_items theo lô
+ * và bỏ khỏi bộ nhớ các giỏ đã ghi mà lâu không được truy cập.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartStoreFlushJob {
+    
+    private final CartStore cartStore;
+    
+    @Scheduled(fixedDelayString = "${app.cart-store.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            int flushed = cartStore.flushDirty();
+            if (flushed > 0) {
+                log.debug("Flushed {} carts", flushed);
+            }
+        } catch (Exception e) {
+            log.error("Cart store flush failed: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cart-store.evict-interval-ms:60000}")
+    public void evictIdle() {
+        int evicted = cartStore.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle carts", evicted);
+        }
+    }
+}
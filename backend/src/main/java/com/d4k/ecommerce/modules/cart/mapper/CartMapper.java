@@ -2,12 +2,15 @@ package com.d4k.ecommerce.modules.cart.mapper;
 
 import com.d4k.ecommerce.modules.cart.dto.response.CartItemResponse;
 import com.d4k.ecommerce.modules.cart.dto.response.CartResponse;
-import com.d4k.ecommerce.modules.cart.entity.Cart;
-import com.d4k.ecommerce.modules.cart.entity.CartItem;
+import com.d4k.ecommerce.modules.cart.store.CartLine;
+import com.d4k.ecommerce.modules.cart.store.CartSnapshot;
+import com.d4k.ecommerce.modules.product.entity.Product;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -18,42 +21,43 @@ import java.util.stream.Collectors;
 public class CartMapper {
     
     /**
-     * Convert CartItem entity sang CartItemResponse
+     * Convert cart line sang CartItemResponse (product đã load sẵn)
      */
-    public CartItemResponse toCartItemResponse(CartItem cartItem) {
-        if (cartItem == null || cartItem.getProduct() == null) {
+    public CartItemResponse toCartItemResponse(CartLine line, Product product) {
+        if (line == null || product == null) {
             return null;
         }
         
-        BigDecimal price = cartItem.getProduct().getPrice();
-        Integer quantity = cartItem.getQuantity();
+        BigDecimal price = product.getPrice();
+        Integer quantity = line.quantity();
         BigDecimal subtotal = price.multiply(BigDecimal.valueOf(quantity));
         
         return CartItemResponse.builder()
-                .id(cartItem.getId())
-                .productId(cartItem.getProduct().getId())
-                .productName(cartItem.getProduct().getName())
-                .productImageUrl(cartItem.getProduct().getImageUrl())
+                .id(line.id())
+                .productId(product.getId())
+                .productName(product.getName())
+                .productImageUrl(product.getImageUrl())
                 .productPrice(price)
                 .quantity(quantity)
                 .subtotal(subtotal)
-                .stock(cartItem.getProduct().getTotalStock())
-                .size(cartItem.getSize())
-                .color(cartItem.getColor())
+                .stock(product.getStock())
+                .size(line.size())
+                .color(line.color())
                 .build();
     }
     
     /**
-     * Convert Cart entity sang CartResponse
+     * Convert giỏ hàng trong CartStore sang CartResponse (products theo id, dòng thiếu product bị bỏ qua)
      */
-    public CartResponse toCartResponse(Cart cart) {
+    public CartResponse toCartResponse(CartSnapshot cart, Map<Long, Product> products) {
         if (cart == null) {
             return null;
         }
         
         // Map items
-        List<CartItemResponse> itemResponses = cart.getItems().stream()
-                .map(this::toCartItemResponse)
+        List<CartItemResponse> itemResponses = cart.lines().stream()
+                .map(line -> toCartItemResponse(line, products.get(line.productId())))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
         
         // Calculate totals
@@ -63,8 +67,8 @@ public class CartMapper {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         
         return CartResponse.builder()
-                .id(cart.getId())
-                .userId(cart.getUser() != null ? cart.getUser().getId() : null)
+                .id(cart.cartId())
+                .userId(cart.userId())
                 .items(itemResponses)
                 .totalItems(totalItems)
                 .totalAmount(totalAmount)
@@ -1,8 +1,10 @@
 package com.d4k.ecommerce.modules.cart.service;
 
 import com.d4k.ecommerce.modules.cart.dto.request.AddToCartRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartBatchRequest;
 import com.d4k.ecommerce.modules.cart.dto.request.UpdateCartItemRequest;
 import com.d4k.ecommerce.modules.cart.dto.response.CartResponse;
+import com.d4k.ecommerce.modules.cart.dto.response.CartSummaryResponse;
 
 /**
  * Cart Service Interface
@@ -17,6 +19,13 @@ public interface CartService {
      */
     CartResponse getCart(Long userId);
     
+    /**
+     * Tóm tắt giỏ hàng (không load items / products)
+     * @param userId user ID
+     * @return số dòng, tổng số lượng và tổng tiền
+     */
+    CartSummaryResponse getCartSummary(Long userId);
+    
     /**
      * Thêm sản phẩm vào giỏ hàng
      * @param userId user ID
@@ -42,6 +51,15 @@ public interface CartService {
      */
     CartResponse removeCartItem(Long userId, Long itemId);
     
+    /**
+     * Áp dụng nhiều thao tác add / update / remove một cách nguyên tử
+     * (một thao tác lỗi thì giỏ hàng giữ nguyên)
+     * @param userId user ID
+     * @param request danh sách thao tác, áp dụng theo thứ tự
+     * @return giỏ hàng sau khi áp dụng
+     */
+    CartResponse applyBatch(Long userId, CartBatchRequest request);
+    
     /**
      * Xóa toàn bộ giỏ hàng (clear cart)
      * @param userId user ID
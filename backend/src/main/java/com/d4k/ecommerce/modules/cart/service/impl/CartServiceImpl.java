@@ -4,188 +4,149 @@ import com.d4k.ecommerce.common.constants.ErrorCodes;
 import com.d4k.ecommerce.common.exception.BusinessException;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
 import com.d4k.ecommerce.modules.cart.dto.request.AddToCartRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartBatchRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartOperationRequest;
 import com.d4k.ecommerce.modules.cart.dto.request.UpdateCartItemRequest;
+import com.d4k.ecommerce.modules.cart.cache.CartSummaryCache;
+import com.d4k.ecommerce.modules.cart.dto.response.CartItemResponse;
 import com.d4k.ecommerce.modules.cart.dto.response.CartResponse;
-import com.d4k.ecommerce.modules.cart.entity.Cart;
-import com.d4k.ecommerce.modules.cart.entity.CartItem;
+import com.d4k.ecommerce.modules.cart.dto.response.CartSummaryResponse;
+import com.d4k.ecommerce.modules.cart.enums.CartOperationType;
 import com.d4k.ecommerce.modules.cart.mapper.CartMapper;
-import com.d4k.ecommerce.modules.cart.repository.CartItemRepository;
-import com.d4k.ecommerce.modules.cart.repository.CartRepository;
 import com.d4k.ecommerce.modules.cart.service.CartService;
+import com.d4k.ecommerce.modules.cart.store.CartDraft;
+import com.d4k.ecommerce.modules.cart.store.CartLine;
+import com.d4k.ecommerce.modules.cart.store.CartPersistence;
+import com.d4k.ecommerce.modules.cart.store.CartSnapshot;
+import com.d4k.ecommerce.modules.cart.store.CartStore;
+import com.d4k.ecommerce.modules.product.cache.ProductVariantCache;
+import com.d4k.ecommerce.modules.product.cache.ProductVariantIndex;
 import com.d4k.ecommerce.modules.product.entity.Product;
-import com.d4k.ecommerce.modules.product.entity.ProductVariant;
 import com.d4k.ecommerce.modules.product.repository.ProductRepository;
-import com.d4k.ecommerce.modules.user.entity.User;
-import com.d4k.ecommerce.modules.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Cart Service Implementation
- * Xử lý business logic cho giỏ hàng
+ * Xử lý business logic cho giỏ hàng.
+ * Giỏ hàng được đọc / sửa qua CartStore (ghi xuống DB theo lô), mỗi thao tác chỉ còn một query load
+ * các products trong giỏ để dựng response; variant / stock tra qua ProductVariantCache.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
     
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CartPersistence cartPersistence;
+    private final CartSummaryCache cartSummaryCache;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
     private final CartMapper cartMapper;
+    private final ProductVariantCache productVariantCache;
     
     /**
      * Lấy giỏ hàng của user
+     * Chỉ đọc: item không còn hợp lệ (product / variant bị xóa) đã được CartProductListener bỏ khi product thay đổi
      */
     @Override
-    @Transactional
     public CartResponse getCart(Long userId) {
         log.info("Fetching cart for user ID: {}", userId);
         
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseGet(() -> getOrCreateCart(userId));
-        
-        // Validate items and remove invalid ones (e.g. variant deleted)
-        boolean cartUpdated = false;
-        java.util.Iterator<CartItem> iterator = cart.getItems().iterator();
-        
-        while (iterator.hasNext()) {
-            CartItem item = iterator.next();
-            Product product = item.getProduct();
-            
-            if (item.getSize() != null) {
-                boolean variantExists = product.getVariants().stream()
-                        .anyMatch(v -> v.getSize().equalsIgnoreCase(item.getSize()) && 
-                                      (item.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(item.getColor()))));
-                
-                if (!variantExists) {
-                    log.warn("Removing invalid cart item {} (Variant not found: {} - {})", item.getId(), product.getName(), item.getSize());
-                    iterator.remove();
-                    cartItemRepository.delete(item); // Explicitly delete from DB
-                    cartUpdated = true;
-                }
-            }
-        }
-        
-        if (cartUpdated) {
-            cart = cartRepository.save(cart);
+        CartSnapshot cart = cartStore.get(userId);
+        return toResponse(cart, loadProducts(cart.productIds()));
+    }
+    
+    /**
+     * Tóm tắt giỏ hàng (số dòng, tổng số lượng, tổng tiền) cho badge trên header.
+     * Giỏ đọc từ CartStore; tóm tắt lấy từ CartSummaryCache nếu đã tính cho đúng snapshot hiện tại
+     * (các thao tác giỏ hàng ghi sẵn), nếu không thì một query aggregate trên products.
+     */
+    @Override
+    public CartSummaryResponse getCartSummary(Long userId) {
+        CartSnapshot cart = cartStore.get(userId);
+        CartSummaryResponse summary = cartSummaryCache.get(cart);
+        if (summary == null) {
+            summary = cartPersistence.summarize(cart);
+            cartSummaryCache.put(cart, summary);
         }
-        
-        return cartMapper.toCartResponse(cart);
+        return summary;
     }
     
     /**
      * Thêm sản phẩm vào giỏ hàng
      */
     @Override
-    @Transactional
     public CartResponse addToCart(Long userId, AddToCartRequest request) {
         log.info("Adding product {} to cart for user {}", request.getProductId(), userId);
         
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseGet(() -> getOrCreateCart(userId));
-                
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", request.getProductId()));
-                
-        // Check stock based on variant
-        int availableStock = 0;
-        if (request.getSize() != null) {
-            ProductVariant variant = product.getVariants().stream()
-                    .filter(v -> v.getSize().equalsIgnoreCase(request.getSize()))
-                    .filter(v -> request.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(request.getColor())))
-                    .findFirst()
-                    .orElseThrow(() -> new BusinessException(
-                            String.format("Variant not found for product '%s' (Size: %s, Color: %s)", 
-                                    product.getName(), request.getSize(), request.getColor()), 
-                            "VARIANT_NOT_FOUND"));
-            availableStock = variant.getStock();
-        } else {
-             // Fallback to total stock if no size specified (should be improved)
-             availableStock = product.getTotalStock();
+        CartSnapshot cart = cartStore.get(userId);
+        Set<Long> productIds = cart.productIds();
+        productIds.add(request.getProductId());
+        Map<Long, Product> products = loadProducts(productIds);
+        
+        Product product = products.get(request.getProductId());
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", request.getProductId());
         }
         
-        // Check existing item
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndProductIdAndSize(
-                cart.getId(), product.getId(), request.getSize());
-                
-        if (existingItem.isPresent()) {
-            // Update quantity
-            CartItem item = existingItem.get();
-            int newQuantity = item.getQuantity() + request.getQuantity();
+        // Check stock based on variant
+        CartVariant variant = resolveVariant(product, request.getSize(), request.getColor(),
+                request.getSize() != null ? productVariantCache.get(product.getId()) : null);
+        
+        CartSnapshot updatedCart = cartStore.update(userId, draft -> {
+            // Check existing item
+            CartLine existingItem = draft.findLine(product.getId(), variant.size(), variant.color());
+            int newQuantity = (existingItem != null ? existingItem.quantity() : 0) + request.getQuantity();
             
-            if (newQuantity > availableStock) {
+            if (newQuantity > variant.stock()) {
                 throw new BusinessException(
-                        String.format("Insufficient stock. Only %d items available", availableStock),
+                        String.format("Insufficient stock. Only %d items available", variant.stock()),
                         ErrorCodes.INSUFFICIENT_STOCK
                 );
             }
             
-            item.setQuantity(newQuantity);
-            cartItemRepository.save(item);
-            log.info("Updated quantity for existing cart item: {}", item.getId());
-        } else {
-            // Add new item
-            if (request.getQuantity() > availableStock) {
-                throw new BusinessException(
-                        String.format("Insufficient stock. Only %d items available", availableStock),
-                        ErrorCodes.INSUFFICIENT_STOCK
-                );
+            if (existingItem != null) {
+                draft.setQuantity(existingItem.id(), newQuantity);
+                log.info("Updated quantity for existing cart item: {}", existingItem.id());
+            } else {
+                draft.add(product.getId(), variant.size(), variant.color(), request.getQuantity());
+                log.info("Added new cart item for product: {}", product.getId());
             }
-            
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .size(request.getSize())
-                    .color(request.getColor())
-                    .build();
-            
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-            log.info("Added new cart item for product: {}", product.getId());
-        }
-        
-        // Refresh cart
-        Cart updatedCart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
+        });
         
-        return cartMapper.toCartResponse(updatedCart);
+        return toResponse(updatedCart, products);
     }
     
     /**
      * Cập nhật số lượng cart item
      */
     @Override
-    @Transactional
     public CartResponse updateCartItem(Long userId, Long itemId, UpdateCartItemRequest request) {
         log.info("Updating cart item {} for user {}", itemId, userId);
         
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", itemId));
-                
-        if (!cartItem.getCart().getUser().getId().equals(userId)) {
-             throw new ResourceNotFoundException("Cart item", "id", itemId);
+        CartSnapshot cart = cartStore.get(userId);
+        CartLine cartItem = cart.line(itemId);
+        if (cartItem == null) {
+            throw new ResourceNotFoundException("Cart item", "id", itemId);
         }
         
-        // Check stock
-        Product product = cartItem.getProduct();
-        int availableStock = 0;
-        if (cartItem.getSize() != null) {
-             ProductVariant variant = product.getVariants().stream()
-                    .filter(v -> v.getSize().equalsIgnoreCase(cartItem.getSize()))
-                    .findFirst()
-                    .orElse(null);
-             availableStock = variant != null ? variant.getStock() : 0;
-        } else {
-            availableStock = product.getTotalStock();
+        Map<Long, Product> products = loadProducts(cart.productIds());
+        Product product = products.get(cartItem.productId());
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", cartItem.productId());
         }
         
+        // Check stock
+        int availableStock = availableStock(cartItem, product,
+                cartItem.size() != null ? productVariantCache.get(product.getId()) : null);
+        
         if (request.getQuantity() > availableStock) {
              throw new BusinessException(
                     String.format("Insufficient stock. Only %d items available", availableStock),
@@ -193,69 +154,210 @@ public class CartServiceImpl implements CartService {
             );
         }
         
-        cartItem.setQuantity(request.getQuantity());
-        cartItemRepository.save(cartItem);
+        CartSnapshot updatedCart = cartStore.update(userId, draft -> {
+            if (!draft.setQuantity(itemId, request.getQuantity())) {
+                throw new ResourceNotFoundException("Cart item", "id", itemId);
+            }
+        });
         log.info("Cart item {} updated to quantity: {}", itemId, request.getQuantity());
         
-        // Return updated cart
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
-        
-        return cartMapper.toCartResponse(cart);
+        return toResponse(updatedCart, products);
     }
     
     /**
      * Xóa item khỏi giỏ hàng
      */
     @Override
-    @Transactional
     public CartResponse removeCartItem(Long userId, Long itemId) {
         log.info("Removing cart item {} for user {}", itemId, userId);
         
-        if (!cartItemRepository.existsByIdAndUserId(itemId, userId)) {
-            throw new ResourceNotFoundException("Cart item", "id", itemId);
+        CartSnapshot cart = cartStore.update(userId, draft -> {
+            if (!draft.remove(itemId)) {
+                throw new ResourceNotFoundException("Cart item", "id", itemId);
+            }
+        });
+        log.info("Cart item {} removed successfully", itemId);
+        
+        return toResponse(cart, loadProducts(cart.productIds()));
+    }
+    
+    /**
+     * Áp dụng batch thao tác giỏ hàng: products của giỏ + products được thêm load bằng một query IN,
+     * variants qua ProductVariantCache (một query IN cho các product miss), stock kiểm tra một lượt
+     * trên trạng thái cuối của các dòng bị thay đổi. Lỗi ở bất kỳ thao tác nào thì không áp dụng gì.
+     */
+    @Override
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        List<CartOperationRequest> operations = request.getOperations();
+        log.info("Applying {} cart operations for user {}", operations.size(), userId);
+        
+        CartSnapshot cart = cartStore.get(userId);
+        Set<Long> productIds = cart.productIds();
+        for (CartOperationRequest operation : operations) {
+            validateOperation(operation);
+            if (operation.getType() == CartOperationType.ADD) {
+                productIds.add(operation.getProductId());
+            }
         }
+        Map<Long, Product> products = loadProducts(productIds);
+        Map<Long, ProductVariantIndex> variantIndexes = productVariantCache.getAll(products.keySet());
         
-        cartItemRepository.deleteById(itemId);
-        log.info("Cart item {} removed successfully", itemId);
+        // Resolve variant của các thao tác ADD trước khi sửa giỏ
+        CartVariant[] addVariants = new CartVariant[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationRequest operation = operations.get(i);
+            if (operation.getType() == CartOperationType.ADD) {
+                Product product = products.get(operation.getProductId());
+                if (product == null) {
+                    throw new ResourceNotFoundException("Product", "id", operation.getProductId());
+                }
+                addVariants[i] = resolveVariant(product, operation.getSize(), operation.getColor(),
+                        variantIndexes.get(product.getId()));
+            }
+        }
         
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
+        CartSnapshot updatedCart = cartStore.update(userId, draft -> {
+            // line id -> stock khả dụng của các dòng bị thay đổi
+            Map<Long, Integer> stockLimits = new LinkedHashMap<>();
+            for (int i = 0; i < operations.size(); i++) {
+                CartOperationRequest operation = operations.get(i);
+                switch (operation.getType()) {
+                    case ADD -> {
+                        CartVariant variant = addVariants[i];
+                        CartLine existingItem = draft.findLine(operation.getProductId(), variant.size(), variant.color());
+                        Long lineId;
+                        if (existingItem != null) {
+                            draft.setQuantity(existingItem.id(), existingItem.quantity() + operation.getQuantity());
+                            lineId = existingItem.id();
+                        } else {
+                            lineId = draft.add(operation.getProductId(), variant.size(), variant.color(),
+                                    operation.getQuantity()).id();
+                        }
+                        stockLimits.put(lineId, variant.stock());
+                    }
+                    case UPDATE -> {
+                        CartLine cartItem = draft.findLine(operation.getItemId());
+                        if (cartItem == null) {
+                            throw new ResourceNotFoundException("Cart item", "id", operation.getItemId());
+                        }
+                        Product product = products.get(cartItem.productId());
+                        if (product == null) {
+                            throw new ResourceNotFoundException("Product", "id", cartItem.productId());
+                        }
+                        draft.setQuantity(cartItem.id(), operation.getQuantity());
+                        stockLimits.put(cartItem.id(), availableStock(cartItem, product, variantIndexes.get(product.getId())));
+                    }
+                    case REMOVE -> {
+                        if (!draft.remove(operation.getItemId())) {
+                            throw new ResourceNotFoundException("Cart item", "id", operation.getItemId());
+                        }
+                        stockLimits.remove(operation.getItemId());
+                    }
+                }
+            }
+            
+            // Check stock một lượt trên số lượng cuối cùng
+            for (Map.Entry<Long, Integer> limit : stockLimits.entrySet()) {
+                CartLine line = draft.findLine(limit.getKey());
+                if (line.quantity() > limit.getValue()) {
+                    throw new BusinessException(
+                            String.format("Insufficient stock for product %s. Only %d items available",
+                                    products.get(line.productId()).getName(), limit.getValue()),
+                            ErrorCodes.INSUFFICIENT_STOCK
+                    );
+                }
+            }
+        });
+        log.info("Applied {} cart operations for user {}", operations.size(), userId);
         
-        return cartMapper.toCartResponse(cart);
+        return toResponse(updatedCart, products);
     }
     
     /**
      * Xóa toàn bộ giỏ hàng
      */
     @Override
-    @Transactional
     public void clearCart(Long userId) {
         log.info("Clearing cart for user {}", userId);
         
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
-        
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        cartStore.update(userId, CartDraft::clear);
         log.info("Cart cleared successfully for user {}", userId);
     }
     
     /**
-     * Helper method: Get hoặc tạo cart mới cho user
+     * Helper method: Variant ứng với size / color của request (size / color lưu theo đúng variant để "m" và "M"
+     * là cùng một cart item). Không có size thì dùng tổng stock của product.
+     */
+    private CartVariant resolveVariant(Product product, String size, String color, ProductVariantIndex variantIndex) {
+        if (size == null) {
+            // Fallback to total stock if no size specified (should be improved)
+            return new CartVariant(null, color, product.getStock());
+        }
+        ProductVariantIndex.Variant variant = variantIndex.find(size, color);
+        if (variant == null) {
+            throw new BusinessException(
+                    String.format("Variant not found for product '%s' (Size: %s, Color: %s)",
+                            product.getName(), size, color),
+                    "VARIANT_NOT_FOUND");
+        }
+        return new CartVariant(variant.size(), variant.color(), variant.stock());
+    }
+    
+    /**
+     * Helper method: Stock khả dụng cho một dòng trong giỏ
      */
-    private Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    log.info("Creating new cart for user {}", userId);
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
-                    
-                    Cart newCart = Cart.builder()
-                            .user(user)
-                            .build();
-                    
-                    return cartRepository.save(newCart);
-                });
+    private int availableStock(CartLine cartItem, Product product, ProductVariantIndex variantIndex) {
+        if (cartItem.size() == null) {
+            return product.getStock();
+        }
+        ProductVariantIndex.Variant variant = variantIndex.find(cartItem.size(), cartItem.color());
+        return variant != null ? variant.stock() : 0;
+    }
+    
+    /**
+     * Helper method: Kiểm tra các trường bắt buộc theo loại thao tác
+     */
+    private static void validateOperation(CartOperationRequest operation) {
+        boolean valid = switch (operation.getType()) {
+            case ADD -> operation.getProductId() != null && operation.getQuantity() != null;
+            case UPDATE -> operation.getItemId() != null && operation.getQuantity() != null;
+            case REMOVE -> operation.getItemId() != null;
+        };
+        if (!valid) {
+            throw new BusinessException(
+                    String.format("Missing fields for %s operation (ADD: productId, quantity; UPDATE: itemId, quantity; REMOVE: itemId)",
+                            operation.getType()),
+                    "INVALID_CART_OPERATION");
+        }
+    }
+    
+    /**
+     * Helper method: Map giỏ sang CartResponse và ghi luôn tóm tắt cho snapshot này vào CartSummaryCache
+     */
+    private CartResponse toResponse(CartSnapshot cart, Map<Long, Product> products) {
+        CartResponse response = cartMapper.toCartResponse(cart, products);
+        cartSummaryCache.put(cart, CartSummaryResponse.builder()
+                .totalItems(response.getTotalItems())
+                .totalQuantity(response.getItems().stream().mapToInt(CartItemResponse::getQuantity).sum())
+                .totalAmount(response.getTotalAmount())
+                .build());
+        return response;
+    }
+    
+    /**
+     * Helper method: Load products của giỏ bằng một query
+     */
+    private Map<Long, Product> loadProducts(Set<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+    
+    private record CartVariant(String size, String color, int stock) {
     }
 }
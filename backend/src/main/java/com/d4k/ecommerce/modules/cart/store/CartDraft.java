@@ -0,0 +1,109 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Bản nháp có thể sửa của một giỏ hàng, dùng trong CartStore.update.
+ * Mutation ném exception thì bản nháp bị bỏ, giỏ hàng giữ nguyên.
+ */
+public class CartDraft {
+    
+    private final List<CartLine> lines;
+    private final LongSupplier lineIdAllocator;
+    private boolean changed;
+    
+    CartDraft(List<CartLine> lines, LongSupplier lineIdAllocator) {
+        this.lines = new ArrayList<>(lines);
+        this.lineIdAllocator = lineIdAllocator;
+    }
+    
+    public List<CartLine> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+    
+    public CartLine findLine(Long lineId) {
+        int index = indexOf(lineId);
+        return index < 0 ? null : lines.get(index);
+    }
+    
+    /**
+     * Dòng của cùng product / size / color (size, color đã chuẩn theo variant)
+     */
+    public CartLine findLine(Long productId, String size, String color) {
+        for (CartLine line : lines) {
+            if (line.productId().equals(productId)
+                    && Objects.equals(line.size(), size)
+                    && Objects.equals(line.color(), color)) {
+                return line;
+            }
+        }
+        return null;
+    }
+    
+    public CartLine add(Long productId, String size, String color, int quantity) {
+        CartLine line = new CartLine(lineIdAllocator.getAsLong(), productId, size, color, quantity, LocalDateTime.now());
+        lines.add(line);
+        changed = true;
+        return line;
+    }
+    
+    /**
+     * @return false nếu không có dòng lineId
+     */
+    public boolean setQuantity(Long lineId, int quantity) {
+        int index = indexOf(lineId);
+        if (index < 0) {
+            return false;
+        }
+        if (lines.get(index).quantity() != quantity) {
+            lines.set(index, lines.get(index).withQuantity(quantity));
+            changed = true;
+        }
+        return true;
+    }
+    
+    /**
+     * @return false nếu không có dòng lineId
+     */
+    public boolean remove(Long lineId) {
+        int index = indexOf(lineId);
+        if (index < 0) {
+            return false;
+        }
+        lines.remove(index);
+        changed = true;
+        return true;
+    }
+    
+    public void removeAll(Collection<Long> lineIds) {
+        changed |= lines.removeIf(line -> lineIds.contains(line.id()));
+    }
+    
+    public void clear() {
+        changed |= !lines.isEmpty();
+        lines.clear();
+    }
+    
+    boolean isChanged() {
+        return changed;
+    }
+    
+    List<CartLine> lines() {
+        return lines;
+    }
+    
+    private int indexOf(Long lineId) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).id().equals(lineId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,14 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong giỏ hàng (tương ứng một hàng cart_items), bất biến.
+ * id được cấp trước từ sequence của cart_items nên dòng chưa flush vẫn có id ổn định để client update / remove.
+ */
+public record CartLine(Long id, Long productId, String size, String color, int quantity, LocalDateTime createdAt) {
+    
+    public CartLine withQuantity(int newQuantity) {
+        return new CartLine(id, productId, size, color, newQuantity, createdAt);
+    }
+}
@@ -0,0 +1,204 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
+import com.d4k.ecommerce.modules.cart.dto.response.CartSummaryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Cart Persistence
+ * Đọc / ghi carts + cart_items bằng JDBC cho CartStore.
+ * - Id của cart_items cấp theo block từ sequence (một query cho cả block) để dòng mới có id ngay khi thêm vào giỏ
+ * - Một lần ghi xử lý nhiều giỏ: batch delete, batch upsert theo id, batch touch carts.updated_at,
+ *   trong transaction riêng (REQUIRES_NEW) để không bị rollback theo transaction của caller (vd. checkout lỗi)
+ */
+@Component
+public class CartPersistence {
+    
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('cart_items', 'id')) FROM generate_series(1, ?)";
+    
+    private static final String SELECT_CART_SQL = "SELECT id FROM carts WHERE user_id = ?";
+    
+    private static final String INSERT_CART_SQL =
+            "INSERT INTO carts (user_id, created_at, updated_at) VALUES (?, ?, ?) ON CONFLICT (user_id) DO NOTHING";
+    
+    private static final String SELECT_ITEMS_SQL =
+            "SELECT id, product_id, quantity, size, color, created_at FROM cart_items WHERE cart_id = ? ORDER BY id";
+    
+    private static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE id = ?";
+    
+    private static final String UPSERT_ITEM_SQL =
+            "INSERT INTO cart_items (id, cart_id, product_id, quantity, size, color, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET quantity = EXCLUDED.quantity, size = EXCLUDED.size, " +
+            "color = EXCLUDED.color, updated_at = EXCLUDED.updated_at";
+    
+    private static final String TOUCH_CART_SQL = "UPDATE carts SET updated_at = ? WHERE id = ?";
+    
+    private static final String DELETE_PRODUCT_ITEMS_SQL = "DELETE FROM cart_items WHERE product_id = ?";
+    
+    /**
+     * Dòng có size mà product không còn variant khớp (cùng quy tắc ProductVariantIndex.contains:
+     * so theo khóa chuẩn size|color, dòng không có color khớp với bất kỳ variant nào cùng size)
+     */
+    private static final String DELETE_ITEMS_WITHOUT_VARIANT_SQL =
+            "DELETE FROM cart_items ci WHERE ci.product_id = ? AND ci.size IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM product_variants v WHERE v.product_id = ci.product_id " +
+            "AND split_part(v.variant_key, '|', 1) = lower(btrim(ci.size)) " +
+            "AND (btrim(coalesce(ci.color, '')) = '' OR split_part(v.variant_key, '|', 2) = lower(btrim(ci.color))))";
+    
+    /**
+     * Tóm tắt giỏ từ (productId, quantity) của các dòng trong bộ nhớ; dòng có product đã bị xóa không được tính
+     */
+    private static final String SUMMARY_SQL =
+            "SELECT COUNT(*) AS total_items, COALESCE(SUM(c.quantity), 0) AS total_quantity, " +
+            "COALESCE(SUM(p.price * c.quantity), 0) AS total_amount " +
+            "FROM unnest(?::bigint[], ?::int[]) AS c(product_id, quantity) " +
+            "JOIN products p ON p.id = c.product_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final int idBlockSize;
+    
+    private final Deque<Long> lineIds = new ArrayDeque<>();
+    
+    public CartPersistence(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.cart-store.id-block-size:50}") int idBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlockSize = Math.max(1, idBlockSize);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Load giỏ của user, tạo cart nếu user chưa có
+     */
+    public CartSnapshot load(Long userId) {
+        Long cartId = findOrCreateCartId(userId);
+        List<CartLine> lines = jdbcTemplate.query(SELECT_ITEMS_SQL, (rs, rowNum) -> new CartLine(
+                rs.getLong("id"),
+                rs.getLong("product_id"),
+                rs.getString("size"),
+                rs.getString("color"),
+                rs.getInt("quantity"),
+                rs.getObject("created_at", LocalDateTime.class)), cartId);
+        return new CartSnapshot(cartId, userId, List.copyOf(lines));
+    }
+    
+    /**
+     * Id cho cart item mới
+     */
+    public synchronized long nextLineId() {
+        if (lineIds.isEmpty()) {
+            lineIds.addAll(jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, idBlockSize));
+        }
+        return lineIds.poll();
+    }
+    
+    /**
+     * Ghi thay đổi của nhiều giỏ trong một transaction (lỗi thì rollback cả lô)
+     */
+    public void write(List<CartChanges> changes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>(changes.size());
+        for (CartChanges cart : changes) {
+            for (Long lineId : cart.deletedLineIds()) {
+                deletes.add(new Object[]{lineId});
+            }
+            for (CartLine line : cart.upsertedLines()) {
+                upserts.add(new Object[]{line.id(), cart.cartId(), line.productId(), line.quantity(),
+                        line.size(), line.color(), Timestamp.valueOf(line.createdAt()), now});
+            }
+            touches.add(new Object[]{now, cart.cartId()});
+        }
+        
+        writeTransaction.executeWithoutResult(status -> {
+            // Xóa trước: dòng bị xóa rồi thêm lại cùng variant có id mới, nếu upsert trước sẽ trùng unique index
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, upserts);
+            }
+            jdbcTemplate.batchUpdate(TOUCH_CART_SQL, touches);
+        });
+    }
+    
+    /**
+     * Xóa mọi cart item của product (chạy trong transaction của caller)
+     * @return số dòng đã xóa
+     */
+    public int deleteProductLines(Long productId) {
+        return jdbcTemplate.update(DELETE_PRODUCT_ITEMS_SQL, productId);
+    }
+    
+    /**
+     * Xóa các cart item của product trỏ tới variant không còn tồn tại (chạy trong transaction của caller)
+     * @return số dòng đã xóa
+     */
+    public int deleteLinesWithoutVariant(Long productId) {
+        return jdbcTemplate.update(DELETE_ITEMS_WITHOUT_VARIANT_SQL, productId);
+    }
+    
+    /**
+     * Tóm tắt giỏ bằng một query aggregate (không load entity)
+     */
+    public CartSummaryResponse summarize(CartSnapshot cart) {
+        if (cart.lines().isEmpty()) {
+            return CartSummaryResponse.builder()
+                    .totalItems(0)
+                    .totalQuantity(0)
+                    .totalAmount(BigDecimal.ZERO)
+                    .build();
+        }
+        Long[] productIds = new Long[cart.lines().size()];
+        Integer[] quantities = new Integer[cart.lines().size()];
+        for (int i = 0; i < productIds.length; i++) {
+            productIds[i] = cart.lines().get(i).productId();
+            quantities[i] = cart.lines().get(i).quantity();
+        }
+        return jdbcTemplate.queryForObject(SUMMARY_SQL, (rs, rowNum) -> CartSummaryResponse.builder()
+                .totalItems(rs.getInt("total_items"))
+                .totalQuantity(rs.getInt("total_quantity"))
+                .totalAmount(rs.getBigDecimal("total_amount"))
+                .build(), productIds, quantities);
+    }
+    
+    private Long findOrCreateCartId(Long userId) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_CART_SQL, Long.class, userId);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update(INSERT_CART_SQL, userId, now, now);
+        } catch (DataIntegrityViolationException e) {
+            // FK carts.user_id: user không tồn tại
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        return jdbcTemplate.queryForObject(SELECT_CART_SQL, Long.class, userId);
+    }
+    
+    /**
+     * Thay đổi cần ghi của một giỏ so với lần flush trước
+     */
+    public record CartChanges(Long cartId, List<CartLine> upsertedLines, List<Long> deletedLineIds) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductVariantResponse;
+import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+import com.d4k.ecommerce.modules.product.event.ProductChangeType;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Cart Product Listener
+ * Bỏ cart item không còn hợp lệ khi product bị xóa hoặc variants bị thay, thay cho việc kiểm tra lại
+ * từng item mỗi lần đọc giỏ:
+ * - BEFORE_COMMIT (cùng transaction với thay đổi product): xóa cart_items bằng một câu lệnh bulk,
+ *   áp dụng cho mọi giỏ kể cả giỏ không có trong CartStore
+ * - AFTER_COMMIT: bỏ các dòng đó khỏi giỏ đang trong CartStore (flush sau xóa theo id, không ghi lại dòng cũ)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartProductListener {
+
+    private final CartPersistence cartPersistence;
+    private final CartStore cartStore;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void deleteInvalidItems(ProductChangedEvent event) {
+        int deleted = event.getType() == ProductChangeType.DELETED
+                ? cartPersistence.deleteProductLines(event.getProductId())
+                : cartPersistence.deleteLinesWithoutVariant(event.getProductId());
+        if (deleted > 0) {
+            log.info("Deleted {} invalid cart items of product {}", deleted, event.getProductId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void removeInvalidLines(ProductChangedEvent event) {
+        Long productId = event.getProductId();
+        Predicate<CartLine> invalid;
+        if (event.getType() == ProductChangeType.DELETED) {
+            invalid = line -> productId.equals(line.productId());
+        } else {
+            VariantKeys variants = VariantKeys.of(event.getProduct().getVariants());
+            invalid = line -> productId.equals(line.productId())
+                    && line.size() != null && !variants.contains(line.size(), line.color());
+        }
+        int carts = cartStore.removeLines(invalid);
+        if (carts > 0) {
+            log.info("Removed invalid items of product {} from {} active carts", productId, carts);
+        }
+    }
+
+    /**
+     * Khóa variants sau thay đổi, cùng quy tắc với ProductVariantIndex.contains
+     */
+    private record VariantKeys(Set<String> keys, Set<String> sizes) {
+
+        static VariantKeys of(List<ProductVariantResponse> variants) {
+            Set<String> keys = new HashSet<>();
+            Set<String> sizes = new HashSet<>();
+            if (variants != null) {
+                for (ProductVariantResponse variant : variants) {
+                    keys.add(ProductVariant.keyOf(variant.getSize(), variant.getColor()));
+                    sizes.add(ProductVariant.normalizeKeyPart(variant.getSize()));
+                }
+            }
+            return new VariantKeys(keys, sizes);
+        }
+
+        boolean contains(String size, String color) {
+            return ProductVariant.normalizeKeyPart(color).isEmpty()
+                    ? sizes.contains(ProductVariant.normalizeKeyPart(size))
+                    : keys.contains(ProductVariant.keyOf(size, color));
+        }
+    }
+}
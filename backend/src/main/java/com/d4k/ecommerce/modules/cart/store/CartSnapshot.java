@@ -0,0 +1,28 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Trạng thái giỏ hàng tại một thời điểm, bất biến (lines theo thứ tự thêm vào)
+ */
+public record CartSnapshot(Long cartId, Long userId, List<CartLine> lines) {
+    
+    public CartLine line(Long lineId) {
+        for (CartLine line : lines) {
+            if (line.id().equals(lineId)) {
+                return line;
+            }
+        }
+        return null;
+    }
+    
+    public Set<Long> productIds() {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartLine line : lines) {
+            productIds.add(line.productId());
+        }
+        return productIds;
+    }
+}
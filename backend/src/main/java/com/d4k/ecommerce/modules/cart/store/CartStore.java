@@ -0,0 +1,55 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Cart Store
+ * Tầng giữ giỏ hàng đang hoạt động theo user, thay cho đọc / ghi carts + cart_items mỗi thao tác.
+ * Thay đổi được gom lại và ghi xuống DB theo lô (write-behind); implementation hiện tại là InMemoryCartStore,
+ * có thể thay bằng store dùng chung giữa các node (vd. Redis) mà không đổi CartService.
+ */
+public interface CartStore {
+    
+    /**
+     * Giỏ hàng của user (load từ DB / tạo cart nếu chưa có trong store)
+     */
+    CartSnapshot get(Long userId);
+    
+    /**
+     * Sửa giỏ hàng một cách nguyên tử với các thao tác khác trên cùng giỏ.
+     * Mutation ném exception thì không có thay đổi nào được áp dụng.
+     * @return giỏ hàng sau khi sửa
+     */
+    CartSnapshot update(Long userId, Consumer<CartDraft> mutation);
+    
+    /**
+     * Ghi ngay thay đổi chưa flush của một giỏ xuống DB (commit riêng), vd. trước khi checkout đọc cart_items.
+     * Lỗi tạm thời được ném lại cho caller; giỏ vẫn được giữ và ghi lại ở lượt flush sau
+     */
+    void flush(Long userId);
+    
+    /**
+     * Ghi các giỏ có thay đổi chưa flush theo lô (bỏ qua giỏ đang chờ thử lại sau lỗi)
+     * @return số giỏ đã ghi
+     */
+    int flushDirty();
+    
+    /**
+     * Bỏ các dòng thỏa filter khỏi mọi giỏ đang có trong store (vd. product / variant đã bị xóa).
+     * Giống một lần sửa giỏ: lần flush sau xóa các dòng này trong DB theo id nếu còn.
+     * @return số giỏ bị sửa
+     */
+    int removeLines(Predicate<CartLine> filter);
+    
+    /**
+     * Bỏ giỏ khỏi store (thay đổi chưa flush bị bỏ), lần truy cập sau load lại từ DB
+     */
+    void evict(Long userId);
+    
+    /**
+     * Bỏ các giỏ đã flush và không được truy cập quá thời gian idle
+     * @return số giỏ đã bỏ
+     */
+    int evictIdle();
+}
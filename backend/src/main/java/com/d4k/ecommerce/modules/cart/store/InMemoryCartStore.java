@@ -0,0 +1,382 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import com.d4k.ecommerce.modules.cart.event.CartCheckedOutEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * In-Memory Cart Store
+ * Giữ giỏ hàng đang hoạt động trong ConcurrentHashMap theo userId; đọc / sửa giỏ không chạm DB
+ * (trừ lần load đầu và khi cần block id mới). Mỗi giỏ có version tăng theo mỗi lần sửa và bản
+ * "đã ghi" (persisted) của lần flush gần nhất; flush chỉ ghi phần chênh lệch.
+ *
+ * Crash-safe ở mức: thay đổi chưa flush tối đa một chu kỳ CartStoreFlushJob (mặc định 1s),
+ * checkout luôn flush giỏ trước khi đọc cart_items, shutdown flush toàn bộ.
+ * Flush lỗi tạm thời (mất kết nối, timeout, deadlock...) thì giữ giỏ và thử lại với backoff tăng dần;
+ * chỉ lỗi vĩnh viễn (DataIntegrityViolationException, vd. product đã bị xóa) mới bỏ giỏ trong bộ nhớ.
+ * Store nằm trong bộ nhớ của từng node nên nhiều node cần sticky session theo user hoặc một CartStore dùng chung.
+ */
+@Slf4j
+@Component
+public class InMemoryCartStore implements CartStore {
+    
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final CartPersistence cartPersistence;
+    private final long idleNanos;
+    private final int flushBatchSize;
+    private final long retryBaseNanos;
+    private final long retryMaxNanos;
+    
+    public InMemoryCartStore(CartPersistence cartPersistence,
+                             @Value("${app.cart-store.idle-minutes:30}") long idleMinutes,
+                             @Value("${app.cart-store.flush-batch-size:200}") int flushBatchSize,
+                             @Value("${app.cart-store.retry-base-ms:1000}") long retryBaseMs,
+                             @Value("${app.cart-store.retry-max-ms:60000}") long retryMaxMs) {
+        this.cartPersistence = cartPersistence;
+        this.idleNanos = Duration.ofMinutes(idleMinutes).toNanos();
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.retryBaseNanos = Duration.ofMillis(Math.max(1, retryBaseMs)).toNanos();
+        this.retryMaxNanos = Math.max(retryBaseNanos, Duration.ofMillis(retryMaxMs).toNanos());
+    }
+    
+    @Override
+    public CartSnapshot get(Long userId) {
+        Session session = session(userId);
+        synchronized (session) {
+            session.touch();
+            return session.snapshot;
+        }
+    }
+    
+    @Override
+    public CartSnapshot update(Long userId, Consumer<CartDraft> mutation) {
+        while (true) {
+            Session session = session(userId);
+            synchronized (session) {
+                if (session.evicted) {
+                    continue;
+                }
+                CartDraft draft = new CartDraft(session.snapshot.lines(), cartPersistence::nextLineId);
+                mutation.accept(draft);
+                if (draft.isChanged()) {
+                    session.snapshot = new CartSnapshot(session.snapshot.cartId(), userId, List.copyOf(draft.lines()));
+                    session.version++;
+                }
+                session.touch();
+                return session.snapshot;
+            }
+        }
+    }
+    
+    @Override
+    public void flush(Long userId) {
+        Session session = sessions.get(userId);
+        if (session == null) {
+            return;
+        }
+        session.flushLock.lock();
+        try {
+            // Flush tường minh (checkout) không chờ backoff và báo lỗi tạm thời cho caller
+            flushEach(List.of(session), true);
+        } finally {
+            session.flushLock.unlock();
+        }
+    }
+    
+    @Override
+    public int flushDirty() {
+        return flushDirty(false);
+    }
+    
+    /**
+     * @param ignoreBackoff ghi cả các giỏ đang chờ thử lại sau lỗi (shutdown)
+     */
+    private int flushDirty(boolean ignoreBackoff) {
+        long now = System.nanoTime();
+        List<Session> dirty = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            if (session.isDirty() && (ignoreBackoff || session.isRetryDue(now))) {
+                dirty.add(session);
+            }
+        }
+        int flushed = 0;
+        for (int i = 0; i < dirty.size(); i += flushBatchSize) {
+            // Giỏ đang được flush bởi thread khác (vd. checkout) thì để lượt sau
+            List<Session> batch = new ArrayList<>();
+            for (Session session : dirty.subList(i, Math.min(i + flushBatchSize, dirty.size()))) {
+                if (session.flushLock.tryLock()) {
+                    batch.add(session);
+                }
+            }
+            try {
+                flushed += flushBatch(batch);
+            } finally {
+                batch.forEach(session -> session.flushLock.unlock());
+            }
+        }
+        return flushed;
+    }
+    
+    @Override
+    public int removeLines(Predicate<CartLine> filter) {
+        int changed = 0;
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                if (session.evicted) {
+                    continue;
+                }
+                List<CartLine> kept = null;
+                List<CartLine> lines = session.snapshot.lines();
+                for (int i = 0; i < lines.size(); i++) {
+                    CartLine line = lines.get(i);
+                    if (filter.test(line)) {
+                        if (kept == null) {
+                            kept = new ArrayList<>(lines.subList(0, i));
+                        }
+                    } else if (kept != null) {
+                        kept.add(line);
+                    }
+                }
+                if (kept != null) {
+                    // Không touch: dọn dòng không làm giỏ "đang hoạt động"
+                    session.snapshot = new CartSnapshot(session.snapshot.cartId(), session.snapshot.userId(),
+                            List.copyOf(kept));
+                    session.version++;
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+    
+    @Override
+    public void evict(Long userId) {
+        Session session = sessions.remove(userId);
+        if (session != null) {
+            synchronized (session) {
+                session.evicted = true;
+            }
+        }
+    }
+    
+    @Override
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (!session.isDirty() && now - session.lastAccess > idleNanos
+                        && sessions.remove(entry.getKey(), session)) {
+                    session.evicted = true;
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+    
+    /**
+     * Checkout đã xóa cart_items trong DB: bỏ giỏ trong bộ nhớ để không ghi đè lại các dòng cũ
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartCheckedOut(CartCheckedOutEvent event) {
+        evict(event.getUserId());
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flushDirty(true);
+        if (flushed > 0) {
+            log.info("Flushed {} carts on shutdown", flushed);
+        }
+    }
+    
+    private Session session(Long userId) {
+        Session session = sessions.get(userId);
+        if (session != null) {
+            return session;
+        }
+        // Load ngoài map để một lần load chậm không khóa các user khác
+        Session loaded = new Session(cartPersistence.load(userId));
+        Session existing = sessions.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    /**
+     * Ghi cả lô trong một transaction. Lô lỗi vĩnh viễn thì ghi lại từng giỏ để một giỏ hỏng không chặn
+     * các giỏ khác; lỗi tạm thời thì cả lô chờ thử lại (ghi từng giỏ lúc DB lỗi chỉ thêm tải)
+     */
+    private int flushBatch(List<Session> batch) {
+        List<Pending> pending = collect(batch);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        try {
+            cartPersistence.write(pending.stream().map(Pending::changes).toList());
+            pending.forEach(Pending::markFlushed);
+            return pending.size();
+        } catch (RuntimeException e) {
+            if (!isPermanent(e)) {
+                log.warn("Cart batch flush of {} carts failed, will retry: {}", pending.size(), e.getMessage());
+                pending.forEach(this::scheduleRetry);
+                return 0;
+            }
+            log.warn("Cart batch flush of {} carts failed, retrying one by one: {}", pending.size(), e.getMessage());
+            return flushEach(batch, false);
+        }
+    }
+    
+    /**
+     * @param rethrowTransient ném lại lỗi tạm thời (giỏ vẫn được giữ để thử lại)
+     */
+    private int flushEach(List<Session> batch, boolean rethrowTransient) {
+        int flushed = 0;
+        for (Pending pending : collect(batch)) {
+            try {
+                cartPersistence.write(List.of(pending.changes()));
+                pending.markFlushed();
+                flushed++;
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) {
+                    scheduleRetry(pending);
+                    if (rethrowTransient) {
+                        throw e;
+                    }
+                    continue;
+                }
+                // vd. product đã bị xóa (FK): bỏ giỏ trong bộ nhớ, lần sau load lại từ DB
+                log.warn("Discarding unflushable cart {} of user {}: {}",
+                        pending.changes().cartId(), pending.snapshot().userId(), e.getMessage());
+                Session session = pending.session();
+                synchronized (session) {
+                    sessions.remove(session.snapshot.userId(), session);
+                    session.evicted = true;
+                }
+            }
+        }
+        return flushed;
+    }
+    
+    /**
+     * Lỗi mà ghi lại cùng dữ liệu không thể thành công (vi phạm FK / unique / NOT NULL)
+     */
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException;
+    }
+    
+    /**
+     * Giữ giỏ (vẫn dirty) và hẹn lần thử tiếp: retry-base-ms nhân đôi sau mỗi lần lỗi, tối đa retry-max-ms
+     */
+    private void scheduleRetry(Pending pending) {
+        Session session = pending.session();
+        synchronized (session) {
+            session.failedAttempts++;
+            long delay = retryBaseNanos << Math.min(session.failedAttempts - 1, 20);
+            if (delay <= 0 || delay > retryMaxNanos) {
+                delay = retryMaxNanos;
+            }
+            session.retryAt = System.nanoTime() + delay;
+            if (session.failedAttempts == 1 || delay == retryMaxNanos) {
+                log.warn("Flush of cart {} of user {} failed {} time(s), retrying in {} ms",
+                        pending.changes().cartId(), session.snapshot.userId(), session.failedAttempts,
+                        Duration.ofNanos(delay).toMillis());
+            }
+        }
+    }
+    
+    private List<Pending> collect(List<Session> batch) {
+        List<Pending> pending = new ArrayList<>(batch.size());
+        for (Session session : batch) {
+            synchronized (session) {
+                if (session.evicted || !session.isDirty()) {
+                    continue;
+                }
+                List<CartLine> upserted = new ArrayList<>();
+                Map<Long, CartLine> remaining = new HashMap<>(session.persisted);
+                for (CartLine line : session.snapshot.lines()) {
+                    CartLine previous = remaining.remove(line.id());
+                    if (!line.equals(previous)) {
+                        upserted.add(line);
+                    }
+                }
+                CartPersistence.CartChanges changes = new CartPersistence.CartChanges(
+                        session.snapshot.cartId(), upserted, new ArrayList<>(remaining.keySet()));
+                pending.add(new Pending(session, session.snapshot, session.version, changes));
+            }
+        }
+        return pending;
+    }
+    
+    private record Pending(Session session, CartSnapshot snapshot, long version, CartPersistence.CartChanges changes) {
+        
+        void markFlushed() {
+            synchronized (session) {
+                session.persisted = Session.index(snapshot);
+                session.flushedVersion = version;
+                session.failedAttempts = 0;
+            }
+        }
+    }
+    
+    /**
+     * Giỏ của một user. Trạng thái đọc / sửa dưới monitor của chính session; flushLock đảm bảo
+     * tại một thời điểm chỉ một thread ghi giỏ này (không ghi snapshot cũ đè lên snapshot mới)
+     */
+    private static final class Session {
+        
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private CartSnapshot snapshot;
+        private Map<Long, CartLine> persisted;
+        private long version;
+        private long flushedVersion;
+        private long lastAccess = System.nanoTime();
+        private boolean evicted;
+        
+        /**
+         * Số lần flush lỗi tạm thời liên tiếp và thời điểm (nanoTime) được thử lại
+         */
+        private int failedAttempts;
+        private long retryAt;
+        
+        Session(CartSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.persisted = index(snapshot);
+        }
+        
+        synchronized boolean isDirty() {
+            return version != flushedVersion;
+        }
+        
+        synchronized boolean isRetryDue(long now) {
+            return failedAttempts == 0 || now - retryAt >= 0;
+        }
+        
+        void touch() {
+            lastAccess = System.nanoTime();
+        }
+        
+        static Map<Long, CartLine> index(CartSnapshot snapshot) {
+            Map<Long, CartLine> lines = new HashMap<>();
+            for (CartLine line : snapshot.lines()) {
+                lines.put(line.id(), line);
+            }
+            return lines;
+        }
+    }
+}
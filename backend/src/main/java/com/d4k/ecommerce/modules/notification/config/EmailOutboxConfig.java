@@ -0,0 +1,32 @@
+package com.d4k.ecommerce.modules.notification.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Email Outbox Configuration
+ * Worker pool riêng cho việc gửi email, giới hạn số kết nối SMTP đồng thời
+ */
+@Configuration
+public class EmailOutboxConfig {
+
+    /**
+     * Mỗi worker gửi một batch trên một kết nối SMTP.
+     * Queue nhỏ vì dispatcher chỉ claim khi còn worker rảnh; batch bị từ chối sẽ được claim lại khi hết lease.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor emailOutboxExecutor(
+            @Value("${app.mail.outbox.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("email-outbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
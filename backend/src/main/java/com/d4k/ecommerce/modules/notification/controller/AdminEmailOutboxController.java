@@ -0,0 +1,43 @@
+package com.d4k.ecommerce.modules.notification.controller;
+
+import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.modules.notification.dto.response.EmailQueueStatsResponse;
+import com.d4k.ecommerce.modules.notification.service.EmailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin Email Outbox Controller
+ * REST API endpoints theo dõi hàng đợi email
+ */
+@RestController
+@RequestMapping("/api/v1/admin/email-outbox")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminEmailOutboxController {
+    
+    private final EmailOutboxService emailOutboxService;
+    
+    /**
+     * Lấy độ sâu hàng đợi email
+     * Endpoint: GET /api/v1/admin/email-outbox/stats
+     * Access: ADMIN only
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<EmailQueueStatsResponse>> getQueueStats() {
+        EmailQueueStatsResponse response = emailOutboxService.getQueueStats();
+        
+        ApiResponse<EmailQueueStatsResponse> apiResponse =
+                ApiResponse.<EmailQueueStatsResponse>builder()
+                .success(true)
+                .message("Email queue stats fetched successfully")
+                .data(response)
+                .build();
+        
+        return ResponseEntity.ok(apiResponse);
+    }
+}
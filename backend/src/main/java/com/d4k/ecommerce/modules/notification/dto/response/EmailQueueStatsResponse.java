@@ -0,0 +1,29 @@
+package com.d4k.ecommerce.modules.notification.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO response cho độ sâu hàng đợi email outbox
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailQueueStatsResponse {
+    
+    // Outbox (database)
+    private Long pending;
+    private Long retrying;
+    private Long failed;
+    private LocalDateTime oldestPendingAt;
+    
+    // Worker pool
+    private Integer activeWorkers;
+    private Integer maxWorkers;
+    private Integer queuedBatches;
+}
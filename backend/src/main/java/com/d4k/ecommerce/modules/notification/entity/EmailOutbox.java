@@ -0,0 +1,72 @@
+package com.d4k.ecommerce.modules.notification.entity;
+
+import com.d4k.ecommerce.modules.notification.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * EmailOutbox Entity
+ * Email được ghi trong cùng transaction với nghiệp vụ, worker gửi sau khi commit
+ */
+@Entity
+@Table(name = "email_outbox",
+    indexes = {
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+    }
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "recipient", nullable = false, length = 255)
+    private String recipient;
+    
+    @Column(name = "subject", nullable = false, length = 255)
+    private String subject;
+    
+    /**
+     * Nội dung HTML (render sẵn lúc enqueue)
+     */
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+    
+    /**
+     * Số lần đã thử gửi
+     */
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+    
+    /**
+     * Thời điểm sớm nhất được gửi (backoff khi retry / lease khi worker đang gửi)
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
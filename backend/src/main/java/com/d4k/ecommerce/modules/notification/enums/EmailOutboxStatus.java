@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.notification.enums;
+
+/**
+ * Email Outbox Status Enum
+ * Trạng thái của email trong outbox
+ */
+public enum EmailOutboxStatus {
+    /**
+     * Chờ gửi (kể cả đang retry)
+     */
+    PENDING,
+    
+    /**
+     * Đã gửi thành công
+     */
+    SENT,
+    
+    /**
+     * Gửi thất bại sau số lần retry tối đa
+     */
+    FAILED
+}
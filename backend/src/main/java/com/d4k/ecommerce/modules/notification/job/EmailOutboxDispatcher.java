@@ -0,0 +1,122 @@
+package com.d4k.ecommerce.modules.notification.job;
+
+import com.d4k.ecommerce.modules.notification.entity.EmailOutbox;
+import com.d4k.ecommerce.modules.notification.service.EmailOutboxService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email Outbox Dispatcher
+ * Định kỳ claim email đến hạn và chia thành các batch cho worker pool.
+ * Mỗi batch được gửi qua JavaMailSender.send(MimeMessage...) nên dùng chung một kết nối SMTP.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+    
+    private final EmailOutboxService emailOutboxService;
+    private final JavaMailSender javaMailSender;
+    private final ThreadPoolTaskExecutor emailOutboxExecutor;
+    
+    @Value("${spring.mail.username:noreply@d4k.com}")
+    private String senderEmail;
+    
+    @Value("${app.mail.outbox.batch-size:20}")
+    private int batchSize;
+    
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        try {
+            // Chỉ claim lượng email mà worker pool nhận được ngay
+            int freeSlots = emailOutboxExecutor.getMaxPoolSize()
+                    - emailOutboxExecutor.getActiveCount()
+                    - emailOutboxExecutor.getThreadPoolExecutor().getQueue().size();
+            if (freeSlots <= 0) {
+                return;
+            }
+            
+            List<EmailOutbox> claimed = emailOutboxService.claimBatch(freeSlots * batchSize);
+            for (int i = 0; i < claimed.size(); i += batchSize) {
+                List<EmailOutbox> batch = List.copyOf(claimed.subList(i, Math.min(i + batchSize, claimed.size())));
+                emailOutboxExecutor.execute(() -> sendBatch(batch));
+            }
+        } catch (TaskRejectedException e) {
+            // Email đã claim sẽ được claim lại khi hết lease
+            log.warn("Email worker pool saturated: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to dispatch email outbox", e);
+        }
+    }
+    
+    /**
+     * Gửi một batch trên một kết nối SMTP và ghi kết quả từng email
+     */
+    private void sendBatch(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(buildMessage(email), email);
+            } catch (MessagingException e) {
+                emailOutboxService.markFailed(email, e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        
+        Map<Object, Exception> failures = Map.of();
+        try {
+            javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            // Lỗi kết nối / xác thực: cả batch thất bại
+            failures = new IdentityHashMap<>();
+            for (MimeMessage message : messages.keySet()) {
+                failures.put(message, e);
+            }
+        }
+        
+        List<Long> sentIds = new ArrayList<>();
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                sentIds.add(entry.getValue().getId());
+            } else {
+                emailOutboxService.markFailed(entry.getValue(), failure.getMessage());
+            }
+        }
+        emailOutboxService.markSent(sentIds);
+        
+        if (!sentIds.isEmpty()) {
+            log.info("Sent {} of {} emails", sentIds.size(), batch.size());
+        }
+    }
+    
+    private MimeMessage buildMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(senderEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true); // true = isHtml
+        return message;
+    }
+}
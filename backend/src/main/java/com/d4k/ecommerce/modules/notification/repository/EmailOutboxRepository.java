@@ -0,0 +1,31 @@
+package com.d4k.ecommerce.modules.notification.repository;
+
+import com.d4k.ecommerce.modules.notification.entity.EmailOutbox;
+import com.d4k.ecommerce.modules.notification.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * EmailOutbox Repository
+ * Data access layer cho EmailOutbox entity
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    
+    long countByStatus(EmailOutboxStatus status);
+    
+    /**
+     * Đếm email đang chờ retry (đã thử gửi ít nhất một lần)
+     */
+    long countByStatusAndAttemptsGreaterThan(EmailOutboxStatus status, Integer attempts);
+    
+    /**
+     * Thời điểm tạo của email chờ gửi lâu nhất
+     */
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") EmailOutboxStatus status);
+}
@@ -0,0 +1,49 @@
+package com.d4k.ecommerce.modules.notification.service;
+
+import com.d4k.ecommerce.modules.notification.dto.response.EmailQueueStatsResponse;
+import com.d4k.ecommerce.modules.notification.entity.EmailOutbox;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Email Outbox Service Interface
+ * Ghi email vào outbox trong transaction nghiệp vụ; dispatcher claim và gửi sau khi commit
+ */
+public interface EmailOutboxService {
+    
+    /**
+     * Thêm email vào outbox (tham gia transaction hiện tại nếu có)
+     * @param to địa chỉ nhận
+     * @param subject tiêu đề
+     * @param htmlBody nội dung HTML
+     */
+    void enqueue(String to, String subject, String htmlBody);
+    
+    /**
+     * Claim các email đến hạn gửi và giữ lease để worker khác không gửi trùng
+     * Email không được mark trước khi hết lease sẽ được claim lại.
+     * @param limit số email tối đa
+     * @return danh sách email đã claim
+     */
+    List<EmailOutbox> claimBatch(int limit);
+    
+    /**
+     * Đánh dấu đã gửi thành công
+     * @param ids outbox IDs
+     */
+    void markSent(Collection<Long> ids);
+    
+    /**
+     * Gửi thất bại: lên lịch retry với exponential backoff, hoặc FAILED khi vượt số lần tối đa
+     * @param email email đã claim
+     * @param error nguyên nhân lỗi
+     */
+    void markFailed(EmailOutbox email, String error);
+    
+    /**
+     * Độ sâu hàng đợi (Admin)
+     * @return thống kê outbox và worker pool
+     */
+    EmailQueueStatsResponse getQueueStats();
+}
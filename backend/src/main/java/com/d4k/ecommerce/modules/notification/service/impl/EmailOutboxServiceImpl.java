@@ -0,0 +1,177 @@
+package com.d4k.ecommerce.modules.notification.service.impl;
+
+import com.d4k.ecommerce.modules.notification.dto.response.EmailQueueStatsResponse;
+import com.d4k.ecommerce.modules.notification.entity.EmailOutbox;
+import com.d4k.ecommerce.modules.notification.enums.EmailOutboxStatus;
+import com.d4k.ecommerce.modules.notification.repository.EmailOutboxRepository;
+import com.d4k.ecommerce.modules.notification.service.EmailOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Email Outbox Service Implementation
+ * Claim dùng FOR UPDATE SKIP LOCKED nên nhiều instance có thể cùng drain outbox.
+ * Lease được lưu trong next_attempt_at: worker chết giữa chừng thì email tự được claim lại.
+ */
+@Slf4j
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+    
+    private static final String CLAIM_SQL =
+            "UPDATE email_outbox SET attempts = attempts + 1, next_attempt_at = :leaseUntil " +
+            "WHERE id IN ( " +
+            "  SELECT id FROM email_outbox " +
+            "  WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "  ORDER BY next_attempt_at " +
+            "  LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, recipient, subject, body, attempts";
+    
+    private static final String MARK_SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', sent_at = :now, last_error = NULL WHERE id IN (:ids)";
+    
+    private static final String MARK_FAILED_SQL =
+            "UPDATE email_outbox SET status = :status, next_attempt_at = :nextAttemptAt, last_error = :error " +
+            "WHERE id = :id";
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private static final RowMapper<EmailOutbox> CLAIMED_ROW_MAPPER = (rs, rowNum) -> EmailOutbox.builder()
+            .id(rs.getLong("id"))
+            .recipient(rs.getString("recipient"))
+            .subject(rs.getString("subject"))
+            .body(rs.getString("body"))
+            .attempts(rs.getInt("attempts"))
+            .status(EmailOutboxStatus.PENDING)
+            .build();
+    
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ThreadPoolTaskExecutor emailOutboxExecutor;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    
+    public EmailOutboxServiceImpl(EmailOutboxRepository emailOutboxRepository,
+                                  NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                  ThreadPoolTaskExecutor emailOutboxExecutor,
+                                  @Value("${app.mail.outbox.lease-ms:300000}") long leaseMs,
+                                  @Value("${app.mail.outbox.initial-backoff-ms:30000}") long initialBackoffMs,
+                                  @Value("${app.mail.outbox.max-backoff-ms:3600000}") long maxBackoffMs,
+                                  @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.emailOutboxExecutor = emailOutboxExecutor;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.maxAttempts = maxAttempts;
+    }
+    
+    /**
+     * Thêm email vào outbox
+     */
+    @Override
+    @Transactional
+    public void enqueue(String to, String subject, String htmlBody) {
+        EmailOutbox email = EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(htmlBody)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        emailOutboxRepository.save(email);
+        log.debug("Queued email '{}' to {}", subject, to);
+    }
+    
+    /**
+     * Claim email đến hạn gửi
+     */
+    @Override
+    @Transactional
+    public List<EmailOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("now", now)
+                .addValue("leaseUntil", now.plus(lease))
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(CLAIM_SQL, params, CLAIMED_ROW_MAPPER);
+    }
+    
+    /**
+     * Đánh dấu đã gửi
+     */
+    @Override
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", LocalDateTime.now());
+        namedParameterJdbcTemplate.update(MARK_SENT_SQL, params);
+    }
+    
+    /**
+     * Retry với exponential backoff: initialBackoff * 2^(attempts - 1), tối đa maxBackoff
+     */
+    @Override
+    @Transactional
+    public void markFailed(EmailOutbox email, String error) {
+        boolean exhausted = email.getAttempts() >= maxAttempts;
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(email.getAttempts() - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", email.getId())
+                .addValue("status", (exhausted ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING).name())
+                .addValue("nextAttemptAt", LocalDateTime.now().plus(backoff))
+                .addValue("error", truncate(error));
+        namedParameterJdbcTemplate.update(MARK_FAILED_SQL, params);
+        
+        if (exhausted) {
+            log.error("Email {} to {} failed after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), error);
+        } else {
+            log.warn("Email {} to {} failed (attempt {}), retrying in {}s: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), backoff.toSeconds(), error);
+        }
+    }
+    
+    /**
+     * Độ sâu hàng đợi
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public EmailQueueStatsResponse getQueueStats() {
+        return EmailQueueStatsResponse.builder()
+                .pending(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING))
+                .retrying(emailOutboxRepository.countByStatusAndAttemptsGreaterThan(EmailOutboxStatus.PENDING, 0))
+                .failed(emailOutboxRepository.countByStatus(EmailOutboxStatus.FAILED))
+                .oldestPendingAt(emailOutboxRepository.findOldestCreatedAt(EmailOutboxStatus.PENDING))
+                .activeWorkers(emailOutboxExecutor.getActiveCount())
+                .maxWorkers(emailOutboxExecutor.getMaxPoolSize())
+                .queuedBatches(emailOutboxExecutor.getThreadPoolExecutor().getQueue().size())
+                .build();
+    }
+    
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,19 +1,28 @@
 package com.d4k.ecommerce.modules.order.controller;
 
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.export.StreamingExporter;
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
 import com.d4k.ecommerce.modules.order.dto.request.UpdateOrderStatusRequest;
 import com.d4k.ecommerce.modules.order.dto.response.OrderResponse;
+import com.d4k.ecommerce.modules.order.enums.OrderStatus;
 import com.d4k.ecommerce.modules.order.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 
 /**
  * Admin Order Controller
@@ -26,6 +35,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminOrderController {
     
     private final OrderService orderService;
+    private final StreamingExporter streamingExporter;
     
     /**
      * Lấy tất cả orders
@@ -65,6 +75,21 @@ public class AdminOrderController {
         return ResponseEntity.ok(apiResponse);
     }
     
+    /**
+     * Lấy tất cả orders theo cursor
+     * Endpoint: GET /api/v1/admin/orders/cursor?cursor=...&size=10
+     * Access: ADMIN only
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> getAllOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPageResponse<OrderResponse> orders = orderService.getAllOrdersByCursor(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(orders, "Orders fetched successfully"));
+    }
+    
     /**
      * Search orders
      * Endpoint: GET /api/v1/admin/orders/search
@@ -136,5 +161,23 @@ public class AdminOrderController {
         
         return ResponseEntity.ok(apiResponse);
     }
+    
+    /**
+     * Export orders dạng stream (gzip nếu client gửi Accept-Encoding: gzip)
+     * Endpoint: GET /api/v1/admin/orders/export?format=csv|ndjson&status=&from=2024-01-01&to=2024-12-31
+     * Access: ADMIN only
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request
+    ) {
+        ExportFormat exportFormat = streamingExporter.parseFormat(format);
+        
+        return streamingExporter.response("orders", exportFormat, request,
+                out -> orderService.exportOrders(exportFormat, status, from, to, out));
+    }
 }
-
@@ -1,6 +1,7 @@
 package com.d4k.ecommerce.modules.order.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
 import com.d4k.ecommerce.modules.order.dto.request.CancelOrderRequest;
 import com.d4k.ecommerce.modules.order.dto.request.CreateOrderRequest;
@@ -92,6 +93,23 @@ public class OrderController {
         return ResponseEntity.ok(apiResponse);
     }
     
+    /**
+     * Lấy danh sách orders của user theo cursor (không đếm tổng, chi phí mỗi trang không đổi)
+     * Endpoint: GET /api/v1/orders/cursor?cursor=...&size=10
+     * Access: Authenticated USER
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> getMyOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        Long userId = securityUtils.getCurrentUserId();
+        
+        CursorPageResponse<OrderResponse> orders = orderService.getUserOrdersByCursor(userId, cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(orders, "Orders fetched successfully"));
+    }
+    
     /**
      * Lấy chi tiết order
      * Endpoint: GET /api/v1/orders/{id}
@@ -25,9 +25,10 @@ import java.util.List;
 @Table(name = "orders",
     indexes = {
         @Index(name = "idx_order_user", columnList = "user_id"),
+        @Index(name = "idx_order_user_created", columnList = "user_id, created_at, id"),
         @Index(name = "idx_order_number", columnList = "order_number"),
         @Index(name = "idx_order_status", columnList = "status"),
-        @Index(name = "idx_order_created", columnList = "created_at")
+        @Index(name = "idx_order_created_id", columnList = "created_at, id")
     }
 )
 @Data
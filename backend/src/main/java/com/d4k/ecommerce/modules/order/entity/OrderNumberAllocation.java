@@ -0,0 +1,41 @@
+package com.d4k.ecommerce.modules.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * OrderNumberAllocation Entity
+ * High-water mark của sequence order number theo ngày.
+ * Mỗi node lease một block số liên tiếp bằng một câu UPDATE atomic,
+ * sau đó cấp phát trong bộ nhớ mà không cần lock toàn cục.
+ */
+@Entity
+@Table(name = "order_number_allocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderNumberAllocation {
+    
+    /**
+     * Ngày của order number (phần yyyyMMdd)
+     */
+    @Id
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+    
+    /**
+     * Số thứ tự cao nhất đã được lease cho ngày này
+     */
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,42 @@
+package com.d4k.ecommerce.modules.order.job;
+
+import com.d4k.ecommerce.modules.order.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pending Payment Expiry Job
+ * Định kỳ hủy các đơn VNPay bị bỏ dở và trả stock đã giữ về kho.
+ * Mỗi batch chạy trong transaction riêng; lặp đến khi không còn reservation hết hạn.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingPaymentExpiryJob {
+    
+    private final OrderService orderService;
+    
+    @Value("${app.reservation.sweep-batch-size:500}")
+    private int batchSize;
+    
+    @Scheduled(fixedDelayString = "${app.reservation.sweep-interval-ms:60000}")
+    public void expireUnpaidOrders() {
+        int total = 0;
+        int processed;
+        try {
+            do {
+                processed = orderService.expireUnpaidOrders(batchSize);
+                total += processed;
+            } while (processed == batchSize);
+        } catch (Exception e) {
+            log.error("Failed to expire unpaid orders", e);
+        }
+        
+        if (total > 0) {
+            log.info("Reservation sweep finished: {} orders processed", total);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.d4k.ecommerce.modules.order.entity.Order;
 import com.d4k.ecommerce.modules.order.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,6 +23,15 @@ import java.util.Optional;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    /**
+     * Tìm order và khóa row (SELECT ... FOR UPDATE) cho các thay đổi status.
+     * Serialize payment callback, hủy order (user / admin) và job hủy order hết hạn giữ hàng trên cùng order
+     * nên status được kiểm tra trên bản đã commit mới nhất và stock không bị hoàn / xác nhận hai lần.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
     /**
      * Tìm order theo order number
      */
@@ -31,6 +42,39 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Page<Order> findByUserId(Long userId, Pageable pageable);
     
+    /**
+     * Trang đầu orders của user theo keyset (created_at, id) giảm dần - không COUNT
+     */
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserFirstPage(@Param("userId") Long userId, Pageable pageable);
+    
+    /**
+     * Trang sau cursor của orders của user (seek trên idx_order_user_created)
+     */
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId " +
+           "AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByUserAfter(@Param("userId") Long userId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+    
+    /**
+     * Trang đầu tất cả orders theo keyset (Admin)
+     */
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPage(Pageable pageable);
+    
+    /**
+     * Trang sau cursor của tất cả orders (seek trên idx_order_created_id)
+     */
+    @Query("SELECT o FROM Order o " +
+           "WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAfter(@Param("createdAt") LocalDateTime createdAt,
+                          @Param("id") Long id,
+                          Pageable pageable);
+    
     /**
      * Tìm orders của user theo status
      */
@@ -104,11 +148,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "LOWER(o.receiverPhone) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Order> searchOrders(@Param("keyword") String keyword, Pageable pageable);
 
-    /**
-     * Tìm order number mới nhất theo prefix (để generate order number tiếp theo)
-     */
-    Optional<Order> findTopByOrderNumberStartingWithOrderByOrderNumberDesc(String prefix);
-
     // ================= ANALYTICS QUERIES =================
 
     /**
@@ -0,0 +1,14 @@
+package com.d4k.ecommerce.modules.order.service;
+
+/**
+ * Order Number Service Interface
+ * Cấp phát order number unique (format: ORD-YYYYMMDD-XXXXX) trên nhiều node
+ */
+public interface OrderNumberService {
+    
+    /**
+     * Lấy order number tiếp theo
+     * @return order number unique
+     */
+    String nextOrderNumber();
+}
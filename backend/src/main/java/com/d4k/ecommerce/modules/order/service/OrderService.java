@@ -1,12 +1,19 @@
 package com.d4k.ecommerce.modules.order.service;
 
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.modules.order.dto.request.CancelOrderRequest;
 import com.d4k.ecommerce.modules.order.dto.request.CreateOrderRequest;
 import com.d4k.ecommerce.modules.order.dto.request.UpdateOrderStatusRequest;
 import com.d4k.ecommerce.modules.order.dto.response.OrderResponse;
+import com.d4k.ecommerce.modules.order.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
 /**
  * Order Service Interface
  * Định nghĩa business logic cho orders
@@ -29,6 +36,15 @@ public interface OrderService {
      */
     Page<OrderResponse> getUserOrders(Long userId, Pageable pageable);
     
+    /**
+     * Lấy danh sách orders của user theo cursor (keyset, không COUNT)
+     * @param userId user ID
+     * @param cursor token từ trang trước (null cho trang đầu)
+     * @param size số orders mỗi trang
+     * @return trang orders kèm nextCursor
+     */
+    CursorPageResponse<OrderResponse> getUserOrdersByCursor(Long userId, String cursor, int size);
+    
     /**
      * Lấy chi tiết order
      * @param orderId order ID
@@ -52,6 +68,14 @@ public interface OrderService {
      */
     Page<OrderResponse> getAllOrders(Pageable pageable);
     
+    /**
+     * Lấy tất cả orders theo cursor (Admin)
+     * @param cursor token từ trang trước (null cho trang đầu)
+     * @param size số orders mỗi trang
+     * @return trang orders kèm nextCursor
+     */
+    CursorPageResponse<OrderResponse> getAllOrdersByCursor(String cursor, int size);
+    
     /**
      * Lấy chi tiết order (Admin)
      * @param orderId order ID
@@ -80,5 +104,22 @@ public interface OrderService {
      * @param success payment success status
      */
     void updateOrderAfterPayment(Long orderId, boolean success);
+    
+    /**
+     * Hủy các orders chờ thanh toán online đã hết hạn giữ hàng và hoàn stock (System)
+     * @param batchSize số order tối đa xử lý trong một lần
+     * @return số order đã xử lý (nhỏ hơn batchSize nghĩa là đã hết việc)
+     */
+    int expireUnpaidOrders(int batchSize);
+    
+    /**
+     * Export orders kèm items, mới nhất trước (Admin)
+     * @param format định dạng file
+     * @param status chỉ lấy orders ở trạng thái này (null: tất cả)
+     * @param from từ ngày tạo (null: không giới hạn)
+     * @param to đến hết ngày tạo (null: không giới hạn)
+     * @param out nơi ghi (không đóng)
+     */
+    void exportOrders(ExportFormat format, OrderStatus status, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException;
 }
-
@@ -0,0 +1,136 @@
+package com.d4k.ecommerce.modules.order.service.impl;
+
+import com.d4k.ecommerce.modules.order.service.OrderNumberService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order Number Service Implementation (hi/lo)
+ * Mỗi node lease một block blockSize số từ bảng order_number_allocations
+ * bằng một câu UPDATE ... RETURNING trên dòng của ngày (atomic, commit riêng),
+ * rồi cấp phát các số trong block bằng AtomicLong. Chỉ thread làm mới block mới phải lock.
+ */
+@Slf4j
+@Service
+public class OrderNumberServiceImpl implements OrderNumberService {
+    
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    /**
+     * Lease block mới trên dòng đã có của ngày: chỉ chạm một dòng theo primary key,
+     * chi phí không tăng theo số order trong ngày
+     */
+    private static final String LEASE_SQL =
+            "UPDATE order_number_allocations " +
+            "SET last_value = last_value + ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE order_date = ? RETURNING last_value";
+    
+    /**
+     * Lần đầu trong ngày (LEASE_SQL không chạm dòng nào): seed từ order number lớn nhất đã có
+     * (để không trùng với số được tạo trước khi có bảng allocations). Hai node cùng seed thì
+     * node sau rơi vào ON CONFLICT và lease block kế tiếp.
+     */
+    private static final String SEED_SQL =
+            "INSERT INTO order_number_allocations (order_date, last_value, updated_at) " +
+            "SELECT ?, COALESCE(MAX(CAST(SUBSTRING(order_number FROM 14) AS BIGINT)), 0) + ?, CURRENT_TIMESTAMP " +
+            "FROM orders WHERE order_number LIKE ? " +
+            "ON CONFLICT (order_date) DO UPDATE " +
+            "SET last_value = order_number_allocations.last_value + ?, updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING last_value";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leaseTransaction;
+    private final int blockSize;
+    
+    private volatile Block currentBlock;
+    
+    public OrderNumberServiceImpl(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.order-number.block-size:20}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = Math.max(1, blockSize);
+        
+        // Lease phải commit độc lập với transaction checkout, nếu không rollback sẽ trả block lại cho node khác
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Lấy order number tiếp theo
+     */
+    @Override
+    public String nextOrderNumber() {
+        LocalDate today = LocalDate.now();
+        while (true) {
+            Block block = currentBlock;
+            if (block != null && block.day.equals(today)) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.max) {
+                    return format(today, value);
+                }
+            }
+            refill(today, block);
+        }
+    }
+    
+    /**
+     * Làm mới block nếu chưa có thread nào khác làm trước
+     */
+    private synchronized void refill(LocalDate day, Block exhausted) {
+        if (currentBlock != exhausted) {
+            return;
+        }
+        currentBlock = leaseBlock(day);
+    }
+    
+    private Block leaseBlock(LocalDate day) {
+        String prefix = String.format("ORD-%s-", day.format(DATE_FORMAT));
+        
+        Long lastValue = leaseTransaction.execute(status -> {
+            List<Long> leased = jdbcTemplate.queryForList(LEASE_SQL, Long.class, blockSize, Date.valueOf(day));
+            if (!leased.isEmpty()) {
+                return leased.get(0);
+            }
+            return jdbcTemplate.queryForObject(
+                    SEED_SQL, Long.class, Date.valueOf(day), blockSize, prefix + "%", blockSize);
+        });
+        
+        if (lastValue == null) {
+            throw new IllegalStateException("Could not lease order number block for " + day);
+        }
+        
+        long first = lastValue - blockSize + 1;
+        log.info("Leased order number block {}{} - {}", prefix, first, lastValue);
+        return new Block(day, first, lastValue);
+    }
+    
+    private String format(LocalDate day, long value) {
+        return String.format("ORD-%s-%05d", day.format(DATE_FORMAT), value);
+    }
+    
+    /**
+     * Block số đã lease: [next, max]
+     */
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long max;
+        
+        private Block(LocalDate day, long first, long max) {
+            this.day = day;
+            this.next = new AtomicLong(first);
+            this.max = max;
+        }
+    }
+}
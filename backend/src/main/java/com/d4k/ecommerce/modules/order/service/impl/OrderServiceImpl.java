@@ -1,14 +1,21 @@
 package com.d4k.ecommerce.modules.order.service.impl;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
+import com.d4k.ecommerce.common.response.KeysetCursor;
 import com.d4k.ecommerce.common.constants.ErrorCodes;
 import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.common.export.ExportColumn;
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.export.StreamingExporter;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
 import com.d4k.ecommerce.common.exception.UnauthorizedException;
 import com.d4k.ecommerce.common.service.EmailService;
 import com.d4k.ecommerce.modules.cart.entity.Cart;
 import com.d4k.ecommerce.modules.cart.entity.CartItem;
 import com.d4k.ecommerce.modules.cart.repository.CartItemRepository;
+import com.d4k.ecommerce.modules.cart.event.CartCheckedOutEvent;
 import com.d4k.ecommerce.modules.cart.repository.CartRepository;
+import com.d4k.ecommerce.modules.cart.store.CartStore;
 import com.d4k.ecommerce.modules.order.dto.request.CancelOrderRequest;
 import com.d4k.ecommerce.modules.order.dto.request.CreateOrderRequest;
 import com.d4k.ecommerce.modules.order.dto.request.UpdateOrderStatusRequest;
@@ -16,30 +23,44 @@ import com.d4k.ecommerce.modules.order.dto.response.OrderResponse;
 import com.d4k.ecommerce.modules.order.entity.Order;
 import com.d4k.ecommerce.modules.order.entity.OrderItem;
 import com.d4k.ecommerce.modules.order.enums.OrderStatus;
+import com.d4k.ecommerce.modules.order.enums.PaymentMethod;
 import com.d4k.ecommerce.modules.order.enums.PaymentStatus;
 import com.d4k.ecommerce.modules.order.mapper.OrderMapper;
 import com.d4k.ecommerce.modules.order.repository.OrderRepository;
+import com.d4k.ecommerce.modules.order.service.OrderNumberService;
 import com.d4k.ecommerce.modules.order.service.OrderService;
+import com.d4k.ecommerce.modules.product.dto.inventory.StockDeductionResult;
+import com.d4k.ecommerce.modules.product.dto.inventory.StockLine;
 import com.d4k.ecommerce.modules.product.entity.Product;
-import com.d4k.ecommerce.modules.product.entity.ProductVariant;
-import com.d4k.ecommerce.modules.product.repository.ProductRepository;
+import com.d4k.ecommerce.modules.product.cache.ProductVariantCache;
+import com.d4k.ecommerce.modules.product.cache.ProductVariantIndex;
+import com.d4k.ecommerce.modules.product.service.InventoryService;
 import com.d4k.ecommerce.modules.promotion.entity.Coupon;
 import com.d4k.ecommerce.modules.promotion.repository.CouponRepository;
 import com.d4k.ecommerce.modules.user.entity.User;
 import com.d4k.ecommerce.modules.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Order Service Implementation
@@ -54,13 +75,77 @@ public class OrderServiceImpl implements OrderService {
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
     private final CouponRepository couponRepository;
     private final OrderMapper orderMapper;
     private final EmailService emailService;
+    private final InventoryService inventoryService;
+    private final OrderNumberService orderNumberService;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StreamingExporter streamingExporter;
+    private final ProductVariantCache productVariantCache;
+    private final CartStore cartStore;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final BigDecimal DEFAULT_SHIPPING_FEE = new BigDecimal("30000.00");
-    // private static final AtomicLong orderCounter = new AtomicLong(1); // Removed in favor of DB check
+    
+    /**
+     * Hủy các orders vẫn còn PENDING và trả về IDs thực sự bị hủy (atomic với payment callback)
+     */
+    private static final String CANCEL_EXPIRED_SQL =
+            "UPDATE orders SET status = 'CANCELLED', payment_status = 'FAILED', " +
+            "cancelled_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP, cancel_reason = :reason " +
+            "WHERE id IN (:ids) AND status = 'PENDING' " +
+            "RETURNING id";
+    
+    private static final String EXPORT_ORDERS_SELECT =
+            "SELECT o.id, o.order_number, o.user_id, u.email AS user_email, o.status, o.payment_method, " +
+            "o.payment_status, o.subtotal, o.shipping_fee, o.discount_amount, o.coupon_code, o.total_amount, " +
+            "o.receiver_name, o.receiver_phone, o.shipping_address, o.shipping_city, o.shipping_district, " +
+            "o.note, o.created_at, o.completed_at, o.cancelled_at, o.cancel_reason, ";
+    
+    /**
+     * items dạng "productId:size:color:quantity:price|..."
+     */
+    private static final String EXPORT_ORDER_ITEMS_CSV =
+            "(SELECT string_agg(concat_ws(':', i.product_id, coalesce(i.size, ''), coalesce(i.color, ''), " +
+            "i.quantity, i.price), '|' ORDER BY i.id) FROM order_items i WHERE i.order_id = o.id) AS items";
+    
+    private static final String EXPORT_ORDER_ITEMS_JSON =
+            "(SELECT json_agg(json_build_object('productId', i.product_id, 'productName', i.product_name, " +
+            "'size', i.size, 'color', i.color, 'price', i.price, 'quantity', i.quantity, 'subtotal', i.subtotal) " +
+            "ORDER BY i.id) FROM order_items i WHERE i.order_id = o.id) AS items";
+    
+    private static final List<ExportColumn> ORDER_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", rs -> rs.getLong("id")),
+            ExportColumn.of("orderNumber", rs -> rs.getString("order_number")),
+            ExportColumn.of("userId", rs -> rs.getLong("user_id")),
+            ExportColumn.of("userEmail", rs -> rs.getString("user_email")),
+            ExportColumn.of("status", rs -> rs.getString("status")),
+            ExportColumn.of("paymentMethod", rs -> rs.getString("payment_method")),
+            ExportColumn.of("paymentStatus", rs -> rs.getString("payment_status")),
+            ExportColumn.of("subtotal", rs -> rs.getBigDecimal("subtotal")),
+            ExportColumn.of("shippingFee", rs -> rs.getBigDecimal("shipping_fee")),
+            ExportColumn.of("discountAmount", rs -> rs.getBigDecimal("discount_amount")),
+            ExportColumn.of("couponCode", rs -> rs.getString("coupon_code")),
+            ExportColumn.of("totalAmount", rs -> rs.getBigDecimal("total_amount")),
+            ExportColumn.of("receiverName", rs -> rs.getString("receiver_name")),
+            ExportColumn.of("receiverPhone", rs -> rs.getString("receiver_phone")),
+            ExportColumn.of("shippingAddress", rs -> rs.getString("shipping_address")),
+            ExportColumn.of("shippingCity", rs -> rs.getString("shipping_city")),
+            ExportColumn.of("shippingDistrict", rs -> rs.getString("shipping_district")),
+            ExportColumn.of("note", rs -> rs.getString("note")),
+            ExportColumn.of("createdAt", rs -> rs.getObject("created_at", LocalDateTime.class)),
+            ExportColumn.of("completedAt", rs -> rs.getObject("completed_at", LocalDateTime.class)),
+            ExportColumn.of("cancelledAt", rs -> rs.getObject("cancelled_at", LocalDateTime.class)),
+            ExportColumn.of("cancelReason", rs -> rs.getString("cancel_reason")),
+            ExportColumn.json("items", rs -> rs.getString("items"))
+    );
+    
+    /**
+     * Thời gian giữ hàng cho đơn VNPay (link thanh toán VNPay hết hạn sau 15 phút)
+     */
+    @Value("${app.reservation.ttl-minutes:20}")
+    private long reservationTtlMinutes;
     
     /**
      * Tạo order từ cart
@@ -74,7 +159,8 @@ public class OrderServiceImpl implements OrderService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
                 
-        // 2. Get cart
+        // 2. Get cart (ghi thay đổi chưa flush của cart store trước khi đọc cart_items)
+        cartStore.flush(userId);
         Cart cart = cartRepository.findByUserIdWithItems(userId)
                 .orElseGet(() -> {
                     // If cart not found, create a new one (to avoid error, though it will be empty)
@@ -98,33 +184,46 @@ public class OrderServiceImpl implements OrderService {
         
         // 3. Create order items
         List<OrderItem> orderItems = new ArrayList<>();
+        List<StockLine> stockLines = new ArrayList<>();
+        Map<Long, String> productNames = new HashMap<>();
         BigDecimal subtotal = BigDecimal.ZERO;
+        Map<Long, ProductVariantIndex> variantIndexes = productVariantCache.getAll(cart.getItems().stream()
+                .map(cartItem -> cartItem.getProduct().getId())
+                .collect(Collectors.toSet()));
         
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
+            productNames.put(product.getId(), product.getName());
             
-            // Check stock again (double check)
-            int availableStock = 0;
+            // Chỉ dùng cache để tìm variant id; đủ stock hay không do conditional update ở bước 11 quyết định
+            // (stock trong cache có thể cũ: restock commit ở node khác không invalidate cache của node này)
+            ProductVariantIndex variantIndex = variantIndexes.get(product.getId());
+            ProductVariantIndex.Variant variant;
             if (cartItem.getSize() != null) {
-                ProductVariant variant = product.getVariants().stream()
-                        .filter(v -> v.getSize().equalsIgnoreCase(cartItem.getSize()))
-                        .filter(v -> cartItem.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(cartItem.getColor())))
-                        .findFirst()
-                        .orElseThrow(() -> new BusinessException(
-                                String.format("Product variant not found for '%s' (Size: %s). Please remove it from your cart.", 
-                                        product.getName(), cartItem.getSize()), 
-                                "VARIANT_NOT_FOUND"));
-                availableStock = variant.getStock();
+                variant = variantIndex.find(cartItem.getSize(), cartItem.getColor());
+                if (variant == null) {
+                    throw new BusinessException(
+                            String.format("Product variant not found for '%s' (Size: %s). Please remove it from your cart.", 
+                                    product.getName(), cartItem.getSize()), 
+                            "VARIANT_NOT_FOUND");
+                }
             } else {
-                 availableStock = product.getTotalStock();
+                 // Fallback: trừ vào variant đầu tiên
+                 variant = variantIndex.first();
             }
             
-            if (cartItem.getQuantity() > availableStock) {
-                 throw new BusinessException(
-                        String.format("Insufficient stock for product %s. Only %d items available", product.getName(), availableStock),
+            if (variant == null) {
+                // Product không có variant nào: stock (tổng stock các variants) luôn bằng 0
+                throw new BusinessException(
+                        String.format("Insufficient stock for product %s. Only 0 items available", product.getName()),
                         ErrorCodes.INSUFFICIENT_STOCK
                 );
             }
+            stockLines.add(StockLine.builder()
+                    .productId(product.getId())
+                    .variantId(variant.id())
+                    .quantity(cartItem.getQuantity())
+                    .build());
             
             BigDecimal itemSubtotal = product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()));
             
@@ -178,7 +277,7 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // 6. Generate order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = orderNumberService.nextOrderNumber();
         
         // 7. Determine payment status based on method
         PaymentStatus paymentStatus = PaymentStatus.PENDING;
@@ -211,42 +310,34 @@ public class OrderServiceImpl implements OrderService {
         // 10. Save order
         Order savedOrder = orderRepository.save(order);
         
-        // 11. Deduct stock
-        for (OrderItem item : savedOrder.getOrderItems()) {
-            Product product = item.getProduct();
-            if (item.getSize() != null) {
-                ProductVariant variant = product.getVariants().stream()
-                    .filter(v -> v.getSize().equalsIgnoreCase(item.getSize()))
-                    .filter(v -> item.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(item.getColor())))
-                    .findFirst()
-                    .orElseThrow(() -> new BusinessException(
-                            String.format("Variant not found for stock deduction: %s (Size: %s)", 
-                                    product.getName(), item.getSize()), 
-                            "VARIANT_NOT_FOUND"));
-                
-                variant.setStock(variant.getStock() - item.getQuantity());
-            } else {
-                 // Fallback
-                 if (!product.getVariants().isEmpty()) {
-                      ProductVariant variant = product.getVariants().get(0);
-                      variant.setStock(variant.getStock() - item.getQuantity());
-                 }
-            }
-            productRepository.save(product);
+        // 11. Deduct stock (conditional update + ghi sổ cái, cả order trong một câu lệnh)
+        StockDeductionResult deduction = inventoryService.deductForOrder(savedOrder.getId(), stockLines);
+        if (!deduction.isSuccess()) {
+            String failedProducts = deduction.getFailedLines().stream()
+                    .map(line -> productNames.get(line.getProductId()))
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            throw new BusinessException(
+                    String.format("Insufficient stock for product(s): %s", failedProducts),
+                    ErrorCodes.INSUFFICIENT_STOCK
+            );
+        }
+        
+        // Đơn thanh toán online: giữ hàng có thời hạn, sweeper sẽ hoàn stock nếu không thanh toán kịp
+        if (request.getPaymentMethod() == PaymentMethod.VNPAY) {
+            inventoryService.reserveStock(savedOrder.getId(), deduction.getDeductedLines(),
+                    LocalDateTime.now().plusMinutes(reservationTtlMinutes));
         }
         
-        // 12. Clear cart
+        // 12. Clear cart (cart store bỏ giỏ trong bộ nhớ sau commit)
         cart.getItems().clear();
         cartRepository.save(cart);
+        eventPublisher.publishEvent(new CartCheckedOutEvent(userId));
         
         log.info("Order created successfully: {}", savedOrder.getOrderNumber());
         
-        // Send email
-        try {
-            emailService.sendOrderConfirmation(savedOrder);
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation email", e);
-        }
+        // Send email (ghi vào outbox, gửi sau khi commit)
+        emailService.sendOrderConfirmation(savedOrder);
         
         return orderMapper.toResponse(savedOrder);
     }
@@ -264,6 +355,23 @@ public class OrderServiceImpl implements OrderService {
         return orders.map(orderMapper::toResponse);
     }
     
+    /**
+     * Lấy danh sách orders của user theo cursor
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderResponse> getUserOrdersByCursor(Long userId, String cursor, int size) {
+        log.info("Fetching orders for user {} by cursor", userId);
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Order> orders = after == null
+                ? orderRepository.findByUserFirstPage(userId, KeysetCursor.window(size))
+                : orderRepository.findByUserAfter(userId, after.getCreatedAt(), after.getId(), KeysetCursor.window(size));
+        
+        return CursorPageResponse.from(orders, size, orderMapper::toResponse,
+                order -> new KeysetCursor(order.getCreatedAt(), order.getId()));
+    }
+    
     /**
      * Lấy chi tiết order (User)
      */
@@ -291,7 +399,8 @@ public class OrderServiceImpl implements OrderService {
     public void cancelOrder(Long orderId, Long userId, CancelOrderRequest request) {
         log.info("User {} cancelling order {}", userId, orderId);
         
-        Order order = orderRepository.findById(orderId)
+        // Khóa row order: hủy đồng thời (user / admin / payment lỗi / job hết hạn) chỉ một lần hoàn stock
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         
         // Check ownership
@@ -303,38 +412,16 @@ public class OrderServiceImpl implements OrderService {
              throw new BusinessException("Cannot cancel completed or already cancelled order", "INVALID_STATUS");
         }
         
-        // Restore stock
-        for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            if (item.getSize() != null) {
-                ProductVariant variant = product.getVariants().stream()
-                    .filter(v -> v.getSize().equalsIgnoreCase(item.getSize()))
-                    .filter(v -> item.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(item.getColor())))
-                    .findFirst()
-                    .orElse(null);
-                
-                if (variant != null) {
-                    variant.setStock(variant.getStock() + item.getQuantity());
-                }
-            } else {
-                 if (!product.getVariants().isEmpty()) {
-                      ProductVariant variant = product.getVariants().get(0);
-                      variant.setStock(variant.getStock() + item.getQuantity());
-                 }
-            }
-            productRepository.save(product);
-        }
+        // Restore stock (theo sổ cái: hoàn đúng variant đã trừ, không hoàn hai lần)
+        inventoryService.restoreForOrder(orderId, "Cancelled by user");
+        inventoryService.releaseReservations(List.of(orderId));
         
         order.setStatus(OrderStatus.CANCELLED);
         order.setCancelledAt(LocalDateTime.now());
         orderRepository.save(order);
         log.info("Order {} cancelled successfully", orderId);
         
-        try {
-            emailService.sendOrderStatusUpdate(order);
-        } catch (Exception e) {
-            log.error("Failed to send cancellation email", e);
-        }
+        emailService.sendOrderStatusUpdate(order);
     }
     
     /**
@@ -350,6 +437,52 @@ public class OrderServiceImpl implements OrderService {
         return orders.map(orderMapper::toResponse);
     }
     
+    /**
+     * Export orders, duyệt theo idx_order_created_id nên dòng đầu tiên được ghi ngay, không cần sort cả bảng
+     */
+    @Override
+    public void exportOrders(ExportFormat format, OrderStatus status, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException {
+        log.info("Exporting orders as {} (status: {}, from: {}, to: {})", format, status, from, to);
+        
+        StringBuilder sql = new StringBuilder(EXPORT_ORDERS_SELECT)
+                .append(format == ExportFormat.CSV ? EXPORT_ORDER_ITEMS_CSV : EXPORT_ORDER_ITEMS_JSON)
+                .append(" FROM orders o JOIN users u ON u.id = o.user_id WHERE 1 = 1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (status != null) {
+            sql.append(" AND o.status = :status");
+            params.addValue("status", status.name());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= :from");
+            params.addValue("from", from.atStartOfDay());
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < :to");
+            params.addValue("to", to.plusDays(1).atStartOfDay());
+        }
+        sql.append(" ORDER BY o.created_at DESC, o.id DESC");
+        
+        streamingExporter.stream(out, format, sql.toString(), params, ORDER_EXPORT_COLUMNS);
+    }
+    
+    /**
+     * Lấy tất cả orders theo cursor (Admin)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderResponse> getAllOrdersByCursor(String cursor, int size) {
+        log.info("Fetching all orders by cursor (Admin)");
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Order> orders = after == null
+                ? orderRepository.findFirstPage(KeysetCursor.window(size))
+                : orderRepository.findAfter(after.getCreatedAt(), after.getId(), KeysetCursor.window(size));
+        
+        return CursorPageResponse.from(orders, size, orderMapper::toResponse,
+                order -> new KeysetCursor(order.getCreatedAt(), order.getId()));
+    }
+    
     /**
      * Lấy chi tiết order (Admin)
      */
@@ -372,7 +505,7 @@ public class OrderServiceImpl implements OrderService {
     public OrderResponse updateOrderStatus(Long orderId, UpdateOrderStatusRequest request) {
         log.info("Admin updating order {} status to {}", orderId, request.getStatus());
         
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         
         OrderStatus oldStatus = order.getStatus();
@@ -392,33 +525,13 @@ public class OrderServiceImpl implements OrderService {
             order.setCancelledAt(LocalDateTime.now());
             
             // Restore stock for admin cancellation
-            for (OrderItem item : order.getOrderItems()) {
-                Product product = item.getProduct();
-                if (item.getSize() != null) {
-                    ProductVariant variant = product.getVariants().stream()
-                        .filter(v -> v.getSize().equalsIgnoreCase(item.getSize()))
-                        .findFirst()
-                        .orElse(null);
-                    if (variant != null) {
-                        variant.setStock(variant.getStock() + item.getQuantity());
-                    }
-                } else {
-                     if (!product.getVariants().isEmpty()) {
-                          ProductVariant variant = product.getVariants().get(0);
-                          variant.setStock(variant.getStock() + item.getQuantity());
-                     }
-                }
-                productRepository.save(product);
-            }
+            inventoryService.restoreForOrder(orderId, "Cancelled by admin");
+            inventoryService.releaseReservations(List.of(orderId));
         }
         
         Order updatedOrder = orderRepository.save(order);
         
-        try {
-            emailService.sendOrderStatusUpdate(updatedOrder);
-        } catch (Exception e) {
-            log.error("Failed to send status update email", e);
-        }
+        emailService.sendOrderStatusUpdate(updatedOrder);
         
         return orderMapper.toResponse(updatedOrder);
     }
@@ -438,13 +551,15 @@ public class OrderServiceImpl implements OrderService {
     
     /**
      * Update order status after payment
+     * Khóa row order trước khi kiểm tra status: job hủy order hết hạn (CANCEL_EXPIRED_SQL) chờ tới khi callback
+     * commit rồi mới xét lại status = 'PENDING', ngược lại callback thấy CANCELLED nếu job đã hủy trước
      */
     @Override
     @Transactional
     public void updateOrderAfterPayment(Long orderId, boolean success) {
         log.info("Updating order {} after payment. Success: {}", orderId, success);
         
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
         
         if (success) {
@@ -452,13 +567,12 @@ public class OrderServiceImpl implements OrderService {
                 order.setStatus(OrderStatus.CONFIRMED);
                 order.setPaymentStatus(PaymentStatus.PAID);
                 orderRepository.save(order);
+                inventoryService.confirmReservation(orderId);
                 log.info("Order {} confirmed and paid", orderId);
                 
-                try {
-                    emailService.sendOrderStatusUpdate(order);
-                } catch (Exception e) {
-                    log.error("Failed to send payment confirmation email", e);
-                }
+                emailService.sendOrderStatusUpdate(order);
+            } else {
+                log.warn("Payment succeeded for order {} in status {} (reservation may have expired)", orderId, order.getStatus());
             }
         } else {
             // Payment failed -> Cancel order and restore stock
@@ -469,39 +583,41 @@ public class OrderServiceImpl implements OrderService {
                 order.setCancelReason("Payment Failed / Cancelled by User");
                 
                 // Restore stock
-                for (OrderItem item : order.getOrderItems()) {
-                    Product product = item.getProduct();
-                    if (item.getSize() != null) {
-                        ProductVariant variant = product.getVariants().stream()
-                            .filter(v -> v.getSize().equalsIgnoreCase(item.getSize()))
-                            .filter(v -> item.getColor() == null || (v.getColor() != null && v.getColor().equalsIgnoreCase(item.getColor())))
-                            .findFirst()
-                            .orElse(null);
-                        
-                        if (variant != null) {
-                            variant.setStock(variant.getStock() + item.getQuantity());
-                        }
-                    } else {
-                         if (!product.getVariants().isEmpty()) {
-                              ProductVariant variant = product.getVariants().get(0);
-                              variant.setStock(variant.getStock() + item.getQuantity());
-                         }
-                    }
-                    productRepository.save(product);
-                }
+                inventoryService.restoreForOrder(orderId, "Payment failed");
+                inventoryService.releaseReservations(List.of(orderId));
                 
                 orderRepository.save(order);
                 log.info("Order {} cancelled due to payment failure", orderId);
                 
-                try {
-                    emailService.sendOrderStatusUpdate(order);
-                } catch (Exception e) {
-                    log.error("Failed to send payment failure email", e);
-                }
+                emailService.sendOrderStatusUpdate(order);
             }
         }
     }
     
+    /**
+     * Hủy orders chờ thanh toán đã hết hạn giữ hàng (System)
+     */
+    @Override
+    @Transactional
+    public int expireUnpaidOrders(int batchSize) {
+        List<Long> orderIds = inventoryService.findExpiredReservationOrderIds(batchSize);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", orderIds)
+                .addValue("reason", "Payment not completed before reservation expired");
+        List<Long> cancelledIds = namedParameterJdbcTemplate.queryForList(CANCEL_EXPIRED_SQL, params, Long.class);
+        
+        // Chỉ hoàn stock cho orders vừa bị hủy; orders đã thanh toán / đã hủy trước đó chỉ đóng reservation
+        inventoryService.restoreForOrders(cancelledIds, "Reservation expired");
+        inventoryService.releaseReservations(orderIds);
+        
+        log.info("Expired {} unpaid orders ({} reservations closed)", cancelledIds.size(), orderIds.size());
+        return orderIds.size();
+    }
+    
     // ============== PRIVATE HELPER METHODS ==============
     
     /**
@@ -527,28 +643,6 @@ public class OrderServiceImpl implements OrderService {
         return discount.setScale(2, RoundingMode.HALF_UP);
     }
     
-    /**
-     * Generate unique order number
-     */
-    /**
-     * Generate unique order number
-     */
-    private synchronized String generateOrderNumber() {
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = String.format("ORD-%s-", date);
-        
-        // Find the latest order number for today
-        return orderRepository.findTopByOrderNumberStartingWithOrderByOrderNumberDesc(prefix)
-                .map(order -> {
-                    String currentOrderNumber = order.getOrderNumber();
-                    // Extract sequence number (last 5 digits)
-                    String sequenceStr = currentOrderNumber.substring(currentOrderNumber.length() - 5);
-                    long sequence = Long.parseLong(sequenceStr);
-                    return String.format("%s%05d", prefix, sequence + 1);
-                })
-                .orElse(String.format("%s%05d", prefix, 1));
-    }
-    
     /**
      * Validate status transition
      */
@@ -0,0 +1,91 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.common.cache.CacheStats;
+import com.d4k.ecommerce.common.cache.ResponseBodyCache;
+import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Catalog Response Cache
+ * Body đã serialize của các endpoint catalog public đọc nhiều nhất:
+ * chi tiết product, cây category và danh sách popular products.
+ *
+ * Invalidate sau commit theo cùng các event làm đổi dữ liệu gốc:
+ * - ProductChangedEvent / StockChangedEvent: product đó + mọi danh sách popular (có thể chứa product đó)
+ * - CategoryChangedEvent: toàn bộ (categoryName nằm trong mọi product)
+ * Xếp hạng popular còn đổi theo đơn DELIVERED, phần đó chỉ được làm mới theo TTL.
+ *
+ * Body được dựng từ các cache nguồn (ProductDetailCache, CategoryTreeStore) nên listeners ở đây chạy sau
+ * cùng (@Order): nếu bỏ body trước, request xen giữa sẽ dựng lại body từ dữ liệu cũ của cache nguồn và
+ * kiểm tra generation không bắt được (lần load bắt đầu sau khi invalidate), body cũ nằm lại tới hết TTL.
+ */
+@Component
+public class CatalogResponseCache {
+    
+    private static final String PRODUCT_PREFIX = "product:";
+    private static final String POPULAR_PREFIX = "popular:";
+    private static final String CATEGORY_TREE_KEY = "category-tree";
+    
+    private final ResponseBodyCache cache;
+    
+    public CatalogResponseCache(ObjectMapper objectMapper,
+                                @Value("${app.catalog-response-cache.max-entries:5000}") int maxEntries,
+                                @Value("${app.catalog-response-cache.max-weight-mb:64}") long maxWeightMb,
+                                @Value("${app.catalog-response-cache.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${app.catalog-response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.cache = new ResponseBodyCache("catalog-response", objectMapper, maxEntries,
+                maxWeightMb * 1024 * 1024, Duration.ofSeconds(ttlSeconds), gzipMinBytes);
+    }
+    
+    public ResponseEntity<byte[]> product(Long productId, HttpServletRequest request, Supplier<ApiResponse<?>> loader) {
+        return cache.respond(PRODUCT_PREFIX + productId, request, loader);
+    }
+    
+    public ResponseEntity<byte[]> categoryTree(HttpServletRequest request, Supplier<ApiResponse<?>> loader) {
+        return cache.respond(CATEGORY_TREE_KEY, request, loader);
+    }
+    
+    public ResponseEntity<byte[]> popularProducts(int limit, HttpServletRequest request, Supplier<ApiResponse<?>> loader) {
+        return cache.respond(POPULAR_PREFIX + limit, request, loader);
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(PRODUCT_PREFIX + event.getProductId());
+        cache.invalidateIf(key -> key.startsWith(POPULAR_PREFIX));
+    }
+    
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        for (Long productId : event.getProductIds()) {
+            cache.invalidate(PRODUCT_PREFIX + productId);
+        }
+        cache.invalidateIf(key -> key.startsWith(POPULAR_PREFIX));
+    }
+    
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import com.d4k.ecommerce.modules.product.service.CatalogChangeService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Catalog Version
+ * Phiên bản của toàn bộ catalog (products, variants / stock, categories), dùng làm ETag cho các
+ * endpoint listing: request có If-None-Match khớp được trả 304 ngay ở đầu handler, trước khi chạm
+ * service hay Hibernate.
+ *
+ * Phiên bản đọc từ change log catalog_changes (CatalogChangeService.currentVersion) nên mọi instance
+ * cho cùng ETag với cùng dữ liệu: instance khác đã commit thay đổi thì ETag cũ không còn khớp ở đây.
+ * Giá trị được giữ trong bộ nhớ tối đa refresh-ms; commit trên chính instance này làm mới ngay.
+ */
+@Slf4j
+@Component
+public class CatalogVersion {
+    
+    private final CatalogChangeService catalogChangeService;
+    private final long refreshMillis;
+    
+    private volatile Snapshot snapshot;
+    
+    public CatalogVersion(CatalogChangeService catalogChangeService,
+                          @Value("${app.catalog-version.refresh-ms:1000}") long refreshMillis) {
+        this.catalogChangeService = catalogChangeService;
+        this.refreshMillis = refreshMillis;
+    }
+    
+    /**
+     * Kiểm tra conditional GET và gắn ETag / Cache-Control cho response
+     * @return true nếu đã trả 304 (handler return null)
+     */
+    public boolean checkNotModified(WebRequest request) {
+        if (request instanceof ServletWebRequest servletRequest) {
+            HttpServletResponse response = servletRequest.getResponse();
+            if (response != null) {
+                // Cho phép browser / CDN lưu nhưng phải revalidate mỗi lần
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            }
+        }
+        Long version = current();
+        if (version == null) {
+            // Không đọc được phiên bản: trả body đầy đủ, không gắn ETag
+            return false;
+        }
+        return request.checkNotModified("W/\"catalog-" + version + "\"");
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        expire();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        expire();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        expire();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        expire();
+    }
+    
+    private Long current() {
+        Snapshot cached = snapshot;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < refreshMillis) {
+            return cached.version();
+        }
+        try {
+            long version = catalogChangeService.currentVersion();
+            snapshot = new Snapshot(version, now);
+            return version;
+        } catch (DataAccessException e) {
+            log.warn("Cannot load catalog version: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void expire() {
+        snapshot = null;
+    }
+    
+    private record Snapshot(long version, long loadedAt) {
+    }
+}
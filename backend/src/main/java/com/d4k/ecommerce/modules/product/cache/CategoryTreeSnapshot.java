@@ -0,0 +1,152 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.modules.product.dto.response.CategoryBreadcrumbResponse;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
+import com.d4k.ecommerce.modules.product.entity.Category;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Category Tree Snapshot
+ * Ảnh chụp bất biến của toàn bộ cây category tại một version: cây, tra cứu theo id,
+ * breadcrumbs và tập id của subtree đều được tính sẵn lúc build, đọc không cần lock.
+ * Không sửa snapshot sau khi build; thay đổi category tạo snapshot mới.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CategoryTreeSnapshot {
+    
+    private final long version;
+    
+    /**
+     * Root categories kèm children (thứ tự theo id)
+     */
+    private final List<CategoryResponse> roots;
+    
+    /**
+     * Mọi categories dạng phẳng (không có children), thứ tự theo id
+     */
+    private final List<CategoryResponse> categories;
+    
+    private final Map<Long, CategoryResponse> categoriesById;
+    
+    private final Map<Long, List<CategoryBreadcrumbResponse>> breadcrumbsById;
+    
+    private final Map<Long, Set<Long>> subtreeIdsById;
+    
+    public CategoryResponse find(Long categoryId) {
+        return categoriesById.get(categoryId);
+    }
+    
+    /**
+     * Đường đi từ root tới category (gồm chính nó); rỗng nếu không tồn tại
+     */
+    public List<CategoryBreadcrumbResponse> breadcrumbs(Long categoryId) {
+        return breadcrumbsById.getOrDefault(categoryId, List.of());
+    }
+    
+    /**
+     * ID của category và mọi hậu duệ; rỗng nếu không tồn tại
+     */
+    public Set<Long> subtreeIds(Long categoryId) {
+        return subtreeIdsById.getOrDefault(categoryId, Set.of());
+    }
+    
+    /**
+     * Build snapshot từ danh sách phẳng đã sắp theo id (chỉ đọc parent id, không khởi tạo proxy parent)
+     */
+    public static CategoryTreeSnapshot build(long version, List<Category> sortedCategories) {
+        Map<Long, Long> parentIds = new HashMap<>();
+        Map<Long, CategoryResponse> flat = new LinkedHashMap<>();
+        Map<Long, CategoryResponse> treeNodes = new LinkedHashMap<>();
+        for (Category category : sortedCategories) {
+            Long parentId = category.getParent() != null ? category.getParent().getId() : null;
+            parentIds.put(category.getId(), parentId);
+            flat.put(category.getId(), toResponse(category, parentId));
+            treeNodes.put(category.getId(), toResponse(category, parentId));
+        }
+        
+        // Gắn children + tên parent
+        List<CategoryResponse> roots = new ArrayList<>();
+        for (Map.Entry<Long, CategoryResponse> entry : treeNodes.entrySet()) {
+            Long parentId = parentIds.get(entry.getKey());
+            CategoryResponse parent = parentId != null ? treeNodes.get(parentId) : null;
+            if (parent == null) {
+                roots.add(entry.getValue());
+                continue;
+            }
+            entry.getValue().setParentName(parent.getName());
+            flat.get(entry.getKey()).setParentName(parent.getName());
+            if (parent.getChildren() == null) {
+                parent.setChildren(new ArrayList<>());
+            }
+            parent.getChildren().add(entry.getValue());
+        }
+        for (CategoryResponse node : treeNodes.values()) {
+            if (node.getChildren() != null) {
+                node.setChildren(Collections.unmodifiableList(node.getChildren()));
+            }
+        }
+        
+        // Breadcrumbs: đi từ root xuống, mỗi node = breadcrumbs của parent + chính nó
+        Map<Long, List<CategoryBreadcrumbResponse>> breadcrumbs = new HashMap<>();
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        for (CategoryResponse root : roots) {
+            index(root, List.of(), breadcrumbs, subtrees);
+        }
+        
+        return new CategoryTreeSnapshot(
+                version,
+                List.copyOf(roots),
+                List.copyOf(flat.values()),
+                Collections.unmodifiableMap(flat),
+                Collections.unmodifiableMap(breadcrumbs),
+                Collections.unmodifiableMap(subtrees));
+    }
+    
+    /**
+     * Duyệt DFS: ghi breadcrumbs trên đường xuống, gom subtree ids trên đường lên
+     */
+    private static Set<Long> index(CategoryResponse node, List<CategoryBreadcrumbResponse> parentPath,
+                                   Map<Long, List<CategoryBreadcrumbResponse>> breadcrumbs,
+                                   Map<Long, Set<Long>> subtrees) {
+        List<CategoryBreadcrumbResponse> path = new ArrayList<>(parentPath.size() + 1);
+        path.addAll(parentPath);
+        path.add(CategoryBreadcrumbResponse.builder().id(node.getId()).name(node.getName()).build());
+        path = List.copyOf(path);
+        breadcrumbs.put(node.getId(), path);
+        
+        Set<Long> subtree = new LinkedHashSet<>();
+        subtree.add(node.getId());
+        if (node.getChildren() != null) {
+            for (CategoryResponse child : node.getChildren()) {
+                subtree.addAll(index(child, path, breadcrumbs, subtrees));
+            }
+        }
+        Set<Long> frozen = Collections.unmodifiableSet(subtree);
+        subtrees.put(node.getId(), frozen);
+        return frozen;
+    }
+    
+    private static CategoryResponse toResponse(Category category, Long parentId) {
+        return CategoryResponse.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .imageUrl(category.getImageUrl())
+                .parentId(parentId)
+                .createdAt(category.getCreatedAt())
+                .updatedAt(category.getUpdatedAt())
+                .build();
+    }
+}
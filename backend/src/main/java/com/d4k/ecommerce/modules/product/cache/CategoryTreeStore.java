@@ -0,0 +1,65 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Category Tree Store
+ * Giữ CategoryTreeSnapshot hiện hành trong một volatile reference: reader chỉ đọc reference
+ * (không lock), writer build snapshot mới từ database rồi swap nguyên khối sau mỗi commit làm đổi category.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeStore {
+    
+    private final CategoryRepository categoryRepository;
+    
+    private volatile CategoryTreeSnapshot snapshot;
+    
+    private long version;
+    
+    /**
+     * Snapshot hiện hành (build ngay nếu chưa có)
+     */
+    public CategoryTreeSnapshot current() {
+        CategoryTreeSnapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSnapshot() {
+        rebuild();
+    }
+    
+    /**
+     * Chạy trước CatalogResponseCache (body category tree được dựng từ snapshot này)
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+    
+    /**
+     * Các lần rebuild chạy tuần tự: lần sau luôn đọc database sau lần trước nên không swap ngược về dữ liệu cũ
+     */
+    private synchronized CategoryTreeSnapshot rebuild() {
+        long start = System.currentTimeMillis();
+        CategoryTreeSnapshot rebuilt = CategoryTreeSnapshot.build(++version, categoryRepository.findAll(Sort.by("id")));
+        snapshot = rebuilt;
+        log.info("Category tree snapshot v{} built: {} categories in {} ms",
+                rebuilt.getVersion(), rebuilt.getCategories().size(), System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+}
@@ -0,0 +1,98 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.common.cache.BoundedLruCache;
+import com.d4k.ecommerce.common.cache.CacheStats;
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductVariantResponse;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Product Detail Cache
+ * Cache ProductResponse cho GET /api/v1/products/{id}.
+ * Invalidate sau commit khi product được ghi (ProductChangedEvent) hoặc stock của nó đổi qua
+ * sổ cái tồn kho (StockChangedEvent), và bỏ toàn bộ khi category đổi (CategoryChangedEvent).
+ * Listeners chạy trước CatalogResponseCache (body của nó được dựng từ cache này), xem CatalogResponseCache.
+ */
+@Component
+public class ProductDetailCache {
+    
+    // Ước lượng byte trên heap cho phần cố định của ProductResponse / mỗi variant / mỗi ảnh
+    private static final long BASE_WEIGHT = 400;
+    private static final long VARIANT_WEIGHT = 160;
+    private static final long IMAGE_WEIGHT = 64;
+    
+    private final BoundedLruCache<Long, ProductResponse> cache;
+    
+    public ProductDetailCache(@Value("${app.product-cache.max-entries:5000}") int maxEntries,
+                              @Value("${app.product-cache.max-weight-mb:32}") long maxWeightMb,
+                              @Value("${app.product-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = new BoundedLruCache<>("product-detail", maxEntries, maxWeightMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), ProductDetailCache::weigh);
+    }
+    
+    public ProductResponse get(Long productId, Function<Long, ProductResponse> loader) {
+        return cache.get(productId, loader);
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.getProductId());
+    }
+    
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        cache.invalidateAll(event.getProductIds());
+    }
+    
+    /**
+     * categoryName nằm trong mọi ProductResponse, category đổi hiếm nên bỏ toàn bộ cache
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.clear();
+    }
+    
+    /**
+     * Ước lượng kích thước (String Java 9+ dùng 1 byte/ký tự Latin-1, 2 byte/ký tự tiếng Việt có dấu)
+     */
+    private static long weigh(ProductResponse product) {
+        long weight = BASE_WEIGHT
+                + 2L * length(product.getName())
+                + 2L * length(product.getDescription())
+                + length(product.getImageUrl())
+                + length(product.getCategoryName());
+        if (product.getAdditionalImages() != null) {
+            for (String imageUrl : product.getAdditionalImages()) {
+                weight += IMAGE_WEIGHT + length(imageUrl);
+            }
+        }
+        if (product.getVariants() != null) {
+            for (ProductVariantResponse variant : product.getVariants()) {
+                weight += VARIANT_WEIGHT + length(variant.getSize()) + length(variant.getColor());
+            }
+        }
+        return weight;
+    }
+    
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
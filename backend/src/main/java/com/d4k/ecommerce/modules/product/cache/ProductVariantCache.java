@@ -0,0 +1,93 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.common.cache.BoundedLruCache;
+import com.d4k.ecommerce.common.cache.CacheStats;
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import com.d4k.ecommerce.modules.product.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product Variant Cache
+ * Cache ProductVariantIndex theo productId cho các đường nóng của cart / checkout (tra variant theo size / color).
+ * Miss của nhiều product được load chung một query. Invalidate sau commit khi product được ghi,
+ * khi stock đổi qua sổ cái tồn kho và khi import (giống ProductDetailCache).
+ * Stock trong index chỉ dùng để báo lỗi sớm ở giỏ hàng; checkout chỉ lấy variant id từ cache (stock có thể cũ
+ * tới TTL khi node khác commit), trừ stock thật vẫn là conditional update của InventoryService.
+ */
+@Component
+public class ProductVariantCache {
+    
+    private static final long BASE_WEIGHT = 160;
+    private static final long VARIANT_WEIGHT = 120;
+    
+    private final BoundedLruCache<Long, ProductVariantIndex> cache;
+    private final ProductVariantRepository productVariantRepository;
+    
+    public ProductVariantCache(ProductVariantRepository productVariantRepository,
+                               @Value("${app.variant-cache.max-entries:20000}") int maxEntries,
+                               @Value("${app.variant-cache.max-weight-mb:16}") long maxWeightMb,
+                               @Value("${app.variant-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.productVariantRepository = productVariantRepository;
+        this.cache = new BoundedLruCache<>("product-variants", maxEntries, maxWeightMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), index -> BASE_WEIGHT + VARIANT_WEIGHT * index.size());
+    }
+    
+    /**
+     * Index variants của một product (product không có variant: ProductVariantIndex.EMPTY)
+     */
+    public ProductVariantIndex get(Long productId) {
+        return cache.get(productId, id -> load(List.of(id)).get(id));
+    }
+    
+    /**
+     * Index variants của nhiều products, các product miss được load bằng một query
+     */
+    public Map<Long, ProductVariantIndex> getAll(Collection<Long> productIds) {
+        return cache.getAll(productIds, this::load);
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.getProductId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        cache.invalidateAll(event.getProductIds());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        cache.invalidateAll(event.getProducts().stream().map(ProductResponse::getId).toList());
+    }
+    
+    private Map<Long, ProductVariantIndex> load(List<Long> productIds) {
+        Map<Long, List<VariantLookupView>> rowsByProduct = new HashMap<>();
+        for (VariantLookupView row : productVariantRepository.findLookupByProductIdIn(productIds)) {
+            rowsByProduct.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row);
+        }
+        Map<Long, ProductVariantIndex> indexes = new HashMap<>();
+        for (Long productId : productIds) {
+            List<VariantLookupView> rows = rowsByProduct.get(productId);
+            indexes.put(productId, rows == null ? ProductVariantIndex.EMPTY : new ProductVariantIndex(rows));
+        }
+        return indexes;
+    }
+}
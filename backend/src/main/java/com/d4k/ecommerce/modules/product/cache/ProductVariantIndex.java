@@ -0,0 +1,186 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+
+import java.util.List;
+
+/**
+ * Product Variant Index
+ * Bảng tra (size, color) -> variant của một product, bất biến sau khi build.
+ * Khóa theo đúng quy tắc ProductVariant.keyOf (trim + lowercase) nhưng hash / so khớp trực tiếp trên
+ * chuỗi đầu vào nên một lần tra không cấp phát gì (không toLowerCase, không lambda, không tạo key).
+ *
+ * Hai bảng open addressing:
+ * - exact: (size, color) -> variant, dùng khi request có color
+ * - bySize: size -> variant id nhỏ nhất có size đó, dùng khi request không có color (giống cách cũ lấy variant đầu tiên)
+ * Variants được đưa vào theo id tăng dần nên khi dữ liệu cũ còn trùng khóa (khác hoa / thường) thì variant id nhỏ nhất thắng.
+ */
+public final class ProductVariantIndex {
+
+    public static final ProductVariantIndex EMPTY = new ProductVariantIndex(List.of());
+
+    private final Variant[] variants;
+    private final String[] sizeKeys;
+    private final String[] colorKeys;
+    private final int[] exactSlots;
+    private final int[] sizeSlots;
+    private final int mask;
+    private final int count;
+    private final int totalStock;
+
+    /**
+     * @param rows variants của một product, sắp theo id tăng dần
+     */
+    public ProductVariantIndex(List<VariantLookupView> rows) {
+        int capacity = 2;
+        while (capacity < rows.size() * 2) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.exactSlots = new int[capacity];
+        this.sizeSlots = new int[capacity];
+        this.variants = new Variant[rows.size()];
+        this.sizeKeys = new String[rows.size()];
+        this.colorKeys = new String[rows.size()];
+
+        int count = 0;
+        int stock = 0;
+        for (VariantLookupView row : rows) {
+            String sizeKey = ProductVariant.normalizeKeyPart(row.getSize());
+            String colorKey = ProductVariant.normalizeKeyPart(row.getColor());
+            int exactSlot = findSlot(exactSlots, row.getSize(), row.getColor(), true);
+            if (exactSlots[exactSlot] != 0) {
+                continue;
+            }
+            int variantStock = row.getStock() != null ? row.getStock() : 0;
+            variants[count] = new Variant(row.getId(), row.getSize(), row.getColor(), variantStock);
+            sizeKeys[count] = sizeKey;
+            colorKeys[count] = colorKey;
+            exactSlots[exactSlot] = count + 1;
+            int sizeSlot = findSlot(sizeSlots, row.getSize(), null, false);
+            if (sizeSlots[sizeSlot] == 0) {
+                sizeSlots[sizeSlot] = count + 1;
+            }
+            stock += variantStock;
+            count++;
+        }
+        this.count = count;
+        this.totalStock = stock;
+    }
+
+    /**
+     * Variant theo size / color (không phân biệt hoa thường, bỏ khoảng trắng hai đầu).
+     * color null hoặc trống: variant đầu tiên có size đó. Không có thì trả về null.
+     */
+    public Variant find(String size, String color) {
+        if (size == null || count == 0) {
+            return null;
+        }
+        boolean withColor = !isBlank(color);
+        int[] slots = withColor ? exactSlots : sizeSlots;
+        int ordinal = slots[findSlot(slots, size, color, withColor)];
+        return ordinal == 0 ? null : variants[ordinal - 1];
+    }
+
+    public boolean contains(String size, String color) {
+        return find(size, color) != null;
+    }
+
+    /**
+     * Variant id nhỏ nhất (variant mặc định khi cart item không có size)
+     */
+    public Variant first() {
+        return count == 0 ? null : variants[0];
+    }
+
+    public int getTotalStock() {
+        return totalStock;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Slot chứa khóa, hoặc slot trống đầu tiên trên chuỗi dò (linear probing)
+     */
+    private int findSlot(int[] slots, String size, String color, boolean withColor) {
+        int hash = hashPart(size, 17);
+        if (withColor) {
+            hash = hashPart(color, hash * 31 + ProductVariant.KEY_SEPARATOR);
+        }
+        int slot = mix(hash) & mask;
+        while (true) {
+            int ordinal = slots[slot];
+            if (ordinal == 0) {
+                return slot;
+            }
+            if (matches(sizeKeys[ordinal - 1], size)
+                    && (!withColor || matches(colorKeys[ordinal - 1], color))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hashPart(String value, int hash) {
+        if (value == null) {
+            return hash;
+        }
+        int end = trimmedEnd(value);
+        for (int i = trimmedStart(value, end); i < end; i++) {
+            hash = hash * 31 + Character.toLowerCase(value.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * key đã chuẩn hóa so với value thô: trim rồi lowercase từng ký tự, như ProductVariant.normalizeKeyPart
+     */
+    private static boolean matches(String key, String value) {
+        if (value == null) {
+            return key.isEmpty();
+        }
+        int end = trimmedEnd(value);
+        int start = trimmedStart(value, end);
+        if (end - start != key.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.toLowerCase(value.charAt(i)) != key.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimmedStart(String value, int end) {
+        int start = 0;
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimmedEnd(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || trimmedEnd(value) == 0;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Variant trong index: id, size / color gốc (lưu vào cart / order item) và stock tại thời điểm build
+     */
+    public record Variant(Long id, String size, String color, int stock) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+/**
+ * Projection variant để build ProductVariantIndex (không load entity / product)
+ */
+public interface VariantLookupView {
+    Long getId();
+    Long getProductId();
+    String getSize();
+    String getColor();
+    Integer getStock();
+}
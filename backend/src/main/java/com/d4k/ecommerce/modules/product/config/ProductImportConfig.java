@@ -0,0 +1,31 @@
+package com.d4k.ecommerce.modules.product.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Product Import Configuration
+ * Worker pool riêng cho bulk import products
+ */
+@Configuration
+public class ProductImportConfig {
+
+    /**
+     * Mỗi worker chạy một job từ đầu đến cuối; job vượt quá queue bị từ chối ngay lúc upload.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor productImportExecutor(
+            @Value("${app.product-import.workers:1}") int workers,
+            @Value("${app.product-import.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,10 +1,21 @@
 package com.d4k.ecommerce.modules.product.controller;
 
+import com.d4k.ecommerce.common.cache.CacheStats;
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.export.StreamingExporter;
 import com.d4k.ecommerce.common.response.ApiResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
+import com.d4k.ecommerce.modules.product.cache.CatalogResponseCache;
+import com.d4k.ecommerce.modules.product.cache.ProductDetailCache;
+import com.d4k.ecommerce.modules.product.cache.ProductVariantCache;
 import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
+import com.d4k.ecommerce.modules.product.dto.response.ProductImportJobResponse;
 import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.enums.ProductImportFormat;
+import com.d4k.ecommerce.modules.product.service.ProductImportService;
 import com.d4k.ecommerce.modules.product.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +27,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Admin Product Controller
@@ -29,6 +45,11 @@ import org.springframework.web.bind.annotation.*;
 public class AdminProductController {
     
     private final ProductService productService;
+    private final ProductDetailCache productDetailCache;
+    private final CatalogResponseCache catalogResponseCache;
+    private final ProductVariantCache productVariantCache;
+    private final ProductImportService productImportService;
+    private final StreamingExporter streamingExporter;
     
     /**
      * Lấy tất cả products (bao gồm inactive)
@@ -115,5 +136,83 @@ public class AdminProductController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Số liệu các cache catalog (hit / miss / eviction)
+     * GET /api/v1/admin/products/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<List<CacheStats>>> getProductCacheStats() {
+        ApiResponse<List<CacheStats>> response = ApiResponse.success(
+                List.of(productDetailCache.stats(), catalogResponseCache.stats(), productVariantCache.stats()),
+                "Product cache stats retrieved successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Import hàng loạt products, body là nội dung file (không dùng multipart)
+     * POST /api/v1/admin/products/import?format=csv|ndjson
+     * Không truyền format thì suy ra từ Content-Type (text/csv, application/x-ndjson)
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<ProductImportJobResponse>> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        
+        ProductImportFormat importFormat = resolveImportFormat(format, request.getContentType());
+        log.info("Admin importing products ({})", importFormat);
+        
+        ProductImportJobResponse job = productImportService.startImport(request.getInputStream(), importFormat);
+        
+        ApiResponse<ProductImportJobResponse> response = ApiResponse.success(
+                job,
+                "Product import started"
+        );
+        
+        return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+    }
+    
+    /**
+     * Tiến độ và lỗi theo dòng của job import
+     * GET /api/v1/admin/products/import/{jobId}
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ApiResponse<ProductImportJobResponse>> getImportJob(@PathVariable String jobId) {
+        ApiResponse<ProductImportJobResponse> response = ApiResponse.success(
+                productImportService.getJob(jobId),
+                "Product import job retrieved successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Export toàn bộ products dạng stream (gzip nếu client gửi Accept-Encoding: gzip)
+     * GET /api/v1/admin/products/export?format=csv|ndjson
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) {
+        
+        ExportFormat exportFormat = streamingExporter.parseFormat(format);
+        log.info("Admin exporting products ({})", exportFormat);
+        
+        return streamingExporter.response("products", exportFormat, request,
+                out -> productService.exportProducts(exportFormat, out));
+    }
+    
+    private ProductImportFormat resolveImportFormat(String format, String contentType) {
+        String value = format != null ? format : contentType != null ? contentType : "";
+        value = value.toLowerCase(Locale.ROOT);
+        if (value.contains("csv")) {
+            return ProductImportFormat.CSV;
+        }
+        if (value.contains("ndjson") || value.contains("jsonl")) {
+            return ProductImportFormat.NDJSON;
+        }
+        throw new BusinessException("Unsupported import format, use csv or ndjson", "INVALID_IMPORT_FORMAT");
+    }
 }
-
@@ -1,12 +1,17 @@
 package com.d4k.ecommerce.modules.product.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.modules.product.cache.CatalogResponseCache;
+import com.d4k.ecommerce.modules.product.cache.CatalogVersion;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryBreadcrumbResponse;
 import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
 import com.d4k.ecommerce.modules.product.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,13 +26,19 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogVersion catalogVersion;
     
     /**
      * Lấy tất cả categories (flat list)
      * GET /api/v1/categories
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories(WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
+        
         log.info("Fetching all categories");
         
         List<CategoryResponse> categories = categoryService.getAllCategories();
@@ -45,17 +56,13 @@ public class CategoryController {
      * GET /api/v1/categories/tree
      */
     @GetMapping("/tree")
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getCategoryTree() {
-        log.info("Fetching category tree");
-        
-        List<CategoryResponse> categoryTree = categoryService.getCategoryTree();
+    public ResponseEntity<byte[]> getCategoryTree(HttpServletRequest request) {
+        log.debug("Fetching category tree");
         
-        ApiResponse<List<CategoryResponse>> response = ApiResponse.success(
-                categoryTree,
+        return catalogResponseCache.categoryTree(request, () -> ApiResponse.success(
+                categoryService.getCategoryTree(),
                 "Category tree retrieved successfully"
-        );
-        
-        return ResponseEntity.ok(response);
+        ));
     }
     
     /**
@@ -63,7 +70,11 @@ public class CategoryController {
      * GET /api/v1/categories/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<CategoryResponse>> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
+        
         log.info("Fetching category with ID: {}", id);
         
         CategoryResponse category = categoryService.getCategoryById(id);
@@ -75,5 +86,23 @@ public class CategoryController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Lấy breadcrumbs của category (root -> category)
+     * GET /api/v1/categories/{id}/breadcrumbs
+     */
+    @GetMapping("/{id}/breadcrumbs")
+    public ResponseEntity<ApiResponse<List<CategoryBreadcrumbResponse>>> getBreadcrumbs(@PathVariable Long id,
+                                                                                   WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
+        
+        ApiResponse<List<CategoryBreadcrumbResponse>> response = ApiResponse.success(
+                categoryService.getBreadcrumbs(id),
+                "Category breadcrumbs retrieved successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
 }
-
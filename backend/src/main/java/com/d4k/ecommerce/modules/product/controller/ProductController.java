@@ -1,9 +1,18 @@
 package com.d4k.ecommerce.modules.product.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
+import com.d4k.ecommerce.modules.product.cache.CatalogResponseCache;
+import com.d4k.ecommerce.modules.product.cache.CatalogVersion;
+import com.d4k.ecommerce.modules.product.dto.request.ProductFilterRequest;
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeFeedResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductBrowseResponse;
 import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.SuggestResponse;
+import com.d4k.ecommerce.modules.product.service.CatalogChangeService;
 import com.d4k.ecommerce.modules.product.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -12,6 +21,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 /**
  * Public Product Controller
@@ -24,6 +36,9 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
     
     private final ProductService productService;
+    private final CatalogChangeService catalogChangeService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogVersion catalogVersion;
     
     /**
      * Lấy tất cả products (chỉ active)
@@ -34,7 +49,11 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
         
         log.info("Fetching all active products - page: {}, size: {}", page, size);
         
@@ -55,21 +74,46 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Lấy products (chỉ active) theo cursor - dùng cho infinite scroll, không đếm tổng
+     * GET /api/v1/products/cursor?cursor=...&size=10
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> getAllProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
+        
+        log.info("Fetching active products by cursor - size: {}", size);
+        
+        CursorPageResponse<ProductResponse> products = productService.getAllProductsByCursor(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(products, "Products retrieved successfully"));
+    }
+    
     /**
      * Lấy products theo category
-     * GET /api/v1/products/category/{categoryId}?page=0&size=10
+     * GET /api/v1/products/category/{categoryId}?page=0&size=10&includeDescendants=true
      */
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<ApiResponse<PageResponse<ProductResponse>>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeDescendants,
+            WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
         
         log.info("Fetching products by category ID: {}", categoryId);
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         
-        Page<ProductResponse> products = productService.getProductsByCategory(categoryId, pageable);
+        Page<ProductResponse> products = productService.getProductsByCategory(categoryId, includeDescendants, pageable);
         
         PageResponse<ProductResponse> pageResponse = PageResponse.from(products);
         
@@ -89,7 +133,11 @@ public class ProductController {
     public ResponseEntity<ApiResponse<PageResponse<ProductResponse>>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
         
         log.info("Searching products with keyword: {}", keyword);
         
@@ -108,21 +156,88 @@ public class ProductController {
     }
     
     /**
-     * Lấy chi tiết product theo ID
-     * GET /api/v1/products/{id}
+     * Gợi ý typeahead khi đang gõ (thay cho gọi /search mỗi phím)
+     * GET /api/v1/products/suggest?q=ao th&limit=8
      */
-    @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
-        log.info("Fetching product with ID: {}", id);
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<SuggestResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        
+        ApiResponse<SuggestResponse> response = ApiResponse.success(
+                productService.suggest(q, limit),
+                "Suggestions retrieved successfully"
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Lọc products theo facets (size, color, khoảng giá, category) kèm số lượng cho từng lựa chọn
+     * GET /api/v1/products/browse?sizes=M&colors=black&priceRanges=200000-500000&categoryIds=1&page=0&size=10
+     */
+    @GetMapping("/browse")
+    public ResponseEntity<ApiResponse<ProductBrowseResponse>> browseProducts(
+            @RequestParam(required = false) List<String> sizes,
+            @RequestParam(required = false) List<String> colors,
+            @RequestParam(required = false) List<String> priceRanges,
+            @RequestParam(required = false) List<Long> categoryIds,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
         
-        ProductResponse product = productService.getProductById(id);
+        log.info("Browsing products - sizes: {}, colors: {}, priceRanges: {}, categoryIds: {}",
+                sizes, colors, priceRanges, categoryIds);
         
-        ApiResponse<ProductResponse> response = ApiResponse.success(
-                product,
-                "Product retrieved successfully"
+        ProductFilterRequest filter = ProductFilterRequest.builder()
+                .sizes(sizes)
+                .colors(colors)
+                .priceRanges(priceRanges)
+                .categoryIds(categoryIds)
+                .build();
+        
+        ProductBrowseResponse browse = productService.browseProducts(filter, PageRequest.of(page, size));
+        
+        ApiResponse<ProductBrowseResponse> response = ApiResponse.success(
+                browse,
+                "Products retrieved successfully"
         );
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Change feed của catalog: các thay đổi product / stock / category sau watermark
+     * GET /api/v1/products/changes?since=1234-56&limit=500
+     * Bỏ since ở lần đầu; sau đó gửi lại nextSince. Gọi tiếp ngay khi hasMore = true,
+     * tải lại toàn bộ khi resyncRequired = true.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<CatalogChangeFeedResponse>> getCatalogChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        
+        CatalogChangeFeedResponse changes = catalogChangeService.getChanges(since, limit);
+        
+        return ResponseEntity.ok(ApiResponse.success(changes, "Catalog changes retrieved successfully"));
+    }
+    
+    /**
+     * Lấy chi tiết product theo ID
+     * GET /api/v1/products/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id, HttpServletRequest request) {
+        log.debug("Fetching product with ID: {}", id);
+        
+        // Body JSON được cache sẵn, chỉ dựng ApiResponse khi miss
+        return catalogResponseCache.product(id, request, () -> ApiResponse.success(
+                productService.getProductById(id),
+                "Product retrieved successfully"
+        ));
+    }
 }
 
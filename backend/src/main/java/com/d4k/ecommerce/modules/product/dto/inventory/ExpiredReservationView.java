@@ -0,0 +1,15 @@
+package com.d4k.ecommerce.modules.product.dto.inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection reservation hết hạn cho sweeper: (expiresAt, id) là keyset để đọc trang tiếp theo
+ */
+public interface ExpiredReservationView {
+    
+    Long getId();
+    
+    Long getOrderId();
+    
+    LocalDateTime getExpiresAt();
+}
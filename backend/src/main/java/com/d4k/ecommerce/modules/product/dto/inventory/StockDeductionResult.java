@@ -0,0 +1,30 @@
+package com.d4k.ecommerce.modules.product.dto.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kết quả trừ stock cho một lô line items
+ * failedLines chứa các dòng không đủ stock (conditional update không khớp)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDeductionResult {
+    
+    @Builder.Default
+    private List<StockLine> deductedLines = new ArrayList<>();
+    
+    @Builder.Default
+    private List<StockLine> failedLines = new ArrayList<>();
+    
+    public boolean isSuccess() {
+        return failedLines.isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package com.d4k.ecommerce.modules.product.dto.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một dòng thay đổi stock (variant + số lượng)
+ * Dùng cho các thao tác trừ / hoàn stock theo lô
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+    
+    private Long productId;
+    
+    private Long variantId;
+    
+    private Integer quantity;
+}
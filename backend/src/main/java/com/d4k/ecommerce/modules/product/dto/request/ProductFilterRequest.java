@@ -0,0 +1,30 @@
+package com.d4k.ecommerce.modules.product.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO request cho faceted browse
+ * Trong cùng một chiều là OR, giữa các chiều là AND
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterRequest {
+    
+    private List<String> sizes;
+    
+    private List<String> colors;
+    
+    /**
+     * Key khoảng giá, ví dụ "200000-500000" hoặc "2000000+"
+     */
+    private List<String> priceRanges;
+    
+    private List<Long> categoryIds;
+}
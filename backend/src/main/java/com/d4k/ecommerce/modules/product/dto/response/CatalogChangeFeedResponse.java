@@ -0,0 +1,35 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO response cho catalog change feed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeFeedResponse {
+    
+    private List<CatalogChangeResponse> changes;
+    
+    /**
+     * Watermark để gửi lại ở lần gọi sau (?since=)
+     */
+    private String nextSince;
+    
+    /**
+     * Còn thay đổi chưa trả, gọi tiếp ngay với nextSince
+     */
+    private Boolean hasMore;
+    
+    /**
+     * Watermark cũ hơn phần change log còn giữ: client phải tải lại toàn bộ catalog
+     */
+    private Boolean resyncRequired;
+}
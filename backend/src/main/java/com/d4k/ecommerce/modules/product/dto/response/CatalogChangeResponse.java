@@ -0,0 +1,28 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import com.d4k.ecommerce.modules.product.enums.CatalogChangeType;
+import com.d4k.ecommerce.modules.product.enums.CatalogEntityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO response cho một thay đổi trong catalog change feed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeResponse {
+    
+    private CatalogEntityType entityType;
+    
+    private Long entityId;
+    
+    private CatalogChangeType changeType;
+    
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,20 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO response cho một mục breadcrumb của category (từ root xuống)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryBreadcrumbResponse {
+    
+    private Long id;
+    
+    private String name;
+}
@@ -0,0 +1,30 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO response cho một giá trị facet
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetValueResponse {
+    
+    /**
+     * Giá trị truyền lại vào filter
+     */
+    private String value;
+    
+    private String label;
+    
+    /**
+     * Số product sẽ có nếu chọn thêm giá trị này
+     */
+    private Integer count;
+    
+    private Boolean selected;
+}
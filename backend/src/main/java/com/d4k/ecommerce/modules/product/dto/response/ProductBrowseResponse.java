@@ -0,0 +1,29 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import com.d4k.ecommerce.common.response.PageResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO response cho faceted browse: trang products + facet counts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBrowseResponse {
+    
+    private PageResponse<ProductResponse> products;
+    
+    private List<FacetValueResponse> sizes;
+    
+    private List<FacetValueResponse> colors;
+    
+    private List<FacetValueResponse> priceRanges;
+    
+    private List<FacetValueResponse> categories;
+}
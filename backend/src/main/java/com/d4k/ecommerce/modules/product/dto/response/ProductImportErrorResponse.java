@@ -0,0 +1,23 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO response cho một dòng import bị lỗi
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportErrorResponse {
+    
+    /**
+     * Số thứ tự dòng dữ liệu (bắt đầu từ 1, không tính header CSV)
+     */
+    private Long row;
+    
+    private String message;
+}
@@ -0,0 +1,54 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import com.d4k.ecommerce.modules.product.enums.ProductImportFormat;
+import com.d4k.ecommerce.modules.product.enums.ProductImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO response cho trạng thái job import products
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobResponse {
+    
+    private String jobId;
+    
+    private ProductImportFormat format;
+    
+    private ProductImportStatus status;
+    
+    /**
+     * Số dòng dữ liệu đã đọc
+     */
+    private Long processedRows;
+    
+    private Long importedRows;
+    
+    private Long failedRows;
+    
+    /**
+     * Lỗi theo dòng (giới hạn số lượng, xem errorsTruncated)
+     */
+    private List<ProductImportErrorResponse> errors;
+    
+    private Boolean errorsTruncated;
+    
+    /**
+     * Lý do khi job FAILED
+     */
+    private String message;
+    
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+}
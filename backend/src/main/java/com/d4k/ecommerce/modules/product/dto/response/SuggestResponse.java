@@ -0,0 +1,30 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO response cho typeahead (GET /api/v1/products/suggest)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestResponse {
+    
+    /**
+     * Từ khóa tìm kiếm phổ biến
+     */
+    private List<SuggestionResponse> queries;
+    
+    private List<SuggestionResponse> categories;
+    
+    /**
+     * Products, bán chạy trước
+     */
+    private List<SuggestionResponse> products;
+}
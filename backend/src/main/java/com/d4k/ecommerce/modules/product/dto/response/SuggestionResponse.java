@@ -0,0 +1,23 @@
+package com.d4k.ecommerce.modules.product.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO response cho một gợi ý typeahead
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    
+    /**
+     * ID của product / category (null với từ khóa)
+     */
+    private Long id;
+    
+    private String text;
+}
@@ -0,0 +1,54 @@
+package com.d4k.ecommerce.modules.product.entity;
+
+import com.d4k.ecommerce.modules.product.enums.CatalogChangeType;
+import com.d4k.ecommerce.modules.product.enums.CatalogEntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * CatalogChange Entity
+ * Change log của catalog (append-only), ghi trong cùng transaction với thay đổi.
+ * Client đọc lại theo watermark (txid, id) qua GET /api/v1/products/changes.
+ */
+@Entity
+@Table(name = "catalog_changes",
+    indexes = {
+        @Index(name = "idx_catalog_change_txid", columnList = "txid, id"),
+        @Index(name = "idx_catalog_change_created", columnList = "created_at")
+    }
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Transaction ID Postgres (pg_current_xact_id) của transaction ghi dòng này
+     */
+    @Column(name = "txid", nullable = false)
+    private Long txid;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private CatalogEntityType entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private CatalogChangeType changeType;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
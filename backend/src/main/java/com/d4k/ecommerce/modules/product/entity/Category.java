@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,8 +17,10 @@ import java.util.List;
 /**
  * Category Entity
  * Đại diện cho danh mục sản phẩm (có thể có parent category - hierarchical)
+ * Batch fetch: các proxy category chưa load trong cùng session được khởi tạo chung 1 query
  */
 @Entity
+@BatchSize(size = 100)
 @Table(name = "categories", indexes = {
     @Index(name = "idx_category_parent", columnList = "parent_id")
 })
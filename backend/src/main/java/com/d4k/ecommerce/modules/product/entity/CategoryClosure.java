@@ -0,0 +1,41 @@
+package com.d4k.ecommerce.modules.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CategoryClosure Entity
+ * Closure table của cây category: một dòng cho mỗi cặp (tổ tiên, hậu duệ), kể cả chính nó (depth = 0).
+ * Được CategoryServiceImpl duy trì khi tạo / đổi parent / xóa category; cho phép kiểm tra
+ * ancestor / descendant và lấy cả subtree bằng một query thay vì đi từng lazy load.
+ */
+@Entity
+@Table(name = "category_closure",
+    indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, depth")
+    }
+)
+@IdClass(CategoryClosureId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosure {
+    
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+    
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+    
+    /**
+     * Khoảng cách từ ancestor đến descendant (0: chính nó, 1: con trực tiếp...)
+     */
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+}
@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.product.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Khóa chính của CategoryClosure (ancestor_id, descendant_id)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosureId implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private Long ancestorId;
+    
+    private Long descendantId;
+}
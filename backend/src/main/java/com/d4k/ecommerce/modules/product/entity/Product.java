@@ -1,10 +1,12 @@
 package com.d4k.ecommerce.modules.product.entity;
 
+import com.d4k.ecommerce.modules.product.search.ProductTextAnalyzer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,7 +21,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_category", columnList = "category_id"),
-    @Index(name = "idx_product_name", columnList = "name")
+    @Index(name = "idx_product_name", columnList = "name"),
+    @Index(name = "idx_product_active_created", columnList = "is_active, created_at, id"),
+    @Index(name = "idx_product_stock", columnList = "stock")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -35,6 +39,12 @@ public class Product {
     @Column(name = "name", nullable = false, length = 200)
     private String name;
     
+    /**
+     * Name đã bỏ dấu + lowercase ("Áo Thun" -> "ao thun"), tính lại mỗi lần ghi, dùng cho search
+     */
+    @Column(name = "name_normalized", length = 200)
+    private String nameNormalized;
+    
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
     
@@ -44,21 +54,30 @@ public class Product {
     @Column(name = "image_url", length = 500)
     private String imageUrl;
 
-    @Column(name = "stock", nullable = false)
+    /**
+     * Tổng stock của mọi variant (aggregate chuẩn, không tự cộng lại từ variants khi đọc).
+     * Chỉ ghi lúc insert và qua SQL: InventoryService cộng / trừ đúng lượng variant thay đổi,
+     * ProductRepository.recalculateStock khi admin thay variants. updatable = false để entity
+     * đọc từ trước (stale) không ghi đè tổng khi Hibernate flush product.
+     */
+    @Column(name = "stock", nullable = false, updatable = false)
     @Builder.Default
     private Integer stock = 0;
     
     /**
      * Product Variants (Size/Color/Stock)
+     * Batch fetch: một trang listing load variants của cả trang bằng 1 query thay vì 1 query / product
      */
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @Builder.Default
     private java.util.List<ProductVariant> variants = new java.util.ArrayList<>();
 
     /**
-     * Additional Product Images
+     * Additional Product Images (batch fetch như variants)
      */
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @Builder.Default
     private java.util.List<ProductImage> images = new java.util.ArrayList<>();
     
@@ -81,12 +100,10 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
-    // Helper method to get total stock
-    public Integer getTotalStock() {
-        if (variants == null || variants.isEmpty()) {
-            return 0;
-        }
-        return variants.stream().mapToInt(ProductVariant::getStock).sum();
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        this.nameNormalized = ProductTextAnalyzer.fold(name);
     }
 }
 
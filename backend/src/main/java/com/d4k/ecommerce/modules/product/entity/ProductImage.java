@@ -7,7 +7,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+    @Index(name = "idx_product_image_product", columnList = "product_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -9,13 +9,18 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "product_variants")
+@Table(name = "product_variants", uniqueConstraints = {
+    // Cột đầu là product_id nên index unique này thay luôn cho index riêng trên product_id
+    @UniqueConstraint(name = "uk_product_variant_key", columnNames = {"product_id", "variant_key"})
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductVariant {
 
+    public static final char KEY_SEPARATOR = '|';
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,9 +35,48 @@ public class ProductVariant {
     @Column(name = "color")
     private String color; // Optional: Red, Blue, etc.
 
-    @Column(name = "stock", nullable = false)
+    /**
+     * Chỉ ghi lúc insert; sau đó mọi thay đổi đi qua InventoryService (conditional update + sổ cái stock_movements).
+     * updatable = false để entity đọc từ trước (stale) không ghi đè stock khi Hibernate flush variant.
+     */
+    @Column(name = "stock", nullable = false, updatable = false)
     private Integer stock;
 
     @Column(name = "price_adjustment")
     private BigDecimal priceAdjustment; // Optional: Add extra cost for specific variants
+
+    /**
+     * Khóa chuẩn của variant: size + color đã trim và lowercase. Unique theo product nên
+     * "M / Red" và "m / RED" không thể là hai variant khác nhau. Tính lại mỗi lần persist / update.
+     */
+    @Column(name = "variant_key")
+    private String variantKey;
+
+    @PrePersist
+    @PreUpdate
+    void computeVariantKey() {
+        variantKey = keyOf(size, color);
+    }
+
+    /**
+     * Khóa chuẩn cho cặp size / color (color null hoặc trống = không có color)
+     */
+    public static String keyOf(String size, String color) {
+        return normalizeKeyPart(size) + KEY_SEPARATOR + normalizeKeyPart(color);
+    }
+
+    /**
+     * Trim (như String.trim) và lowercase từng ký tự; ProductVariantIndex so khớp theo đúng quy tắc này
+     */
+    public static String normalizeKeyPart(String value) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            normalized.append(Character.toLowerCase(trimmed.charAt(i)));
+        }
+        return normalized.toString();
+    }
 }
@@ -0,0 +1,63 @@
+package com.d4k.ecommerce.modules.product.entity;
+
+import com.d4k.ecommerce.modules.product.enums.StockMovementType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * StockMovement Entity
+ * Sổ cái tồn kho (append-only): mỗi thay đổi stock của variant là một dòng.
+ * Tổng quantity theo order cho biết order đó còn đang giữ bao nhiêu stock.
+ */
+@Entity
+@Table(name = "stock_movements",
+    indexes = {
+        @Index(name = "idx_stock_movement_order", columnList = "order_id"),
+        @Index(name = "idx_stock_movement_variant", columnList = "variant_id, created_at")
+    }
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Order gây ra biến động (null với điều chỉnh thủ công)
+     */
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private StockMovementType movementType;
+    
+    /**
+     * Số lượng thay đổi có dấu (âm: trừ stock, dương: cộng stock)
+     */
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "reason", length = 255)
+    private String reason;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,60 @@
+package com.d4k.ecommerce.modules.product.entity;
+
+import com.d4k.ecommerce.modules.product.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * StockReservation Entity
+ * Giữ stock có thời hạn cho order chờ thanh toán online (VNPay).
+ * Stock đã được trừ lúc checkout; nếu hết hạn mà chưa thanh toán, sweeper sẽ hoàn stock và hủy order.
+ */
+@Entity
+@Table(name = "stock_reservations",
+    indexes = {
+        @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at"),
+        @Index(name = "idx_reservation_order", columnList = "order_id")
+    }
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ReservationStatus status;
+    
+    /**
+     * Thời điểm hết hạn giữ hàng
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Catalog Change Type Enum
+ * Loại thay đổi trong catalog change feed
+ */
+public enum CatalogChangeType {
+    /**
+     * Tạo mới / cập nhật (thông tin, giá, variants, ảnh, category)
+     */
+    UPSERTED,
+    
+    /**
+     * Đã xóa
+     */
+    DELETED,
+    
+    /**
+     * Chỉ stock thay đổi (đặt hàng, hủy đơn, điều chỉnh kho)
+     */
+    STOCK
+}
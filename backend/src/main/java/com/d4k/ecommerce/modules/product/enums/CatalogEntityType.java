@@ -0,0 +1,10 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Catalog Entity Type Enum
+ * Loại entity trong catalog change feed
+ */
+public enum CatalogEntityType {
+    PRODUCT,
+    CATEGORY
+}
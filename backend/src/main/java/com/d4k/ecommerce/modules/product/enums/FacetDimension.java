@@ -0,0 +1,27 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Facet Dimension Enum
+ * Các chiều lọc của faceted browse
+ */
+public enum FacetDimension {
+    /**
+     * ProductVariant.size
+     */
+    SIZE,
+    
+    /**
+     * ProductVariant.color
+     */
+    COLOR,
+    
+    /**
+     * Khoảng giá (app.facets.price-bounds)
+     */
+    PRICE,
+    
+    /**
+     * Product.category
+     */
+    CATEGORY
+}
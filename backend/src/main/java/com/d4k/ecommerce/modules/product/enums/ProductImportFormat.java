@@ -0,0 +1,9 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Định dạng file import products
+ */
+public enum ProductImportFormat {
+    CSV,    // Header + mỗi dòng một product
+    NDJSON  // Mỗi dòng một object JSON (cùng schema với ProductRequest)
+}
@@ -0,0 +1,11 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Trạng thái của một job import products
+ */
+public enum ProductImportStatus {
+    QUEUED,     // Đã nhận file, chờ worker
+    RUNNING,    // Đang đọc và ghi
+    COMPLETED,  // Đã đọc hết file (có thể có dòng lỗi)
+    FAILED      // Dừng giữa chừng (file hỏng, lỗi đọc...)
+}
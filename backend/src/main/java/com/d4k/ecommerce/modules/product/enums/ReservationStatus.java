@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Reservation Status Enum
+ * Trạng thái giữ hàng cho đơn chờ thanh toán online
+ */
+public enum ReservationStatus {
+    /**
+     * Đang giữ hàng, chờ thanh toán (hết hạn tại expiresAt)
+     */
+    HELD,
+    
+    /**
+     * Đã thanh toán - stock bị trừ vĩnh viễn
+     */
+    CONFIRMED,
+    
+    /**
+     * Đã trả lại stock (hết hạn, thanh toán thất bại hoặc hủy đơn)
+     */
+    RELEASED
+}
@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.product.enums;
+
+/**
+ * Stock Movement Type Enum
+ * Loại biến động stock trong sổ cái tồn kho
+ */
+public enum StockMovementType {
+    /**
+     * Trừ stock khi đặt hàng
+     */
+    DEDUCT,
+    
+    /**
+     * Hoàn stock khi hủy đơn / thanh toán thất bại / hết hạn giữ hàng
+     */
+    RESTORE,
+    
+    /**
+     * Điều chỉnh thủ công (kiểm kho, nhập hàng...)
+     */
+    ADJUST
+}
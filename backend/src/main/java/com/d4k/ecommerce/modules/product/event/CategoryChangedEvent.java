@@ -0,0 +1,26 @@
+package com.d4k.ecommerce.modules.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Category Changed Event
+ * Publish bởi CategoryServiceImpl sau mỗi lần tạo / sửa / xóa category
+ * (cây category và categoryName trong ProductResponse có thể đã đổi).
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    
+    private final Long categoryId;
+    
+    private final boolean deleted;
+    
+    public static CategoryChangedEvent upserted(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, false);
+    }
+    
+    public static CategoryChangedEvent deleted(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, true);
+    }
+}
@@ -0,0 +1,9 @@
+package com.d4k.ecommerce.modules.product.event;
+
+/**
+ * Loại thay đổi của product
+ */
+public enum ProductChangeType {
+    UPSERTED,
+    DELETED
+}
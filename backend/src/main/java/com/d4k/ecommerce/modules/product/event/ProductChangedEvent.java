@@ -0,0 +1,32 @@
+package com.d4k.ecommerce.modules.product.event;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Product Changed Event
+ * Publish bởi ProductServiceImpl sau mỗi lần ghi product; các index in-memory
+ * nghe event này với @TransactionalEventListener nên chỉ thấy thay đổi đã commit.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    
+    private final Long productId;
+    
+    private final ProductChangeType type;
+    
+    /**
+     * Trạng thái product sau khi ghi (null khi DELETED)
+     */
+    private final ProductResponse product;
+    
+    public static ProductChangedEvent upserted(ProductResponse product) {
+        return new ProductChangedEvent(product.getId(), ProductChangeType.UPSERTED, product);
+    }
+    
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, ProductChangeType.DELETED, null);
+    }
+}
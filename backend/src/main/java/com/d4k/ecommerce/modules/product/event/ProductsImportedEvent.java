@@ -0,0 +1,19 @@
+package com.d4k.ecommerce.modules.product.event;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Products Imported Event
+ * Publish bởi bulk import sau mỗi chunk (một transaction), thay cho một ProductChangedEvent mỗi product
+ * để các listener xử lý cả chunk một lần (vd. catalog_changes ghi bằng một batch insert).
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+    
+    private final List<ProductResponse> products;
+}
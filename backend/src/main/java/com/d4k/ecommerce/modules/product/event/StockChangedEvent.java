@@ -0,0 +1,19 @@
+package com.d4k.ecommerce.modules.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Stock Changed Event
+ * Publish bởi InventoryServiceImpl khi một thao tác trên sổ cái tồn kho (trừ / hoàn / điều chỉnh)
+ * thực sự thay đổi product_variants.stock; các cache product nghe event này để invalidate
+ * đúng những product bị ảnh hưởng.
+ */
+@Getter
+@AllArgsConstructor
+public class StockChangedEvent {
+    
+    private final Set<Long> productIds;
+}
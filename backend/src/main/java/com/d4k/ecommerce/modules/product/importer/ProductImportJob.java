@@ -0,0 +1,99 @@
+package com.d4k.ecommerce.modules.product.importer;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductImportErrorResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductImportJobResponse;
+import com.d4k.ecommerce.modules.product.enums.ProductImportFormat;
+import com.d4k.ecommerce.modules.product.enums.ProductImportStatus;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product Import Job
+ * Trạng thái của một lần import. Chỉ worker của job ghi; request xem trạng thái đọc qua toResponse()
+ * nên các counter là volatile và danh sách lỗi được đồng bộ.
+ */
+@Getter
+public class ProductImportJob {
+    
+    private final String id;
+    private final ProductImportFormat format;
+    private final Path file;
+    private final int maxErrors;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    
+    private volatile ProductImportStatus status = ProductImportStatus.QUEUED;
+    private volatile long processedRows;
+    private volatile long importedRows;
+    private volatile long failedRows;
+    private volatile String message;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    
+    private final List<ProductImportErrorResponse> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    
+    public ProductImportJob(String id, ProductImportFormat format, Path file, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.file = file;
+        this.maxErrors = maxErrors;
+    }
+    
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = ProductImportStatus.RUNNING;
+    }
+    
+    public void rowRead() {
+        processedRows++;
+    }
+    
+    public void imported(int rows) {
+        importedRows += rows;
+    }
+    
+    public synchronized void rowFailed(long row, String error) {
+        failedRows++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ProductImportErrorResponse(row, error));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+    
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = ProductImportStatus.COMPLETED;
+    }
+    
+    public void fail(String reason) {
+        message = reason;
+        finishedAt = LocalDateTime.now();
+        status = ProductImportStatus.FAILED;
+    }
+    
+    public boolean isFinished() {
+        return status == ProductImportStatus.COMPLETED || status == ProductImportStatus.FAILED;
+    }
+    
+    public synchronized ProductImportJobResponse toResponse() {
+        return ProductImportJobResponse.builder()
+                .jobId(id)
+                .format(format)
+                .status(status)
+                .processedRows(processedRows)
+                .importedRows(importedRows)
+                .failedRows(failedRows)
+                .errors(List.copyOf(errors))
+                .errorsTruncated(errorsTruncated)
+                .message(message)
+                .createdAt(createdAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
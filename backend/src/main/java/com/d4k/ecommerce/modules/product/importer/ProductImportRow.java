@@ -0,0 +1,13 @@
+package com.d4k.ecommerce.modules.product.importer;
+
+import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
+
+/**
+ * Một dòng import đã parse, validate và resolve category
+ * @param row số thứ tự dòng dữ liệu
+ * @param request dữ liệu product
+ * @param category category đã resolve
+ */
+public record ProductImportRow(long row, ProductRequest request, CategoryResponse category) {
+}
@@ -0,0 +1,159 @@
+package com.d4k.ecommerce.modules.product.importer;
+
+import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
+import com.d4k.ecommerce.modules.product.dto.request.ProductVariantRequest;
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductVariantResponse;
+import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.search.ProductTextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product Import Writer
+ * Ghi một chunk products bằng JDBC batch insert trong một transaction, bỏ qua persistence context
+ * của Hibernate (không dirty checking, không flush từng entity, không select lại id).
+ *
+ * Id của products và variants được cấp trước bằng một query nextval cho cả chunk, nhờ đó variants / images
+ * và dòng sổ cái ADJUST cho stock ban đầu (giống createProduct) cũng ghi được bằng batch ngay trong cùng
+ * transaction: tổng sổ cái của mỗi variant khớp stock ngay từ khi import.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImportWriter {
+    
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('products', 'id')) FROM generate_series(1, ?)";
+    
+    private static final String ALLOCATE_VARIANT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('product_variants', 'id')) FROM generate_series(1, ?)";
+    
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (id, name, name_normalized, description, price, image_url, stock, " +
+            "category_id, is_active, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_VARIANT_SQL =
+            "INSERT INTO product_variants (id, product_id, size, color, stock, price_adjustment, variant_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at) " +
+            "VALUES (NULL, ?, ?, 'ADJUST', ?, ?, ?)";
+    
+    private static final String INSERT_IMAGE_SQL =
+            "INSERT INTO product_images (product_id, image_url, display_order) VALUES (?, ?, ?)";
+    
+    private static final String IMPORT_REASON = "Import";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Ghi một chunk; lỗi database rollback cả chunk
+     */
+    public void write(List<ProductImportRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, rows.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            
+            List<List<ProductVariantRequest>> variantRequestsByRow = new ArrayList<>(rows.size());
+            int variantCount = 0;
+            for (ProductImportRow row : rows) {
+                List<ProductVariantRequest> variantRequests = variantRequests(row.request());
+                variantRequestsByRow.add(variantRequests);
+                variantCount += variantRequests.size();
+            }
+            List<Long> variantIds = jdbcTemplate.queryForList(ALLOCATE_VARIANT_IDS_SQL, Long.class, variantCount);
+            int nextVariant = 0;
+            
+            List<Object[]> products = new ArrayList<>(rows.size());
+            List<Object[]> variants = new ArrayList<>(variantCount);
+            List<Object[]> movements = new ArrayList<>(variantCount);
+            List<Object[]> images = new ArrayList<>();
+            List<ProductResponse> imported = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ProductImportRow row = rows.get(i);
+                ProductRequest request = row.request();
+                Long id = ids.get(i);
+                boolean active = request.getIsActive() == null || request.getIsActive();
+                
+                List<ProductVariantRequest> variantRequests = variantRequestsByRow.get(i);
+                int totalStock = 0;
+                List<ProductVariantResponse> variantResponses = new ArrayList<>(variantRequests.size());
+                for (ProductVariantRequest variant : variantRequests) {
+                    Long variantId = variantIds.get(nextVariant++);
+                    variants.add(new Object[]{variantId, id, variant.getSize(), variant.getColor(), variant.getStock(),
+                            variant.getPriceAdjustment(), ProductVariant.keyOf(variant.getSize(), variant.getColor())});
+                    if (variant.getStock() != 0) {
+                        movements.add(new Object[]{id, variantId, variant.getStock(), IMPORT_REASON, now});
+                    }
+                    variantResponses.add(ProductVariantResponse.builder()
+                            .id(variantId)
+                            .size(variant.getSize())
+                            .color(variant.getColor())
+                            .stock(variant.getStock())
+                            .priceAdjustment(variant.getPriceAdjustment())
+                            .build());
+                    totalStock += variant.getStock();
+                }
+                
+                List<String> additionalImages = request.getAdditionalImages() != null ? request.getAdditionalImages() : List.of();
+                for (int order = 0; order < additionalImages.size(); order++) {
+                    images.add(new Object[]{id, additionalImages.get(order), order});
+                }
+                
+                products.add(new Object[]{id, request.getName(), ProductTextAnalyzer.fold(request.getName()),
+                        request.getDescription(), request.getPrice(), request.getImageUrl(), totalStock,
+                        row.category().getId(), active, now, now});
+                imported.add(ProductResponse.builder()
+                        .id(id)
+                        .name(request.getName())
+                        .description(request.getDescription())
+                        .price(request.getPrice())
+                        .stock(totalStock)
+                        .imageUrl(request.getImageUrl())
+                        .additionalImages(additionalImages)
+                        .categoryId(row.category().getId())
+                        .categoryName(row.category().getName())
+                        .isActive(active)
+                        .inStock(totalStock > 0)
+                        .createdAt(now.toLocalDateTime())
+                        .updatedAt(now.toLocalDateTime())
+                        .variants(variantResponses)
+                        .build());
+            }
+            
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, products);
+            jdbcTemplate.batchUpdate(INSERT_VARIANT_SQL, variants);
+            if (!movements.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, movements);
+            }
+            if (!images.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_IMAGE_SQL, images);
+            }
+            eventPublisher.publishEvent(new ProductsImportedEvent(imported));
+        });
+    }
+    
+    /**
+     * Giống createProduct: không có variants thì tạo variant FREESIZE từ stock
+     */
+    private static List<ProductVariantRequest> variantRequests(ProductRequest request) {
+        return request.getVariants() != null && !request.getVariants().isEmpty()
+                ? request.getVariants()
+                : List.of(ProductVariantRequest.builder()
+                        .size("FREESIZE")
+                        .stock(request.getStock() != null ? request.getStock() : 0)
+                        .build());
+    }
+}
@@ -0,0 +1,34 @@
+package com.d4k.ecommerce.modules.product.job;
+
+import com.d4k.ecommerce.modules.product.service.CatalogChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Change Purge Job
+ * Mỗi ngày xóa change log cũ hơn thời gian lưu; client có watermark đã bị xóa sẽ nhận resyncRequired.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogChangePurgeJob {
+    
+    private final CatalogChangeService catalogChangeService;
+    
+    @Value("${app.catalog-changes.retention-days:7}")
+    private int retentionDays;
+    
+    @Scheduled(cron = "${app.catalog-changes.purge-cron:0 30 3 * * *}")
+    public void purgeOldChanges() {
+        try {
+            catalogChangeService.purgeOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        } catch (Exception e) {
+            log.error("Failed to purge catalog changes", e);
+        }
+    }
+}
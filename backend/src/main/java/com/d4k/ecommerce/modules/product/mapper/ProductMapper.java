@@ -22,12 +22,14 @@ public class ProductMapper {
                     .collect(Collectors.toList());
         }
 
+        int totalStock = product.getStock() != null ? product.getStock() : 0;
+
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
                 .description(product.getDescription())
                 .price(product.getPrice())
-                .stock(product.getTotalStock())
+                .stock(totalStock)
                 .imageUrl(product.getImageUrl())
                 .additionalImages(product.getImages() != null 
                         ? product.getImages().stream().map(com.d4k.ecommerce.modules.product.entity.ProductImage::getImageUrl).collect(Collectors.toList())
@@ -35,7 +37,7 @@ public class ProductMapper {
                 .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
                 .categoryName(product.getCategory() != null ? product.getCategory().getName() : null)
                 .isActive(product.getIsActive())
-                .inStock(product.getTotalStock() > 0)
+                .inStock(totalStock > 0)
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
                 .variants(variantResponses)
@@ -0,0 +1,72 @@
+package com.d4k.ecommerce.modules.product.repository;
+
+import com.d4k.ecommerce.modules.product.entity.CategoryClosure;
+import com.d4k.ecommerce.modules.product.entity.CategoryClosureId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * CategoryClosure Repository
+ * Các thao tác bảo trì closure table đều là một câu SQL trên tập dòng (không duyệt cây trong Java)
+ */
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosureId> {
+    
+    /**
+     * Thêm node mới: dòng của chính nó + mọi tổ tiên của parent (nếu có)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT :categoryId, :categoryId, 0 " +
+                   "UNION ALL " +
+                   "SELECT ancestor_id, :categoryId, depth + 1 FROM category_closure WHERE descendant_id = :parentId",
+           nativeQuery = true)
+    void insertNode(@Param("categoryId") Long categoryId, @Param("parentId") Long parentId);
+    
+    /**
+     * Tách subtree của category khỏi các tổ tiên hiện tại (giữ nguyên đường đi bên trong subtree)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM category_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = :categoryId) " +
+                   "AND ancestor_id NOT IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = :categoryId)",
+           nativeQuery = true)
+    void detachSubtree(@Param("categoryId") Long categoryId);
+    
+    /**
+     * Gắn subtree của category dưới parent mới: nối mọi tổ tiên của parent với mọi node trong subtree
+     */
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 " +
+                   "FROM category_closure above CROSS JOIN category_closure below " +
+                   "WHERE above.descendant_id = :parentId AND below.ancestor_id = :categoryId",
+           nativeQuery = true)
+    void attachSubtree(@Param("categoryId") Long categoryId, @Param("parentId") Long parentId);
+    
+    /**
+     * Xóa mọi dòng liên quan tới category (dùng khi xóa category lá)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM category_closure WHERE descendant_id = :categoryId OR ancestor_id = :categoryId",
+           nativeQuery = true)
+    void deleteNode(@Param("categoryId") Long categoryId);
+    
+    /**
+     * Kiểm tra descendantId có nằm trong subtree của ancestorId không (kể cả chính nó)
+     */
+    @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM CategoryClosure c " +
+           "WHERE c.ancestorId = :ancestorId AND c.descendantId = :descendantId")
+    boolean isDescendant(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+    
+    /**
+     * ID của category và mọi hậu duệ
+     */
+    @Query("SELECT c.descendantId FROM CategoryClosure c WHERE c.ancestorId = :ancestorId")
+    List<Long> findSubtreeIds(@Param("ancestorId") Long ancestorId);
+}
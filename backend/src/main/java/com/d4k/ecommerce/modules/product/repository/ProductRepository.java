@@ -1,18 +1,26 @@
 package com.d4k.ecommerce.modules.product.repository;
 
 import com.d4k.ecommerce.modules.product.entity.Product;
+import com.d4k.ecommerce.modules.product.search.ProductFacetView;
+import com.d4k.ecommerce.modules.product.search.ProductSearchView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Product Repository
  * Data access layer cho Product entity
+ * Các query listing fetch-join category (ManyToOne, không làm hỏng LIMIT);
+ * variants / images là collection nên được batch fetch (@BatchSize trên Product) thay vì join
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -20,53 +28,137 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Tìm products theo category ID
      */
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
     
     /**
      * Tìm products theo category ID và isActive
      */
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryIdAndIsActive(Long categoryId, Boolean isActive, Pageable pageable);
     
+    /**
+     * Tìm products active thuộc category hoặc bất kỳ category con cháu nào (qua closure table)
+     */
+    @EntityGraph(attributePaths = "category")
+    @Query(value = "SELECT p FROM Product p WHERE p.isActive = true AND p.category.id IN " +
+                   "(SELECT c.descendantId FROM CategoryClosure c WHERE c.ancestorId = :categoryId)",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.category.id IN " +
+                        "(SELECT c.descendantId FROM CategoryClosure c WHERE c.ancestorId = :categoryId)")
+    Page<Product> findActiveInCategorySubtree(@Param("categoryId") Long categoryId, Pageable pageable);
+    
     /**
      * Tìm products active (public)
      */
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByIsActive(Boolean isActive, Pageable pageable);
     
     /**
-     * Tìm kiếm products theo keyword trong name hoặc description
+     * Trang đầu của products active theo keyset (created_at, id) giảm dần - không COUNT
      */
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findActiveFirstPage(Pageable pageable);
+    
+    /**
+     * Trang sau cursor của products active (seek trên idx_product_active_created)
+     */
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.isActive = true " +
+           "AND (p.createdAt, p.id) < (:createdAt, :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findActiveAfter(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+    
     /**
      * Tìm kiếm products theo keyword trong name hoặc description
+     * (chỉ dùng khi search index chưa build xong; keyword phải được fold trước).
+     * description được fold bằng translate với foldFrom / foldTo = ProductTextAnalyzer.SQL_FOLD_FROM / SQL_FOLD_TO
      */
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE " +
-           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(p.nameNormalized LIKE CONCAT('%', :keyword, '%') OR " +
+           "translate(LOWER(p.description), :foldFrom, :foldTo) LIKE CONCAT('%', :keyword, '%')) AND " +
            "p.isActive = :isActive")
     Page<Product> searchByKeyword(@Param("keyword") String keyword, 
+                                   @Param("foldFrom") String foldFrom,
+                                   @Param("foldTo") String foldTo,
                                    @Param("isActive") Boolean isActive, 
                                    Pageable pageable);
     
+    /**
+     * Tất cả products (Admin), category load chung query trang
+     */
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+    
+    /**
+     * Load products theo danh sách id (trang kết quả search / browse), category load chung query
+     */
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+    
+    /**
+     * Dữ liệu để build search index
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.nameNormalized AS nameNormalized, p.description AS description, " +
+           "p.isActive AS isActive, p.createdAt AS createdAt FROM Product p")
+    List<ProductSearchView> findAllForSearchIndex();
+    
+    /**
+     * Dữ liệu search index của các products đổi trong lúc build index
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.nameNormalized AS nameNormalized, p.description AS description, " +
+           "p.isActive AS isActive, p.createdAt AS createdAt FROM Product p WHERE p.id IN :ids")
+    List<ProductSearchView> findForSearchIndexByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Dữ liệu để build facet index
+     */
+    @Query("SELECT p.id AS id, p.price AS price, p.category.id AS categoryId, p.isActive AS isActive FROM Product p")
+    List<ProductFacetView> findAllForFacetIndex();
+    
+    /**
+     * Dữ liệu facet index của các products đổi trong lúc build index
+     */
+    @Query("SELECT p.id AS id, p.price AS price, p.category.id AS categoryId, p.isActive AS isActive " +
+           "FROM Product p WHERE p.id IN :ids")
+    List<ProductFacetView> findForFacetIndexByIdIn(@Param("ids") Collection<Long> ids);
+    
     /**
      * Đếm products có ít nhất 1 variant còn hàng (stock > 0)
      */
-    @Query("SELECT COUNT(DISTINCT p) FROM Product p JOIN p.variants v WHERE v.stock > 0")
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > 0")
     Long countProductsWithStock();
 
     /**
      * Đếm products có tổng stock = 0
      */
-    @Query("SELECT COUNT(p) FROM Product p WHERE (SELECT COALESCE(SUM(v.stock), 0) FROM ProductVariant v WHERE v.product = p) = 0")
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock = 0")
     Long countOutOfStockProducts();
 
     /**
      * Đếm products có tổng stock trong khoảng
      */
-    @Query("SELECT COUNT(p) FROM Product p WHERE (SELECT COALESCE(SUM(v.stock), 0) FROM ProductVariant v WHERE v.product = p) BETWEEN :min AND :max")
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock BETWEEN :min AND :max")
     Long countProductsWithTotalStockBetween(@Param("min") Integer min, @Param("max") Integer max);
+
+    /**
+     * Tính lại products.stock từ variants của một product (sau khi admin thay toàn bộ variants)
+     */
+    @Modifying
+    @Query(value = "UPDATE products SET stock = " +
+            "(SELECT COALESCE(SUM(v.stock), 0) FROM product_variants v WHERE v.product_id = :productId) " +
+            "WHERE id = :productId", nativeQuery = true)
+    int recalculateStock(@Param("productId") Long productId);
     
     /**
      * Lấy sản phẩm cùng category, loại trừ sản phẩm hiện tại (cho Similar Products)
      */
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.isActive = true AND p.id != :excludeId ORDER BY p.createdAt DESC")
     List<Product> findByCategoryIdAndIsActiveTrueAndIdNot(
         @Param("categoryId") Long categoryId, 
@@ -77,6 +169,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Lấy sản phẩm active sắp xếp theo ngày tạo (fallback cho Popular Products)
      */
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByIsActiveTrueOrderByCreatedAtDesc(Pageable pageable);
 }
 
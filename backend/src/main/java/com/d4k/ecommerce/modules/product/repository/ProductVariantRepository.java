@@ -1,13 +1,39 @@
 package com.d4k.ecommerce.modules.product.repository;
 
+import com.d4k.ecommerce.modules.product.cache.VariantLookupView;
 import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+import com.d4k.ecommerce.modules.product.search.VariantFacetView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
     List<ProductVariant> findByProductId(Long productId);
     void deleteByProductId(Long productId);
+    
+    /**
+     * Size / color của tất cả variants để build facet index
+     */
+    @Query("SELECT v.product.id AS productId, v.size AS size, v.color AS color FROM ProductVariant v")
+    List<VariantFacetView> findAllForFacetIndex();
+    
+    /**
+     * Size / color variants của các products đổi trong lúc build facet index
+     */
+    @Query("SELECT v.product.id AS productId, v.size AS size, v.color AS color FROM ProductVariant v " +
+           "WHERE v.product.id IN :productIds")
+    List<VariantFacetView> findForFacetIndexByProductIdIn(@Param("productIds") Collection<Long> productIds);
+    
+    /**
+     * Variants của nhiều products để build ProductVariantIndex, theo id tăng dần.
+     * Bỏ các variant cũ chưa có variant_key (trùng khóa với variant khác, xem DatabaseFixer.backfillVariantKeys)
+     */
+    @Query("SELECT v.id AS id, v.product.id AS productId, v.size AS size, v.color AS color, v.stock AS stock " +
+           "FROM ProductVariant v WHERE v.product.id IN :productIds AND v.variantKey IS NOT NULL ORDER BY v.id")
+    List<VariantLookupView> findLookupByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
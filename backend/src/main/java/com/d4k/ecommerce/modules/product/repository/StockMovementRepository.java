@@ -0,0 +1,27 @@
+package com.d4k.ecommerce.modules.product.repository;
+
+import com.d4k.ecommerce.modules.product.entity.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * StockMovement Repository
+ * Data access layer cho sổ cái tồn kho (chỉ đọc - ghi qua InventoryService)
+ */
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    /**
+     * Lịch sử biến động stock của một order
+     */
+    List<StockMovement> findByOrderIdOrderByIdAsc(Long orderId);
+    
+    /**
+     * Lịch sử biến động stock của một variant (đối soát)
+     */
+    Page<StockMovement> findByVariantIdOrderByCreatedAtDesc(Long variantId, Pageable pageable);
+}
@@ -0,0 +1,57 @@
+package com.d4k.ecommerce.modules.product.repository;
+
+import com.d4k.ecommerce.modules.product.dto.inventory.ExpiredReservationView;
+import com.d4k.ecommerce.modules.product.entity.StockReservation;
+import com.d4k.ecommerce.modules.product.enums.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * StockReservation Repository
+ * Data access layer cho StockReservation entity
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    /**
+     * Trang đầu các reservations đã hết hạn, cũ nhất trước (range scan có LIMIT trên idx_reservation_status_expires,
+     * không gom nhóm / sắp xếp toàn bộ các reservations đã hết hạn)
+     */
+    @Query("SELECT r.id AS id, r.orderId AS orderId, r.expiresAt AS expiresAt FROM StockReservation r " +
+           "WHERE r.status = :status AND r.expiresAt < :now " +
+           "ORDER BY r.expiresAt, r.id")
+    List<ExpiredReservationView> findExpired(@Param("status") ReservationStatus status,
+                                             @Param("now") LocalDateTime now,
+                                             Pageable pageable);
+    
+    /**
+     * Trang tiếp theo sau reservation (afterExpiresAt, afterId)
+     */
+    @Query("SELECT r.id AS id, r.orderId AS orderId, r.expiresAt AS expiresAt FROM StockReservation r " +
+           "WHERE r.status = :status AND r.expiresAt < :now " +
+           "AND (r.expiresAt > :afterExpiresAt OR (r.expiresAt = :afterExpiresAt AND r.id > :afterId)) " +
+           "ORDER BY r.expiresAt, r.id")
+    List<ExpiredReservationView> findExpiredAfter(@Param("status") ReservationStatus status,
+                                                  @Param("now") LocalDateTime now,
+                                                  @Param("afterExpiresAt") LocalDateTime afterExpiresAt,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+    
+    /**
+     * Chuyển trạng thái reservations của các orders (chỉ những reservation đang ở trạng thái from)
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to " +
+           "WHERE r.orderId IN :orderIds AND r.status = :from")
+    int updateStatusByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                               @Param("from") ReservationStatus from,
+                               @Param("to") ReservationStatus to);
+}
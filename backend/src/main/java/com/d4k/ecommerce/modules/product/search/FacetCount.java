@@ -0,0 +1,24 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Số product khớp một giá trị facet
+ */
+@Getter
+@AllArgsConstructor
+public class FacetCount {
+    
+    /**
+     * Giá trị đã chuẩn hóa (dùng làm tham số filter)
+     */
+    private final String value;
+    
+    /**
+     * Giá trị hiển thị
+     */
+    private final String label;
+    
+    private final int count;
+}
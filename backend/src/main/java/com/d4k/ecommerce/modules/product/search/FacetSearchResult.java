@@ -0,0 +1,22 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.enums.FacetDimension;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả faceted browse: IDs của trang hiện tại (mới nhất trước), tổng số và facet counts
+ */
+@Getter
+@AllArgsConstructor
+public class FacetSearchResult {
+    
+    private final List<Long> productIds;
+    
+    private final long total;
+    
+    private final Map<FacetDimension, List<FacetCount>> facets;
+}
@@ -0,0 +1,54 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Index Rebuild Tracker
+ * Ghi lại product IDs có event sau commit trong lúc indexer build lại index từ snapshot.
+ * Event tới giữa lúc đọc snapshot và lúc rebuild bị rebuild ghi đè, nên indexer không áp event
+ * trong lúc build mà đọc lại các IDs đã ghi nhận từ database sau khi rebuild xong.
+ */
+class IndexRebuildTracker {
+    
+    /**
+     * IDs đổi trong lúc build chưa được đọc lại; null khi không build
+     */
+    private Set<Long> touched;
+    
+    synchronized void start() {
+        touched = new HashSet<>();
+    }
+    
+    /**
+     * @return true nếu đang build: IDs được ghi nhận để đọc lại, caller không cập nhật index
+     */
+    synchronized boolean deferIfBuilding(Collection<Long> productIds) {
+        if (touched == null) {
+            return false;
+        }
+        touched.addAll(productIds);
+        return true;
+    }
+    
+    /**
+     * Lấy các IDs đổi từ lần gọi trước; rỗng thì kết thúc build (event sau đó cập nhật index trực tiếp)
+     */
+    synchronized Set<Long> drainOrFinish() {
+        if (touched == null || touched.isEmpty()) {
+            touched = null;
+            return Set.of();
+        }
+        Set<Long> drained = touched;
+        touched = new HashSet<>();
+        return drained;
+    }
+    
+    /**
+     * Kết thúc build (kể cả khi build lỗi)
+     */
+    synchronized void finish() {
+        touched = null;
+    }
+}
@@ -0,0 +1,201 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Prefix Suggest Index
+ * Cấu trúc bất biến cho typeahead: trả top-k gợi ý có một từ bắt đầu bằng prefix người dùng gõ.
+ *
+ * - Mỗi entry có khóa = text đã fold, các token nối bằng một dấu cách ("Áo Thun Nam" -> "ao thun nam").
+ *   Mọi hậu tố bắt đầu ở đầu một từ ("ao thun nam", "thun nam", "nam") được đưa vào một mảng sắp xếp,
+ *   lưu dưới dạng hai mảng int (entry, vị trí bắt đầu) thay vì String: gõ "thun n" vẫn khớp.
+ *   Các hậu tố khớp một prefix luôn nằm liền nhau, tìm bằng hai lần binary search.
+ * - Entry được đánh số theo trọng số giảm dần, nên "tốt nhất trong một khoảng" là "số thứ tự nhỏ nhất",
+ *   trả lời bằng segment tree min; top-k lấy bằng priority queue tách khoảng quanh vị trí tốt nhất:
+ *   O(k log n) không phụ thuộc số hậu tố khớp (prefix một ký tự khớp hàng chục nghìn hậu tố).
+ *
+ * Index không đổi sau khi build nên đọc không cần lock; cập nhật = build index mới và swap reference.
+ */
+public final class PrefixSuggestIndex {
+    
+    public static final PrefixSuggestIndex EMPTY = build(List.of());
+    
+    private final SuggestEntry[] entries;
+    private final String[] keys;
+    private final int[] suffixEntries;
+    private final int[] suffixStarts;
+    private final int[] tree;
+    
+    private PrefixSuggestIndex(SuggestEntry[] entries, String[] keys, int[] suffixEntries, int[] suffixStarts) {
+        this.entries = entries;
+        this.keys = keys;
+        this.suffixEntries = suffixEntries;
+        this.suffixStarts = suffixStarts;
+        
+        int n = suffixEntries.length;
+        this.tree = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            tree[n + i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+    
+    /**
+     * Build index (entry trùng khóa được giữ riêng, entry có khóa rỗng bị bỏ)
+     */
+    public static PrefixSuggestIndex build(Collection<SuggestEntry> source) {
+        record Keyed(SuggestEntry entry, String key) {
+        }
+        List<Keyed> keyed = new ArrayList<>(source.size());
+        for (SuggestEntry entry : source) {
+            String key = normalize(entry.getText());
+            if (!key.isEmpty()) {
+                keyed.add(new Keyed(entry, key));
+            }
+        }
+        // Trọng số giảm dần, cùng trọng số thì khóa ngắn (sát với prefix hơn) trước
+        keyed.sort(Comparator.comparingLong((Keyed k) -> -k.entry().getWeight())
+                .thenComparingInt(k -> k.key().length())
+                .thenComparing(Keyed::key));
+        SuggestEntry[] sorted = new SuggestEntry[keyed.size()];
+        String[] keys = new String[keyed.size()];
+        for (int i = 0; i < keyed.size(); i++) {
+            sorted[i] = keyed.get(i).entry();
+            keys[i] = keyed.get(i).key();
+        }
+        
+        // Sắp xếp hậu tố theo thứ tự từ điển; substring chỉ tồn tại trong lúc build
+        record Suffix(String text, int entry, int start) {
+        }
+        List<Suffix> suffixes = new ArrayList<>();
+        for (int entry = 0; entry < keys.length; entry++) {
+            String key = keys[entry];
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || key.charAt(start - 1) == ' ') {
+                    suffixes.add(new Suffix(key.substring(start), entry, start));
+                }
+            }
+        }
+        suffixes.sort(Comparator.comparing(Suffix::text));
+        int[] sortedEntries = new int[suffixes.size()];
+        int[] sortedStarts = new int[suffixes.size()];
+        for (int i = 0; i < suffixes.size(); i++) {
+            sortedEntries[i] = suffixes.get(i).entry();
+            sortedStarts[i] = suffixes.get(i).start();
+        }
+        
+        return new PrefixSuggestIndex(sorted, keys, sortedEntries, sortedStarts);
+    }
+    
+    /**
+     * Fold + chuẩn hóa khoảng trắng: khóa dùng chung cho lúc build và lúc tra cứu
+     */
+    public static String normalize(String text) {
+        return String.join(" ", ProductTextAnalyzer.tokenize(text));
+    }
+    
+    public int size() {
+        return entries.length;
+    }
+    
+    /**
+     * Top-k entry có một từ bắt đầu bằng prefix, trọng số giảm dần, mỗi entry tối đa một lần
+     * @param prefix text người dùng đang gõ (chưa fold)
+     */
+    public List<SuggestEntry> topK(String prefix, int k) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || k <= 0 || suffixEntries.length == 0) {
+            return List.of();
+        }
+        
+        int from = lowerBound(key, false);
+        int to = lowerBound(key, true);
+        if (from >= to) {
+            return List.of();
+        }
+        
+        // Mỗi phần tử: {from, to, vị trí tốt nhất trong [from, to)}
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator.comparingInt((int[] r) -> suffixEntries[r[2]]));
+        ranges.add(new int[]{from, to, best(from, to)});
+        List<SuggestEntry> result = new ArrayList<>(k);
+        int lastEntry = -1;
+        while (!ranges.isEmpty() && result.size() < k) {
+            int[] range = ranges.poll();
+            int position = range[2];
+            int entry = suffixEntries[position];
+            // Các vị trí được lấy theo số thứ tự entry không giảm, nên hậu tố trùng entry luôn ra liền nhau
+            if (entry != lastEntry) {
+                result.add(entries[entry]);
+            }
+            lastEntry = entry;
+            if (range[0] < position) {
+                ranges.add(new int[]{range[0], position, best(range[0], position)});
+            }
+            if (position + 1 < range[1]) {
+                ranges.add(new int[]{position + 1, range[1], best(position + 1, range[1])});
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Vị trí đầu tiên có hậu tố >= key (upper = false) hoặc > mọi hậu tố bắt đầu bằng key (upper = true)
+     */
+    private int lowerBound(String key, boolean upper) {
+        int low = 0;
+        int high = suffixEntries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(keys[suffixEntries[mid]], suffixStarts[mid], key);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Vị trí có entry tốt nhất trong [from, to) (segment tree, O(log n))
+     */
+    private int best(int from, int to) {
+        int n = suffixEntries.length;
+        int result = from;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = better(result, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = better(result, tree[--r]);
+            }
+        }
+        return result;
+    }
+    
+    private int better(int a, int b) {
+        return suffixEntries[a] <= suffixEntries[b] ? a : b;
+    }
+    
+    /**
+     * 0 nếu hậu tố bắt đầu bằng prefix, ngược lại so sánh từ điển
+     */
+    private static int comparePrefix(String key, int start, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (start + i == key.length()) {
+                return -1;
+            }
+            int diff = key.charAt(start + i) - prefix.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Dữ liệu của một product cần cho facet index
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ProductFacetDocument {
+    
+    private final Long id;
+    
+    private final BigDecimal price;
+    
+    private final Long categoryId;
+    
+    private final boolean active;
+    
+    /**
+     * Size / color của từng variant (giá trị gốc, index tự chuẩn hóa)
+     */
+    private final List<Variant> variants;
+    
+    public record Variant(String size, String color) {
+    }
+}
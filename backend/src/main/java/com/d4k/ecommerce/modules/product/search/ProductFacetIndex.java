@@ -0,0 +1,427 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.enums.FacetDimension;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product Facet Index
+ * Mỗi giá trị facet giữ một bitmap: khoảng giá / category theo product IDs,
+ * size / color theo variant slots (mỗi variant một slot, slot biết product của nó).
+ * 
+ * - Filter: OR các giá trị được chọn trong cùng một chiều, AND giữa các chiều, AND với bitmap active.
+ *   Size và color được AND trên từng variant rồi mới chiếu sang product IDs, nên size=M & color=đen
+ *   chỉ khớp product có một variant vừa M vừa đen (không khớp product có M trắng và L đen).
+ * - Facet counts của một chiều tính trên filter của các chiều KHÁC (multi-select facets),
+ *   nên shopper luôn thấy các lựa chọn còn lại trong chiều đang chọn; count của size / color
+ *   là số products (không phải số variants) có variant khớp.
+ * - Product ID là bit index: ID tăng theo thời gian tạo nên duyệt bit từ cao xuống thấp = mới nhất trước.
+ */
+@Component
+public class ProductFacetIndex {
+    
+    private static final Comparator<FacetCount> BY_COUNT = Comparator
+            .comparingInt(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getLabel);
+    
+    /**
+     * Các chiều có bitmap theo variant slot thay vì product ID
+     */
+    private static final Set<FacetDimension> VARIANT_DIMENSIONS = EnumSet.of(FacetDimension.SIZE, FacetDimension.COLOR);
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final EnumMap<FacetDimension, Map<String, FacetValue>> values = new EnumMap<>(FacetDimension.class);
+    private final Map<Integer, EnumMap<FacetDimension, Map<String, String>>> keysByProduct = new HashMap<>();
+    private final Map<Integer, int[]> slotsByProduct = new HashMap<>();
+    private final List<VariantSlot> slots = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet active = new BitSet();
+    private final BigDecimal[] priceBounds;
+    
+    private volatile boolean ready;
+    
+    public ProductFacetIndex(@Value("${app.facets.price-bounds:200000,500000,1000000,2000000}") String[] priceBounds) {
+        this.priceBounds = Arrays.stream(priceBounds)
+                .map(String::trim)
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+        for (FacetDimension dimension : FacetDimension.values()) {
+            values.put(dimension, new LinkedHashMap<>());
+        }
+        // Khoảng giá cố định, giữ đúng thứ tự tăng dần
+        for (int bucket = 0; bucket <= this.priceBounds.length; bucket++) {
+            String key = priceBucketKey(bucket);
+            values.get(FacetDimension.PRICE).put(key, new FacetValue(key, true));
+        }
+    }
+    
+    /**
+     * Index đã được build lần đầu hay chưa
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Build lại toàn bộ index
+     */
+    public void rebuild(Collection<ProductFacetDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            active.clear();
+            keysByProduct.clear();
+            slotsByProduct.clear();
+            slots.clear();
+            freeSlots.clear();
+            for (Map<String, FacetValue> dimensionValues : values.values()) {
+                dimensionValues.values().forEach(value -> value.bits.clear());
+                dimensionValues.values().removeIf(value -> !value.fixed);
+            }
+            for (ProductFacetDocument document : documents) {
+                add(document);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Thêm hoặc cập nhật một product (product inactive bị loại khỏi kết quả)
+     */
+    public void upsert(ProductFacetDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(Math.toIntExact(document.getId()));
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Xóa product khỏi index
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Lọc theo các giá trị được chọn và tính facet counts
+     * @param selected giá trị được chọn theo từng chiều (giá trị gốc hoặc đã chuẩn hóa)
+     */
+    public FacetSearchResult search(Map<FacetDimension, ? extends Collection<String>> selected, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            // Bitmap filter của từng chiều có chọn giá trị (theo product ID hoặc variant slot)
+            EnumMap<FacetDimension, BitSet> filters = new EnumMap<>(FacetDimension.class);
+            EnumMap<FacetDimension, Set<String>> selectedKeys = new EnumMap<>(FacetDimension.class);
+            for (FacetDimension dimension : FacetDimension.values()) {
+                Collection<String> requested = selected.get(dimension);
+                if (requested == null || requested.isEmpty()) {
+                    continue;
+                }
+                BitSet union = new BitSet();
+                Set<String> keys = new HashSet<>();
+                for (String raw : requested) {
+                    String key = normalize(dimension, raw);
+                    keys.add(key);
+                    FacetValue value = values.get(dimension).get(key);
+                    if (value != null) {
+                        union.or(value.bits);
+                    }
+                }
+                filters.put(dimension, union);
+                selectedKeys.put(dimension, keys);
+            }
+            
+            BitSet matched = productsMatching(filters, null);
+            
+            // Trang hiện tại: duyệt từ ID lớn nhất (mới nhất)
+            List<Long> page = new ArrayList<>(Math.max(limit, 0));
+            int skipped = 0;
+            for (int id = matched.length() - 1; id >= 0 && page.size() < limit; id = matched.previousSetBit(id - 1)) {
+                if (skipped++ >= offset) {
+                    page.add((long) id);
+                }
+            }
+            
+            EnumMap<FacetDimension, List<FacetCount>> facets = new EnumMap<>(FacetDimension.class);
+            BitSet scratch = new BitSet();
+            BitSet counted = new BitSet();
+            for (FacetDimension dimension : FacetDimension.values()) {
+                boolean variantLevel = VARIANT_DIMENSIONS.contains(dimension);
+                // Chiều cấp variant: products theo các chiều cấp product + variants theo chiều cấp variant còn lại
+                BitSet base = variantLevel ? productFilter(filters, null) : productsMatching(filters, dimension);
+                BitSet variantBase = variantLevel ? variantFilter(filters, dimension) : null;
+                
+                Set<String> chosen = selectedKeys.getOrDefault(dimension, Set.of());
+                List<FacetCount> counts = new ArrayList<>();
+                for (Map.Entry<String, FacetValue> entry : values.get(dimension).entrySet()) {
+                    scratch.clear();
+                    scratch.or(entry.getValue().bits);
+                    int count;
+                    if (variantLevel) {
+                        if (variantBase != null) {
+                            scratch.and(variantBase);
+                        }
+                        counted.clear();
+                        for (int slot = scratch.nextSetBit(0); slot >= 0; slot = scratch.nextSetBit(slot + 1)) {
+                            int productId = slots.get(slot).productId();
+                            if (base.get(productId)) {
+                                counted.set(productId);
+                            }
+                        }
+                        count = counted.cardinality();
+                    } else {
+                        scratch.and(base);
+                        count = scratch.cardinality();
+                    }
+                    if (count > 0 || chosen.contains(entry.getKey())) {
+                        counts.add(new FacetCount(entry.getKey(), entry.getValue().label, count));
+                    }
+                }
+                // Khoảng giá giữ thứ tự tăng dần, các chiều khác theo số lượng
+                if (dimension != FacetDimension.PRICE) {
+                    counts.sort(BY_COUNT);
+                }
+                facets.put(dimension, counts);
+            }
+            
+            return new FacetSearchResult(page, matched.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // ============== PRIVATE HELPER METHODS ==============
+    
+    /**
+     * Products khớp filter của mọi chiều trừ excluded (null = mọi chiều)
+     */
+    private BitSet productsMatching(EnumMap<FacetDimension, BitSet> filters, FacetDimension excluded) {
+        BitSet products = productFilter(filters, excluded);
+        BitSet variants = variantFilter(filters, excluded);
+        if (variants != null) {
+            products.and(productsOf(variants));
+        }
+        return products;
+    }
+    
+    /**
+     * Products active khớp các chiều cấp product (trừ excluded)
+     */
+    private BitSet productFilter(EnumMap<FacetDimension, BitSet> filters, FacetDimension excluded) {
+        BitSet products = (BitSet) active.clone();
+        filters.forEach((dimension, filter) -> {
+            if (dimension != excluded && !VARIANT_DIMENSIONS.contains(dimension)) {
+                products.and(filter);
+            }
+        });
+        return products;
+    }
+    
+    /**
+     * Variant slots khớp đồng thời các chiều cấp variant (trừ excluded); null khi không có filter nào
+     */
+    private BitSet variantFilter(EnumMap<FacetDimension, BitSet> filters, FacetDimension excluded) {
+        BitSet variants = null;
+        for (Map.Entry<FacetDimension, BitSet> filter : filters.entrySet()) {
+            if (filter.getKey() == excluded || !VARIANT_DIMENSIONS.contains(filter.getKey())) {
+                continue;
+            }
+            if (variants == null) {
+                variants = (BitSet) filter.getValue().clone();
+            } else {
+                variants.and(filter.getValue());
+            }
+        }
+        return variants;
+    }
+    
+    private BitSet productsOf(BitSet variantSlots) {
+        BitSet products = new BitSet();
+        for (int slot = variantSlots.nextSetBit(0); slot >= 0; slot = variantSlots.nextSetBit(slot + 1)) {
+            products.set(slots.get(slot).productId());
+        }
+        return products;
+    }
+    
+    private void add(ProductFacetDocument document) {
+        if (!document.isActive()) {
+            return;
+        }
+        int productId = Math.toIntExact(document.getId());
+        EnumMap<FacetDimension, Map<String, String>> keys = keysOf(document);
+        for (Map.Entry<FacetDimension, Map<String, String>> dimension : keys.entrySet()) {
+            Map<String, FacetValue> dimensionValues = values.get(dimension.getKey());
+            dimension.getValue().forEach((key, label) -> valueOf(dimensionValues, key, label).bits.set(productId));
+        }
+        keysByProduct.put(productId, keys);
+        
+        List<ProductFacetDocument.Variant> variants = document.getVariants() != null ? document.getVariants() : List.of();
+        int[] productSlots = new int[variants.size()];
+        for (int i = 0; i < variants.size(); i++) {
+            ProductFacetDocument.Variant variant = variants.get(i);
+            VariantSlot slot = new VariantSlot(productId,
+                    keyOf(FacetDimension.SIZE, variant.size()), keyOf(FacetDimension.COLOR, variant.color()));
+            int index = allocateSlot(slot);
+            if (slot.sizeKey() != null) {
+                valueOf(values.get(FacetDimension.SIZE), slot.sizeKey(), variant.size().trim()).bits.set(index);
+            }
+            if (slot.colorKey() != null) {
+                valueOf(values.get(FacetDimension.COLOR), slot.colorKey(), variant.color().trim()).bits.set(index);
+            }
+            productSlots[i] = index;
+        }
+        slotsByProduct.put(productId, productSlots);
+        active.set(productId);
+    }
+    
+    private void removeProduct(int productId) {
+        EnumMap<FacetDimension, Map<String, String>> keys = keysByProduct.remove(productId);
+        active.clear(productId);
+        if (keys != null) {
+            for (Map.Entry<FacetDimension, Map<String, String>> dimension : keys.entrySet()) {
+                for (String key : dimension.getValue().keySet()) {
+                    clearBit(dimension.getKey(), key, productId);
+                }
+            }
+        }
+        
+        int[] productSlots = slotsByProduct.remove(productId);
+        if (productSlots != null) {
+            for (int index : productSlots) {
+                VariantSlot slot = slots.get(index);
+                clearBit(FacetDimension.SIZE, slot.sizeKey(), index);
+                clearBit(FacetDimension.COLOR, slot.colorKey(), index);
+                slots.set(index, null);
+                freeSlots.push(index);
+            }
+        }
+    }
+    
+    private int allocateSlot(VariantSlot slot) {
+        Integer free = freeSlots.poll();
+        if (free != null) {
+            slots.set(free, slot);
+            return free;
+        }
+        slots.add(slot);
+        return slots.size() - 1;
+    }
+    
+    private FacetValue valueOf(Map<String, FacetValue> dimensionValues, String key, String label) {
+        return dimensionValues.computeIfAbsent(key, k -> new FacetValue(label, false));
+    }
+    
+    /**
+     * Bỏ bit khỏi bitmap của giá trị, giá trị không cố định hết bit thì bị xóa
+     */
+    private void clearBit(FacetDimension dimension, String key, int bit) {
+        if (key == null) {
+            return;
+        }
+        Map<String, FacetValue> dimensionValues = values.get(dimension);
+        FacetValue value = dimensionValues.get(key);
+        if (value == null) {
+            return;
+        }
+        value.bits.clear(bit);
+        if (value.bits.isEmpty() && !value.fixed) {
+            dimensionValues.remove(key);
+        }
+    }
+    
+    /**
+     * Key của các chiều cấp product (khoảng giá, category)
+     */
+    private EnumMap<FacetDimension, Map<String, String>> keysOf(ProductFacetDocument document) {
+        EnumMap<FacetDimension, Map<String, String>> keys = new EnumMap<>(FacetDimension.class);
+        if (document.getPrice() != null) {
+            String bucket = priceBucketKey(priceBucketOf(document.getPrice()));
+            keys.put(FacetDimension.PRICE, Map.of(bucket, bucket));
+        }
+        if (document.getCategoryId() != null) {
+            String category = String.valueOf(document.getCategoryId());
+            keys.put(FacetDimension.CATEGORY, Map.of(category, category));
+        }
+        return keys;
+    }
+    
+    private String keyOf(FacetDimension dimension, String raw) {
+        return raw != null && !raw.isBlank() ? normalize(dimension, raw) : null;
+    }
+    
+    /**
+     * Chuẩn hóa giá trị: size viết hoa ("m" -> "M"), color bỏ dấu + lowercase ("Đen" -> "den")
+     */
+    private String normalize(FacetDimension dimension, String raw) {
+        String trimmed = raw.trim();
+        return switch (dimension) {
+            case SIZE -> trimmed.toUpperCase(Locale.ROOT);
+            case COLOR -> ProductTextAnalyzer.fold(trimmed);
+            case PRICE, CATEGORY -> trimmed;
+        };
+    }
+    
+    private int priceBucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price.compareTo(priceBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    /**
+     * Key của khoảng giá: "0-200000", "200000-500000", ..., "2000000+"
+     */
+    private String priceBucketKey(int bucket) {
+        String lower = bucket == 0 ? "0" : priceBounds[bucket - 1].toPlainString();
+        return bucket == priceBounds.length
+                ? lower + "+"
+                : lower + "-" + priceBounds[bucket].toPlainString();
+    }
+    
+    /**
+     * Một variant trong index: product của nó và key size / color (null khi variant không có giá trị)
+     */
+    private record VariantSlot(int productId, String sizeKey, String colorKey) {
+    }
+    
+    private static final class FacetValue {
+        private final String label;
+        private final BitSet bits = new BitSet();
+        private final boolean fixed;
+        
+        FacetValue(String label, boolean fixed) {
+            this.label = label;
+            this.fixed = fixed;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductVariantResponse;
+import com.d4k.ecommerce.modules.product.event.ProductChangeType;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.repository.ProductRepository;
+import com.d4k.ecommerce.modules.product.repository.ProductVariantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Product Facet Indexer
+ * Build facet bitmaps lúc startup và cập nhật incremental sau mỗi lần ghi product đã commit.
+ * Giống ProductSearchIndexer: event tới trong lúc build được ghi nhận và các products đó
+ * được đọc lại từ database sau khi rebuild xong.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndexer {
+    
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductFacetIndex productFacetIndex;
+    private final IndexRebuildTracker rebuildTracker = new IndexRebuildTracker();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        rebuildTracker.start();
+        List<ProductFacetDocument> documents;
+        try {
+            documents = toDocuments(productRepository.findAllForFacetIndex(),
+                    productVariantRepository.findAllForFacetIndex());
+            productFacetIndex.rebuild(documents);
+            
+            // Đọc lại các products đổi trong lúc build cho tới khi không còn event nào bị hoãn
+            for (Set<Long> touched = rebuildTracker.drainOrFinish(); !touched.isEmpty();
+                 touched = rebuildTracker.drainOrFinish()) {
+                refresh(touched);
+            }
+        } finally {
+            rebuildTracker.finish();
+        }
+        log.info("Product facet index built: {} products in {} ms",
+                documents.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuildTracker.deferIfBuilding(List.of(event.getProductId()))) {
+            return;
+        }
+        if (event.getType() == ProductChangeType.DELETED) {
+            productFacetIndex.remove(event.getProductId());
+            return;
+        }
+        
+        productFacetIndex.upsert(toDocument(event.getProduct()));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (rebuildTracker.deferIfBuilding(event.getProducts().stream().map(ProductResponse::getId).toList())) {
+            return;
+        }
+        event.getProducts().forEach(product -> productFacetIndex.upsert(toDocument(product)));
+    }
+    
+    /**
+     * Đồng bộ index với trạng thái hiện tại trong database (product không còn thì xóa khỏi index)
+     */
+    private void refresh(Set<Long> productIds) {
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductFacetDocument document : toDocuments(productRepository.findForFacetIndexByIdIn(productIds),
+                productVariantRepository.findForFacetIndexByProductIdIn(productIds))) {
+            missing.remove(document.getId());
+            productFacetIndex.upsert(document);
+        }
+        missing.forEach(productFacetIndex::remove);
+    }
+    
+    private static List<ProductFacetDocument> toDocuments(List<ProductFacetView> products,
+                                                          List<VariantFacetView> variants) {
+        Map<Long, List<ProductFacetDocument.Variant>> variantsByProduct = new HashMap<>();
+        for (VariantFacetView variant : variants) {
+            variantsByProduct.computeIfAbsent(variant.getProductId(), id -> new ArrayList<>())
+                    .add(new ProductFacetDocument.Variant(variant.getSize(), variant.getColor()));
+        }
+        
+        return products.stream()
+                .map(view -> ProductFacetDocument.builder()
+                        .id(view.getId())
+                        .price(view.getPrice())
+                        .categoryId(view.getCategoryId())
+                        .active(Boolean.TRUE.equals(view.getIsActive()))
+                        .variants(variantsByProduct.getOrDefault(view.getId(), List.of()))
+                        .build())
+                .toList();
+    }
+    
+    private ProductFacetDocument toDocument(ProductResponse product) {
+        List<ProductVariantResponse> variants = product.getVariants() != null ? product.getVariants() : List.of();
+        return ProductFacetDocument.builder()
+                .id(product.getId())
+                .price(product.getPrice())
+                .categoryId(product.getCategoryId())
+                .active(Boolean.TRUE.equals(product.getIsActive()))
+                .variants(variants.stream()
+                        .map(variant -> new ProductFacetDocument.Variant(variant.getSize(), variant.getColor()))
+                        .toList())
+                .build();
+    }
+}
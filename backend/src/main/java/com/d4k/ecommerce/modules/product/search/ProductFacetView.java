@@ -0,0 +1,17 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection nhẹ của product để build facet index
+ */
+public interface ProductFacetView {
+    
+    Long getId();
+    
+    BigDecimal getPrice();
+    
+    Long getCategoryId();
+    
+    Boolean getIsActive();
+}
@@ -0,0 +1,31 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dữ liệu của một product cần cho search index
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ProductSearchDocument {
+    
+    private final Long id;
+    
+    private final String name;
+    
+    /**
+     * Name đã fold sẵn (Product.nameNormalized); null thì index tự fold từ name
+     */
+    private final String normalizedName;
+    
+    private final String description;
+    
+    private final boolean active;
+    
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,512 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product Search Index
+ * Inverted index in-memory trên name + description của các product đang active.
+ * 
+ * - Mỗi product được gán một ordinal tăng dần, nên posting list luôn sắp xếp theo ordinal
+ *   và kiểm tra membership bằng binary search trên mảng primitive (không boxing).
+ * - Update = đánh dấu ordinal cũ là dead + thêm ordinal mới; index tự compact khi dead nhiều hơn live.
+ * - Query: AND giữa các term, term cuối được mở rộng theo prefix (search-as-you-type),
+ *   term không có trong dictionary được mở rộng sang các term cách nó tối đa 1-2 lỗi gõ
+ *   (ứng viên lấy từ n-gram index, xác nhận bằng edit distance có giới hạn),
+ *   điểm BM25 rút gọn với name nặng hơn description.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float K1 = 1.2f;
+    private static final float PREFIX_PENALTY = 0.8f;
+    private static final float FUZZY_PENALTY = 0.6f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_FUZZY_EXPANSIONS = 16;
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * Thứ tự từ kém đến tốt: điểm, mới hơn, id lớn hơn
+     */
+    private static final Comparator<Hit> WORST_FIRST = (a, b) -> compare(a.score, a.createdAt, a.id, b);
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<String, Set<String>> termsByGram = new HashMap<>();
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] createdAts = new long[INITIAL_CAPACITY];
+    private String[][] docTerms = new String[INITIAL_CAPACITY][];
+    private float[][] docWeights = new float[INITIAL_CAPACITY][];
+    private int nextOrdinal;
+    private int deadCount;
+    
+    private volatile boolean ready;
+    
+    /**
+     * Index đã được build lần đầu hay chưa
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Số product đang có trong index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Build lại toàn bộ index
+     */
+    public void rebuild(Collection<ProductSearchDocument> documents) {
+        List<AnalyzedDocument> analyzed = new ArrayList<>(documents.size());
+        for (ProductSearchDocument document : documents) {
+            if (document.isActive()) {
+                analyzed.add(analyze(document));
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (AnalyzedDocument document : analyzed) {
+                add(document);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Thêm hoặc cập nhật một product (product inactive bị loại khỏi index)
+     */
+    public void upsert(ProductSearchDocument document) {
+        AnalyzedDocument analyzed = document.isActive() ? analyze(document) : null;
+        
+        lock.writeLock().lock();
+        try {
+            removeOrdinal(document.getId());
+            if (analyzed != null) {
+                add(analyzed);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Xóa product khỏi index
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeOrdinal(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Tìm kiếm và trả về một trang product IDs theo relevance
+     */
+    public ProductSearchResult search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(ProductTextAnalyzer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ProductSearchResult(List.of(), 0);
+        }
+        
+        lock.readLock().lock();
+        try {
+            int documentCount = ordinalsById.size();
+            if (documentCount == 0) {
+                return new ProductSearchResult(List.of(), 0);
+            }
+            
+            List<TermGroup> groups = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                TermGroup group = expand(terms.get(i), i == terms.size() - 1, documentCount);
+                if (group.lists.isEmpty()) {
+                    return new ProductSearchResult(List.of(), 0);
+                }
+                groups.add(group);
+            }
+            // Duyệt từ term hiếm nhất, các term còn lại chỉ kiểm tra membership
+            groups.sort(Comparator.comparingLong(TermGroup::estimatedSize));
+            
+            int keep = offset + limit;
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(keep, 1024) + 1, WORST_FIRST);
+            BitSet seen = new BitSet();
+            long total = 0;
+            
+            for (Posting driver : groups.get(0).lists) {
+                PostingList list = driver.list;
+                for (int j = 0; j < list.size; j++) {
+                    int ordinal = list.docs[j];
+                    if (!live.get(ordinal) || seen.get(ordinal)) {
+                        continue;
+                    }
+                    seen.set(ordinal);
+                    
+                    float score = 0;
+                    boolean matched = true;
+                    for (TermGroup group : groups) {
+                        float termScore = group.score(ordinal);
+                        if (termScore < 0) {
+                            matched = false;
+                            break;
+                        }
+                        score += termScore;
+                    }
+                    if (!matched) {
+                        continue;
+                    }
+                    
+                    total++;
+                    // Chỉ cấp phát Hit khi lọt vào top-k
+                    if (top.size() < keep) {
+                        top.offer(new Hit(ids[ordinal], createdAts[ordinal], score));
+                    } else if (compare(score, createdAts[ordinal], ids[ordinal], top.peek()) > 0) {
+                        top.poll();
+                        top.offer(new Hit(ids[ordinal], createdAts[ordinal], score));
+                    }
+                }
+            }
+            
+            Long[] ranked = new Long[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = top.poll().id;
+            }
+            List<Long> page = offset >= ranked.length
+                    ? List.of()
+                    : Arrays.asList(ranked).subList(offset, ranked.length);
+            return new ProductSearchResult(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // ============== PRIVATE HELPER METHODS ==============
+    
+    private TermGroup expand(String term, boolean prefix, int documentCount) {
+        TermGroup group = new TermGroup();
+        PostingList exact = postings.get(term);
+        if (exact != null) {
+            group.lists.add(new Posting(exact, idf(exact.liveCount, documentCount)));
+        }
+        if (prefix) {
+            int expansions = 0;
+            for (PostingList list : postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                group.lists.add(new Posting(list, idf(list.liveCount, documentCount) * PREFIX_PENALTY));
+            }
+        }
+        if (group.lists.isEmpty()) {
+            for (String candidate : fuzzyTerms(term)) {
+                PostingList list = postings.get(candidate);
+                group.lists.add(new Posting(list, idf(list.liveCount, documentCount) * FUZZY_PENALTY));
+            }
+        }
+        return group;
+    }
+    
+    /**
+     * Các term trong dictionary cách term tối đa maxEdits lỗi gõ.
+     * Mỗi lỗi làm mất tối đa MAX_GRAMS_LOST_PER_EDIT n-gram, nên ứng viên phải chung ít nhất
+     * (grams - MAX_GRAMS_LOST_PER_EDIT * maxEdits) n-gram với term.
+     */
+    private List<String> fuzzyTerms(String term) {
+        int maxEdits = ProductTextAnalyzer.maxEdits(term);
+        if (maxEdits == 0) {
+            return List.of();
+        }
+        
+        List<String> grams = ProductTextAnalyzer.ngrams(term);
+        Map<String, Integer> sharedGrams = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null) {
+                for (String candidate : terms) {
+                    sharedGrams.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        
+        int threshold = Math.max(1, grams.size() - ProductTextAnalyzer.MAX_GRAMS_LOST_PER_EDIT * maxEdits);
+        List<String> matches = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : sharedGrams.entrySet()) {
+            if (entry.getValue() >= threshold
+                    && ProductTextAnalyzer.withinEditDistance(term, entry.getKey(), maxEdits)) {
+                matches.add(entry.getKey());
+                if (matches.size() >= MAX_FUZZY_EXPANSIONS) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+    
+    private static int compare(float score, long createdAt, long id, Hit other) {
+        int result = Float.compare(score, other.score);
+        if (result == 0) {
+            result = Long.compare(createdAt, other.createdAt);
+        }
+        if (result == 0) {
+            result = Long.compare(id, other.id);
+        }
+        return result;
+    }
+    
+    private static float idf(int documentFrequency, int documentCount) {
+        return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+    
+    private AnalyzedDocument analyze(ProductSearchDocument document) {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        List<String> nameTokens = document.getNormalizedName() != null
+                ? ProductTextAnalyzer.split(document.getNormalizedName())
+                : ProductTextAnalyzer.tokenize(document.getName());
+        for (String token : nameTokens) {
+            weights.merge(token, NAME_WEIGHT, Float::sum);
+        }
+        for (String token : ProductTextAnalyzer.tokenize(document.getDescription())) {
+            weights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+        }
+        
+        String[] terms = new String[weights.size()];
+        float[] termWeights = new float[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            terms[i] = entry.getKey();
+            termWeights[i] = entry.getValue();
+            i++;
+        }
+        long createdAt = document.getCreatedAt() != null
+                ? document.getCreatedAt().toEpochSecond(ZoneOffset.UTC)
+                : 0L;
+        return new AnalyzedDocument(document.getId(), createdAt, terms, termWeights);
+    }
+    
+    private void add(AnalyzedDocument document) {
+        int ordinal = nextOrdinal++;
+        ensureCapacity(ordinal + 1);
+        ids[ordinal] = document.id;
+        createdAts[ordinal] = document.createdAt;
+        docTerms[ordinal] = document.terms;
+        docWeights[ordinal] = document.weights;
+        live.set(ordinal);
+        ordinalsById.put(document.id, ordinal);
+        
+        for (int i = 0; i < document.terms.length; i++) {
+            PostingList list = postings.get(document.terms[i]);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(document.terms[i], list);
+                addGrams(document.terms[i]);
+            }
+            list.add(ordinal, document.weights[i]);
+        }
+    }
+    
+    private void removeOrdinal(Long productId) {
+        Integer ordinal = ordinalsById.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        live.clear(ordinal);
+        deadCount++;
+        for (String term : docTerms[ordinal]) {
+            PostingList list = postings.get(term);
+            if (list != null && --list.liveCount == 0) {
+                postings.remove(term);
+                removeGrams(term);
+            }
+        }
+    }
+    
+    private void addGrams(String term) {
+        for (String gram : ProductTextAnalyzer.ngrams(term)) {
+            termsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+        }
+    }
+    
+    private void removeGrams(String term) {
+        for (String gram : ProductTextAnalyzer.ngrams(term)) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                termsByGram.remove(gram);
+            }
+        }
+    }
+    
+    /**
+     * Gom các ordinal còn live và build lại posting lists khi dead chiếm đa số
+     */
+    private void compactIfNeeded() {
+        if (deadCount < MIN_DEAD_FOR_COMPACTION || deadCount < ordinalsById.size()) {
+            return;
+        }
+        List<AnalyzedDocument> survivors = new ArrayList<>(ordinalsById.size());
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            survivors.add(new AnalyzedDocument(ids[ordinal], createdAts[ordinal], docTerms[ordinal], docWeights[ordinal]));
+        }
+        clear();
+        for (AnalyzedDocument document : survivors) {
+            add(document);
+        }
+    }
+    
+    private void clear() {
+        postings.clear();
+        termsByGram.clear();
+        ordinalsById.clear();
+        live.clear();
+        Arrays.fill(docTerms, 0, nextOrdinal, null);
+        Arrays.fill(docWeights, 0, nextOrdinal, null);
+        nextOrdinal = 0;
+        deadCount = 0;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        createdAts = Arrays.copyOf(createdAts, newCapacity);
+        docTerms = Arrays.copyOf(docTerms, newCapacity);
+        docWeights = Arrays.copyOf(docWeights, newCapacity);
+    }
+    
+    /**
+     * Posting list: ordinals tăng dần + weighted term frequency tương ứng
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+        private int liveCount;
+        
+        void add(int ordinal, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = ordinal;
+            weights[size] = weight;
+            size++;
+            liveCount++;
+        }
+        
+    }
+    
+    /**
+     * Posting list của một term trong query, kèm cursor để kiểm tra membership
+     * theo kiểu galloping khi ordinals được hỏi theo thứ tự tăng dần
+     */
+    private static final class Posting {
+        private final PostingList list;
+        private final float idf;
+        private int cursor;
+        private int lastOrdinal = -1;
+        
+        Posting(PostingList list, float idf) {
+            this.list = list;
+            this.idf = idf;
+        }
+        
+        /**
+         * Weighted term frequency của ordinal, -1 nếu không có
+         */
+        float weightOf(int ordinal) {
+            if (ordinal < lastOrdinal) {
+                cursor = 0;
+            }
+            lastOrdinal = ordinal;
+            
+            int[] docs = list.docs;
+            int size = list.size;
+            int low = cursor;
+            int bound = 1;
+            while (low + bound < size && docs[low + bound] < ordinal) {
+                low += bound;
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(docs, low, Math.min(low + bound + 1, size), ordinal);
+            if (index >= 0) {
+                cursor = index;
+                return list.weights[index];
+            }
+            cursor = -index - 1;
+            return -1f;
+        }
+    }
+    
+    /**
+     * Một term của query: term chính xác và các term mở rộng theo prefix
+     */
+    private static final class TermGroup {
+        private final List<Posting> lists = new ArrayList<>();
+        
+        long estimatedSize() {
+            long size = 0;
+            for (Posting posting : lists) {
+                size += posting.list.liveCount;
+            }
+            return size;
+        }
+        
+        /**
+         * Điểm tốt nhất của ordinal trong group, -1 nếu không khớp
+         */
+        float score(int ordinal) {
+            float best = -1f;
+            for (Posting posting : lists) {
+                float weight = posting.weightOf(ordinal);
+                if (weight >= 0) {
+                    best = Math.max(best, posting.idf * weight / (weight + K1));
+                }
+            }
+            return best;
+        }
+    }
+    
+    private record AnalyzedDocument(long id, long createdAt, String[] terms, float[] weights) {
+    }
+    
+    private record Hit(long id, long createdAt, float score) {
+    }
+}
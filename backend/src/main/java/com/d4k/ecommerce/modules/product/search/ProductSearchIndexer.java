@@ -0,0 +1,129 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.event.ProductChangeType;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Product Search Indexer
+ * Build search index lúc startup và cập nhật incremental sau mỗi lần ghi product đã commit.
+ * Event tới trong lúc build không được áp vào index (rebuild sẽ ghi đè) mà ghi nhận lại,
+ * các products đó được đọc lại từ database sau khi rebuild xong.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexer {
+    
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final IndexRebuildTracker rebuildTracker = new IndexRebuildTracker();
+    
+    private static final String BACKFILL_NORMALIZED_NAME_SQL =
+            "UPDATE products SET name_normalized = ? WHERE id = ?";
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        rebuildTracker.start();
+        try {
+            List<ProductSearchDocument> documents = new ArrayList<>();
+            List<Object[]> backfill = new ArrayList<>();
+            for (ProductSearchView view : productRepository.findAllForSearchIndex()) {
+                if (view.getNameNormalized() == null) {
+                    // Product tạo trước khi có cột name_normalized
+                    backfill.add(new Object[]{ProductTextAnalyzer.fold(view.getName()), view.getId()});
+                }
+                documents.add(toDocument(view));
+            }
+            if (!backfill.isEmpty()) {
+                jdbcTemplate.batchUpdate(BACKFILL_NORMALIZED_NAME_SQL, backfill);
+                log.info("Backfilled normalized name for {} products", backfill.size());
+            }
+            
+            productSearchIndex.rebuild(documents);
+            
+            // Đọc lại các products đổi trong lúc build cho tới khi không còn event nào bị hoãn
+            for (Set<Long> touched = rebuildTracker.drainOrFinish(); !touched.isEmpty();
+                 touched = rebuildTracker.drainOrFinish()) {
+                refresh(touched);
+            }
+        } finally {
+            rebuildTracker.finish();
+        }
+        log.info("Product search index built: {} products in {} ms",
+                productSearchIndex.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuildTracker.deferIfBuilding(List.of(event.getProductId()))) {
+            return;
+        }
+        if (event.getType() == ProductChangeType.DELETED) {
+            productSearchIndex.remove(event.getProductId());
+            return;
+        }
+        
+        productSearchIndex.upsert(toDocument(event.getProduct()));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (rebuildTracker.deferIfBuilding(event.getProducts().stream().map(ProductResponse::getId).toList())) {
+            return;
+        }
+        event.getProducts().forEach(product -> productSearchIndex.upsert(toDocument(product)));
+    }
+    
+    /**
+     * Đồng bộ index với trạng thái hiện tại trong database (product không còn thì xóa khỏi index)
+     */
+    private void refresh(Set<Long> productIds) {
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductSearchView view : productRepository.findForSearchIndexByIdIn(productIds)) {
+            missing.remove(view.getId());
+            productSearchIndex.upsert(toDocument(view));
+        }
+        missing.forEach(productSearchIndex::remove);
+    }
+    
+    private ProductSearchDocument toDocument(ProductSearchView view) {
+        return ProductSearchDocument.builder()
+                .id(view.getId())
+                .name(view.getName())
+                .normalizedName(view.getNameNormalized() != null
+                        ? view.getNameNormalized()
+                        : ProductTextAnalyzer.fold(view.getName()))
+                .description(view.getDescription())
+                .active(Boolean.TRUE.equals(view.getIsActive()))
+                .createdAt(view.getCreatedAt())
+                .build();
+    }
+    
+    private ProductSearchDocument toDocument(ProductResponse product) {
+        return ProductSearchDocument.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .active(Boolean.TRUE.equals(product.getIsActive()))
+                .createdAt(product.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Kết quả search: IDs của trang hiện tại (theo thứ tự relevance) và tổng số kết quả
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSearchResult {
+    
+    private final List<Long> productIds;
+    
+    private final long total;
+}
@@ -0,0 +1,21 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection nhẹ của product để build search index (không load variants / images)
+ */
+public interface ProductSearchView {
+    
+    Long getId();
+    
+    String getName();
+    
+    String getNameNormalized();
+    
+    String getDescription();
+    
+    Boolean getIsActive();
+    
+    LocalDateTime getCreatedAt();
+}
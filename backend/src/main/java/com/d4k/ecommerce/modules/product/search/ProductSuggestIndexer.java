@@ -0,0 +1,240 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.cache.CategoryTreeStore;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductChangeType;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Product Suggest Indexer
+ * Giữ ba PrefixSuggestIndex cho typeahead: tên product (trọng số = số lượng đã bán), tên category
+ * (trọng số = số product active) và từ khóa tìm kiếm phổ biến (trọng số = số lần tìm).
+ *
+ * Lần ghi product / category cập nhật dữ liệu nguồn ngay sau commit và đánh dấu dirty; index bất biến
+ * được build lại nền theo chu kỳ ngắn rồi swap reference, nên request suggest không bao giờ chờ lock
+ * và nhiều lần ghi liên tiếp chỉ tốn một lần build.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSuggestIndexer {
+    
+    private static final String ACTIVE_PRODUCTS_SQL =
+            "SELECT id, name, category_id FROM products WHERE is_active = true";
+    
+    private static final String UNITS_SOLD_SQL =
+            "SELECT oi.product_id, SUM(oi.quantity) FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.status IN ('CONFIRMED', 'PROCESSING', 'SHIPPING', 'DELIVERED') GROUP BY oi.product_id";
+    
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_QUERY_LENGTH = 50;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryTreeStore categoryTreeStore;
+    
+    @Value("${app.suggest.max-tracked-queries:10000}")
+    private int maxTrackedQueries;
+    
+    @Value("${app.suggest.min-query-count:3}")
+    private long minQueryCount;
+    
+    /**
+     * Product active: id -> (name, categoryId)
+     */
+    private final Map<Long, ProductSource> products = new ConcurrentHashMap<>();
+    
+    /**
+     * Từ khóa đã fold -> (text gặp lần đầu, số lần tìm)
+     */
+    private final Map<String, QueryCount> queries = new ConcurrentHashMap<>();
+    
+    private volatile Map<Long, Long> unitsSold = Map.of();
+    
+    private volatile PrefixSuggestIndex productIndex = PrefixSuggestIndex.EMPTY;
+    private volatile PrefixSuggestIndex categoryIndex = PrefixSuggestIndex.EMPTY;
+    private volatile PrefixSuggestIndex queryIndex = PrefixSuggestIndex.EMPTY;
+    
+    private final AtomicBoolean productsDirty = new AtomicBoolean();
+    private final AtomicBoolean queriesDirty = new AtomicBoolean();
+    
+    public PrefixSuggestIndex products() {
+        return productIndex;
+    }
+    
+    public PrefixSuggestIndex categories() {
+        return categoryIndex;
+    }
+    
+    public PrefixSuggestIndex queries() {
+        return queryIndex;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        jdbcTemplate.query(ACTIVE_PRODUCTS_SQL, rs -> {
+            products.put(rs.getLong("id"), new ProductSource(rs.getString("name"), rs.getLong("category_id")));
+        });
+        unitsSold = loadUnitsSold();
+        rebuildProducts();
+    }
+    
+    /**
+     * Ghi nhận một từ khóa người dùng đã tìm (trang đầu của /products/search)
+     */
+    public void recordQuery(String keyword) {
+        if (keyword == null) {
+            return;
+        }
+        String text = keyword.trim().replaceAll("\\s+", " ");
+        String key = PrefixSuggestIndex.normalize(text);
+        if (key.length() < MIN_QUERY_LENGTH || key.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        
+        QueryCount count = queries.get(key);
+        if (count == null) {
+            if (queries.size() >= maxTrackedQueries) {
+                return;
+            }
+            count = queries.computeIfAbsent(key, k -> new QueryCount(text));
+        }
+        if (count.count.incrementAndGet() == minQueryCount) {
+            // Chỉ build lại khi có từ khóa mới đủ ngưỡng; trọng số của từ khóa cũ cập nhật ở chu kỳ refresh
+            queriesDirty.set(true);
+        }
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangeType.DELETED) {
+            products.remove(event.getProductId());
+        } else {
+            apply(event.getProduct());
+        }
+        productsDirty.set(true);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        event.getProducts().forEach(this::apply);
+        productsDirty.set(true);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        productsDirty.set(true);
+    }
+    
+    /**
+     * Build lại các index có thay đổi
+     */
+    @Scheduled(fixedDelayString = "${app.suggest.rebuild-interval-ms:2000}",
+            initialDelayString = "${app.suggest.rebuild-interval-ms:2000}")
+    public void rebuildIfDirty() {
+        if (productsDirty.getAndSet(false)) {
+            rebuildProducts();
+        }
+        if (queriesDirty.getAndSet(false)) {
+            rebuildQueries();
+        }
+    }
+    
+    /**
+     * Nạp lại số lượng đã bán và giảm một nửa số lần tìm để từ khóa cũ nhường chỗ cho xu hướng mới
+     */
+    @Scheduled(fixedDelayString = "${app.suggest.weights-refresh-ms:600000}",
+            initialDelayString = "${app.suggest.weights-refresh-ms:600000}")
+    public void refreshWeights() {
+        try {
+            unitsSold = loadUnitsSold();
+            queries.entrySet().removeIf(entry -> entry.getValue().count.updateAndGet(count -> count / 2) == 0);
+            productsDirty.set(true);
+            queriesDirty.set(true);
+        } catch (Exception e) {
+            log.error("Failed to refresh suggest weights", e);
+        }
+    }
+    
+    private void apply(ProductResponse product) {
+        if (Boolean.TRUE.equals(product.getIsActive())) {
+            products.put(product.getId(), new ProductSource(product.getName(), product.getCategoryId()));
+        } else {
+            products.remove(product.getId());
+        }
+    }
+    
+    private Map<Long, Long> loadUnitsSold() {
+        Map<Long, Long> sold = new HashMap<>();
+        jdbcTemplate.query(UNITS_SOLD_SQL, rs -> {
+            sold.put(rs.getLong(1), rs.getLong(2));
+        });
+        return sold;
+    }
+    
+    private void rebuildProducts() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> sold = unitsSold;
+        Map<Long, Long> productCounts = new HashMap<>();
+        List<SuggestEntry> productEntries = new ArrayList<>(products.size());
+        products.forEach((id, product) -> {
+            productEntries.add(new SuggestEntry(id, product.name(), sold.getOrDefault(id, 0L)));
+            productCounts.merge(product.categoryId(), 1L, Long::sum);
+        });
+        
+        List<SuggestEntry> categoryEntries = new ArrayList<>();
+        for (CategoryResponse category : categoryTreeStore.current().getCategories()) {
+            categoryEntries.add(new SuggestEntry(category.getId(), category.getName(),
+                    productCounts.getOrDefault(category.getId(), 0L)));
+        }
+        
+        productIndex = PrefixSuggestIndex.build(productEntries);
+        categoryIndex = PrefixSuggestIndex.build(categoryEntries);
+        log.debug("Suggest index rebuilt: {} products, {} categories in {} ms",
+                productIndex.size(), categoryIndex.size(), System.currentTimeMillis() - start);
+    }
+    
+    private void rebuildQueries() {
+        List<SuggestEntry> entries = new ArrayList<>();
+        queries.forEach((key, query) -> {
+            long count = query.count.get();
+            if (count >= minQueryCount) {
+                entries.add(new SuggestEntry(null, query.text, count));
+            }
+        });
+        queryIndex = PrefixSuggestIndex.build(entries);
+    }
+    
+    private record ProductSource(String name, Long categoryId) {
+    }
+    
+    private static final class QueryCount {
+        
+        private final String text;
+        private final AtomicLong count = new AtomicLong();
+        
+        private QueryCount(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product Text Analyzer
+ * Pipeline phân tích text dùng chung cho lúc index và lúc search:
+ * fold dấu tiếng Việt (kể cả đ -> d) + lowercase, tách token, sinh n-grams và so khớp edit distance có giới hạn.
+ * 
+ * fold() chỉ duyệt một lượt qua bảng tra cứu dựng sẵn (không regex, không Normalizer lúc chạy)
+ * nên đủ rẻ để chạy trên mỗi phím gõ.
+ */
+public final class ProductTextAnalyzer {
+    
+    /**
+     * Kích thước n-gram dùng để tìm term gần đúng (bigram: từ ngắn vẫn còn gram chung sau khi gõ sai)
+     */
+    public static final int GRAM_SIZE = 2;
+    
+    /**
+     * Số n-gram tối đa một lỗi gõ có thể làm mất (đảo hai ký tự mất GRAM_SIZE + 1 gram)
+     */
+    public static final int MAX_GRAMS_LOST_PER_EDIT = GRAM_SIZE + 1;
+    
+    private static final char GRAM_PADDING = '$';
+    
+    /**
+     * Bảng fold cho U+0000..U+1EFF: Latin-1, Latin Extended-A/B và Latin Extended Additional (tiếng Việt)
+     */
+    private static final char[] FOLD_TABLE = buildFoldTable();
+    
+    /**
+     * Cặp tham số cho translate(lower(text), SQL_FOLD_FROM, SQL_FOLD_TO) của PostgreSQL: cùng kết quả với fold()
+     * cho cột chưa có bản đã fold (vd. description). Dấu tổ hợp (NFD) nằm cuối SQL_FOLD_FROM, không có ký tự
+     * tương ứng trong SQL_FOLD_TO nên bị xóa.
+     */
+    public static final String SQL_FOLD_FROM;
+    public static final String SQL_FOLD_TO;
+    
+    static {
+        StringBuilder from = new StringBuilder();
+        StringBuilder to = new StringBuilder();
+        for (char c = 0; c < FOLD_TABLE.length; c++) {
+            if (FOLD_TABLE[c] != Character.toLowerCase(c) && !isCombiningMark(c)) {
+                from.append(c);
+                to.append(FOLD_TABLE[c]);
+            }
+        }
+        for (char c = 0x0300; c <= 0x036F; c++) {
+            from.append(c);
+        }
+        SQL_FOLD_FROM = from.toString();
+        SQL_FOLD_TO = to.toString();
+    }
+    
+    private ProductTextAnalyzer() {
+    }
+    
+    /**
+     * Lowercase và bỏ dấu: "Áo Thun Đỏ" -> "ao thun do"
+     */
+    public static String fold(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        
+        int length = text.length();
+        char[] out = new char[length];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isCombiningMark(c)) {
+                // Text dạng NFD (dấu tách rời): bỏ dấu
+                continue;
+            }
+            out[size++] = c < FOLD_TABLE.length ? FOLD_TABLE[c] : Character.toLowerCase(c);
+        }
+        return new String(out, 0, size);
+    }
+    
+    /**
+     * Fold rồi tách theo ký tự không phải chữ/số
+     */
+    public static List<String> tokenize(String text) {
+        return split(fold(text));
+    }
+    
+    /**
+     * Tách text đã fold (ví dụ Product.nameNormalized) thành tokens
+     */
+    public static List<String> split(String folded) {
+        List<String> tokens = new ArrayList<>();
+        if (folded == null || folded.isEmpty()) {
+            return tokens;
+        }
+        
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+    
+    /**
+     * N-grams (GRAM_SIZE) của token, có padding hai đầu: "ao" -> ["$a", "ao", "o$"]
+     */
+    public static List<String> ngrams(String token) {
+        String padded = GRAM_PADDING + token + GRAM_PADDING;
+        List<String> grams = new ArrayList<>(Math.max(1, padded.length() - GRAM_SIZE + 1));
+        if (padded.length() <= GRAM_SIZE) {
+            grams.add(padded);
+            return grams;
+        }
+        for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+    
+    /**
+     * Số lỗi gõ cho phép theo độ dài token: ngắn thì phải khớp chính xác
+     */
+    public static int maxEdits(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 7 ? 1 : 2;
+    }
+    
+    /**
+     * Edit distance có giới hạn (Damerau-Levenshtein dạng optimal string alignment:
+     * đảo hai ký tự liền nhau tính là một lỗi, ví dụ "jaen" -> "jean").
+     * Chỉ tính trong dải |i - j| <= maxDistance và dừng sớm khi cả hàng đã vượt giới hạn.
+     * @return true nếu distance(a, b) <= maxDistance
+     */
+    public static boolean withinEditDistance(String a, String b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return false;
+        }
+        if (maxDistance == 0) {
+            return a.equals(b);
+        }
+        
+        int outside = maxDistance + 1;
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= maxDistance ? j : outside;
+        }
+        
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(m, i + maxDistance);
+            current[0] = i <= maxDistance ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > maxDistance) {
+                return false;
+            }
+            
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= maxDistance;
+    }
+    
+    // ============== PRIVATE HELPER METHODS ==============
+    
+    private static boolean isCombiningMark(char c) {
+        return c >= 0x0300 && c <= 0x036F;
+    }
+    
+    private static char[] buildFoldTable() {
+        char[] table = new char[0x1F00];
+        for (char c = 0; c < table.length; c++) {
+            char lower = Character.toLowerCase(c);
+            String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+            char base = decomposed.isEmpty() ? lower : decomposed.charAt(0);
+            table[c] = base < 0x80 ? base : lower;
+        }
+        // Không phân rã được bằng NFD
+        table['đ'] = 'd';
+        table['Đ'] = 'd';
+        return table;
+    }
+}
@@ -0,0 +1,29 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Một gợi ý trong PrefixSuggestIndex (product, category hoặc từ khóa tìm kiếm phổ biến)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class SuggestEntry {
+    
+    /**
+     * ID của product / category (null với từ khóa)
+     */
+    private final Long id;
+    
+    /**
+     * Text hiển thị; khóa so khớp là text đã fold
+     */
+    private final String text;
+    
+    /**
+     * Trọng số xếp hạng (số lượng đã bán, số product, số lần tìm...)
+     */
+    private final long weight;
+}
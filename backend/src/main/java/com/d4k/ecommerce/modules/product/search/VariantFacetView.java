@@ -0,0 +1,13 @@
+package com.d4k.ecommerce.modules.product.search;
+
+/**
+ * Projection nhẹ của variant để build facet index
+ */
+public interface VariantFacetView {
+    
+    Long getProductId();
+    
+    String getSize();
+    
+    String getColor();
+}
@@ -0,0 +1,32 @@
+package com.d4k.ecommerce.modules.product.service;
+
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeFeedResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog Change Service Interface
+ * Change log của catalog để client / edge cache đồng bộ incremental
+ */
+public interface CatalogChangeService {
+    
+    /**
+     * Lấy các thay đổi sau watermark
+     * @param since watermark từ lần gọi trước (null: từ đầu change log)
+     * @param limit số thay đổi tối đa
+     * @return các thay đổi đã commit theo thứ tự, kèm watermark mới
+     */
+    CatalogChangeFeedResponse getChanges(String since, int limit);
+    
+    /**
+     * Phiên bản hiện tại của catalog, chung cho mọi instance (đọc từ change log)
+     * @return txid lớn nhất trong các thay đổi đã commit (0 nếu change log trống); chỉ tăng
+     */
+    long currentVersion();
+    
+    /**
+     * Xóa các thay đổi cũ hơn mốc thời gian
+     * @return số dòng đã xóa
+     */
+    int purgeOlderThan(LocalDateTime cutoff);
+}
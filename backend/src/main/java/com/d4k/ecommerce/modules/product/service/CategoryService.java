@@ -1,6 +1,7 @@
 package com.d4k.ecommerce.modules.product.service;
 
 import com.d4k.ecommerce.modules.product.dto.request.CategoryRequest;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryBreadcrumbResponse;
 import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
 
 import java.util.List;
@@ -39,6 +40,13 @@ public interface CategoryService {
      */
     CategoryResponse getCategoryById(Long id);
     
+    /**
+     * Lấy breadcrumbs của category (root -> category)
+     * @param id category ID
+     * @return danh sách breadcrumb
+     */
+    List<CategoryBreadcrumbResponse> getBreadcrumbs(Long id);
+    
     /**
      * Lấy tất cả categories (flat list)
      * @return danh sách categories
@@ -0,0 +1,79 @@
+package com.d4k.ecommerce.modules.product.service;
+
+import com.d4k.ecommerce.modules.product.dto.inventory.StockDeductionResult;
+import com.d4k.ecommerce.modules.product.dto.inventory.StockLine;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Inventory Service Interface
+ * Điểm duy nhất thay đổi stock của product variants.
+ * Mọi thay đổi được áp dụng bằng conditional update và ghi vào sổ cái stock_movements,
+ * đồng thời quản lý giữ hàng có thời hạn cho đơn chờ thanh toán online.
+ */
+public interface InventoryService {
+    
+    /**
+     * Trừ stock cho tất cả line items của order trong một câu lệnh
+     * Mỗi dòng chỉ được trừ khi stock >= quantity; dòng không đủ stock được trả về trong failedLines.
+     * Caller phải rollback transaction nếu kết quả không thành công.
+     * @param orderId order ID (khóa của các dòng sổ cái)
+     * @param lines các dòng cần trừ stock
+     * @return kết quả trừ stock theo từng dòng
+     */
+    StockDeductionResult deductForOrder(Long orderId, List<StockLine> lines);
+    
+    /**
+     * Hoàn lại toàn bộ stock mà order còn đang giữ (theo sổ cái)
+     * Idempotent khi các lần gọi nối tiếp nhau: gọi lần hai không hoàn thêm.
+     * Caller phải giữ khóa row order (vd. OrderRepository.findByIdForUpdate) để các lần gọi đồng thời được serialize.
+     * @param orderId order ID
+     * @param reason lý do hoàn stock
+     */
+    void restoreForOrder(Long orderId, String reason);
+    
+    /**
+     * Hoàn stock cho nhiều orders trong một câu lệnh (caller đã khóa các row order, vd. bằng conditional UPDATE)
+     * @param orderIds danh sách order IDs
+     * @param reason lý do hoàn stock
+     */
+    void restoreForOrders(Collection<Long> orderIds, String reason);
+    
+    /**
+     * Điều chỉnh stock thủ công (kiểm kho, nhập hàng...)
+     * @param variantId variant ID
+     * @param delta số lượng thay đổi có dấu
+     * @param reason lý do điều chỉnh
+     * @return false nếu điều chỉnh làm stock âm (không áp dụng)
+     */
+    boolean adjustStock(Long variantId, int delta, String reason);
+    
+    /**
+     * Ghi nhận giữ hàng có thời hạn cho order (stock đã được trừ bởi deductForOrder)
+     * @param orderId order ID
+     * @param lines các dòng đã trừ stock
+     * @param expiresAt thời điểm hết hạn giữ hàng
+     */
+    void reserveStock(Long orderId, List<StockLine> lines, LocalDateTime expiresAt);
+    
+    /**
+     * Thanh toán thành công: chuyển giữ hàng thành trừ stock vĩnh viễn
+     * @param orderId order ID
+     */
+    void confirmReservation(Long orderId);
+    
+    /**
+     * Đóng giữ hàng của các orders (stock được hoàn riêng qua restoreForOrder/restoreForOrders)
+     * @param orderIds danh sách order IDs
+     */
+    void releaseReservations(Collection<Long> orderIds);
+    
+    /**
+     * Lấy order IDs có giữ hàng đã hết hạn (cũ nhất trước)
+     * @param limit số order tối đa
+     * @return danh sách order IDs
+     */
+    List<Long> findExpiredReservationOrderIds(int limit);
+}
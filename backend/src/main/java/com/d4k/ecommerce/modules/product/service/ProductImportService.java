@@ -0,0 +1,28 @@
+package com.d4k.ecommerce.modules.product.service;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductImportJobResponse;
+import com.d4k.ecommerce.modules.product.enums.ProductImportFormat;
+
+import java.io.InputStream;
+
+/**
+ * Product Import Service Interface
+ * Import hàng loạt products từ file CSV / NDJSON, chạy nền và báo tiến độ qua job
+ */
+public interface ProductImportService {
+    
+    /**
+     * Nhận file import và đưa vào hàng đợi
+     * @param body nội dung file (đọc dạng stream, không giữ toàn bộ trong bộ nhớ)
+     * @param format định dạng file
+     * @return trạng thái job vừa tạo
+     */
+    ProductImportJobResponse startImport(InputStream body, ProductImportFormat format);
+    
+    /**
+     * Lấy trạng thái job import
+     * @param jobId ID của job
+     * @return tiến độ và lỗi theo dòng
+     */
+    ProductImportJobResponse getJob(String jobId);
+}
@@ -1,10 +1,18 @@
 package com.d4k.ecommerce.modules.product.service;
 
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
+import com.d4k.ecommerce.modules.product.dto.request.ProductFilterRequest;
 import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
+import com.d4k.ecommerce.modules.product.dto.response.ProductBrowseResponse;
 import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.SuggestResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Product Service Interface
  * Định nghĩa business logic cho quản lý products
@@ -46,13 +54,22 @@ public interface ProductService {
      */
     Page<ProductResponse> getAllProducts(Pageable pageable);
     
+    /**
+     * Lấy danh sách products active theo cursor (keyset, không COUNT)
+     * @param cursor token từ trang trước (null cho trang đầu)
+     * @param size số products mỗi trang
+     * @return trang products kèm nextCursor
+     */
+    CursorPageResponse<ProductResponse> getAllProductsByCursor(String cursor, int size);
+    
     /**
      * Lấy danh sách products theo category (Public - chỉ active)
      * @param categoryId category ID
+     * @param includeDescendants true: gồm cả products của mọi category con cháu
      * @param pageable thông tin phân trang
      * @return danh sách products
      */
-    Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable);
+    Page<ProductResponse> getProductsByCategory(Long categoryId, boolean includeDescendants, Pageable pageable);
     
     /**
      * Tìm kiếm products theo keyword (Public - chỉ active)
@@ -62,11 +79,35 @@ public interface ProductService {
      */
     Page<ProductResponse> searchProducts(String keyword, Pageable pageable);
     
+    /**
+     * Gợi ý typeahead theo prefix: từ khóa phổ biến, categories và products (Public - chỉ active)
+     * @param query text người dùng đang gõ
+     * @param limit số products tối đa
+     * @return gợi ý theo từng loại, trọng số giảm dần
+     */
+    SuggestResponse suggest(String query, int limit);
+    
+    /**
+     * Lọc products theo size / color / khoảng giá / category kèm facet counts (Public - chỉ active)
+     * @param filter các giá trị được chọn
+     * @param pageable thông tin phân trang
+     * @return trang products (mới nhất trước) và facet counts
+     */
+    ProductBrowseResponse browseProducts(ProductFilterRequest filter, Pageable pageable);
+    
     /**
      * Lấy tất cả products (Admin - bao gồm inactive)
      * @param pageable thông tin phân trang
      * @return danh sách products
      */
     Page<ProductResponse> getAllProductsAdmin(Pageable pageable);
+    
+    /**
+     * Export toàn bộ products kèm variants và ảnh (Admin - bao gồm inactive)
+     * CSV dùng cùng cột với file import nên có thể import lại
+     * @param format định dạng file
+     * @param out nơi ghi (không đóng)
+     */
+    void exportProducts(ExportFormat format, OutputStream out) throws IOException;
 }
 
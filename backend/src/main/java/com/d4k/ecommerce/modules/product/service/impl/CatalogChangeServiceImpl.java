@@ -0,0 +1,211 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeFeedResponse;
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.enums.CatalogChangeType;
+import com.d4k.ecommerce.modules.product.enums.CatalogEntityType;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductChangeType;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
+import com.d4k.ecommerce.modules.product.event.ProductsImportedEvent;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import com.d4k.ecommerce.modules.product.service.CatalogChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog Change Service Implementation
+ * Mỗi thay đổi catalog được ghi vào catalog_changes ở BEFORE_COMMIT, tức trong cùng transaction với
+ * thay đổi đó: commit thì có dòng change, rollback thì không.
+ *
+ * Watermark là (txid, id) thay vì chỉ id: id cấp lúc insert nhưng các transaction commit không theo
+ * thứ tự id, nên đọc "id > watermark" có thể bỏ sót dòng commit muộn. Feed chỉ trả các dòng có
+ * txid < xmin của snapshot hiện tại - mọi transaction đó đã kết thúc nên tập dòng này không còn đổi,
+ * và mọi dòng ghi sau đều có txid >= xmin nên luôn nằm sau watermark.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogChangeServiceImpl implements CatalogChangeService {
+    
+    private static final int MAX_LIMIT = 1000;
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO catalog_changes (txid, entity_type, entity_id, change_type, created_at) " +
+            "VALUES (pg_current_xact_id()::text::bigint, :entityType, :entityId, :changeType, CURRENT_TIMESTAMP)";
+    
+    private static final String SELECT_AFTER_SQL =
+            "SELECT id, txid, entity_type, entity_id, change_type, created_at FROM catalog_changes " +
+            "WHERE (txid, id) > (:txid, :id) " +
+            "AND txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint " +
+            "ORDER BY txid, id LIMIT :limit";
+    
+    private static final String WATERMARK_EXISTS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM catalog_changes WHERE id = :id)";
+    
+    /**
+     * Cùng điều kiện txid < xmin với feed: tập dòng được tính chỉ lớn dần, và mỗi lần thêm vào đều có
+     * txid lớn hơn mọi dòng đã tính nên MAX(txid) tăng sau mỗi commit (MAX(id) thì không: id cấp
+     * lúc insert, transaction commit muộn có thể mang id nhỏ hơn)
+     */
+    private static final String CURRENT_VERSION_SQL =
+            "SELECT COALESCE(MAX(txid), 0) FROM catalog_changes " +
+            "WHERE txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    
+    /**
+     * Giữ lại các dòng của transaction mới nhất để phiên bản catalog không lùi về 0 sau khi purge
+     */
+    private static final String PURGE_SQL =
+            "DELETE FROM catalog_changes WHERE created_at < :cutoff " +
+            "AND txid < (SELECT MAX(txid) FROM catalog_changes)";
+    
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    /**
+     * Lấy các thay đổi sau watermark
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogChangeFeedResponse getChanges(String since, int limit) {
+        Watermark after = Watermark.parse(since);
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        
+        if (after.id() > 0 && !watermarkRetained(after)) {
+            return CatalogChangeFeedResponse.builder()
+                    .changes(List.of())
+                    .nextSince(after.format())
+                    .hasMore(false)
+                    .resyncRequired(true)
+                    .build();
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("txid", after.txid())
+                .addValue("id", after.id())
+                .addValue("limit", pageSize + 1);
+        List<Row> rows = namedParameterJdbcTemplate.query(SELECT_AFTER_SQL, params, (rs, rowNum) -> new Row(
+                new Watermark(rs.getLong("txid"), rs.getLong("id")),
+                CatalogChangeResponse.builder()
+                        .entityType(CatalogEntityType.valueOf(rs.getString("entity_type")))
+                        .entityId(rs.getLong("entity_id"))
+                        .changeType(CatalogChangeType.valueOf(rs.getString("change_type")))
+                        .changedAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .build()));
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<Row> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Watermark next = page.isEmpty() ? after : page.get(page.size() - 1).watermark();
+        
+        return CatalogChangeFeedResponse.builder()
+                .changes(page.stream().map(Row::change).toList())
+                .nextSince(next.format())
+                .hasMore(hasMore)
+                .resyncRequired(false)
+                .build();
+    }
+    
+    /**
+     * Phiên bản catalog hiện tại
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long currentVersion() {
+        Long version = namedParameterJdbcTemplate.queryForObject(CURRENT_VERSION_SQL,
+                new MapSqlParameterSource(), Long.class);
+        return version != null ? version : 0;
+    }
+    
+    /**
+     * Xóa các thay đổi cũ
+     */
+    @Override
+    @Transactional
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        int deleted = namedParameterJdbcTemplate.update(PURGE_SQL,
+                new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)));
+        log.info("Purged {} catalog changes older than {}", deleted, cutoff);
+        return deleted;
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        record(CatalogEntityType.PRODUCT, List.of(event.getProductId()),
+                event.getType() == ProductChangeType.DELETED ? CatalogChangeType.DELETED : CatalogChangeType.UPSERTED);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        record(CatalogEntityType.PRODUCT, event.getProducts().stream().map(ProductResponse::getId).toList(),
+                CatalogChangeType.UPSERTED);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        record(CatalogEntityType.PRODUCT, event.getProductIds(), CatalogChangeType.STOCK);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        record(CatalogEntityType.CATEGORY, List.of(event.getCategoryId()),
+                event.isDeleted() ? CatalogChangeType.DELETED : CatalogChangeType.UPSERTED);
+    }
+    
+    private void record(CatalogEntityType entityType, Iterable<Long> entityIds, CatalogChangeType changeType) {
+        List<SqlParameterSource> batch = new ArrayList<>();
+        for (Long entityId : entityIds) {
+            batch.add(new MapSqlParameterSource()
+                    .addValue("entityType", entityType.name())
+                    .addValue("entityId", entityId)
+                    .addValue("changeType", changeType.name()));
+        }
+        namedParameterJdbcTemplate.batchUpdate(INSERT_SQL, batch.toArray(new SqlParameterSource[0]));
+    }
+    
+    /**
+     * Dòng watermark đã bị purge: có thể đã mất các thay đổi ngay sau nó
+     */
+    private boolean watermarkRetained(Watermark watermark) {
+        return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(WATERMARK_EXISTS_SQL,
+                new MapSqlParameterSource("id", watermark.id()), Boolean.class));
+    }
+    
+    private record Row(Watermark watermark, CatalogChangeResponse change) {
+    }
+    
+    /**
+     * Watermark dạng "txid-id" (0-0: đầu change log)
+     */
+    private record Watermark(long txid, long id) {
+        
+        static Watermark parse(String value) {
+            if (value == null || value.isBlank()) {
+                return new Watermark(0, 0);
+            }
+            int separator = value.indexOf('-');
+            try {
+                return new Watermark(Long.parseLong(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new BusinessException("Invalid change feed watermark", "INVALID_SINCE");
+            }
+        }
+        
+        String format() {
+            return txid + "-" + id;
+        }
+    }
+}
@@ -2,22 +2,29 @@ package com.d4k.ecommerce.modules.product.service.impl;
 
 import com.d4k.ecommerce.common.exception.BusinessException;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
+import com.d4k.ecommerce.modules.product.cache.CategoryTreeStore;
 import com.d4k.ecommerce.modules.product.dto.request.CategoryRequest;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryBreadcrumbResponse;
 import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
 import com.d4k.ecommerce.modules.product.entity.Category;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
 import com.d4k.ecommerce.modules.product.mapper.CategoryMapper;
+import com.d4k.ecommerce.modules.product.repository.CategoryClosureRepository;
 import com.d4k.ecommerce.modules.product.repository.CategoryRepository;
 import com.d4k.ecommerce.modules.product.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Category Service Implementation
  * Xử lý business logic cho quản lý categories
+ * Ghi đi qua database (kèm closure table); đọc phục vụ từ CategoryTreeSnapshot trong bộ nhớ
  */
 @Slf4j
 @Service
@@ -25,7 +32,10 @@ import java.util.List;
 public class CategoryServiceImpl implements CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryTreeStore categoryTreeStore;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Tạo category mới
@@ -60,6 +70,8 @@ public class CategoryServiceImpl implements CategoryService {
         
         // Lưu vào database
         Category savedCategory = categoryRepository.save(category);
+        categoryClosureRepository.insertNode(savedCategory.getId(), request.getParentId());
+        eventPublisher.publishEvent(CategoryChangedEvent.upserted(savedCategory.getId()));
         log.info("Category created successfully with ID: {}", savedCategory.getId());
         
         return categoryMapper.toResponse(savedCategory);
@@ -79,6 +91,7 @@ public class CategoryServiceImpl implements CategoryService {
                     log.error("Category not found with ID: {}", id);
                     return new ResourceNotFoundException("Category", "id", id);
                 });
+        Long oldParentId = category.getParent() != null ? category.getParent().getId() : null;
         
         // Kiểm tra tên mới có bị trùng với category khác không
         if (!category.getName().equals(request.getName())) {
@@ -109,7 +122,7 @@ public class CategoryServiceImpl implements CategoryService {
                     });
             
             // Không cho phép circular reference (parent là child của category này)
-            if (isDescendant(category, parent)) {
+            if (categoryClosureRepository.isDescendant(id, parent.getId())) {
                 log.error("Cannot set parent as descendant of current category");
                 throw new BusinessException("Cannot set parent as descendant", "CIRCULAR_REFERENCE");
             }
@@ -121,6 +134,15 @@ public class CategoryServiceImpl implements CategoryService {
         
         // Lưu vào database
         Category updatedCategory = categoryRepository.save(category);
+        
+        // Đổi parent: chuyển cả subtree trong closure table
+        if (!Objects.equals(oldParentId, request.getParentId())) {
+            categoryClosureRepository.detachSubtree(id);
+            if (request.getParentId() != null) {
+                categoryClosureRepository.attachSubtree(id, request.getParentId());
+            }
+        }
+        eventPublisher.publishEvent(CategoryChangedEvent.upserted(id));
         log.info("Category updated successfully with ID: {}", id);
         
         return categoryMapper.toResponse(updatedCategory);
@@ -153,7 +175,9 @@ public class CategoryServiceImpl implements CategoryService {
         // TODO: Kiểm tra category có products không (sẽ implement sau)
         
         // Xóa category
+        categoryClosureRepository.deleteNode(id);
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
         log.info("Category deleted successfully with ID: {}", id);
     }
     
@@ -161,60 +185,45 @@ public class CategoryServiceImpl implements CategoryService {
      * Lấy chi tiết category
      */
     @Override
-    @Transactional(readOnly = true)
     public CategoryResponse getCategoryById(Long id) {
-        log.info("Fetching category with ID: {}", id);
-        
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Category not found with ID: {}", id);
-                    return new ResourceNotFoundException("Category", "id", id);
-                });
+        log.debug("Fetching category with ID: {}", id);
         
-        return categoryMapper.toResponse(category);
+        CategoryResponse category = categoryTreeStore.current().find(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "id", id);
+        }
+        return category;
+    }
+    
+    /**
+     * Lấy breadcrumbs của category (từ root xuống)
+     */
+    @Override
+    public List<CategoryBreadcrumbResponse> getBreadcrumbs(Long id) {
+        List<CategoryBreadcrumbResponse> breadcrumbs = categoryTreeStore.current().breadcrumbs(id);
+        if (breadcrumbs.isEmpty()) {
+            throw new ResourceNotFoundException("Category", "id", id);
+        }
+        return breadcrumbs;
     }
     
     /**
      * Lấy tất cả categories (flat list)
      */
     @Override
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getAllCategories() {
-        log.info("Fetching all categories");
-        
-        List<Category> categories = categoryRepository.findAll();
+        log.debug("Fetching all categories");
         
-        return categoryMapper.toResponseList(categories);
+        return categoryTreeStore.current().getCategories();
     }
     
     /**
      * Lấy category tree (hierarchical)
      */
     @Override
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getCategoryTree() {
-        log.info("Fetching category tree");
-        
-        // Lấy tất cả root categories (không có parent)
-        List<Category> rootCategories = categoryRepository.findByParentIsNull();
+        log.debug("Fetching category tree");
         
-        // Map sang response với children
-        return rootCategories.stream()
-                .map(categoryMapper::toResponseWithChildren)
-                .toList();
-    }
-    
-    /**
-     * Helper method: Kiểm tra xem potentialParent có phải là descendant của category không
-     */
-    private boolean isDescendant(Category category, Category potentialParent) {
-        Category current = potentialParent;
-        while (current != null) {
-            if (current.getId().equals(category.getId())) {
-                return true;
-            }
-            current = current.getParent();
-        }
-        return false;
+        return categoryTreeStore.current().getRoots();
     }
 }
@@ -0,0 +1,298 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.modules.product.dto.inventory.ExpiredReservationView;
+import com.d4k.ecommerce.modules.product.dto.inventory.StockDeductionResult;
+import com.d4k.ecommerce.modules.product.dto.inventory.StockLine;
+import com.d4k.ecommerce.modules.product.entity.StockReservation;
+import com.d4k.ecommerce.modules.product.enums.ReservationStatus;
+import com.d4k.ecommerce.modules.product.event.StockChangedEvent;
+import com.d4k.ecommerce.modules.product.repository.StockReservationRepository;
+import com.d4k.ecommerce.modules.product.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inventory Service Implementation
+ * Mỗi thao tác là MỘT câu lệnh SQL: data-modifying CTE cập nhật product_variants,
+ * cộng / trừ cùng lượng đó vào tổng products.stock và append các dòng tương ứng vào stock_movements.
+ * Trừ stock dùng điều kiện "stock >= qty" nên database tự serialize các checkout đồng thời
+ * trên cùng variant và không thể oversell.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+    
+    /**
+     * Trừ stock có điều kiện cho tất cả dòng, ghi sổ cái cho những dòng thành công.
+     * Các dòng VALUES đã sắp theo variant id và tổng theo product sắp theo product id để mọi order
+     * khóa rows product_variants / products theo cùng thứ tự (không deadlock giữa các checkout đồng thời)
+     */
+    private static final String DEDUCT_SQL =
+            "WITH req(variant_id, product_id, qty) AS (VALUES :rows), " +
+            "applied AS ( " +
+            "  UPDATE product_variants v SET stock = v.stock - req.qty " +
+            "  FROM req WHERE v.id = req.variant_id AND v.stock >= req.qty " +
+            "  RETURNING v.id AS variant_id, req.product_id, req.qty), " +
+            "totals AS ( " +
+            "  UPDATE products p SET stock = p.stock - t.qty " +
+            "  FROM (SELECT product_id, SUM(qty) AS qty FROM applied GROUP BY product_id ORDER BY product_id) t " +
+            "  WHERE p.id = t.product_id) " +
+            "INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at) " +
+            "SELECT :orderId, product_id, variant_id, 'DEDUCT', -qty, :reason, CURRENT_TIMESTAMP FROM applied " +
+            "RETURNING variant_id";
+    
+    /**
+     * Hoàn phần stock các orders còn giữ (tổng quantity âm trong sổ cái) và ghi sổ cái.
+     * Dòng RESTORE chỉ ghi cho variant thực sự được cộng lại (join với applied), variant đã bị xóa thì không.
+     * Caller phải khóa row order trước (OrderRepository.findByIdForUpdate / conditional UPDATE orders):
+     * net đọc theo snapshot của câu lệnh nên hai lần hoàn đồng thời không thấy dòng RESTORE của nhau.
+     */
+    private static final String RESTORE_SQL =
+            "WITH net AS ( " +
+            "  SELECT order_id, product_id, variant_id, -SUM(quantity) AS qty FROM stock_movements " +
+            "  WHERE order_id IN (:orderIds) " +
+            "  GROUP BY order_id, product_id, variant_id HAVING SUM(quantity) < 0), " +
+            "per_variant AS (SELECT variant_id, SUM(qty) AS qty FROM net GROUP BY variant_id ORDER BY variant_id), " +
+            "applied AS ( " +
+            "  UPDATE product_variants v SET stock = v.stock + per_variant.qty " +
+            "  FROM per_variant WHERE v.id = per_variant.variant_id " +
+            "  RETURNING v.id AS variant_id, v.product_id, per_variant.qty), " +
+            "totals AS ( " +
+            "  UPDATE products p SET stock = p.stock + t.qty " +
+            "  FROM (SELECT product_id, SUM(qty) AS qty FROM applied GROUP BY product_id ORDER BY product_id) t " +
+            "  WHERE p.id = t.product_id) " +
+            "INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at) " +
+            "SELECT net.order_id, net.product_id, net.variant_id, 'RESTORE', net.qty, :reason, CURRENT_TIMESTAMP " +
+            "FROM net JOIN applied ON applied.variant_id = net.variant_id " +
+            "RETURNING product_id";
+    
+    /**
+     * Điều chỉnh thủ công, không cho stock âm
+     */
+    private static final String ADJUST_SQL =
+            "WITH applied AS ( " +
+            "  UPDATE product_variants SET stock = stock + :delta " +
+            "  WHERE id = :variantId AND stock + :delta >= 0 " +
+            "  RETURNING id, product_id), " +
+            "totals AS ( " +
+            "  UPDATE products SET stock = stock + :delta WHERE id IN (SELECT product_id FROM applied)) " +
+            "INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at) " +
+            "SELECT NULL, product_id, id, 'ADJUST', :delta, :reason, CURRENT_TIMESTAMP FROM applied " +
+            "RETURNING product_id";
+    
+    private static final String DEDUCT_REASON = "Order placed";
+    
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StockReservationRepository stockReservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Trừ stock cho order
+     */
+    @Override
+    @Transactional
+    public StockDeductionResult deductForOrder(Long orderId, List<StockLine> lines) {
+        StockDeductionResult result = new StockDeductionResult();
+        if (lines == null || lines.isEmpty()) {
+            return result;
+        }
+        
+        List<StockLine> mergedLines = mergeByVariant(lines);
+        List<Object[]> rows = new ArrayList<>(mergedLines.size());
+        for (StockLine line : mergedLines) {
+            rows.add(new Object[]{line.getVariantId(), line.getProductId(), line.getQuantity()});
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rows", rows)
+                .addValue("orderId", orderId)
+                .addValue("reason", DEDUCT_REASON);
+        Set<Long> deducted = new HashSet<>(
+                namedParameterJdbcTemplate.queryForList(DEDUCT_SQL, params, Long.class));
+        
+        Set<Long> changedProductIds = new HashSet<>();
+        for (StockLine line : mergedLines) {
+            if (deducted.contains(line.getVariantId())) {
+                result.getDeductedLines().add(line);
+                changedProductIds.add(line.getProductId());
+            } else {
+                result.getFailedLines().add(line);
+            }
+        }
+        publishStockChanged(changedProductIds);
+        
+        if (!result.isSuccess()) {
+            log.warn("Stock deduction failed for {} of {} variants (order {})",
+                    result.getFailedLines().size(), mergedLines.size(), orderId);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Hoàn stock cho một order
+     */
+    @Override
+    @Transactional
+    public void restoreForOrder(Long orderId, String reason) {
+        restoreForOrders(List.of(orderId), reason);
+    }
+    
+    /**
+     * Hoàn stock cho nhiều orders
+     */
+    @Override
+    @Transactional
+    public void restoreForOrders(Collection<Long> orderIds, String reason) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return;
+        }
+        
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("orderIds", orderIds)
+                .addValue("reason", reason);
+        List<Long> restoredProductIds = namedParameterJdbcTemplate.queryForList(RESTORE_SQL, params, Long.class);
+        publishStockChanged(new HashSet<>(restoredProductIds));
+        log.info("Restored stock for {} orders ({} movements): {}", orderIds.size(), restoredProductIds.size(), reason);
+    }
+    
+    /**
+     * Điều chỉnh stock thủ công
+     */
+    @Override
+    @Transactional
+    public boolean adjustStock(Long variantId, int delta, String reason) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("variantId", variantId)
+                .addValue("delta", delta)
+                .addValue("reason", reason);
+        List<Long> adjustedProductIds = namedParameterJdbcTemplate.queryForList(ADJUST_SQL, params, Long.class);
+        boolean applied = !adjustedProductIds.isEmpty();
+        publishStockChanged(new HashSet<>(adjustedProductIds));
+        if (!applied) {
+            log.warn("Stock adjustment {} rejected for variant {}", delta, variantId);
+        }
+        return applied;
+    }
+    
+    /**
+     * Ghi nhận giữ hàng cho order chờ thanh toán
+     */
+    @Override
+    @Transactional
+    public void reserveStock(Long orderId, List<StockLine> lines, LocalDateTime expiresAt) {
+        List<StockReservation> reservations = new ArrayList<>();
+        for (StockLine line : lines) {
+            reservations.add(StockReservation.builder()
+                    .orderId(orderId)
+                    .productId(line.getProductId())
+                    .variantId(line.getVariantId())
+                    .quantity(line.getQuantity())
+                    .status(ReservationStatus.HELD)
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+        stockReservationRepository.saveAll(reservations);
+        log.info("Reserved stock for order {} until {}", orderId, expiresAt);
+    }
+    
+    /**
+     * Thanh toán thành công -> giữ hàng thành trừ stock vĩnh viễn
+     */
+    @Override
+    @Transactional
+    public void confirmReservation(Long orderId) {
+        stockReservationRepository.updateStatusByOrderIds(
+                List.of(orderId), ReservationStatus.HELD, ReservationStatus.CONFIRMED);
+    }
+    
+    /**
+     * Đóng giữ hàng
+     */
+    @Override
+    @Transactional
+    public void releaseReservations(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return;
+        }
+        stockReservationRepository.updateStatusByOrderIds(
+                orderIds, ReservationStatus.HELD, ReservationStatus.RELEASED);
+    }
+    
+    /**
+     * Lấy order IDs có giữ hàng đã hết hạn
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findExpiredReservationOrderIds(int limit) {
+        // Đọc reservations theo expires_at từng trang (keyset), gom order IDs tới khi đủ limit;
+        // các dòng của một order thường liền nhau (cùng expires_at) nên hầu như chỉ cần một trang
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest window = PageRequest.of(0, limit);
+        Set<Long> orderIds = new LinkedHashSet<>();
+        List<ExpiredReservationView> page = stockReservationRepository.findExpired(ReservationStatus.HELD, now, window);
+        while (!page.isEmpty()) {
+            for (ExpiredReservationView reservation : page) {
+                orderIds.add(reservation.getOrderId());
+                if (orderIds.size() == limit) {
+                    return new ArrayList<>(orderIds);
+                }
+            }
+            if (page.size() < limit) {
+                break;
+            }
+            ExpiredReservationView last = page.get(page.size() - 1);
+            page = stockReservationRepository.findExpiredAfter(
+                    ReservationStatus.HELD, now, last.getExpiresAt(), last.getId(), window);
+        }
+        return new ArrayList<>(orderIds);
+    }
+    
+    /**
+     * Báo cho các cache product biết stock đã đổi (listener chỉ chạy sau khi transaction commit)
+     */
+    private void publishStockChanged(Set<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(productIds));
+        }
+    }
+    
+    /**
+     * Gộp các dòng trùng variant để mỗi row chỉ bị update một lần, sắp theo variant id (thứ tự khóa row)
+     */
+    private List<StockLine> mergeByVariant(List<StockLine> lines) {
+        Map<Long, StockLine> merged = new TreeMap<>();
+        for (StockLine line : lines) {
+            merged.merge(line.getVariantId(), copyOf(line), (existing, added) -> {
+                existing.setQuantity(existing.getQuantity() + added.getQuantity());
+                return existing;
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+    
+    private StockLine copyOf(StockLine line) {
+        return StockLine.builder()
+                .productId(line.getProductId())
+                .variantId(line.getVariantId())
+                .quantity(line.getQuantity())
+                .build();
+    }
+}
@@ -0,0 +1,454 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
+import com.d4k.ecommerce.common.utils.CsvReader;
+import com.d4k.ecommerce.modules.product.cache.CategoryTreeSnapshot;
+import com.d4k.ecommerce.modules.product.cache.CategoryTreeStore;
+import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
+import com.d4k.ecommerce.modules.product.dto.request.ProductVariantRequest;
+import com.d4k.ecommerce.modules.product.dto.response.CategoryResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductImportJobResponse;
+import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+import com.d4k.ecommerce.modules.product.enums.ProductImportFormat;
+import com.d4k.ecommerce.modules.product.importer.ProductImportJob;
+import com.d4k.ecommerce.modules.product.importer.ProductImportRow;
+import com.d4k.ecommerce.modules.product.importer.ProductImportWriter;
+import com.d4k.ecommerce.modules.product.service.ProductImportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Product Import Service Implementation
+ * Upload được ghi thẳng xuống file tạm (không buffer trong bộ nhớ) rồi một worker đọc tuần tự từng dòng:
+ * parse, validate, resolve category từ CategoryTreeSnapshot, gom thành chunk và ghi bằng ProductImportWriter.
+ * Dòng lỗi được ghi nhận vào job và bỏ qua, không làm dừng cả file.
+ *
+ * Định dạng CSV (header bắt buộc, tên cột không phân biệt hoa thường):
+ * name, description, price, imageUrl, stock, isActive, categoryId | categoryName, variants, additionalImages
+ * - variants: các variant cách nhau bởi "|", mỗi variant "size:stock[:color[:priceAdjustment]]"
+ * - additionalImages: các URL cách nhau bởi "|"
+ * NDJSON: mỗi dòng một ProductRequest, có thể dùng "categoryName" thay cho "categoryId".
+ */
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+    
+    private final ProductImportWriter productImportWriter;
+    private final CategoryTreeStore categoryTreeStore;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor productImportExecutor;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final long maxUploadBytes;
+    private final int retainedJobs;
+    
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    
+    public ProductImportServiceImpl(ProductImportWriter productImportWriter,
+                                    CategoryTreeStore categoryTreeStore,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    ThreadPoolTaskExecutor productImportExecutor,
+                                    @Value("${app.product-import.chunk-size:1000}") int chunkSize,
+                                    @Value("${app.product-import.max-errors:1000}") int maxErrors,
+                                    @Value("${app.product-import.max-upload-mb:200}") long maxUploadMb,
+                                    @Value("${app.product-import.retained-jobs:20}") int retainedJobs) {
+        this.productImportWriter = productImportWriter;
+        this.categoryTreeStore = categoryTreeStore;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productImportExecutor = productImportExecutor;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxUploadBytes = maxUploadMb * 1024 * 1024;
+        this.retainedJobs = retainedJobs;
+    }
+    
+    /**
+     * Nhận file import và đưa vào hàng đợi
+     */
+    @Override
+    public ProductImportJobResponse startImport(InputStream body, ProductImportFormat format) {
+        Path file = spool(body);
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), format, file, maxErrors);
+        
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        try {
+            productImportExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(file);
+            throw new BusinessException("Too many product imports in progress, try again later", "IMPORT_BUSY");
+        }
+        
+        log.info("Product import {} queued ({})", job.getId(), format);
+        return job.toResponse();
+    }
+    
+    /**
+     * Lấy trạng thái job import
+     */
+    @Override
+    public ProductImportJobResponse getJob(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("ProductImportJob", "id", jobId);
+        }
+        return job.toResponse();
+    }
+    
+    private void run(ProductImportJob job) {
+        long start = System.currentTimeMillis();
+        job.start();
+        ImportRun importRun = new ImportRun(job, categoryTreeStore.current());
+        try (BufferedReader reader = Files.newBufferedReader(job.getFile(), StandardCharsets.UTF_8)) {
+            if (job.getFormat() == ProductImportFormat.CSV) {
+                readCsv(reader, importRun);
+            } else {
+                readNdjson(reader, importRun);
+            }
+            importRun.flush();
+            job.complete();
+        } catch (Exception e) {
+            log.error("Product import {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(job.getFile());
+        }
+        log.info("Product import {} {}: {} imported, {} failed in {} ms", job.getId(), job.getStatus(),
+                job.getImportedRows(), job.getFailedRows(), System.currentTimeMillis() - start);
+    }
+    
+    private void readCsv(BufferedReader reader, ImportRun importRun) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Bỏ BOM của file CSV xuất từ Excel
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")
+                || !(columns.containsKey("categoryid") || columns.containsKey("categoryname"))) {
+            throw new IllegalArgumentException("CSV header must contain name, price and categoryId or categoryName");
+        }
+        
+        long row = 0;
+        List<String> fields;
+        while ((fields = csv.readRecord()) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                ProductRequest request = ProductRequest.builder()
+                        .name(field(fields, columns, "name"))
+                        .description(field(fields, columns, "description"))
+                        .price(decimal(field(fields, columns, "price")))
+                        .imageUrl(field(fields, columns, "imageurl"))
+                        .stock(integer(field(fields, columns, "stock")))
+                        .isActive(bool(field(fields, columns, "isactive")))
+                        .categoryId(longValue(field(fields, columns, "categoryid")))
+                        .variants(variants(field(fields, columns, "variants")))
+                        .additionalImages(list(field(fields, columns, "additionalimages")))
+                        .build();
+                importRun.accept(row, request, field(fields, columns, "categoryname"));
+            } catch (IllegalArgumentException e) {
+                importRun.reject(row, e.getMessage());
+            }
+        }
+    }
+    
+    private void readNdjson(BufferedReader reader, ImportRun importRun) throws IOException {
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!(node instanceof ObjectNode object)) {
+                    throw new IllegalArgumentException("Line is not a JSON object");
+                }
+                JsonNode categoryName = object.remove("categoryName");
+                ProductRequest request = objectMapper.treeToValue(object, ProductRequest.class);
+                importRun.accept(row, request, categoryName != null && !categoryName.isNull() ? categoryName.asText() : null);
+            } catch (IOException | IllegalArgumentException e) {
+                importRun.reject(row, "Invalid JSON: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Ghi upload xuống file tạm, giới hạn kích thước
+     */
+    private Path spool(InputStream body) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("product-import-", ".tmp");
+            long total = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (OutputStream out = Files.newOutputStream(file)) {
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxUploadBytes) {
+                        throw new BusinessException("Import file exceeds " + maxUploadBytes / (1024 * 1024) + " MB",
+                                "IMPORT_FILE_TOO_LARGE");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (total == 0) {
+                throw new BusinessException("Import file is empty", "IMPORT_FILE_EMPTY");
+            }
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new BusinessException("Failed to read import file: " + e.getMessage(), "IMPORT_UPLOAD_FAILED");
+        } catch (BusinessException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+    
+    /**
+     * Chỉ giữ retainedJobs job gần nhất; job đang chạy không bao giờ bị xóa
+     */
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ProductImportJob::isFinished)
+                .sorted(Comparator.comparing(ProductImportJob::getCreatedAt))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+    
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import file {}", file, e);
+        }
+    }
+    
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static BigDecimal decimal(String value) {
+        try {
+            return value != null ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+    
+    private static Integer integer(String value) {
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer: " + value);
+        }
+    }
+    
+    private static Long longValue(String value) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ID: " + value);
+        }
+    }
+    
+    private static Boolean bool(String value) {
+        return value != null ? Boolean.valueOf(value) : null;
+    }
+    
+    private static List<String> list(String value) {
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split("\\|")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+    
+    /**
+     * "S:10|M:5:Red|L:3:Blue:20000" -> variants
+     */
+    private static List<ProductVariantRequest> variants(String value) {
+        List<String> entries = list(value);
+        if (entries == null) {
+            return null;
+        }
+        List<ProductVariantRequest> variants = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            String[] parts = entry.split(":", -1);
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("Invalid variant: " + entry);
+            }
+            variants.add(ProductVariantRequest.builder()
+                    .size(parts[0].trim())
+                    .stock(integer(parts[1].trim()))
+                    .color(parts.length > 2 && !parts[2].isBlank() ? parts[2].trim() : null)
+                    .priceAdjustment(parts.length > 3 && !parts[3].isBlank() ? decimal(parts[3].trim()) : null)
+                    .build());
+        }
+        return variants;
+    }
+    
+    /**
+     * Trạng thái đọc của một job: category map và chunk đang gom
+     */
+    private class ImportRun {
+        
+        private final ProductImportJob job;
+        private final CategoryTreeSnapshot categories;
+        private final Map<String, CategoryResponse> categoriesByName = new HashMap<>();
+        private final Set<String> ambiguousNames = new HashSet<>();
+        private final List<ProductImportRow> chunk = new ArrayList<>(chunkSize);
+        
+        ImportRun(ProductImportJob job, CategoryTreeSnapshot categories) {
+            this.job = job;
+            this.categories = categories;
+            for (CategoryResponse category : categories.getCategories()) {
+                String key = category.getName().trim().toLowerCase(Locale.ROOT);
+                if (categoriesByName.putIfAbsent(key, category) != null) {
+                    ambiguousNames.add(key);
+                }
+            }
+        }
+        
+        void accept(long row, ProductRequest request, String categoryName) {
+            job.rowRead();
+            CategoryResponse category;
+            if (request.getCategoryId() != null) {
+                category = categories.find(request.getCategoryId());
+                if (category == null) {
+                    job.rowFailed(row, "Category not found with id: " + request.getCategoryId());
+                    return;
+                }
+            } else if (categoryName != null) {
+                String key = categoryName.trim().toLowerCase(Locale.ROOT);
+                if (ambiguousNames.contains(key)) {
+                    job.rowFailed(row, "Category name is ambiguous, use categoryId: " + categoryName);
+                    return;
+                }
+                category = categoriesByName.get(key);
+                if (category == null) {
+                    job.rowFailed(row, "Category not found with name: " + categoryName);
+                    return;
+                }
+                request.setCategoryId(category.getId());
+            } else {
+                job.rowFailed(row, "Category ID is required");
+                return;
+            }
+            
+            String error = validate(request);
+            if (error != null) {
+                job.rowFailed(row, error);
+                return;
+            }
+            
+            chunk.add(new ProductImportRow(row, request, category));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+        
+        void reject(long row, String error) {
+            job.rowRead();
+            job.rowFailed(row, error);
+        }
+        
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                productImportWriter.write(chunk);
+                job.imported(chunk.size());
+            } catch (RuntimeException e) {
+                // Cả chunk đã rollback: đánh lỗi từng dòng để có thể import lại riêng các dòng đó
+                String error = "Database error: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Product import {} chunk of {} rows failed: {}", job.getId(), chunk.size(), error);
+                chunk.forEach(row -> job.rowFailed(row.row(), error));
+            }
+            chunk.clear();
+        }
+        
+        private String validate(ProductRequest request) {
+            Set<ConstraintViolation<Object>> violations = new HashSet<>(validator.validate((Object) request));
+            if (request.getVariants() != null) {
+                if (request.getVariants().contains(null)) {
+                    return "Variant must not be null";
+                }
+                request.getVariants().forEach(variant -> violations.addAll(validator.validate((Object) variant)));
+                Set<String> variantKeys = new HashSet<>();
+                for (ProductVariantRequest variant : request.getVariants()) {
+                    if (!variantKeys.add(ProductVariant.keyOf(variant.getSize(), variant.getColor()))) {
+                        return "Duplicate variant (Size: " + variant.getSize() + ", Color: " + variant.getColor() + ")";
+                    }
+                }
+            }
+            if (request.getAdditionalImages() != null && request.getAdditionalImages().stream()
+                    .anyMatch(url -> url == null || url.isBlank() || url.length() > 500)) {
+                return "Additional image URL must not be blank or exceed 500 characters";
+            }
+            if (violations.isEmpty()) {
+                return null;
+            }
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+    }
+}
@@ -1,24 +1,64 @@
 package com.d4k.ecommerce.modules.product.service.impl;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
+import com.d4k.ecommerce.common.response.KeysetCursor;
 import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.common.export.ExportColumn;
+import com.d4k.ecommerce.common.export.ExportFormat;
+import com.d4k.ecommerce.common.export.StreamingExporter;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
+import com.d4k.ecommerce.common.response.PageResponse;
+import com.d4k.ecommerce.modules.product.cache.ProductDetailCache;
+import com.d4k.ecommerce.modules.product.dto.request.ProductFilterRequest;
 import com.d4k.ecommerce.modules.product.dto.request.ProductRequest;
 import com.d4k.ecommerce.modules.product.dto.request.ProductVariantRequest;
+import com.d4k.ecommerce.modules.product.dto.response.FacetValueResponse;
+import com.d4k.ecommerce.modules.product.dto.response.ProductBrowseResponse;
 import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.dto.response.SuggestResponse;
+import com.d4k.ecommerce.modules.product.dto.response.SuggestionResponse;
 import com.d4k.ecommerce.modules.product.entity.Category;
 import com.d4k.ecommerce.modules.product.entity.Product;
 import com.d4k.ecommerce.modules.product.entity.ProductImage;
 import com.d4k.ecommerce.modules.product.entity.ProductVariant;
+import com.d4k.ecommerce.modules.product.enums.FacetDimension;
+import com.d4k.ecommerce.modules.product.event.ProductChangedEvent;
 import com.d4k.ecommerce.modules.product.mapper.ProductMapper;
 import com.d4k.ecommerce.modules.product.repository.CategoryRepository;
 import com.d4k.ecommerce.modules.product.repository.ProductRepository;
+import com.d4k.ecommerce.modules.product.search.FacetCount;
+import com.d4k.ecommerce.modules.product.search.FacetSearchResult;
+import com.d4k.ecommerce.modules.product.search.ProductFacetIndex;
+import com.d4k.ecommerce.modules.product.search.ProductSearchIndex;
+import com.d4k.ecommerce.modules.product.search.ProductSearchResult;
+import com.d4k.ecommerce.modules.product.search.ProductSuggestIndexer;
+import com.d4k.ecommerce.modules.product.search.ProductTextAnalyzer;
+import com.d4k.ecommerce.modules.product.search.SuggestEntry;
+import com.d4k.ecommerce.modules.product.service.InventoryService;
 import com.d4k.ecommerce.modules.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Product Service Implementation
@@ -32,6 +72,63 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductDetailCache productDetailCache;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamingExporter streamingExporter;
+    private final ProductSuggestIndexer productSuggestIndexer;
+    private final InventoryService inventoryService;
+    
+    private static final String STOCK_EDIT_REASON = "Updated by admin";
+    private static final String INITIAL_STOCK_REASON = "Initial stock";
+    
+    private static final int SUGGEST_QUERIES = 5;
+    private static final int SUGGEST_CATEGORIES = 3;
+    private static final int MAX_SUGGEST_PRODUCTS = 20;
+    
+    private static final String EXPORT_PRODUCTS_SELECT =
+            "SELECT p.id, p.name, p.description, p.price, p.stock, p.image_url, p.category_id, " +
+            "c.name AS category_name, p.is_active, p.created_at, p.updated_at, ";
+    
+    private static final String EXPORT_PRODUCTS_FROM =
+            " FROM products p JOIN categories c ON c.id = p.category_id ORDER BY p.id";
+    
+    /**
+     * variants dạng "size:stock:color:priceAdjustment|...", additionalImages dạng "url|url" (giống file import)
+     */
+    private static final String EXPORT_PRODUCTS_CSV_SQL = EXPORT_PRODUCTS_SELECT +
+            "(SELECT string_agg(concat_ws(':', v.size, v.stock, coalesce(v.color, ''), " +
+            "coalesce(v.price_adjustment::text, '')), '|' ORDER BY v.id) " +
+            "FROM product_variants v WHERE v.product_id = p.id) AS variants, " +
+            "(SELECT string_agg(i.image_url, '|' ORDER BY i.display_order, i.id) " +
+            "FROM product_images i WHERE i.product_id = p.id) AS additional_images" +
+            EXPORT_PRODUCTS_FROM;
+    
+    private static final String EXPORT_PRODUCTS_JSON_SQL = EXPORT_PRODUCTS_SELECT +
+            "(SELECT json_agg(json_build_object('id', v.id, 'size', v.size, 'color', v.color, 'stock', v.stock, " +
+            "'priceAdjustment', v.price_adjustment) ORDER BY v.id) " +
+            "FROM product_variants v WHERE v.product_id = p.id) AS variants, " +
+            "(SELECT json_agg(i.image_url ORDER BY i.display_order, i.id) " +
+            "FROM product_images i WHERE i.product_id = p.id) AS additional_images" +
+            EXPORT_PRODUCTS_FROM;
+    
+    private static final List<ExportColumn> PRODUCT_EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", rs -> rs.getLong("id")),
+            ExportColumn.of("name", rs -> rs.getString("name")),
+            ExportColumn.of("description", rs -> rs.getString("description")),
+            ExportColumn.of("price", rs -> rs.getBigDecimal("price")),
+            ExportColumn.of("stock", rs -> rs.getInt("stock")),
+            ExportColumn.of("imageUrl", rs -> rs.getString("image_url")),
+            ExportColumn.of("categoryId", rs -> rs.getLong("category_id")),
+            ExportColumn.of("categoryName", rs -> rs.getString("category_name")),
+            ExportColumn.of("isActive", rs -> rs.getObject("is_active", Boolean.class)),
+            ExportColumn.of("createdAt", rs -> rs.getObject("created_at", LocalDateTime.class)),
+            ExportColumn.of("updatedAt", rs -> rs.getObject("updated_at", LocalDateTime.class)),
+            ExportColumn.json("variants", rs -> rs.getString("variants")),
+            ExportColumn.json("additionalImages", rs -> rs.getString("additional_images"))
+    );
     
     /**
      * Tạo product mới
@@ -64,19 +161,20 @@ public class ProductServiceImpl implements ProductService {
                 .stock(0) // Will be updated based on variants
                 .build();
         
-        // Handle Variants or Stock
-        int totalStock = 0;
+        // Handle Variants or Stock: variants insert với stock 0, stock ban đầu áp dụng qua InventoryService sau khi flush
+        List<StockTarget> stockTargets = new ArrayList<>();
         if (request.getVariants() != null && !request.getVariants().isEmpty()) {
+            checkDuplicateVariants(request.getVariants());
             for (ProductVariantRequest vr : request.getVariants()) {
                 ProductVariant variant = ProductVariant.builder()
                         .product(product)
                         .size(vr.getSize())
                         .color(vr.getColor())
-                        .stock(vr.getStock())
+                        .stock(0)
                         .priceAdjustment(vr.getPriceAdjustment())
                         .build();
                 product.getVariants().add(variant);
-                totalStock += vr.getStock();
+                stockTargets.add(new StockTarget(variant, vr.getStock()));
             }
         } else if (request.getStock() != null) {
             if (request.getStock() < 0) {
@@ -86,12 +184,11 @@ public class ProductServiceImpl implements ProductService {
              ProductVariant variant = ProductVariant.builder()
                         .product(product)
                         .size("FREESIZE")
-                        .stock(request.getStock())
+                        .stock(0)
                         .build();
              product.getVariants().add(variant);
-             totalStock = request.getStock();
+             stockTargets.add(new StockTarget(variant, request.getStock()));
         }
-        product.setStock(totalStock);
 
         // Handle Additional Images
         if (request.getAdditionalImages() != null && !request.getAdditionalImages().isEmpty()) {
@@ -105,10 +202,16 @@ public class ProductServiceImpl implements ProductService {
         }
         
         // Save
-        Product savedProduct = productRepository.save(product);
+        Product savedProduct = productRepository.saveAndFlush(product);
+        adjustVariantStock(stockTargets, INITIAL_STOCK_REASON);
+        savedProduct.setStock(savedProduct.getVariants().stream()
+                .mapToInt(ProductVariant::getStock)
+                .sum());
         log.info("Product created successfully with ID: {}", savedProduct.getId());
         
-        return productMapper.toResponse(savedProduct);
+        ProductResponse response = productMapper.toResponse(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(response));
+        return response;
     }
 
     /**
@@ -156,22 +259,32 @@ public class ProductServiceImpl implements ProductService {
         }
         
         if (request.getIsActive() != null) product.setIsActive(request.getIsActive());
-        if (request.getStock() != null) product.setStock(request.getStock());
+        
+        // Stock admin nhập cho từng variant, áp dụng qua InventoryService sau khi flush variants
+        List<StockTarget> stockTargets = new ArrayList<>();
         
         // Update Variants
         if (request.getVariants() != null) {
-            // Replace all variants
-            product.getVariants().clear();
+            checkDuplicateVariants(request.getVariants());
+            // Replace all variants: variant cùng khóa chuẩn được cập nhật tại chỗ (giữ id mà cart / reservations
+            // đang tham chiếu và không đụng unique index vì insert chạy trước delete khi flush)
+            Map<String, ProductVariant> existingVariants = product.getVariants().stream()
+                    .collect(Collectors.toMap(v -> ProductVariant.keyOf(v.getSize(), v.getColor()),
+                            Function.identity(), (first, second) -> first));
+            List<ProductVariant> variants = new ArrayList<>(request.getVariants().size());
             for (ProductVariantRequest vr : request.getVariants()) {
-                 ProductVariant variant = ProductVariant.builder()
-                        .product(product)
-                        .size(vr.getSize())
-                        .color(vr.getColor())
-                        .stock(vr.getStock())
-                        .priceAdjustment(vr.getPriceAdjustment())
-                        .build();
-                product.getVariants().add(variant);
+                ProductVariant variant = existingVariants.remove(ProductVariant.keyOf(vr.getSize(), vr.getColor()));
+                if (variant == null) {
+                    variant = ProductVariant.builder().product(product).stock(0).build();
+                }
+                variant.setSize(vr.getSize());
+                variant.setColor(vr.getColor());
+                variant.setPriceAdjustment(vr.getPriceAdjustment());
+                variants.add(variant);
+                stockTargets.add(new StockTarget(variant, vr.getStock()));
             }
+            product.getVariants().clear();
+            product.getVariants().addAll(variants);
         } else if (request.getStock() != null) {
             if (request.getStock() < 0) {
                 throw new BusinessException("Stock cannot be negative", "INVALID_STOCK");
@@ -181,20 +294,67 @@ public class ProductServiceImpl implements ProductService {
                  ProductVariant variant = ProductVariant.builder()
                         .product(product)
                         .size("FREESIZE")
-                        .stock(request.getStock())
+                        .stock(0)
                         .build();
                  product.getVariants().add(variant);
+                 stockTargets.add(new StockTarget(variant, request.getStock()));
             } else if (product.getVariants().size() == 1) {
                 // Update the single existing variant
-                product.getVariants().get(0).setStock(request.getStock());
+                stockTargets.add(new StockTarget(product.getVariants().get(0), request.getStock()));
             }
             // If multiple variants exist and no variants provided in request, ignore stock update to be safe
         }
         
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        adjustVariantStock(stockTargets, STOCK_EDIT_REASON);
+        if (request.getVariants() != null || request.getStock() != null) {
+            // products.stock không updatable qua entity: đếm lại bằng SQL sau khi variants đã flush
+            productRepository.recalculateStock(id);
+            updatedProduct.setStock(updatedProduct.getVariants().stream()
+                    .mapToInt(ProductVariant::getStock)
+                    .sum());
+        }
         log.info("Product updated successfully with ID: {}", id);
         
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = productMapper.toResponse(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.upserted(response));
+        return response;
+    }
+    
+    /**
+     * Đưa stock các variant về giá trị admin nhập: mỗi chênh lệch là một điều chỉnh ADJUST trong sổ cái
+     * (variant mới được insert với stock 0 nên stock ban đầu cũng có dòng sổ cái).
+     * Chênh lệch tính trên stock đã load; checkout trừ stock xen giữa làm stock âm thì từ chối thay vì ghi đè.
+     */
+    private void adjustVariantStock(List<StockTarget> targets, String reason) {
+        for (StockTarget target : targets) {
+            ProductVariant variant = target.variant();
+            int delta = target.stock() - variant.getStock();
+            if (delta != 0 && !inventoryService.adjustStock(variant.getId(), delta, reason)) {
+                throw new BusinessException(
+                        String.format("Stock of variant (Size: %s, Color: %s) changed while updating, please reload and retry",
+                                variant.getSize(), variant.getColor()),
+                        "STOCK_CONFLICT");
+            }
+            variant.setStock(target.stock());
+        }
+    }
+    
+    private record StockTarget(ProductVariant variant, int stock) {
+    }
+    
+    /**
+     * Hai variant chỉ khác hoa / thường hoặc khoảng trắng là cùng một variant (unique index trên khóa chuẩn)
+     */
+    private static void checkDuplicateVariants(List<ProductVariantRequest> variants) {
+        Set<String> keys = new HashSet<>();
+        for (ProductVariantRequest vr : variants) {
+            if (!keys.add(ProductVariant.keyOf(vr.getSize(), vr.getColor()))) {
+                throw new BusinessException(
+                        String.format("Duplicate variant (Size: %s, Color: %s)", vr.getSize(), vr.getColor()),
+                        "DUPLICATE_VARIANT");
+            }
+        }
     }
     
     /**
@@ -210,21 +370,23 @@ public class ProductServiceImpl implements ProductService {
         }
         
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         log.info("Product deleted successfully with ID: {}", id);
     }
     
     /**
      * Lấy chi tiết product
+     * Đọc qua ProductDetailCache; chỉ khi miss mới mở transaction để load product + variants / images / category
      */
     @Override
-    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long id) {
-        log.info("Fetching product with ID: {}", id);
-        
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        log.debug("Fetching product with ID: {}", id);
         
-        return productMapper.toResponse(product);
+        return productDetailCache.get(id, productId -> transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+            return productMapper.toResponse(product);
+        }));
     }
     
     /**
@@ -238,20 +400,39 @@ public class ProductServiceImpl implements ProductService {
                 .map(productMapper::toResponse);
     }
     
+    /**
+     * Lấy products active theo cursor (Public)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductResponse> getAllProductsByCursor(String cursor, int size) {
+        log.info("Fetching active products by cursor");
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Product> products = after == null
+                ? productRepository.findActiveFirstPage(KeysetCursor.window(size))
+                : productRepository.findActiveAfter(after.getCreatedAt(), after.getId(), KeysetCursor.window(size));
+        
+        return CursorPageResponse.from(products, size, productMapper::toResponse,
+                product -> new KeysetCursor(product.getCreatedAt(), product.getId()));
+    }
+    
     /**
      * Lấy products theo category (Public - chỉ active)
      */
     @Override
     @Transactional(readOnly = true)
-    public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
-        log.info("Fetching products by category ID: {}", categoryId);
+    public Page<ProductResponse> getProductsByCategory(Long categoryId, boolean includeDescendants, Pageable pageable) {
+        log.info("Fetching products by category ID: {} (includeDescendants: {})", categoryId, includeDescendants);
         
         if (!categoryRepository.existsById(categoryId)) {
             throw new ResourceNotFoundException("Category", "id", categoryId);
         }
         
-        return productRepository.findByCategoryIdAndIsActive(categoryId, true, pageable)
-                .map(productMapper::toResponse);
+        Page<Product> products = includeDescendants
+                ? productRepository.findActiveInCategorySubtree(categoryId, pageable)
+                : productRepository.findByCategoryIdAndIsActive(categoryId, true, pageable);
+        return products.map(productMapper::toResponse);
     }
     
     /**
@@ -261,8 +442,75 @@ public class ProductServiceImpl implements ProductService {
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProducts(String keyword, Pageable pageable) {
         log.info("Searching products with keyword: {}", keyword);
-        return productRepository.searchByKeyword(keyword, true, pageable)
-                .map(productMapper::toResponse);
+        
+        // Index chưa build xong (đang startup) -> fallback về LIKE query
+        if (!productSearchIndex.isReady()) {
+            return productRepository.searchByKeyword(ProductTextAnalyzer.fold(keyword.trim()),
+                    ProductTextAnalyzer.SQL_FOLD_FROM, ProductTextAnalyzer.SQL_FOLD_TO, true, pageable)
+                    .map(productMapper::toResponse);
+        }
+        
+        if (pageable.getPageNumber() == 0) {
+            productSuggestIndexer.recordQuery(keyword);
+        }
+        
+        ProductSearchResult result = productSearchIndex.search(
+                keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        
+        // Load trang hiện tại theo ID và giữ thứ tự relevance
+        return new PageImpl<>(loadInOrder(result.getProductIds()), pageable, result.getTotal());
+    }
+    
+    /**
+     * Typeahead: chỉ đọc các index bất biến trong bộ nhớ, không chạm database
+     */
+    @Override
+    public SuggestResponse suggest(String query, int limit) {
+        int productLimit = Math.max(1, Math.min(limit, MAX_SUGGEST_PRODUCTS));
+        return SuggestResponse.builder()
+                .queries(toSuggestions(productSuggestIndexer.queries().topK(query, SUGGEST_QUERIES)))
+                .categories(toSuggestions(productSuggestIndexer.categories().topK(query, SUGGEST_CATEGORIES)))
+                .products(toSuggestions(productSuggestIndexer.products().topK(query, productLimit)))
+                .build();
+    }
+    
+    /**
+     * Faceted browse (Public - chỉ active)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductBrowseResponse browseProducts(ProductFilterRequest filter, Pageable pageable) {
+        log.info("Browsing products with filter: {}", filter);
+        
+        if (!productFacetIndex.isReady()) {
+            throw new BusinessException("Product filters are not available yet, please retry", "FACETS_NOT_READY");
+        }
+        
+        EnumMap<FacetDimension, List<String>> selected = new EnumMap<>(FacetDimension.class);
+        selected.put(FacetDimension.SIZE, filter.getSizes());
+        selected.put(FacetDimension.COLOR, filter.getColors());
+        selected.put(FacetDimension.PRICE, filter.getPriceRanges());
+        if (filter.getCategoryIds() != null) {
+            selected.put(FacetDimension.CATEGORY, filter.getCategoryIds().stream().map(String::valueOf).toList());
+        }
+        
+        FacetSearchResult result = productFacetIndex.search(
+                selected, (int) pageable.getOffset(), pageable.getPageSize());
+        Page<ProductResponse> page = new PageImpl<>(loadInOrder(result.getProductIds()), pageable, result.getTotal());
+        
+        // Label của category facet = tên category
+        List<FacetCount> categoryCounts = result.getFacets().get(FacetDimension.CATEGORY);
+        Map<String, String> categoryNames = categoryRepository.findAllById(
+                        categoryCounts.stream().map(count -> Long.valueOf(count.getValue())).toList()).stream()
+                .collect(Collectors.toMap(category -> String.valueOf(category.getId()), Category::getName));
+        
+        return ProductBrowseResponse.builder()
+                .products(PageResponse.from(page))
+                .sizes(toFacetResponses(result.getFacets().get(FacetDimension.SIZE), selected.get(FacetDimension.SIZE), Map.of()))
+                .colors(toFacetResponses(result.getFacets().get(FacetDimension.COLOR), selected.get(FacetDimension.COLOR), Map.of()))
+                .priceRanges(toFacetResponses(result.getFacets().get(FacetDimension.PRICE), selected.get(FacetDimension.PRICE), Map.of()))
+                .categories(toFacetResponses(categoryCounts, selected.get(FacetDimension.CATEGORY), categoryNames))
+                .build();
     }
     
     /**
@@ -275,4 +523,50 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findAll(pageable)
                 .map(productMapper::toResponse);
     }
+    
+    /**
+     * Export products theo thứ tự id, variants / ảnh gộp sẵn trong query (một dòng mỗi product)
+     */
+    @Override
+    public void exportProducts(ExportFormat format, OutputStream out) throws IOException {
+        log.info("Admin exporting products as {}", format);
+        streamingExporter.stream(out, format,
+                format == ExportFormat.CSV ? EXPORT_PRODUCTS_CSV_SQL : EXPORT_PRODUCTS_JSON_SQL,
+                new MapSqlParameterSource(), PRODUCT_EXPORT_COLUMNS);
+    }
+    
+    // ============== PRIVATE HELPER METHODS ==============
+    
+    private List<SuggestionResponse> toSuggestions(List<SuggestEntry> entries) {
+        return entries.stream()
+                .map(entry -> new SuggestionResponse(entry.getId(), entry.getText()))
+                .toList();
+    }
+    
+    /**
+     * Load products theo IDs và giữ nguyên thứ tự của IDs
+     */
+    private List<ProductResponse> loadInOrder(List<Long> ids) {
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toResponse)
+                .toList();
+    }
+    
+    private List<FacetValueResponse> toFacetResponses(List<FacetCount> counts, List<String> selected,
+                                                      Map<String, String> labels) {
+        return counts.stream()
+                .map(count -> FacetValueResponse.builder()
+                        .value(count.getValue())
+                        .label(labels.getOrDefault(count.getValue(), count.getLabel()))
+                        .count(count.getCount())
+                        .selected(selected != null && selected.stream()
+                                .anyMatch(value -> value.trim().equalsIgnoreCase(count.getValue())
+                                        || value.trim().equalsIgnoreCase(count.getLabel())))
+                        .build())
+                .toList();
+    }
 }
@@ -1,12 +1,16 @@
 package com.d4k.ecommerce.modules.recommendation.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.modules.product.cache.CatalogResponseCache;
+import com.d4k.ecommerce.modules.product.cache.CatalogVersion;
 import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
 import com.d4k.ecommerce.modules.recommendation.service.RecommendationService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,6 +25,8 @@ import java.util.List;
 public class RecommendationController {
     
     private final RecommendationService recommendationService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogVersion catalogVersion;
     
     /**
      * Lấy sản phẩm tương tự (cùng category)
@@ -29,8 +35,13 @@ public class RecommendationController {
     @GetMapping("/similar/{productId}")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getSimilarProducts(
             @PathVariable Long productId,
-            @RequestParam(defaultValue = "8") int limit
+            @RequestParam(defaultValue = "8") int limit,
+            WebRequest webRequest
     ) {
+        if (catalogVersion.checkNotModified(webRequest)) {
+            return null;
+        }
+        
         log.info("Getting similar products for productId: {}, limit: {}", productId, limit);
         
         List<ProductResponse> products = recommendationService.getSimilarProducts(productId, limit);
@@ -49,19 +60,16 @@ public class RecommendationController {
      * GET /api/v1/recommendations/popular?limit=8
      */
     @GetMapping("/popular")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getPopularProducts(
-            @RequestParam(defaultValue = "8") int limit
+    public ResponseEntity<byte[]> getPopularProducts(
+            @RequestParam(defaultValue = "8") int limit,
+            HttpServletRequest request
     ) {
-        log.info("Getting popular products, limit: {}", limit);
-        
-        List<ProductResponse> products = recommendationService.getPopularProducts(limit);
+        log.debug("Getting popular products, limit: {}", limit);
         
-        ApiResponse<List<ProductResponse>> response = ApiResponse.<List<ProductResponse>>builder()
+        return catalogResponseCache.popularProducts(limit, request, () -> ApiResponse.<List<ProductResponse>>builder()
                 .success(true)
                 .message("Popular products fetched successfully")
-                .data(products)
-                .build();
-        
-        return ResponseEntity.ok(response);
+                .data(recommendationService.getPopularProducts(limit))
+                .build());
     }
 }
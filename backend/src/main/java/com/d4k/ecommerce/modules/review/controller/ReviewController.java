@@ -1,6 +1,7 @@
 package com.d4k.ecommerce.modules.review.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
 import com.d4k.ecommerce.modules.review.dto.request.ReviewRequest;
 import com.d4k.ecommerce.modules.review.dto.response.ReviewResponse;
@@ -102,6 +103,37 @@ public class ReviewController {
         return ResponseEntity.ok(apiResponse);
     }
     
+    /**
+     * Lấy reviews của một product theo cursor
+     * Endpoint: GET /api/v1/reviews/product/{productId}/cursor?cursor=...&size=10
+     * Access: Public
+     * Thống kê rating chỉ trả ở trang đầu (cursor rỗng) để các trang sau không phải aggregate lại
+     */
+    @GetMapping("/product/{productId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReviewResponse>>> getProductReviewsByCursor(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        CursorPageResponse<ReviewResponse> reviews = reviewService.getProductReviewsByCursor(productId, cursor, size);
+        
+        Map<String, Object> metadata = null;
+        if (cursor == null || cursor.isBlank()) {
+            metadata = new HashMap<>();
+            metadata.put("averageRating", reviewService.getAverageRating(productId));
+            metadata.put("totalReviews", reviewService.getReviewCount(productId));
+        }
+        
+        ApiResponse<CursorPageResponse<ReviewResponse>> apiResponse = ApiResponse.<CursorPageResponse<ReviewResponse>>builder()
+                .success(true)
+                .message("Product reviews fetched successfully")
+                .data(reviews)
+                .metadata(metadata)
+                .build();
+        
+        return ResponseEntity.ok(apiResponse);
+    }
+    
     /**
      * Lấy reviews của user hiện tại
      * Endpoint: GET /api/v1/reviews/my-reviews
@@ -23,6 +23,7 @@ import java.time.LocalDateTime;
     },
     indexes = {
         @Index(name = "idx_review_product", columnList = "product_id"),
+        @Index(name = "idx_review_product_created", columnList = "product_id, created_at, id"),
         @Index(name = "idx_review_user", columnList = "user_id"),
         @Index(name = "idx_review_rating", columnList = "rating")
     }
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,6 +24,23 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
      */
     Page<Review> findByProductId(Long productId, Pageable pageable);
     
+    /**
+     * Trang đầu reviews của product theo keyset (created_at, id) giảm dần - không COUNT
+     */
+    @Query("SELECT r FROM Review r WHERE r.product.id = :productId ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByProductFirstPage(@Param("productId") Long productId, Pageable pageable);
+    
+    /**
+     * Trang sau cursor của reviews (seek trên idx_review_product_created)
+     */
+    @Query("SELECT r FROM Review r WHERE r.product.id = :productId " +
+           "AND (r.createdAt, r.id) < (:createdAt, :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByProductAfter(@Param("productId") Long productId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+    
     /**
      * Tìm reviews của một user
      */
@@ -1,5 +1,6 @@
 package com.d4k.ecommerce.modules.review.service;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.modules.review.dto.request.ReviewRequest;
 import com.d4k.ecommerce.modules.review.dto.response.ReviewResponse;
 import org.springframework.data.domain.Page;
@@ -27,6 +28,15 @@ public interface ReviewService {
      */
     Page<ReviewResponse> getProductReviews(Long productId, Pageable pageable);
     
+    /**
+     * Lấy danh sách reviews của một product theo cursor (keyset, không COUNT)
+     * @param productId product ID
+     * @param cursor token từ trang trước (null cho trang đầu)
+     * @param size số reviews mỗi trang
+     * @return trang reviews kèm nextCursor
+     */
+    CursorPageResponse<ReviewResponse> getProductReviewsByCursor(Long productId, String cursor, int size);
+    
     /**
      * Lấy reviews của user
      * @param userId user ID
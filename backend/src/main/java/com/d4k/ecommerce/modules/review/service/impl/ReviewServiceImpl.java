@@ -1,5 +1,7 @@
 package com.d4k.ecommerce.modules.review.service.impl;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
+import com.d4k.ecommerce.common.response.KeysetCursor;
 import com.d4k.ecommerce.common.exception.BusinessException;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
 import com.d4k.ecommerce.common.exception.UnauthorizedException;
@@ -20,6 +22,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * Review Service Implementation
  * Xử lý business logic cho reviews
@@ -117,6 +121,27 @@ public class ReviewServiceImpl implements ReviewService {
         return reviews.map(reviewMapper::toResponse);
     }
     
+    /**
+     * Lấy reviews của product theo cursor
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ReviewResponse> getProductReviewsByCursor(Long productId, String cursor, int size) {
+        log.info("Fetching reviews for product {} by cursor", productId);
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after == null && !productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        
+        List<Review> reviews = after == null
+                ? reviewRepository.findByProductFirstPage(productId, KeysetCursor.window(size))
+                : reviewRepository.findByProductAfter(productId, after.getCreatedAt(), after.getId(), KeysetCursor.window(size));
+        
+        return CursorPageResponse.from(reviews, size, reviewMapper::toResponse,
+                review -> new KeysetCursor(review.getCreatedAt(), review.getId()));
+    }
+    
     /**
      * Lấy reviews của user
      */
@@ -1,6 +1,7 @@
 package com.d4k.ecommerce.modules.user.controller;
 
 import com.d4k.ecommerce.common.response.ApiResponse;
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.common.response.PageResponse;
 import com.d4k.ecommerce.modules.user.dto.request.UpdateUserRequest;
 import com.d4k.ecommerce.modules.user.dto.response.UserDetailResponse;
@@ -60,6 +61,22 @@ public class AdminUserController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Lấy danh sách users theo cursor (không đếm tổng)
+     * GET /api/v1/admin/users/cursor?cursor=...&size=10
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<UserDetailResponse>>> getAllUsersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        log.info("Admin fetching users by cursor - size: {}", size);
+        
+        CursorPageResponse<UserDetailResponse> users = userService.getAllUsersByCursor(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+    
     /**
      * Tìm kiếm users theo keyword
      * GET /api/v1/admin/users/search?keyword=john&page=0&size=10
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "users", indexes = {
-    @Index(name = "idx_user_email", columnList = "email")
+    @Index(name = "idx_user_email", columnList = "email"),
+    @Index(name = "idx_user_created", columnList = "created_at, id")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,6 +29,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Boolean existsByEmail(String email);
     
+    /**
+     * Trang đầu users theo keyset (created_at, id) giảm dần - không COUNT
+     */
+    @Query("SELECT u FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findFirstPage(Pageable pageable);
+    
+    /**
+     * Trang sau cursor của users (seek trên idx_user_created)
+     */
+    @Query("SELECT u FROM User u " +
+           "WHERE (u.createdAt, u.id) < (:createdAt, :id) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findAfter(@Param("createdAt") LocalDateTime createdAt,
+                         @Param("id") Long id,
+                         Pageable pageable);
+    
     /**
      * Tìm kiếm users theo keyword trong email hoặc fullName
      */
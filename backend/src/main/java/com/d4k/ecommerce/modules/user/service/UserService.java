@@ -1,5 +1,6 @@
 package com.d4k.ecommerce.modules.user.service;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
 import com.d4k.ecommerce.modules.user.dto.request.UpdateUserRequest;
 import com.d4k.ecommerce.modules.user.dto.response.UserDetailResponse;
 import org.springframework.data.domain.Page;
@@ -18,6 +19,14 @@ public interface UserService {
      */
     Page<UserDetailResponse> getAllUsers(Pageable pageable);
     
+    /**
+     * Lấy danh sách users theo cursor (keyset, không COUNT)
+     * @param cursor token từ trang trước (null cho trang đầu)
+     * @param size số users mỗi trang
+     * @return trang users kèm nextCursor
+     */
+    CursorPageResponse<UserDetailResponse> getAllUsersByCursor(String cursor, int size);
+    
     /**
      * Lấy chi tiết user theo ID
      * @param id user ID
@@ -1,5 +1,7 @@
 package com.d4k.ecommerce.modules.user.service.impl;
 
+import com.d4k.ecommerce.common.response.CursorPageResponse;
+import com.d4k.ecommerce.common.response.KeysetCursor;
 import com.d4k.ecommerce.common.constants.ErrorCodes;
 import com.d4k.ecommerce.common.exception.BusinessException;
 import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
@@ -16,6 +18,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * User Service Implementation
  * Xử lý business logic cho quản lý users
@@ -41,6 +45,23 @@ public class UserServiceImpl implements UserService {
         return users.map(userMapper::toDetailResponse);
     }
     
+    /**
+     * Lấy danh sách users theo cursor
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserDetailResponse> getAllUsersByCursor(String cursor, int size) {
+        log.info("Fetching all users by cursor, size: {}", size);
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<User> users = after == null
+                ? userRepository.findFirstPage(KeysetCursor.window(size))
+                : userRepository.findAfter(after.getCreatedAt(), after.getId(), KeysetCursor.window(size));
+        
+        return CursorPageResponse.from(users, size, userMapper::toDetailResponse,
+                user -> new KeysetCursor(user.getCreatedAt(), user.getId()));
+    }
+    
     /**
      * Lấy chi tiết user theo ID
      */
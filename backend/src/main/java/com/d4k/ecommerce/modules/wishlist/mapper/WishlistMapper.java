@@ -45,8 +45,8 @@ public class WishlistMapper {
                 .productName(item.getProduct().getName())
                 .productPrice(item.getProduct().getPrice())
                 .productImageUrl(item.getProduct().getImageUrl())
-                .productStock(item.getProduct().getTotalStock())
-                .available(item.getProduct().getTotalStock() > 0 && item.getProduct().getIsActive())
+                .productStock(item.getProduct().getStock())
+                .available(item.getProduct().getStock() > 0 && item.getProduct().getIsActive())
                 .addedAt(item.getCreatedAt())
                 .build();
     }
@@ -0,0 +1,14 @@
+-- =====================================================
+-- Migration: V15 - Create Order Number Allocations Table
+-- Description: High-water mark theo ngày cho order number (hi/lo block leasing)
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE TABLE order_number_allocations (
+    order_date DATE PRIMARY KEY,
+    last_value BIGINT NOT NULL CHECK (last_value >= 0),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE order_number_allocations IS 'Số thứ tự order number cao nhất đã được lease theo ngày';
+COMMENT ON COLUMN order_number_allocations.last_value IS 'Mỗi node lease block (last_value - block_size, last_value] bằng một câu UPDATE atomic';
@@ -0,0 +1,28 @@
+-- =====================================================
+-- Migration: V16 - Create Stock Reservations Table
+-- Description: Giữ hàng có thời hạn cho đơn chờ thanh toán online (VNPay)
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE TABLE stock_reservations (
+    id BIGSERIAL PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    variant_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity > 0),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('HELD', 'CONFIRMED', 'RELEASED')),
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    CONSTRAINT fk_reservation_order 
+        FOREIGN KEY (order_id) 
+        REFERENCES orders(id) 
+        ON DELETE CASCADE
+);
+
+-- Sweeper quét theo (status, expires_at) bằng range scan
+CREATE INDEX idx_reservation_status_expires ON stock_reservations(status, expires_at);
+CREATE INDEX idx_reservation_order ON stock_reservations(order_id);
+
+COMMENT ON TABLE stock_reservations IS 'Giữ hàng có thời hạn cho đơn chờ thanh toán';
+COMMENT ON COLUMN stock_reservations.status IS 'HELD: đang giữ, CONFIRMED: đã thanh toán, RELEASED: đã trả stock';
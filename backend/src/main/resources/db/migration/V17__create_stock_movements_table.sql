@@ -0,0 +1,38 @@
+-- =====================================================
+-- Migration: V17 - Create Stock Movements Table
+-- Description: Sổ cái tồn kho append-only, mọi thay đổi stock của variant đi qua InventoryService
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE TABLE stock_movements (
+    id BIGSERIAL PRIMARY KEY,
+    order_id BIGINT,
+    product_id BIGINT NOT NULL,
+    variant_id BIGINT NOT NULL,
+    movement_type VARCHAR(20) NOT NULL CHECK (movement_type IN ('DEDUCT', 'RESTORE', 'ADJUST')),
+    quantity INTEGER NOT NULL CHECK (quantity <> 0),
+    reason VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Restore tính phần stock order còn giữ: SUM(quantity) GROUP BY order_id, variant_id
+CREATE INDEX idx_stock_movement_order ON stock_movements(order_id);
+CREATE INDEX idx_stock_movement_variant ON stock_movements(variant_id, created_at);
+
+-- Backfill: orders đang mở (đã trừ stock trước khi có sổ cái) để restore về sau hoàn đúng variant
+INSERT INTO stock_movements (order_id, product_id, variant_id, movement_type, quantity, reason, created_at)
+SELECT oi.order_id, oi.product_id, v.id, 'DEDUCT', -oi.quantity, 'Backfill', o.created_at
+FROM order_items oi
+JOIN orders o ON o.id = oi.order_id
+JOIN LATERAL (
+    SELECT pv.id FROM product_variants pv
+    WHERE pv.product_id = oi.product_id
+      AND (oi.size IS NULL OR LOWER(pv.size) = LOWER(oi.size))
+      AND (oi.color IS NULL OR LOWER(pv.color) = LOWER(oi.color))
+    ORDER BY pv.id
+    LIMIT 1
+) v ON TRUE
+WHERE o.status IN ('PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPING');
+
+COMMENT ON TABLE stock_movements IS 'Sổ cái tồn kho (append-only)';
+COMMENT ON COLUMN stock_movements.quantity IS 'Số lượng có dấu: âm = trừ stock, dương = cộng stock';
@@ -0,0 +1,24 @@
+-- =====================================================
+-- Migration: V18 - Create Email Outbox Table
+-- Description: Email ghi trong transaction nghiệp vụ, worker pool gửi sau khi commit
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE TABLE email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENT', 'FAILED')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- Dispatcher claim theo (status, next_attempt_at) với FOR UPDATE SKIP LOCKED
+CREATE INDEX idx_email_outbox_status_next ON email_outbox(status, next_attempt_at);
+
+COMMENT ON TABLE email_outbox IS 'Hàng đợi email (transactional outbox)';
+COMMENT ON COLUMN email_outbox.next_attempt_at IS 'Thời điểm sớm nhất được gửi: backoff khi retry, lease khi worker đang gửi';
@@ -0,0 +1,12 @@
+-- =====================================================
+-- Migration: V19 - Add products.name_normalized
+-- Description: Tên sản phẩm đã bỏ dấu + lowercase cho search ("Áo Thun" -> "ao thun")
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+ALTER TABLE products ADD COLUMN name_normalized VARCHAR(200);
+
+-- Giá trị được tính bởi ProductTextAnalyzer.fold() khi ghi product;
+-- các dòng cũ được backfill lúc startup khi build search index.
+
+COMMENT ON COLUMN products.name_normalized IS 'Tên đã bỏ dấu tiếng Việt (kể cả đ -> d) và lowercase';
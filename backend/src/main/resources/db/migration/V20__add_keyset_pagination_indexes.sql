@@ -0,0 +1,22 @@
+-- =====================================================
+-- Migration: V20 - Keyset pagination indexes
+-- Description: Index (…, created_at, id) cho các listing phân trang bằng cursor
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+-- Listing dùng ORDER BY created_at DESC, id DESC và seek bằng so sánh row value
+-- "(created_at, id) < (:c, :id)" thay cho OFFSET: PostgreSQL dùng nó làm điểm bắt đầu
+-- range scan trên index (dạng OR mở rộng chỉ lọc dần khi scan), nên mỗi trang chỉ đọc
+-- size + 1 dòng từ index bất kể sâu đến đâu.
+
+CREATE INDEX IF NOT EXISTS idx_product_active_created ON products(is_active, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_order_user_created ON orders(user_id, created_at, id);
+
+-- Thay index đơn cột created_at bằng (created_at, id) để id làm tie-breaker
+DROP INDEX IF EXISTS idx_order_created;
+CREATE INDEX IF NOT EXISTS idx_order_created_id ON orders(created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_review_product_created ON reviews(product_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_user_created ON users(created_at, id);
@@ -0,0 +1,23 @@
+-- =====================================================
+-- Migration: V21 - Create Catalog Changes Table
+-- Description: Change log append-only của catalog cho GET /api/v1/products/changes?since=
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+-- Cần PostgreSQL 13+ (pg_current_xact_id / pg_current_snapshot)
+CREATE TABLE catalog_changes (
+    id BIGSERIAL PRIMARY KEY,
+    txid BIGINT NOT NULL,
+    entity_type VARCHAR(20) NOT NULL CHECK (entity_type IN ('PRODUCT', 'CATEGORY')),
+    entity_id BIGINT NOT NULL,
+    change_type VARCHAR(20) NOT NULL CHECK (change_type IN ('UPSERTED', 'DELETED', 'STOCK')),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Feed đọc theo watermark (txid, id), chỉ các transaction đã kết thúc (txid < xmin của snapshot)
+CREATE INDEX idx_catalog_change_txid ON catalog_changes(txid, id);
+
+-- Purge theo thời gian lưu
+CREATE INDEX idx_catalog_change_created ON catalog_changes(created_at);
+
+COMMENT ON COLUMN catalog_changes.txid IS 'pg_current_xact_id() của transaction ghi thay đổi';
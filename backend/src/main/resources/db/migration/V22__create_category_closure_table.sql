@@ -0,0 +1,26 @@
+-- =====================================================
+-- Migration: V22 - Create Category Closure Table
+-- Description: Closure table (ancestor, descendant, depth) cho cây category
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE TABLE category_closure (
+    ancestor_id BIGINT NOT NULL REFERENCES categories(id) ON DELETE CASCADE,
+    descendant_id BIGINT NOT NULL REFERENCES categories(id) ON DELETE CASCADE,
+    depth INTEGER NOT NULL CHECK (depth >= 0),
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+-- PK phục vụ "subtree của X" (ancestor_id = X); index này phục vụ "tổ tiên của X"
+CREATE INDEX idx_category_closure_descendant ON category_closure(descendant_id, depth);
+
+-- Dựng từ cây parent_id hiện có
+INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+WITH RECURSIVE paths(ancestor_id, descendant_id, depth) AS (
+    SELECT id, id, 0 FROM categories
+    UNION ALL
+    SELECT p.ancestor_id, c.id, p.depth + 1
+    FROM paths p
+    JOIN categories c ON c.parent_id = p.descendant_id
+)
+SELECT ancestor_id, descendant_id, depth FROM paths;
@@ -0,0 +1,8 @@
+-- =====================================================
+-- Migration: V23 - Add Product Child Indexes
+-- Description: Index khóa ngoại product_id của variants / images (export, batch fetch theo product)
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_product_variant_product ON product_variants(product_id);
+CREATE INDEX IF NOT EXISTS idx_product_image_product ON product_images(product_id);
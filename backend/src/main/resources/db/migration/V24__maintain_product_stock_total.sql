@@ -0,0 +1,18 @@
+-- =====================================================
+-- Migration: V24 - Maintain Product Stock Total
+-- Description: products.stock là tổng stock của variants, được InventoryService cộng / trừ incremental;
+--              backfill một lần và index để lọc / đếm theo tồn kho không phải SUM qua product_variants
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+UPDATE products p
+SET stock = s.total
+FROM (
+    SELECT p2.id, COALESCE(SUM(v.stock), 0) AS total
+    FROM products p2
+    LEFT JOIN product_variants v ON v.product_id = p2.id
+    GROUP BY p2.id
+) s
+WHERE p.id = s.id AND p.stock <> s.total;
+
+CREATE INDEX IF NOT EXISTS idx_product_stock ON products(stock);
@@ -0,0 +1,25 @@
+-- =====================================================
+-- Migration: V25 - Add Product Variant Key
+-- Description: Khóa chuẩn size + color (trim, lowercase) của variant, unique theo product.
+--              Variants trùng khóa có sẵn: variant id nhỏ nhất nhận khóa, các variant còn lại giữ NULL.
+--              Index unique (product_id, variant_key) thay cho idx_product_variant_product
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+ALTER TABLE product_variants ADD COLUMN IF NOT EXISTS variant_key VARCHAR(255);
+
+UPDATE product_variants v
+SET variant_key = k.variant_key
+FROM (
+    SELECT DISTINCT ON (product_id, variant_key) id, variant_key
+    FROM (
+        SELECT id, product_id, LOWER(TRIM(size)) || '|' || LOWER(TRIM(COALESCE(color, ''))) AS variant_key
+        FROM product_variants
+    ) c
+    ORDER BY product_id, variant_key, id
+) k
+WHERE v.id = k.id AND v.variant_key IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_product_variant_key ON product_variants(product_id, variant_key);
+
+DROP INDEX IF EXISTS idx_product_variant_product;
@@ -0,0 +1,11 @@
+-- =====================================================
+-- Migration: V26 - Cart Item Variant Unique
+-- Description: Một cart item cho mỗi variant (product + size + color) thay vì mỗi product,
+--              để cùng product khác size / color nằm được trong cùng giỏ (cart store ghi theo dòng)
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+ALTER TABLE cart_items DROP CONSTRAINT IF EXISTS uk_cart_product;
+
+ALTER TABLE cart_items
+    ADD CONSTRAINT uk_cart_item_variant UNIQUE (cart_id, product_id, size, color);
@@ -0,0 +1,29 @@
+-- =====================================================
+-- Migration: V27 - Cart Item Variant Unique (NULL-safe)
+-- Description: UNIQUE (cart_id, product_id, size, color) của V26 coi các NULL là khác nhau nên không chặn
+--              được hai dòng cùng product không size / không color. Thay bằng unique index trên COALESCE
+--              (chạy được trên mọi phiên bản PostgreSQL, không cần NULLS NOT DISTINCT của PG15).
+--              Các dòng trùng có sẵn được gộp vào dòng id nhỏ nhất (cộng quantity).
+-- Author: D4K E-commerce Team
+-- =====================================================
+
+ALTER TABLE cart_items DROP CONSTRAINT IF EXISTS uk_cart_item_variant;
+
+WITH ranked AS (
+    SELECT id,
+           SUM(quantity) OVER w AS total,
+           ROW_NUMBER() OVER (w ORDER BY id) AS rn
+    FROM cart_items
+    WINDOW w AS (PARTITION BY cart_id, product_id, COALESCE(size, ''), COALESCE(color, ''))
+),
+kept AS (
+    UPDATE cart_items ci SET quantity = r.total
+    FROM ranked r
+    WHERE ci.id = r.id AND r.rn = 1 AND ci.quantity <> r.total
+)
+DELETE FROM cart_items ci
+USING ranked r
+WHERE ci.id = r.id AND r.rn > 1;
+
+CREATE UNIQUE INDEX uk_cart_item_variant
+    ON cart_items (cart_id, product_id, COALESCE(size, ''), COALESCE(color, ''));
@@ -0,0 +1,145 @@
+package com.d4k.ecommerce.modules.cart.service.impl;
+
+import com.d4k.ecommerce.common.constants.ErrorCodes;
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.common.exception.ResourceNotFoundException;
+import com.d4k.ecommerce.modules.cart.dto.request.AddToCartRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartBatchRequest;
+import com.d4k.ecommerce.modules.cart.dto.request.CartOperationRequest;
+import com.d4k.ecommerce.modules.cart.dto.response.CartItemResponse;
+import com.d4k.ecommerce.modules.cart.dto.response.CartResponse;
+import com.d4k.ecommerce.modules.cart.enums.CartOperationType;
+import com.d4k.ecommerce.modules.cart.service.CartService;
+import com.d4k.ecommerce.modules.cart.store.CartStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cart Service Test
+ * Batch giỏ hàng là nguyên tử: một thao tác lỗi (hết stock, item không tồn tại) thì không thao tác nào được áp dụng,
+ * cả trong bộ nhớ lẫn dưới DB; các ADD trùng variant trong cùng batch được gộp thành một dòng
+ */
+@SpringBootTest
+@ActiveProfiles({"prod", "test"})
+class CartServiceImplTest {
+
+    private static final int MEDIUM_STOCK = 3;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long productId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "cart-service-test-" + System.nanoTime());
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                "VALUES ('Cart batch tee', 100000, ?, ?, true, now(), now()) RETURNING id",
+                Long.class, MEDIUM_STOCK + 10, categoryId);
+        jdbcTemplate.update("INSERT INTO product_variants (product_id, size, stock, variant_key) VALUES " +
+                "(?, 'M', ?, 'm|'), (?, 'L', 10, 'l|')", productId, MEDIUM_STOCK, productId);
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (full_name, email, password, role, is_active, created_at, updated_at) " +
+                "VALUES ('Cart batch', ?, 'x', 'USER', true, now(), now()) RETURNING id",
+                Long.class, "cart-service-" + categoryId + "@test.local");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartStore.evict(userId);
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        jdbcTemplate.update("DELETE FROM product_variants WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void batchFailingOnStockAppliesNothing() {
+        CartResponse before = cartService.addToCart(userId, new AddToCartRequest(productId, 1, "M", null));
+        Long mediumItemId = before.getItems().get(0).getId();
+        cartStore.flush(userId);
+
+        BusinessException error = assertThrows(BusinessException.class, () -> cartService.applyBatch(userId, batch(
+                add("L", 2),
+                remove(mediumItemId),
+                add("M", MEDIUM_STOCK + 1))));
+
+        assertEquals(ErrorCodes.INSUFFICIENT_STOCK, error.getErrorCode());
+        assertCartHolds(List.of("M x1"));
+    }
+
+    @Test
+    void batchWithUnknownItemAppliesNothing() {
+        cartService.addToCart(userId, new AddToCartRequest(productId, 1, "M", null));
+        cartStore.flush(userId);
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.applyBatch(userId, batch(
+                add("L", 1),
+                CartOperationRequest.builder().type(CartOperationType.UPDATE).itemId(Long.MAX_VALUE).quantity(2).build())));
+
+        assertCartHolds(List.of("M x1"));
+    }
+
+    @Test
+    void duplicateAddsInOneBatchBecomeOneLine() {
+        CartResponse cart = cartService.applyBatch(userId, batch(add("M", 1), add("L", 1), add("M", 2)));
+
+        assertEquals(List.of("M x3", "L x1"), describe(cart.getItems()));
+        assertCartHolds(List.of("M x3", "L x1"));
+    }
+
+    /**
+     * Giỏ trong bộ nhớ và giỏ dưới DB (sau flush) đều có đúng các dòng mong đợi
+     */
+    private void assertCartHolds(List<String> expected) {
+        assertEquals(expected, describe(cartService.getCart(userId).getItems()));
+        cartStore.flush(userId);
+        assertEquals(expected, jdbcTemplate.queryForList(
+                "SELECT ci.size || ' x' || ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "WHERE c.user_id = ? ORDER BY ci.id", String.class, userId));
+    }
+
+    private static List<String> describe(List<CartItemResponse> items) {
+        return items.stream().map(item -> item.getSize() + " x" + item.getQuantity()).toList();
+    }
+
+    private CartOperationRequest add(String size, int quantity) {
+        return CartOperationRequest.builder()
+                .type(CartOperationType.ADD)
+                .productId(productId)
+                .size(size)
+                .quantity(quantity)
+                .build();
+    }
+
+    private static CartOperationRequest remove(Long itemId) {
+        return CartOperationRequest.builder().type(CartOperationType.REMOVE).itemId(itemId).build();
+    }
+
+    private static CartBatchRequest batch(CartOperationRequest... operations) {
+        return new CartBatchRequest(List.of(operations));
+    }
+}
@@ -0,0 +1,108 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cart Persistence Test
+ * Ghi diff của giỏ vào cart_items: upsert theo id, xóa trước khi upsert, unique variant kể cả khi size / color null
+ */
+@SpringBootTest
+@ActiveProfiles({"prod", "test"})
+class CartPersistenceTest {
+
+    @Autowired
+    private CartPersistence cartPersistence;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long productId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "cart-persistence-test-" + System.nanoTime());
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                "VALUES ('Cart persistence tee', 100000, 10, ?, true, now(), now()) RETURNING id",
+                Long.class, categoryId);
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (full_name, email, password, role, is_active, created_at, updated_at) " +
+                "VALUES ('Cart persistence', ?, 'x', 'USER', true, now(), now()) RETURNING id",
+                Long.class, "cart-persistence-" + categoryId + "@test.local");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void writeAppliesOnlyTheDiff() {
+        CartSnapshot cart = cartPersistence.load(userId);
+        CartLine medium = line("M", null, 1);
+        CartLine large = line("L", "Đen", 2);
+        cartPersistence.write(List.of(changes(cart, List.of(medium, large), List.of())));
+        assertEquals(List.of(medium, large), cartPersistence.load(userId).lines());
+
+        cartPersistence.write(List.of(changes(cart, List.of(medium.withQuantity(4)), List.of(large.id()))));
+
+        assertEquals(List.of(medium.withQuantity(4)), cartPersistence.load(userId).lines());
+    }
+
+    /**
+     * Dòng bị xóa rồi thêm lại cùng variant (id mới) trong cùng một lần flush không vi phạm unique index
+     */
+    @Test
+    void removedVariantCanBeAddedBackInTheSameWrite() {
+        CartSnapshot cart = cartPersistence.load(userId);
+        CartLine removed = line("M", null, 1);
+        cartPersistence.write(List.of(changes(cart, List.of(removed), List.of())));
+
+        CartLine readded = line("M", null, 3);
+        cartPersistence.write(List.of(changes(cart, List.of(readded), List.of(removed.id()))));
+
+        assertEquals(List.of(readded), cartPersistence.load(userId).lines());
+    }
+
+    @Test
+    void duplicateVariantWithoutColorIsRejected() {
+        CartSnapshot cart = cartPersistence.load(userId);
+        cartPersistence.write(List.of(changes(cart, List.of(line("M", null, 1)), List.of())));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> cartPersistence.write(List.of(changes(cart, List.of(line("M", null, 1)), List.of()))));
+        assertEquals(1, cartPersistence.load(userId).lines().size());
+    }
+
+    private CartLine line(String size, String color, int quantity) {
+        // Postgres lưu timestamp tới micro giây
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return new CartLine(cartPersistence.nextLineId(), productId, size, color, quantity, createdAt);
+    }
+
+    private static CartPersistence.CartChanges changes(CartSnapshot cart, List<CartLine> upserted, List<Long> deleted) {
+        return new CartPersistence.CartChanges(cart.cartId(), upserted, deleted);
+    }
+}
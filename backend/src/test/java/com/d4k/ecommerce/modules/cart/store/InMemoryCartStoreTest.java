@@ -0,0 +1,244 @@
+package com.d4k.ecommerce.modules.cart.store;
+
+import com.d4k.ecommerce.modules.cart.event.CartCheckedOutEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * In-Memory Cart Store Test
+ * Flush chỉ ghi phần chênh lệch theo lô, lỗi tạm thời giữ giỏ và thử lại sau backoff,
+ * lỗi vĩnh viễn chỉ bỏ giỏ hỏng, evict giỏ rảnh đã flush. Chạy trên CartPersistence giả (không cần DB).
+ */
+class InMemoryCartStoreTest {
+
+    private static final long RETRY_BASE_MS = 200;
+
+    private final FakeCartPersistence persistence = new FakeCartPersistence();
+
+    @Test
+    void flushWritesOnlyChangesSinceLastFlush() {
+        InMemoryCartStore store = store(30, 200);
+        CartSnapshot cart = store.update(1L, draft -> {
+            draft.add(10L, "M", null, 1);
+            draft.add(11L, "L", "Đen", 2);
+        });
+        CartLine first = cart.lines().get(0);
+        CartLine second = cart.lines().get(1);
+
+        assertEquals(1, store.flushDirty());
+        CartPersistence.CartChanges added = persistence.lastWrite().get(0);
+        assertEquals(cart.lines(), added.upsertedLines());
+        assertEquals(List.of(), added.deletedLineIds());
+
+        // Không đổi gì: không ghi
+        assertEquals(0, store.flushDirty());
+        assertEquals(1, persistence.writes.size());
+
+        store.update(1L, draft -> {
+            draft.setQuantity(first.id(), 3);
+            draft.remove(second.id());
+        });
+        assertEquals(1, store.flushDirty());
+        CartPersistence.CartChanges changed = persistence.lastWrite().get(0);
+        assertEquals(List.of(first.withQuantity(3)), changed.upsertedLines());
+        assertEquals(List.of(second.id()), changed.deletedLineIds());
+    }
+
+    /**
+     * Mutation lỗi giữa chừng (vd. thao tác thứ n của batch hết stock) bỏ cả draft: giỏ giữ nguyên và không dirty
+     */
+    @Test
+    void failedMutationLeavesCartUntouched() {
+        InMemoryCartStore store = store(30, 200);
+        CartSnapshot before = store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        store.flushDirty();
+        CartLine line = before.lines().get(0);
+
+        assertThrows(IllegalStateException.class, () -> store.update(1L, draft -> {
+            draft.setQuantity(line.id(), 5);
+            draft.add(11L, "L", null, 2);
+            draft.remove(line.id());
+            throw new IllegalStateException("Insufficient stock");
+        }));
+
+        assertSame(before, store.get(1L));
+        assertEquals(0, store.flushDirty());
+        assertEquals(1, persistence.writes.size());
+    }
+
+    @Test
+    void dirtyCartsAreWrittenInBatches() {
+        InMemoryCartStore store = store(30, 2);
+        for (long userId = 1; userId <= 5; userId++) {
+            store.update(userId, draft -> draft.add(10L, "M", null, 1));
+        }
+
+        assertEquals(5, store.flushDirty());
+        assertEquals(3, persistence.writes.size());
+        assertTrue(persistence.writes.stream().allMatch(batch -> batch.size() <= 2));
+    }
+
+    @Test
+    void transientFailureKeepsCartAndRetriesAfterBackoff() throws Exception {
+        InMemoryCartStore store = store(30, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        persistence.failure = new TransientDataAccessResourceException("Connection reset");
+
+        assertEquals(0, store.flushDirty());
+        assertEquals(1, store.get(1L).lines().size());
+        assertEquals(1, persistence.loads(1L));
+
+        // Chưa tới hạn thử lại
+        assertEquals(0, store.flushDirty());
+        assertEquals(1, persistence.attempts);
+
+        persistence.failure = null;
+        Thread.sleep(RETRY_BASE_MS + 50);
+        assertEquals(1, store.flushDirty());
+        assertEquals(1, persistence.lastWrite().get(0).upsertedLines().size());
+    }
+
+    @Test
+    void explicitFlushIgnoresBackoffAndRethrowsTransientFailure() {
+        InMemoryCartStore store = store(30, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        persistence.failure = new TransientDataAccessResourceException("Connection reset");
+
+        assertThrows(TransientDataAccessResourceException.class, () -> store.flush(1L));
+
+        persistence.failure = null;
+        store.flush(1L);
+        assertEquals(1, persistence.writes.size());
+        assertEquals(0, store.flushDirty());
+    }
+
+    @Test
+    void permanentFailureDiscardsOnlyTheBrokenCart() {
+        InMemoryCartStore store = store(30, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        store.update(2L, draft -> draft.add(11L, "M", null, 1));
+        persistence.rejectedCarts.add(FakeCartPersistence.cartIdOf(1L));
+
+        // Lô lỗi vĩnh viễn được ghi lại từng giỏ: giỏ 2 vẫn được ghi
+        assertEquals(1, store.flushDirty());
+        assertEquals(List.of(FakeCartPersistence.cartIdOf(2L)), persistence.lastWrite().stream()
+                .map(CartPersistence.CartChanges::cartId).toList());
+
+        // Giỏ 1 bị bỏ khỏi bộ nhớ và load lại từ DB
+        assertEquals(List.of(), store.get(1L).lines());
+        assertEquals(2, persistence.loads(1L));
+        assertEquals(1, persistence.loads(2L));
+    }
+
+    @Test
+    void idleCartsAreEvictedOnlyOnceFlushed() throws Exception {
+        InMemoryCartStore store = store(0, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        store.flush(1L);
+        store.update(2L, draft -> draft.add(11L, "M", null, 1));
+        Thread.sleep(5);
+
+        assertEquals(1, store.evictIdle());
+
+        assertEquals(1, store.get(2L).lines().size());
+        assertEquals(1, persistence.loads(2L));
+        store.get(1L);
+        assertEquals(2, persistence.loads(1L));
+    }
+
+    @Test
+    void shutdownFlushesCartsWaitingForRetry() {
+        InMemoryCartStore store = store(30, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+        persistence.failure = new TransientDataAccessResourceException("Connection reset");
+        store.flushDirty();
+
+        persistence.failure = null;
+        store.flushOnShutdown();
+        assertEquals(1, persistence.writes.size());
+    }
+
+    @Test
+    void checkedOutCartIsDroppedWithoutFlushing() {
+        InMemoryCartStore store = store(30, 200);
+        store.update(1L, draft -> draft.add(10L, "M", null, 1));
+
+        store.onCartCheckedOut(new CartCheckedOutEvent(1L));
+
+        assertEquals(0, store.flushDirty());
+        assertEquals(List.of(), store.get(1L).lines());
+        assertEquals(2, persistence.loads(1L));
+    }
+
+    private InMemoryCartStore store(long idleMinutes, int flushBatchSize) {
+        return new InMemoryCartStore(persistence, idleMinutes, flushBatchSize, RETRY_BASE_MS, 10 * RETRY_BASE_MS);
+    }
+
+    /**
+     * CartPersistence giả: giỏ load ra luôn trống, ghi lại các lô đã ghi thành công
+     */
+    static class FakeCartPersistence extends CartPersistence {
+
+        final List<List<CartChanges>> writes = new ArrayList<>();
+        final Set<Long> rejectedCarts = new HashSet<>();
+        private final Map<Long, Integer> loads = new HashMap<>();
+        private final AtomicLong lineIds = new AtomicLong(1000);
+        volatile RuntimeException failure;
+        int attempts;
+
+        FakeCartPersistence() {
+            super(null, null, 1);
+        }
+
+        static long cartIdOf(Long userId) {
+            return userId + 100;
+        }
+
+        @Override
+        public synchronized CartSnapshot load(Long userId) {
+            loads.merge(userId, 1, Integer::sum);
+            return new CartSnapshot(cartIdOf(userId), userId, List.of());
+        }
+
+        @Override
+        public long nextLineId() {
+            return lineIds.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void write(List<CartChanges> changes) {
+            attempts++;
+            if (failure != null) {
+                throw failure;
+            }
+            for (CartChanges cart : changes) {
+                if (rejectedCarts.contains(cart.cartId())) {
+                    throw new DataIntegrityViolationException("violates foreign key constraint on cart " + cart.cartId());
+                }
+            }
+            writes.add(List.copyOf(changes));
+        }
+
+        synchronized int loads(Long userId) {
+            return loads.getOrDefault(userId, 0);
+        }
+
+        synchronized List<CartChanges> lastWrite() {
+            return writes.get(writes.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.d4k.ecommerce.modules.notification.job;
+
+import com.d4k.ecommerce.modules.notification.service.EmailOutboxService;
+import com.d4k.ecommerce.support.FakeMailSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Email Outbox Dispatcher Test
+ * enqueue -> claim -> gửi qua SMTP giả (FakeMailSender) -> retry với backoff / FAILED khi hết số lần thử.
+ * Profile test tắt poll định kỳ (application-test.yml), test gọi dispatch() trực tiếp.
+ */
+@SpringBootTest(properties = {
+        "app.mail.outbox.initial-backoff-ms=" + EmailOutboxDispatcherTest.INITIAL_BACKOFF_MS,
+        "app.mail.outbox.max-backoff-ms=" + EmailOutboxDispatcherTest.MAX_BACKOFF_MS,
+        "app.mail.outbox.max-attempts=" + EmailOutboxDispatcherTest.MAX_ATTEMPTS
+})
+@ActiveProfiles({"prod", "test"})
+class EmailOutboxDispatcherTest {
+
+    static final long INITIAL_BACKOFF_MS = 500;
+    static final long MAX_BACKOFF_MS = 1000;
+    static final int MAX_ATTEMPTS = 3;
+
+    @TestConfiguration
+    static class FakeSmtpConfig {
+
+        @Bean
+        FakeMailSender javaMailSender() {
+            return new FakeMailSender();
+        }
+    }
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String domain;
+
+    @BeforeEach
+    void setUp() {
+        domain = "@outbox-" + System.nanoTime() + ".test";
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", "%" + domain);
+    }
+
+    @Test
+    void enqueuedEmailsAreSentInOneSmtpBatchAndMarkedSent() {
+        List<String> recipients = List.of("a" + domain, "b" + domain, "c" + domain);
+        transactionTemplate.executeWithoutResult(status ->
+                recipients.forEach(to -> emailOutboxService.enqueue(to, "Order confirmed", "<p>Thanks</p>")));
+
+        dispatcher.dispatch();
+        awaitUntil(() -> countByStatus("SENT") == recipients.size());
+
+        for (String recipient : recipients) {
+            assertEquals(1, mailSender.deliveredCount(recipient));
+        }
+        // Các email cùng lần claim đi chung một lần send (một kết nối SMTP)
+        assertEquals(1, mailSender.connectionsDelivering(Set.copyOf(recipients)));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE recipient LIKE ? AND sent_at IS NULL",
+                Integer.class, "%" + domain));
+    }
+
+    @Test
+    void emailEnqueuedInRolledBackTransactionIsNeverSent() {
+        String recipient = "rollback" + domain;
+        transactionTemplate.executeWithoutResult(status -> {
+            emailOutboxService.enqueue(recipient, "Order confirmed", "<p>Thanks</p>");
+            status.setRollbackOnly();
+        });
+
+        dispatcher.dispatch();
+
+        assertEquals(0, countByStatus("PENDING") + countByStatus("SENT"));
+        assertEquals(0, mailSender.deliveredCount(recipient));
+    }
+
+    @Test
+    void failedSendIsRetriedAfterBackoff() throws Exception {
+        String recipient = "flaky" + domain;
+        mailSender.reject(recipient);
+        emailOutboxService.enqueue(recipient, "Order confirmed", "<p>Thanks</p>");
+
+        dispatcher.dispatch();
+        awaitUntil(() -> lastErrorOf(recipient) != null);
+
+        Map<String, Object> row = rowOf(recipient);
+        assertEquals("PENDING", row.get("status"));
+        assertEquals(1, ((Number) row.get("attempts")).intValue());
+        assertNotNull(row.get("last_error"));
+        // Chưa tới hạn retry: dispatch ngay không claim lại
+        dispatcher.dispatch();
+        assertEquals(1, ((Number) rowOf(recipient).get("attempts")).intValue());
+
+        mailSender.accept(recipient);
+        Thread.sleep(INITIAL_BACKOFF_MS + 100);
+        dispatcher.dispatch();
+        awaitUntil(() -> countByStatus("SENT") == 1);
+
+        assertEquals(2, ((Number) rowOf(recipient).get("attempts")).intValue());
+        assertEquals(1, mailSender.deliveredCount(recipient));
+    }
+
+    @Test
+    void emailIsMarkedFailedAfterMaxAttempts() throws Exception {
+        String recipient = "bounce" + domain;
+        mailSender.reject(recipient);
+        emailOutboxService.enqueue(recipient, "Order confirmed", "<p>Thanks</p>");
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            int expectedAttempts = attempt;
+            dispatcher.dispatch();
+            awaitUntil(() -> ((Number) rowOf(recipient).get("attempts")).intValue() == expectedAttempts
+                    && lastErrorOf(recipient) != null
+                    && !isLeased(recipient));
+            // Đợi hết backoff của lần thử này (tối đa max-backoff-ms)
+            Thread.sleep(MAX_BACKOFF_MS + 100);
+        }
+
+        awaitUntil(() -> countByStatus("FAILED") == 1);
+        dispatcher.dispatch();
+        assertEquals(MAX_ATTEMPTS, ((Number) rowOf(recipient).get("attempts")).intValue());
+        assertEquals(0, mailSender.deliveredCount(recipient));
+    }
+
+    private int countByStatus(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE recipient LIKE ? AND status = ?",
+                Integer.class, "%" + domain, status);
+    }
+
+    private Map<String, Object> rowOf(String recipient) {
+        return jdbcTemplate.queryForMap(
+                "SELECT status, attempts, last_error, next_attempt_at FROM email_outbox WHERE recipient = ?", recipient);
+    }
+
+    private String lastErrorOf(String recipient) {
+        return (String) rowOf(recipient).get("last_error");
+    }
+
+    /**
+     * Worker còn giữ lease (claim đặt next_attempt_at xa hơn mọi backoff của test)
+     */
+    private boolean isLeased(String recipient) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT next_attempt_at > LOCALTIMESTAMP + interval '1 minute' FROM email_outbox WHERE recipient = ?",
+                Boolean.class, recipient));
+    }
+
+    /**
+     * Worker gửi bất đồng bộ: chờ tới khi điều kiện đúng (tối đa 10s)
+     */
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for email outbox");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.d4k.ecommerce.modules.order.service.impl;
+
+import com.d4k.ecommerce.modules.cart.dto.request.AddToCartRequest;
+import com.d4k.ecommerce.modules.cart.service.CartService;
+import com.d4k.ecommerce.modules.order.dto.request.CreateOrderRequest;
+import com.d4k.ecommerce.modules.order.enums.PaymentMethod;
+import com.d4k.ecommerce.modules.order.service.OrderNumberService;
+import com.d4k.ecommerce.modules.order.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Order Number Service Test
+ * - Hai node (hai instance, mỗi instance lease block riêng) không cấp trùng số
+ * - Benchmark checkout: orders/giây với 1, 8 và 64 thread checkout đồng thời (kết quả ghi ra log)
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles({"prod", "test"})
+class OrderNumberServiceImplTest {
+
+    private static final int[] CHECKOUT_THREADS = {1, 8, 64};
+    private static final int ORDERS_PER_THREAD = 10;
+    private static final String ORDER_NUMBER_FORMAT = "ORD-\\d{8}-\\d{5,}";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long categoryId;
+    private Long productId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        int stock = 1_000_000;
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "checkout-bench-" + System.nanoTime());
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                "VALUES ('Checkout bench tee', 100000, ?, ?, true, now(), now()) RETURNING id",
+                Long.class, stock, categoryId);
+        jdbcTemplate.update("INSERT INTO product_variants (product_id, size, stock, variant_key) VALUES (?, 'M', ?, 'm|')",
+                productId, stock);
+        int maxThreads = CHECKOUT_THREADS[CHECKOUT_THREADS.length - 1];
+        for (int i = 0; i < maxThreads; i++) {
+            userIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO users (full_name, email, password, role, is_active, created_at, updated_at) " +
+                    "VALUES ('Checkout bench', ?, 'x', 'USER', true, now(), now()) RETURNING id",
+                    Long.class, "checkout-bench-" + categoryId + "-" + i + "@test.local"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long userId : userIds) {
+            String orders = "SELECT id FROM orders WHERE user_id = ?";
+            jdbcTemplate.update("DELETE FROM stock_reservations WHERE order_id IN (" + orders + ")", userId);
+            jdbcTemplate.update("DELETE FROM stock_movements WHERE order_id IN (" + orders + ")", userId);
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + orders + ")", userId);
+            jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id = ?)", userId);
+            jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient = (SELECT email FROM users WHERE id = ?)", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+        jdbcTemplate.update("DELETE FROM stock_movements WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM product_variants WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void twoNodesNeverHandOutTheSameNumber() throws Exception {
+        OrderNumberService nodeA = new OrderNumberServiceImpl(jdbcTemplate, transactionManager, 7);
+        OrderNumberService nodeB = new OrderNumberServiceImpl(jdbcTemplate, transactionManager, 7);
+
+        List<Callable<List<String>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            OrderNumberService node = i % 2 == 0 ? nodeA : nodeB;
+            tasks.add(() -> {
+                List<String> numbers = new ArrayList<>();
+                for (int n = 0; n < 100; n++) {
+                    numbers.add(node.nextOrderNumber());
+                }
+                return numbers;
+            });
+        }
+
+        Set<String> unique = new HashSet<>();
+        int total = 0;
+        for (List<String> numbers : runConcurrently(tasks)) {
+            for (String number : numbers) {
+                assertTrue(number.matches(ORDER_NUMBER_FORMAT), number);
+                unique.add(number);
+                total++;
+            }
+        }
+        assertEquals(total, unique.size());
+    }
+
+    @Test
+    void checkoutThroughputWith1And8And64Threads() throws Exception {
+        for (int threads : CHECKOUT_THREADS) {
+            List<Callable<List<String>>> checkouts = new ArrayList<>();
+            for (Long userId : userIds.subList(0, threads)) {
+                checkouts.add(() -> {
+                    List<String> numbers = new ArrayList<>(ORDERS_PER_THREAD);
+                    for (int n = 0; n < ORDERS_PER_THREAD; n++) {
+                        numbers.add(checkout(userId));
+                    }
+                    return numbers;
+                });
+            }
+
+            long started = System.nanoTime();
+            List<List<String>> results = runConcurrently(checkouts);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Set<String> unique = new HashSet<>();
+            results.forEach(unique::addAll);
+            int orders = threads * ORDERS_PER_THREAD;
+            assertEquals(orders, unique.size());
+            log.info("Checkout benchmark: {} threads, {} orders in {} s = {} orders/s",
+                    threads, orders, String.format("%.2f", seconds), String.format("%.1f", orders / seconds));
+        }
+    }
+
+    /**
+     * Một lượt checkout đầy đủ: thêm vào giỏ rồi tạo order COD
+     */
+    private String checkout(Long userId) {
+        cartService.addToCart(userId, AddToCartRequest.builder()
+                .productId(productId)
+                .quantity(1)
+                .size("M")
+                .build());
+        return orderService.createOrder(userId, CreateOrderRequest.builder()
+                .paymentMethod(PaymentMethod.COD)
+                .receiverName("Checkout bench")
+                .receiverPhone("0900000000")
+                .shippingAddress("1 Bench street")
+                .build()).getOrderNumber();
+    }
+
+    /**
+     * Chạy tất cả tasks cùng lúc (chờ tới khi mọi thread sẵn sàng rồi mới mở chốt)
+     */
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch ready = new CountDownLatch(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return task.call();
+                }));
+            }
+            ready.await(30, TimeUnit.SECONDS);
+            start.countDown();
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get(120, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
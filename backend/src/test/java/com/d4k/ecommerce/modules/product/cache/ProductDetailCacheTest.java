@@ -0,0 +1,160 @@
+package com.d4k.ecommerce.modules.product.cache;
+
+import com.d4k.ecommerce.modules.product.dto.response.ProductResponse;
+import com.d4k.ecommerce.modules.product.service.InventoryService;
+import com.d4k.ecommerce.modules.product.service.ProductService;
+import com.d4k.ecommerce.support.SqlStatementCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product Detail Cache Test
+ * Load test GET product detail: số câu lệnh SQL chỉ phát sinh ở lần miss đầu tiên của mỗi product,
+ * các lần đọc sau (nhiều thread đồng thời) không chạm database cho tới khi product / stock đổi.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.d4k.ecommerce.support.SqlStatementCounter")
+@ActiveProfiles({"prod", "test"})
+class ProductDetailCacheTest {
+
+    private static final int PRODUCTS = 20;
+    private static final int READER_THREADS = 16;
+    private static final int READS_PER_THREAD = 2_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> variantIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "detail-cache-test-" + System.nanoTime());
+        for (int i = 0; i < PRODUCTS; i++) {
+            Long productId = jdbcTemplate.queryForObject(
+                    "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                    "VALUES (?, 100000, 10, ?, true, now(), now()) RETURNING id",
+                    Long.class, "Detail cache tee " + i, categoryId);
+            productIds.add(productId);
+            variantIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO product_variants (product_id, size, stock, variant_key) VALUES (?, 'M', 10, 'm|') RETURNING id",
+                    Long.class, productId));
+            jdbcTemplate.update("INSERT INTO product_images (product_id, image_url, display_order) VALUES " +
+                    "(?, 'https://img.test/1.jpg', 0)", productId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        String products = "SELECT id FROM products WHERE category_id = ?";
+        jdbcTemplate.update("DELETE FROM stock_movements WHERE product_id IN (" + products + ")", categoryId);
+        jdbcTemplate.update("DELETE FROM product_images WHERE product_id IN (" + products + ")", categoryId);
+        jdbcTemplate.update("DELETE FROM product_variants WHERE product_id IN (" + products + ")", categoryId);
+        jdbcTemplate.update("DELETE FROM products WHERE category_id = ?", categoryId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void statementCountStaysFlatAfterFirstMiss() {
+        for (Long productId : productIds) {
+            assertTrue(SqlStatementCounter.count(() -> productService.getProductById(productId)) > 0,
+                    "first read of a product must load it from the database");
+            for (int read = 0; read < 100; read++) {
+                assertEquals(0L, SqlStatementCounter.count(() -> productService.getProductById(productId)));
+            }
+        }
+    }
+
+    @Test
+    void concurrentReadsRunNoStatementsOnceWarm() throws Exception {
+        long started = System.nanoTime();
+        long coldStatements = 0;
+        for (Long productId : productIds) {
+            coldStatements += SqlStatementCounter.count(() -> productService.getProductById(productId));
+        }
+        double coldSeconds = (System.nanoTime() - started) / 1e9;
+        long hitsBefore = productDetailCache.stats().getHits();
+
+        ExecutorService pool = Executors.newFixedThreadPool(READER_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> readers = new ArrayList<>(READER_THREADS);
+            for (int t = 0; t < READER_THREADS; t++) {
+                int offset = t;
+                readers.add(pool.submit(() -> {
+                    start.await();
+                    // Mỗi thread tự đếm câu lệnh của chính nó (SqlStatementCounter theo thread)
+                    return SqlStatementCounter.count(() -> {
+                        for (int read = 0; read < READS_PER_THREAD; read++) {
+                            productService.getProductById(productIds.get((offset + read) % PRODUCTS));
+                        }
+                        return null;
+                    });
+                }));
+            }
+            started = System.nanoTime();
+            start.countDown();
+            long warmStatements = 0;
+            for (Future<Long> reader : readers) {
+                warmStatements += reader.get(60, TimeUnit.SECONDS);
+            }
+            double warmSeconds = (System.nanoTime() - started) / 1e9;
+
+            long warmReads = (long) READER_THREADS * READS_PER_THREAD;
+            assertEquals(0L, warmStatements);
+            assertTrue(productDetailCache.stats().getHits() - hitsBefore >= warmReads);
+            log.info("Product detail load test: cold {} reads, {} statements, {} reads/s; " +
+                            "warm {} reads on {} threads, {} statements, {} reads/s",
+                    PRODUCTS, coldStatements, String.format("%.0f", PRODUCTS / coldSeconds),
+                    warmReads, READER_THREADS, warmStatements, String.format("%.0f", warmReads / warmSeconds));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void stockMovementReloadsOnlyTheChangedProduct() {
+        Long changed = productIds.get(0);
+        Long untouched = productIds.get(1);
+        productService.getProductById(changed);
+        productService.getProductById(untouched);
+
+        assertTrue(inventoryService.adjustStock(variantIds.get(0), 5, "Cache test"));
+
+        ProductResponse[] reloaded = new ProductResponse[1];
+        assertTrue(SqlStatementCounter.count(() -> reloaded[0] = productService.getProductById(changed)) > 0);
+        assertEquals(15, reloaded[0].getVariants().get(0).getStock());
+        assertEquals(0L, SqlStatementCounter.count(() -> productService.getProductById(changed)));
+        assertEquals(0L, SqlStatementCounter.count(() -> productService.getProductById(untouched)));
+    }
+}
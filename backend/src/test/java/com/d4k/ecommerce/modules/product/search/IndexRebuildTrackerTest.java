@@ -0,0 +1,50 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index Rebuild Tracker Test
+ * Event trong lúc build được hoãn và đọc lại đủ (kể cả event tới trong lúc đang đọc lại),
+ * ngoài lúc build event được áp trực tiếp.
+ */
+class IndexRebuildTrackerTest {
+
+    private final IndexRebuildTracker tracker = new IndexRebuildTracker();
+
+    @Test
+    void eventsOutsideBuildAreAppliedDirectly() {
+        assertFalse(tracker.deferIfBuilding(List.of(1L)));
+        assertEquals(Set.of(), tracker.drainOrFinish());
+    }
+
+    @Test
+    void eventsDuringBuildAreDeferredUntilDrained() {
+        tracker.start();
+        assertTrue(tracker.deferIfBuilding(List.of(1L, 2L)));
+        assertTrue(tracker.deferIfBuilding(List.of(2L)));
+
+        assertEquals(Set.of(1L, 2L), tracker.drainOrFinish());
+        // Event tới trong lúc đọc lại lượt đầu vẫn được hoãn tới lượt sau
+        assertTrue(tracker.deferIfBuilding(List.of(3L)));
+        assertEquals(Set.of(3L), tracker.drainOrFinish());
+
+        assertEquals(Set.of(), tracker.drainOrFinish());
+        assertFalse(tracker.deferIfBuilding(List.of(4L)));
+    }
+
+    @Test
+    void failedBuildStopsDeferring() {
+        tracker.start();
+        assertTrue(tracker.deferIfBuilding(List.of(1L)));
+        tracker.finish();
+
+        assertFalse(tracker.deferIfBuilding(List.of(2L)));
+    }
+}
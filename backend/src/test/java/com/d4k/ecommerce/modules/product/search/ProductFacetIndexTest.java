@@ -0,0 +1,109 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import com.d4k.ecommerce.modules.product.enums.FacetDimension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Product Facet Index Test
+ * Size và color khớp trên cùng một variant, facet counts đếm products (không đếm variants).
+ */
+class ProductFacetIndexTest {
+
+    private static final long WHITE_M_BLACK_L = 1;
+    private static final long BLACK_M = 2;
+    private static final long BLACK_M_AND_L = 3;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex(new String[]{"200000", "500000"});
+        index.rebuild(List.of(
+                document(WHITE_M_BLACK_L, 1L, variant("M", "Trắng"), variant("L", "Đen")),
+                document(BLACK_M, 1L, variant("M", "Đen")),
+                document(BLACK_M_AND_L, 2L, variant("M", "Đen"), variant("L", "Đen"))));
+    }
+
+    @Test
+    void sizeAndColorMustMatchTheSameVariant() {
+        FacetSearchResult result = index.search(Map.of(
+                FacetDimension.SIZE, List.of("M"),
+                FacetDimension.COLOR, List.of("den")), 0, 10);
+
+        assertEquals(List.of(BLACK_M_AND_L, BLACK_M), result.getProductIds());
+        assertEquals(2L, result.getTotal());
+    }
+
+    @Test
+    void variantFacetCountsUseOtherVariantFiltersPerVariant() {
+        FacetSearchResult result = index.search(Map.of(FacetDimension.COLOR, List.of("trang")), 0, 10);
+
+        assertEquals(List.of(WHITE_M_BLACK_L), result.getProductIds());
+        // Chỉ variant trắng (size M) được tính, variant L đen của cùng product thì không
+        assertEquals(Map.of("M", 1), counts(result, FacetDimension.SIZE));
+        // Count của chiều đang chọn bỏ qua filter của chính nó: mỗi product tính một lần dù nhiều variant
+        assertEquals(Map.of("den", 3, "trang", 1), counts(result, FacetDimension.COLOR));
+        assertEquals(Map.of("1", 1), nonZero(counts(result, FacetDimension.CATEGORY)));
+    }
+
+    @Test
+    void productDimensionFiltersCombineWithVariantMatch() {
+        FacetSearchResult result = index.search(Map.of(
+                FacetDimension.CATEGORY, List.of("1"),
+                FacetDimension.SIZE, List.of("L"),
+                FacetDimension.COLOR, List.of("Đen")), 0, 10);
+
+        assertEquals(List.of(WHITE_M_BLACK_L), result.getProductIds());
+        assertEquals(Map.of("L", 1, "M", 1), counts(result, FacetDimension.SIZE));
+        assertEquals(Map.of("1", 1, "2", 1), nonZero(counts(result, FacetDimension.CATEGORY)));
+    }
+
+    @Test
+    void upsertReplacesVariantsAndReusesSlots() {
+        index.upsert(document(BLACK_M, 1L, variant("S", "Đỏ")));
+        index.remove(BLACK_M_AND_L);
+        index.upsert(document(4L, 2L, variant("M", "Đen")));
+
+        FacetSearchResult blackM = index.search(Map.of(
+                FacetDimension.SIZE, List.of("M"),
+                FacetDimension.COLOR, List.of("den")), 0, 10);
+        assertEquals(List.of(4L), blackM.getProductIds());
+
+        FacetSearchResult all = index.search(Map.of(), 0, 10);
+        assertEquals(Map.of("M", 2, "L", 1, "S", 1), counts(all, FacetDimension.SIZE));
+        assertEquals(Map.of("den", 2, "trang", 1, "do", 1), counts(all, FacetDimension.COLOR));
+    }
+
+    private static ProductFacetDocument document(long id, Long categoryId, ProductFacetDocument.Variant... variants) {
+        return ProductFacetDocument.builder()
+                .id(id)
+                .price(new BigDecimal("300000"))
+                .categoryId(categoryId)
+                .active(true)
+                .variants(List.of(variants))
+                .build();
+    }
+
+    private static ProductFacetDocument.Variant variant(String size, String color) {
+        return new ProductFacetDocument.Variant(size, color);
+    }
+
+    private static Map<String, Integer> counts(FacetSearchResult result, FacetDimension dimension) {
+        return result.getFacets().get(dimension).stream()
+                .collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount));
+    }
+
+    private static Map<String, Integer> nonZero(Map<String, Integer> counts) {
+        return counts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
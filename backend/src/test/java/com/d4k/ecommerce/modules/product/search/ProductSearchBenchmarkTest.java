@@ -0,0 +1,200 @@
+package com.d4k.ecommerce.modules.product.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product Search Benchmark
+ * Timing harness (không cần Spring / database) trên catalog seed của V6__seed_products.sql được nhân lên
+ * CATALOG_SIZE products: mỗi bản sao đổi luân phiên tên tiếng Anh / tiếng Việt có dấu và thêm bộ sưu tập,
+ * màu, số mẫu để dictionary lớn như catalog thật.
+ * - fold + tokenize cho từng phím gõ (ns / lần gọi)
+ * - build index và query exact / prefix / có lỗi gõ (µs / query)
+ * Kết quả ghi ra log; assertion chỉ kiểm tra tính đúng, không đặt ngưỡng thời gian.
+ */
+@Slf4j
+class ProductSearchBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int FOLD_ITERATIONS = 200_000;
+    private static final int QUERY_ITERATIONS = 2_000;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Các dòng của V6__seed_products.sql: name, description, is_active
+     */
+    private static final Object[][] SEED_PRODUCTS = {
+            {"Classic White Dress Shirt", "Elegant white dress shirt for formal occasions", true},
+            {"Navy Blue Oxford Shirt", "Casual oxford shirt in navy blue", true},
+            {"Checkered Cotton Shirt", "Comfortable cotton shirt with checkered pattern", true},
+            {"Slim Fit Jeans", "Modern slim fit jeans in dark blue", true},
+            {"Khaki Chinos", "Versatile khaki chinos for casual wear", true},
+            {"Black Dress Pants", "Formal black dress pants", true},
+            {"Floral Summer Dress", "Light and breezy summer dress with floral print", true},
+            {"Elegant Evening Gown", "Sophisticated evening gown for special occasions", true},
+            {"Casual Midi Dress", "Comfortable midi dress for everyday wear", true},
+            {"Silk Blouse", "Elegant silk blouse in cream color", true},
+            {"Cotton T-Shirt", "Basic cotton t-shirt in multiple colors", true},
+            {"Striped Long Sleeve Top", "Casual striped top with long sleeves", true},
+            {"Leather Handbag", "Premium leather handbag in brown", true},
+            {"Canvas Backpack", "Durable canvas backpack for daily use", true},
+            {"Minimalist Wallet", "Sleek minimalist wallet with RFID protection", true},
+            {"Limited Edition Sneakers", "Exclusive limited edition sneakers - currently out of stock", true},
+            {"Discontinued Winter Jacket", "Winter jacket - discontinued item", false}
+    };
+
+    /**
+     * Tên tiếng Việt tương ứng từng dòng seed
+     */
+    private static final String[] VIETNAMESE_NAMES = {
+            "Áo sơ mi trắng cổ điển",
+            "Áo sơ mi Oxford xanh navy",
+            "Áo sơ mi cotton kẻ ô",
+            "Quần jean ôm",
+            "Quần kaki chinos",
+            "Quần tây đen",
+            "Đầm hoa mùa hè",
+            "Đầm dạ hội thanh lịch",
+            "Đầm midi dạo phố",
+            "Áo kiểu lụa",
+            "Áo thun cotton",
+            "Áo dài tay kẻ sọc",
+            "Túi xách da",
+            "Ba lô vải canvas",
+            "Ví da tối giản",
+            "Giày sneaker phiên bản giới hạn",
+            "Áo khoác mùa đông"
+    };
+
+    private static final String[] COLLECTIONS = {"Xuân", "Hè", "Thu", "Đông", "Basic", "Premium", "Studio", "Urban"};
+    private static final String[] COLORS = {"đen", "trắng", "đỏ", "xanh", "be", "nâu", "hồng", "xám"};
+
+    private List<ProductSearchDocument> catalog;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog = scaledSeedCatalog(CATALOG_SIZE);
+        index = new ProductSearchIndex();
+        long started = System.nanoTime();
+        index.rebuild(catalog);
+        log.info("Search benchmark: built index of {} products in {} ms",
+                index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Test
+    void indexContainsOnlyActiveSeedProducts() {
+        long active = catalog.stream().filter(ProductSearchDocument::isActive).count();
+        assertEquals(active, (long) index.size());
+        assertEquals(0L, index.search("discontinued winter jacket", 0, PAGE_SIZE).getTotal());
+    }
+
+    @Test
+    void unaccentedQueryMatchesAccentedNames() {
+        ProductSearchResult unaccented = index.search("ao thun", 0, PAGE_SIZE);
+        ProductSearchResult accented = index.search("Áo Thun", 0, PAGE_SIZE);
+
+        assertTrue(unaccented.getTotal() > 0, "'ao thun' should match 'Áo thun cotton'");
+        assertEquals(unaccented.getTotal(), accented.getTotal());
+        assertEquals(unaccented.getProductIds(), accented.getProductIds());
+        assertTrue(index.search("dam da hoi", 0, PAGE_SIZE).getTotal() > 0, "'dam' should match 'Đầm'");
+    }
+
+    @Test
+    void typoQueryMatchesLikeCorrectQuery() {
+        long correct = index.search("leather handbag", 0, PAGE_SIZE).getTotal();
+        long typo = index.search("lether handbga", 0, PAGE_SIZE).getTotal();
+
+        assertTrue(correct > 0);
+        assertTrue(typo >= correct, "typo query should find every exact match");
+    }
+
+    @Test
+    void foldAndTokenizePerKeystroke() {
+        List<String> keystrokes = keystrokes("Áo thun cotton đen Premium");
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            foldAndTokenize(keystrokes);
+        }
+
+        long checksum = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < FOLD_ITERATIONS; i += keystrokes.size()) {
+            checksum += foldAndTokenize(keystrokes);
+        }
+        long elapsed = System.nanoTime() - started;
+
+        assertTrue(checksum > 0);
+        assertEquals("ao thun cotton den premium", ProductTextAnalyzer.fold("Áo thun cotton đen Premium"));
+        log.info("Search benchmark: fold + tokenize {} ns/keystroke", elapsed / FOLD_ITERATIONS);
+    }
+
+    @Test
+    void searchAsYouTypeLatency() {
+        for (String query : List.of("ao thun", "ao th", "cotton shirt", "leather handbag", "lether handbga",
+                "dam hoa mua he", "quan jean om den", "sneaker premium")) {
+            for (int i = 0; i < WARMUP_ITERATIONS / 10; i++) {
+                index.search(query, 0, PAGE_SIZE);
+            }
+
+            long total = 0;
+            long started = System.nanoTime();
+            for (int i = 0; i < QUERY_ITERATIONS; i++) {
+                total = index.search(query, 0, PAGE_SIZE).getTotal();
+            }
+            long elapsed = System.nanoTime() - started;
+
+            assertTrue(total > 0, "no results for '" + query + "'");
+            log.info("Search benchmark: '{}' {} hits, {} µs/query",
+                    query, total, String.format("%.1f", elapsed / 1_000.0 / QUERY_ITERATIONS));
+        }
+    }
+
+    /**
+     * Nhân catalog seed lên size products; bản sao chẵn giữ tên tiếng Anh, bản sao lẻ dùng tên tiếng Việt
+     */
+    private static List<ProductSearchDocument> scaledSeedCatalog(int size) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ProductSearchDocument> documents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int row = i % SEED_PRODUCTS.length;
+            int copy = i / SEED_PRODUCTS.length;
+            String baseName = copy % 2 == 0 ? (String) SEED_PRODUCTS[row][0] : VIETNAMESE_NAMES[row];
+            String name = baseName + " " + COLLECTIONS[copy % COLLECTIONS.length]
+                    + " " + COLORS[(copy / COLLECTIONS.length) % COLORS.length] + " " + copy;
+            documents.add(ProductSearchDocument.builder()
+                    .id((long) i + 1)
+                    .name(name)
+                    .normalizedName(ProductTextAnalyzer.fold(name))
+                    .description((String) SEED_PRODUCTS[row][1])
+                    .active((Boolean) SEED_PRODUCTS[row][2])
+                    .createdAt(createdAt.plusMinutes(i))
+                    .build());
+        }
+        return documents;
+    }
+
+    private static List<String> keystrokes(String text) {
+        List<String> prefixes = new ArrayList<>(text.length());
+        for (int end = 1; end <= text.length(); end++) {
+            prefixes.add(text.substring(0, end));
+        }
+        return prefixes;
+    }
+
+    private static int foldAndTokenize(List<String> keystrokes) {
+        int tokens = 0;
+        for (String prefix : keystrokes) {
+            tokens += ProductTextAnalyzer.split(ProductTextAnalyzer.fold(prefix)).size();
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,180 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.common.exception.BusinessException;
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeFeedResponse;
+import com.d4k.ecommerce.modules.product.dto.response.CatalogChangeResponse;
+import com.d4k.ecommerce.modules.product.event.CategoryChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catalog Change Service Test
+ * Watermark (txid, id) của change feed: transaction ghi change trước nhưng commit sau không bị client bỏ sót,
+ * watermark đã bị purge thì client phải resync
+ */
+@SpringBootTest
+@ActiveProfiles({"prod", "test"})
+class CatalogChangeServiceImplTest {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    private CatalogChangeServiceImpl catalogChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> entityIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Entity id không trùng category thật: chỉ dùng để nhận ra các dòng change của test
+        long base = -System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            entityIds.add(base - i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long entityId : entityIds) {
+            jdbcTemplate.update("DELETE FROM catalog_changes WHERE entity_id = ?", entityId);
+        }
+    }
+
+    /**
+     * T1 ghi change (id nhỏ hơn) rồi treo, T2 ghi change và commit trước. Feed không được trả change của T2
+     * trước khi T1 kết thúc, nếu không watermark của client sẽ vượt qua change của T1
+     */
+    @Test
+    void changeCommittedLateIsNotSkipped() throws Exception {
+        Long lateEntity = entityIds.get(0);
+        Long earlyEntity = entityIds.get(1);
+        String since = drain(null);
+        long versionBefore = catalogChangeService.currentVersion();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> late = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                catalogChangeService.onCategoryChanged(CategoryChangedEvent.upserted(lateEntity));
+                recorded.countDown();
+                await(release);
+            }));
+            assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+            transactionTemplate.executeWithoutResult(status ->
+                    catalogChangeService.onCategoryChanged(CategoryChangedEvent.deleted(earlyEntity)));
+
+            CatalogChangeFeedResponse pending = catalogChangeService.getChanges(since, PAGE_SIZE);
+            assertEquals(List.of(), ownChanges(pending));
+            assertEquals(versionBefore, catalogChangeService.currentVersion());
+
+            release.countDown();
+            late.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        CatalogChangeFeedResponse feed = catalogChangeService.getChanges(since, PAGE_SIZE);
+        assertEquals(List.of(lateEntity, earlyEntity),
+                ownChanges(feed).stream().map(CatalogChangeResponse::getEntityId).toList());
+        assertFalse(feed.getResyncRequired());
+        assertTrue(catalogChangeService.currentVersion() > versionBefore);
+        assertEquals(List.of(), ownChanges(catalogChangeService.getChanges(feed.getNextSince(), PAGE_SIZE)));
+    }
+
+    @Test
+    void pagesFollowTheWatermarkWithoutGapsOrRepeats() {
+        String since = drain(null);
+        for (Long entityId : entityIds) {
+            transactionTemplate.executeWithoutResult(status ->
+                    catalogChangeService.onCategoryChanged(CategoryChangedEvent.upserted(entityId)));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        CatalogChangeFeedResponse page;
+        do {
+            page = catalogChangeService.getChanges(since, 1);
+            ownChanges(page).forEach(change -> seen.add(change.getEntityId()));
+            since = page.getNextSince();
+        } while (page.getHasMore());
+
+        assertEquals(entityIds, seen);
+    }
+
+    @Test
+    void purgedWatermarkRequiresResync() {
+        Long entityId = entityIds.get(0);
+        transactionTemplate.executeWithoutResult(status ->
+                catalogChangeService.onCategoryChanged(CategoryChangedEvent.upserted(entityId)));
+        String since = jdbcTemplate.queryForObject(
+                "SELECT txid || '-' || id FROM catalog_changes WHERE entity_id = ?", String.class, entityId);
+
+        jdbcTemplate.update("DELETE FROM catalog_changes WHERE entity_id = ?", entityId);
+
+        CatalogChangeFeedResponse feed = catalogChangeService.getChanges(since, PAGE_SIZE);
+        assertTrue(feed.getResyncRequired());
+        assertEquals(List.of(), feed.getChanges());
+        assertEquals(since, feed.getNextSince());
+    }
+
+    @Test
+    void malformedWatermarkIsRejected() {
+        BusinessException error = assertThrows(BusinessException.class,
+                () -> catalogChangeService.getChanges("12345", PAGE_SIZE));
+        assertEquals("INVALID_SINCE", error.getErrorCode());
+    }
+
+    /**
+     * Đọc feed tới cuối, trả watermark cuối cùng
+     */
+    private String drain(String since) {
+        CatalogChangeFeedResponse page;
+        do {
+            page = catalogChangeService.getChanges(since, PAGE_SIZE);
+            since = page.getNextSince();
+        } while (page.getHasMore());
+        return since;
+    }
+
+    private List<CatalogChangeResponse> ownChanges(CatalogChangeFeedResponse feed) {
+        return feed.getChanges().stream().filter(change -> entityIds.contains(change.getEntityId())).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.modules.product.dto.inventory.StockLine;
+import com.d4k.ecommerce.modules.product.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Inventory Service Test
+ * Flash sale: nhiều thread cùng trừ stock một variant, không được oversell và sổ cái phải khớp stock
+ */
+@SpringBootTest
+@ActiveProfiles({"prod", "test"})
+class InventoryServiceImplTest {
+
+    private static final int THREADS = 200;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long productId;
+    private final List<Long> variantIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "inventory-test-" + System.nanoTime());
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                "VALUES ('Flash sale tee', 100000, 0, ?, true, now(), now()) RETURNING id",
+                Long.class, categoryId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long variantId : variantIds) {
+            jdbcTemplate.update("DELETE FROM stock_movements WHERE variant_id = ?", variantId);
+            jdbcTemplate.update("DELETE FROM product_variants WHERE id = ?", variantId);
+        }
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void concurrentDeductionsOnOneVariantNeverOversell() throws Exception {
+        Long variantId = createVariant("M", STOCK);
+
+        List<Callable<Boolean>> checkouts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long orderId = orderId(i);
+            checkouts.add(() -> inventoryService.deductForOrder(orderId, List.of(line(variantId, 1))).isSuccess());
+        }
+        List<Boolean> results = runConcurrently(checkouts);
+
+        assertEquals(STOCK, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(0, variantStock(variantId));
+        assertEquals(0, productStock());
+        assertEquals(-STOCK, ledgerSum(variantId));
+        assertEquals(STOCK, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_movements WHERE variant_id = ? AND movement_type = 'DEDUCT'",
+                Integer.class, variantId));
+    }
+
+    /**
+     * Orders nhiều dòng với thứ tự variant ngược nhau: không deadlock, mọi order đều trừ được
+     */
+    @Test
+    void multiLineOrdersInOppositeOrderDoNotDeadlock() throws Exception {
+        Long first = createVariant("S", THREADS);
+        Long second = createVariant("L", THREADS);
+
+        List<Callable<Boolean>> checkouts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long orderId = orderId(i);
+            List<StockLine> lines = i % 2 == 0
+                    ? List.of(line(first, 1), line(second, 1))
+                    : List.of(line(second, 1), line(first, 1));
+            checkouts.add(() -> inventoryService.deductForOrder(orderId, lines).isSuccess());
+        }
+        List<Boolean> results = runConcurrently(checkouts);
+
+        assertEquals(THREADS, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(0, variantStock(first));
+        assertEquals(0, variantStock(second));
+        assertEquals(0, productStock());
+        assertEquals(-THREADS, ledgerSum(first));
+        assertEquals(-THREADS, ledgerSum(second));
+    }
+
+    @Test
+    void restoreReturnsStockOnceAndKeepsLedgerBalanced() {
+        Long variantId = createVariant("M", STOCK);
+        long orderId = orderId(0);
+        inventoryService.deductForOrder(orderId, List.of(line(variantId, 3)));
+
+        inventoryService.restoreForOrder(orderId, "Cancelled by user");
+        inventoryService.restoreForOrder(orderId, "Cancelled by user");
+
+        assertEquals(STOCK, variantStock(variantId));
+        assertEquals(STOCK, productStock());
+        assertEquals(0, ledgerSum(variantId));
+    }
+
+    /**
+     * Variant đã bị xóa: không cộng được stock nên cũng không có dòng RESTORE
+     */
+    @Test
+    void restoreOfDeletedVariantWritesNoLedgerRow() {
+        Long variantId = createVariant("M", STOCK);
+        long orderId = orderId(0);
+        inventoryService.deductForOrder(orderId, List.of(line(variantId, 3)));
+        jdbcTemplate.update("DELETE FROM product_variants WHERE id = ?", variantId);
+
+        inventoryService.restoreForOrder(orderId, "Cancelled by user");
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_movements WHERE variant_id = ? AND movement_type = 'RESTORE'",
+                Integer.class, variantId));
+    }
+
+    /**
+     * Nhiều dòng reservation mỗi order: trả đủ limit orders (đọc sang trang sau), order hết hạn sớm nhất trước
+     */
+    @Test
+    void expiredReservationOrderIdsAreDistinctAndOldestFirst() {
+        Long variantId = createVariant("M", STOCK);
+        long first = orderId(0);
+        long second = orderId(1);
+        long third = orderId(2);
+        // Trước mọi reservation thật: các orders này luôn là cũ nhất
+        holdReservations(third, variantId, 1, "1970-01-01 00:02:00");
+        holdReservations(first, variantId, 3, "1970-01-01 00:00:00");
+        holdReservations(second, variantId, 3, "1970-01-01 00:01:00");
+
+        assertEquals(List.of(first, second), inventoryService.findExpiredReservationOrderIds(2));
+        assertEquals(List.of(first, second, third), inventoryService.findExpiredReservationOrderIds(3));
+    }
+
+    private void holdReservations(long orderId, Long variantId, int lines, String expiresAt) {
+        for (int i = 0; i < lines; i++) {
+            jdbcTemplate.update("INSERT INTO stock_reservations " +
+                    "(order_id, product_id, variant_id, quantity, status, expires_at, created_at) " +
+                    "VALUES (?, ?, ?, 1, 'HELD', CAST(? AS timestamp), now())",
+                    orderId, productId, variantId, expiresAt);
+        }
+    }
+
+    private Long createVariant(String size, int stock) {
+        Long variantId = jdbcTemplate.queryForObject(
+                "INSERT INTO product_variants (product_id, size, stock, variant_key) VALUES (?, ?, ?, ?) RETURNING id",
+                Long.class, productId, size, stock, size.toLowerCase() + "|");
+        jdbcTemplate.update("UPDATE products SET stock = stock + ? WHERE id = ?", stock, productId);
+        variantIds.add(variantId);
+        return variantId;
+    }
+
+    /**
+     * Order id âm: không trùng order thật (stock_movements.order_id không có FK)
+     */
+    private long orderId(int index) {
+        return -(productId * 1000 + index);
+    }
+
+    private StockLine line(Long variantId, int quantity) {
+        return StockLine.builder()
+                .productId(productId)
+                .variantId(variantId)
+                .quantity(quantity)
+                .build();
+    }
+
+    /**
+     * Chạy tất cả tasks cùng lúc (chờ tới khi mọi thread sẵn sàng rồi mới mở chốt)
+     */
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch ready = new CountDownLatch(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return task.call();
+                }));
+            }
+            ready.await(30, TimeUnit.SECONDS);
+            start.countDown();
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int variantStock(Long variantId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM product_variants WHERE id = ?", Integer.class, variantId);
+    }
+
+    private int productStock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int ledgerSum(Long variantId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE variant_id = ?", Integer.class, variantId);
+    }
+}
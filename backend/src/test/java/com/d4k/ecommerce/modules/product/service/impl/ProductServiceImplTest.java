@@ -0,0 +1,94 @@
+package com.d4k.ecommerce.modules.product.service.impl;
+
+import com.d4k.ecommerce.modules.product.service.ProductService;
+import com.d4k.ecommerce.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Product Service Test
+ * Listing products: số câu lệnh SQL mỗi trang cố định, không phụ thuộc số products trong trang (không N+1)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.d4k.ecommerce.support.SqlStatementCounter")
+@ActiveProfiles({"prod", "test"})
+class ProductServiceImplTest {
+
+    private static final int PRODUCTS = 25;
+
+    /**
+     * Trang lớn nhất vẫn đầy (Spring Data bỏ query COUNT khi trang đầu không đầy)
+     */
+    private static final int MAX_PAGE_SIZE = 20;
+
+    /**
+     * Query trang + count + một batch variants + một batch images (category join trong query trang)
+     */
+    private static final long STATEMENTS_PER_PAGE = 4;
+
+    /**
+     * Thứ tự như listing mặc định của controller, id để thứ tự ổn định khi created_at trùng
+     */
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, created_at, updated_at) VALUES (?, now(), now()) RETURNING id",
+                Long.class, "listing-test-" + System.nanoTime());
+        for (int i = 0; i < PRODUCTS; i++) {
+            // created_at trong tương lai: các products này nằm đầu listing (ORDER BY created_at DESC)
+            Long productId = jdbcTemplate.queryForObject(
+                    "INSERT INTO products (name, price, stock, category_id, is_active, created_at, updated_at) " +
+                    "VALUES (?, 100000, 20, ?, true, now() + interval '1 day', now()) RETURNING id",
+                    Long.class, "Listing tee " + i, categoryId);
+            jdbcTemplate.update("INSERT INTO product_variants (product_id, size, stock, variant_key) VALUES " +
+                    "(?, 'M', 10, 'm|'), (?, 'L', 10, 'l|')", productId, productId);
+            jdbcTemplate.update("INSERT INTO product_images (product_id, image_url, display_order) VALUES " +
+                    "(?, 'https://img.test/1.jpg', 0), (?, 'https://img.test/2.jpg', 1)", productId, productId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        String products = "SELECT id FROM products WHERE category_id = ?";
+        jdbcTemplate.update("DELETE FROM product_images WHERE product_id IN (" + products + ")", categoryId);
+        jdbcTemplate.update("DELETE FROM product_variants WHERE product_id IN (" + products + ")", categoryId);
+        jdbcTemplate.update("DELETE FROM products WHERE category_id = ?", categoryId);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", categoryId);
+    }
+
+    @Test
+    void listingPageRunsFixedNumberOfStatementsRegardlessOfPageSize() {
+        for (int size : new int[]{1, 5, MAX_PAGE_SIZE}) {
+            assertEquals(STATEMENTS_PER_PAGE,
+                    SqlStatementCounter.count(() -> productService.getAllProducts(PageRequest.of(0, size, NEWEST_FIRST))));
+        }
+    }
+
+    @Test
+    void cursorPageRunsFixedNumberOfStatementsRegardlessOfPageSize() {
+        // Không có COUNT: query trang + batch variants + batch images
+        for (int size : new int[]{1, 5, MAX_PAGE_SIZE}) {
+            assertEquals(STATEMENTS_PER_PAGE - 1,
+                    SqlStatementCounter.count(() -> productService.getAllProductsByCursor(null, size)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.d4k.ecommerce.support;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SMTP giả thay cho mail server thật: ghi lại email đã "gửi" theo từng lần send (một kết nối SMTP),
+ * và từ chối email tới các địa chỉ được đánh dấu lỗi giống JavaMailSenderImpl
+ * (MailSendException kèm failedMessages của các email lỗi, các email khác vẫn được gửi).
+ */
+public class FakeMailSender extends JavaMailSenderImpl {
+
+    private final List<List<String>> connections = new CopyOnWriteArrayList<>();
+    private final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void send(MimeMessage... mimeMessages) {
+        List<String> delivered = new ArrayList<>();
+        Map<Object, Exception> failed = new LinkedHashMap<>();
+        for (MimeMessage message : mimeMessages) {
+            String recipient = recipientOf(message);
+            if (rejectedRecipients.contains(recipient)) {
+                failed.put(message, new MessagingException("550 Mailbox unavailable: " + recipient));
+            } else {
+                delivered.add(recipient);
+            }
+        }
+        connections.add(delivered);
+        if (!failed.isEmpty()) {
+            throw new MailSendException(failed);
+        }
+    }
+
+    public void reject(String recipient) {
+        rejectedRecipients.add(recipient);
+    }
+
+    public void accept(String recipient) {
+        rejectedRecipients.remove(recipient);
+    }
+
+    /**
+     * Số lần email tới recipient đã được gửi thành công
+     */
+    public long deliveredCount(String recipient) {
+        return connections.stream().flatMap(List::stream).filter(recipient::equals).count();
+    }
+
+    /**
+     * Số lần send (kết nối SMTP) có email tới ít nhất một trong các recipients
+     */
+    public long connectionsDelivering(Set<String> recipients) {
+        return connections.stream().filter(delivered -> delivered.stream().anyMatch(recipients::contains)).count();
+    }
+
+    private static String recipientOf(MimeMessage message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            return recipients != null && recipients.length > 0 ? recipients[0].toString() : null;
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.d4k.ecommerce.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.function.Supplier;
+
+/**
+ * Đếm câu lệnh SQL Hibernate chuẩn bị trên thread hiện tại
+ * (đăng ký qua hibernate.session_factory.statement_inspector).
+ * Chỉ tính thread đang đo nên các job nền chạy song song (outbox, flush giỏ hàng, suggest...) không làm lệch kết quả.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNTER = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Số câu lệnh SQL action chạy trên thread hiện tại
+     */
+    public static long count(Supplier<?> action) {
+        long[] counter = new long[1];
+        COUNTER.set(counter);
+        try {
+            action.get();
+            return counter[0];
+        } finally {
+            COUNTER.remove();
+        }
+    }
+}